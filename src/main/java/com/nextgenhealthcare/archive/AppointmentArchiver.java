@@ -0,0 +1,211 @@
+package com.nextgenhealthcare.archive;
+
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.sharding.ShardRouter;
+import com.nextgenhealthcare.sharding.ShardRoutingDataSource;
+import com.nextgenhealthcare.stats.AppointmentStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves finished appointments older than {@code archive.horizon} from {@code appointments} into
+ * {@code appointments_archive}, so the live table (and every index on it) only holds the
+ * current schedule and recent history.
+ *
+ * Rows move in small batches, each copied and deleted in its own transaction, with a pause
+ * between batches and a per-run cap so the job never holds many locks or saturates the
+ * primary while the schedule is being used.
+ *
+ * With sharding each shard is archived in turn into the archive on shard 0: a batch is locked
+ * and deleted in a transaction on its shard, and copied to shard 0 (skipping rows already
+ * there) before that transaction commits, so a failed commit only leaves rows to be archived
+ * again on the next run.
+ */
+@Component
+public class AppointmentArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentArchiver.class);
+    private static final String COLUMNS = "id, patient_id, doctor_id, appointment_time, reason, status";
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final AppointmentStatistics statistics;
+    private final ShardRouter shardRouter;
+    // The archive's database when appointments are sharded
+    private final NamedParameterJdbcTemplate home;
+    private final Duration horizon;
+    private final List<String> statuses;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration pause;
+    private final ReentrantLock archiving = new ReentrantLock();
+
+    public AppointmentArchiver(NamedParameterJdbcTemplate jdbc,
+                               TransactionTemplate tx,
+                               AppointmentStatistics statistics,
+                               ObjectProvider<ShardRouter> shardRouter,
+                               ObjectProvider<ShardRoutingDataSource> shards,
+                               @Value("${archive.horizon:P365D}") Duration horizon,
+                               @Value("${archive.statuses:COMPLETED,CANCELLED}") List<String> statuses,
+                               @Value("${archive.batch-size:500}") int batchSize,
+                               @Value("${archive.max-batches-per-run:200}") int maxBatchesPerRun,
+                               @Value("${archive.batch-pause:PT0.2S}") Duration pause) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.statistics = statistics;
+        this.shardRouter = shardRouter.getIfAvailable();
+        ShardRoutingDataSource routing = shards.getIfAvailable();
+        this.home = routing != null ? new NamedParameterJdbcTemplate(routing.shard(0)) : null;
+        this.horizon = horizon;
+        this.statuses = statuses.stream().map(String::trim).toList();
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.pause = pause;
+    }
+
+    @Scheduled(initialDelayString = "${archive.initial-delay-ms:600000}",
+            fixedDelayString = "${archive.interval-ms:3600000}")
+    public void scheduledArchive() {
+        archive(LocalDateTime.now().minus(horizon));
+    }
+
+    /**
+     * Archives eligible appointments scheduled before {@code cutoff}, up to the per-run cap.
+     *
+     * @return number of appointments moved
+     */
+    public int archive(LocalDateTime cutoff) {
+        archiving.lock();
+        try {
+            int total = 0;
+            int batches = 0;
+            List<Integer> shards = shardRouter != null ? shardRouter.allShards() : List.of(0);
+            run:
+            for (int shard : shards) {
+                while (batches < maxBatchesPerRun) {
+                    if (batches++ > 0 && !pause.isZero()) {
+                        try {
+                            Thread.sleep(pause.toMillis());
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            break run;
+                        }
+                    }
+                    Integer moved;
+                    try {
+                        moved = shard == 0 ? tx.execute(status -> moveBatch(cutoff))
+                                : shardRouter.onShard(shard, false, () -> moveBatchToHome(cutoff));
+                    } catch (Exception e) {
+                        log.warn("Appointment archiving failed on shard {}, will retry: {}", shard, e.getMessage());
+                        break;
+                    }
+                    if (moved == null || moved == 0) {
+                        break;
+                    }
+                    total += moved;
+                    if (moved < batchSize) {
+                        break;
+                    }
+                }
+            }
+            if (total > 0) {
+                log.info("Archived {} appointment(s) scheduled before {}", total, cutoff);
+            }
+            return total;
+        } finally {
+            archiving.unlock();
+        }
+    }
+
+    private int moveBatch(LocalDateTime cutoff) {
+        MapSqlParameterSource params = batchParams(cutoff);
+        List<Long> ids = new ArrayList<>();
+        List<Appointment.PersistedState> removed = new ArrayList<>();
+        // Locks the batch so a concurrent update can't slip in between the copy and the delete
+        jdbc.query("SELECT id, doctor_id, status, appointment_time FROM appointments "
+                        + "WHERE appointment_time < :cutoff AND status IN (:statuses) "
+                        + "ORDER BY appointment_time, id LIMIT :limit FOR UPDATE", params,
+                rs -> {
+                    ids.add(rs.getLong(1));
+                    removed.add(stateOf(rs));
+                });
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        params.addValue("ids", ids).addValue("archivedAt", Timestamp.valueOf(LocalDateTime.now()));
+        jdbc.update("INSERT INTO appointments_archive (" + COLUMNS + ", archived_at) "
+                + "SELECT " + COLUMNS + ", :archivedAt FROM appointments WHERE id IN (:ids)", params);
+        jdbc.update("DELETE FROM appointments WHERE id IN (:ids)", params);
+        // The statistics describe the live table
+        removed.forEach(statistics::onDeleted);
+        return ids.size();
+    }
+
+    // The same for a shard other than 0: the rows are copied across rather than with INSERT ... SELECT
+    private int moveBatchToHome(LocalDateTime cutoff) {
+        MapSqlParameterSource params = batchParams(cutoff);
+        Timestamp archivedAt = Timestamp.valueOf(LocalDateTime.now());
+        List<MapSqlParameterSource> rows = new ArrayList<>();
+        List<Appointment.PersistedState> removed = new ArrayList<>();
+        jdbc.query("SELECT id, doctor_id, status, appointment_time, patient_id, reason FROM appointments "
+                        + "WHERE appointment_time < :cutoff AND status IN (:statuses) "
+                        + "ORDER BY appointment_time, id LIMIT :limit FOR UPDATE", params,
+                rs -> {
+                    removed.add(stateOf(rs));
+                    rows.add(new MapSqlParameterSource()
+                            .addValue("id", rs.getLong(1))
+                            .addValue("patient_id", rs.getObject(5))
+                            .addValue("doctor_id", rs.getObject(2))
+                            .addValue("appointment_time", rs.getTimestamp(4))
+                            .addValue("reason", rs.getString(6))
+                            .addValue("status", rs.getString(3))
+                            .addValue("archived_at", archivedAt));
+                });
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = rows.stream().map(r -> (Long) r.getValue("id")).toList();
+        // Copied by an earlier run whose delete did not commit
+        Set<Long> archived = new HashSet<>(home.queryForList(
+                "SELECT id FROM appointments_archive WHERE id IN (:ids)", Map.of("ids", ids), Long.class));
+        home.batchUpdate("INSERT INTO appointments_archive (" + COLUMNS + ", archived_at) VALUES "
+                        + "(:id, :patient_id, :doctor_id, :appointment_time, :reason, :status, :archived_at)",
+                rows.stream().filter(r -> !archived.contains((Long) r.getValue("id")))
+                        .toArray(MapSqlParameterSource[]::new));
+        jdbc.update("DELETE FROM appointments WHERE id IN (:ids)", params.addValue("ids", ids));
+        removed.forEach(statistics::onDeleted);
+        return ids.size();
+    }
+
+    private MapSqlParameterSource batchParams(LocalDateTime cutoff) {
+        return new MapSqlParameterSource()
+                .addValue("cutoff", Timestamp.valueOf(cutoff))
+                .addValue("statuses", statuses)
+                .addValue("limit", batchSize);
+    }
+
+    private static Appointment.PersistedState stateOf(ResultSet rs) throws SQLException {
+        long doctorId = rs.getLong(2);
+        return new Appointment.PersistedState(rs.wasNull() ? null : doctorId,
+                rs.getString(3), rs.getTimestamp(4).toLocalDateTime());
+    }
+}
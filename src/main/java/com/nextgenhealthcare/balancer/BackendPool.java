@@ -0,0 +1,305 @@
+package com.nextgenhealthcare.balancer;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Client-side load balancing over replicas of one HTTP service.
+ *
+ * Each call goes to the less loaded of two randomly picked replicas (power of two choices on
+ * outstanding requests). A replica failing {@code ejectAfterFailures} times in a row (connection
+ * error, timeout or 5xx) is ejected for {@code baseEjectionTime} times the number of back-to-back
+ * ejections; a failed call moves on to a replica it has not tried yet. When every replica is
+ * ejected, ejected ones are used rather than failing outright.
+ *
+ * With hedging on, a call still running after the recent p95 latency is sent to a second
+ * replica as well; the first response wins and the other request is cancelled, so only the
+ * slowest ~5% of calls are duplicated.
+ */
+public class BackendPool implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(BackendPool.class);
+    private static final int LATENCY_WINDOW = 512;
+    private static final int MAX_EJECTION_MULTIPLIER = 10;
+
+    private final String name;
+    private final List<Backend> backends;
+    private final int ejectAfterFailures;
+    private final Duration baseEjectionTime;
+    private final boolean hedging;
+    private final Duration minHedgeDelay;
+    private final int minHedgeSamples;
+
+    private final ReentrantLock latencyLock = new ReentrantLock();
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private int latencyCount;
+    private int samplesSinceP95;
+    private long p95Nanos;
+    private final LongAdder hedges = new LongAdder();
+
+    public BackendPool(String name, List<String> urls, int ejectAfterFailures, Duration baseEjectionTime,
+                       boolean hedging, Duration minHedgeDelay, int minHedgeSamples) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("No backends for " + name);
+        }
+        this.name = name;
+        this.backends = urls.stream().map(String::trim).map(Backend::new).toList();
+        this.ejectAfterFailures = ejectAfterFailures;
+        this.baseEjectionTime = baseEjectionTime;
+        this.hedging = hedging;
+        this.minHedgeDelay = minHedgeDelay;
+        this.minHedgeSamples = minHedgeSamples;
+    }
+
+    public List<String> urls() {
+        return backends.stream().map(Backend::url).toList();
+    }
+
+    /**
+     * Runs {@code request} (given a replica's base URL) against the pool, failing over to
+     * untried replicas and hedging if enabled.
+     */
+    public <T> Mono<T> execute(Function<String, Mono<T>> request, boolean hedge) {
+        return Mono.defer(() -> {
+            Set<Backend> tried = ConcurrentHashMap.newKeySet();
+            Mono<T> primary = attempt(request, tried);
+            Duration delay = hedge ? hedgeDelay() : null;
+            if (delay == null) {
+                return primary;
+            }
+            Mono<T> hedged = Mono.delay(delay).then(Mono.defer(() -> {
+                hedges.increment();
+                return attempt(request, tried);
+            }));
+            return Mono.firstWithValue(primary, hedged)
+                    .onErrorMap(NoSuchElementException.class, BackendPool::firstCause);
+        });
+    }
+
+    /**
+     * Sends a streaming request to one replica; no failover or hedging once items may have
+     * been emitted.
+     */
+    public <T> Flux<T> stream(Function<String, Flux<T>> request) {
+        return Flux.defer(() -> {
+            Backend backend = choose(Set.of());
+            backend.outstanding.incrementAndGet();
+            return request.apply(backend.url)
+                    .doOnComplete(backend::onSuccess)
+                    .doOnError(e -> onError(backend, e))
+                    .doFinally(signal -> backend.outstanding.decrementAndGet());
+        });
+    }
+
+    private <T> Mono<T> attempt(Function<String, Mono<T>> request, Set<Backend> tried) {
+        Backend backend = choose(tried);
+        if (backend == null) {
+            return Mono.error(new NoSuchElementException("All " + name + " backends tried"));
+        }
+        tried.add(backend);
+        return Mono.defer(() -> {
+            backend.outstanding.incrementAndGet();
+            long start = System.nanoTime();
+            return request.apply(backend.url)
+                    .doOnSuccess(value -> {
+                        recordLatency(System.nanoTime() - start);
+                        backend.onSuccess();
+                    })
+                    // Cancelled hedges and failovers free their slot here without a sample
+                    .doFinally(signal -> backend.outstanding.decrementAndGet());
+        }).onErrorResume(e -> {
+            if (!isBackendFailure(e)) {
+                return Mono.error(e);
+            }
+            onError(backend, e);
+            return tried.size() < backends.size() ? attempt(request, tried) : Mono.error(e);
+        });
+    }
+
+    // Power of two choices among untried replicas, preferring those not ejected
+    private Backend choose(Set<Backend> tried) {
+        long now = System.nanoTime();
+        List<Backend> candidates = new ArrayList<>(backends.size());
+        for (Backend b : backends) {
+            if (!tried.contains(b) && !b.isEjected(now)) {
+                candidates.add(b);
+            }
+        }
+        if (candidates.isEmpty()) {
+            for (Backend b : backends) {
+                if (!tried.contains(b)) {
+                    candidates.add(b);
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(candidates.size());
+        int j = random.nextInt(candidates.size() - 1);
+        if (j >= i) {
+            j++;
+        }
+        Backend a = candidates.get(i);
+        Backend b = candidates.get(j);
+        return a.outstanding.get() <= b.outstanding.get() ? a : b;
+    }
+
+    private void onError(Backend backend, Throwable e) {
+        if (isBackendFailure(e)) {
+            backend.onFailure(e);
+        }
+    }
+
+    // A 4xx is the request's fault, not the replica's
+    private static boolean isBackendFailure(Throwable e) {
+        return !(e instanceof WebClientResponseException w) || w.getStatusCode().is5xxServerError();
+    }
+
+    private static Throwable firstCause(NoSuchElementException e) {
+        return Arrays.stream(e.getSuppressed())
+                .filter(s -> !(s instanceof NoSuchElementException))
+                .findFirst()
+                .orElse(e);
+    }
+
+    private void recordLatency(long nanos) {
+        latencyLock.lock();
+        try {
+            latencies[latencyCount++ % LATENCY_WINDOW] = nanos;
+            samplesSinceP95++;
+        } finally {
+            latencyLock.unlock();
+        }
+    }
+
+    // Recent p95, recomputed every 32 samples; null while too few samples to trust it
+    private Duration hedgeDelay() {
+        if (!hedging || backends.size() < 2) {
+            return null;
+        }
+        latencyLock.lock();
+        try {
+            int n = Math.min(latencyCount, LATENCY_WINDOW);
+            if (n < minHedgeSamples) {
+                return null;
+            }
+            if (p95Nanos == 0 || samplesSinceP95 >= 32) {
+                long[] sorted = Arrays.copyOf(latencies, n);
+                Arrays.sort(sorted);
+                p95Nanos = sorted[(int) Math.ceil(n * 0.95) - 1];
+                samplesSinceP95 = 0;
+            }
+            return Duration.ofNanos(Math.max(p95Nanos, minHedgeDelay.toNanos()));
+        } finally {
+            latencyLock.unlock();
+        }
+    }
+
+    public int outstanding(String url) {
+        return backend(url).outstanding.get();
+    }
+
+    public boolean isEjected(String url) {
+        return backend(url).isEjected(System.nanoTime());
+    }
+
+    public long hedgeCount() {
+        return hedges.sum();
+    }
+
+    private Backend backend(String url) {
+        return backends.stream().filter(b -> b.url.equals(url)).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown backend " + url));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Backend b : backends) {
+            Gauge.builder("backend.pool.outstanding", b.outstanding, AtomicInteger::get)
+                    .tag("name", name).tag("backend", b.url).register(registry);
+            Gauge.builder("backend.pool.ejected", b, backend -> backend.isEjected(System.nanoTime()) ? 1 : 0)
+                    .tag("name", name).tag("backend", b.url).register(registry);
+        }
+        FunctionCounter.builder("backend.pool.hedges", hedges, LongAdder::sum)
+                .tag("name", name).register(registry);
+    }
+
+    @Override
+    public String toString() {
+        return name + urls();
+    }
+
+    private final class Backend {
+
+        private final String url;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final ReentrantLock lock = new ReentrantLock();
+        private int consecutiveFailures;
+        private int consecutiveEjections;
+        private volatile long ejectedUntil;
+
+        private Backend(String url) {
+            this.url = url;
+        }
+
+        private String url() {
+            return url;
+        }
+
+        private boolean isEjected(long now) {
+            return ejectedUntil - now > 0;
+        }
+
+        private void onSuccess() {
+            lock.lock();
+            try {
+                consecutiveFailures = 0;
+                consecutiveEjections = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void onFailure(Throwable e) {
+            lock.lock();
+            try {
+                if (++consecutiveFailures < ejectAfterFailures || isEjected(System.nanoTime())) {
+                    return;
+                }
+                consecutiveFailures = 0;
+                consecutiveEjections = Math.min(consecutiveEjections + 1, MAX_EJECTION_MULTIPLIER);
+                Duration ejection = baseEjectionTime.multipliedBy(consecutiveEjections);
+                ejectedUntil = System.nanoTime() + ejection.toNanos();
+                log.warn("Ejecting {} backend {} for {} after {} consecutive failures, last: {}",
+                        name, url, ejection, ejectAfterFailures, e.toString());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
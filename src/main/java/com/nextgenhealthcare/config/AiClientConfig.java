@@ -0,0 +1,121 @@
+package com.nextgenhealthcare.config;
+
+import com.nextgenhealthcare.balancer.BackendPool;
+import com.nextgenhealthcare.limit.AdaptiveConcurrencyLimiter;
+import io.micrometer.observation.ObservationRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * HTTP client for the AI service: its own connection pool, sized and evicted independently of
+ * any other WebClient, with connect/response timeouts and a cap on buffered response size.
+ *
+ * Pool gauges and the acquire-time timer are published as
+ * {@code reactor.netty.connection.provider.*{name=ai-service}}; the pending-acquire count and
+ * {@code pending.connections.time} show callers queueing for a connection.
+ */
+@Configuration
+public class AiClientConfig {
+
+    static final String POOL_NAME = "ai-service";
+
+    private final int maxConnections;
+    private final int pendingAcquireMax;
+    private final Duration pendingAcquireTimeout;
+    private final Duration maxIdleTime;
+    private final Duration maxLifeTime;
+    private final Duration evictInterval;
+    private final Duration connectTimeout;
+    private final Duration responseTimeout;
+    private final DataSize maxInMemorySize;
+    private final boolean http2PriorKnowledge;
+
+    public AiClientConfig(@Value("${ai.client.max-connections:50}") int maxConnections,
+                          @Value("${ai.client.pending-acquire-max:500}") int pendingAcquireMax,
+                          @Value("${ai.client.pending-acquire-timeout:PT5S}") Duration pendingAcquireTimeout,
+                          @Value("${ai.client.max-idle-time:PT30S}") Duration maxIdleTime,
+                          @Value("${ai.client.max-life-time:PT5M}") Duration maxLifeTime,
+                          @Value("${ai.client.evict-interval:PT30S}") Duration evictInterval,
+                          @Value("${ai.client.connect-timeout:PT2S}") Duration connectTimeout,
+                          @Value("${ai.client.response-timeout:PT30S}") Duration responseTimeout,
+                          @Value("${ai.client.max-in-memory-size:1MB}") DataSize maxInMemorySize,
+                          @Value("${ai.client.http2-prior-knowledge:false}") boolean http2PriorKnowledge) {
+        this.maxConnections = maxConnections;
+        this.pendingAcquireMax = pendingAcquireMax;
+        this.pendingAcquireTimeout = pendingAcquireTimeout;
+        this.maxIdleTime = maxIdleTime;
+        this.maxLifeTime = maxLifeTime;
+        this.evictInterval = evictInterval;
+        this.connectTimeout = connectTimeout;
+        this.responseTimeout = responseTimeout;
+        this.maxInMemorySize = maxInMemorySize;
+        this.http2PriorKnowledge = http2PriorKnowledge;
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider aiConnectionProvider() {
+        return ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                // Below the idle timeout of the AI service and any proxy in front of it, so a
+                // pooled connection is not reused just as the other side closes it
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInterval)
+                .metrics(true)
+                .build();
+    }
+
+    // Bound to the meter registry by Spring Boot as a MeterBinder, like the limiter below
+    @Bean
+    public BackendPool aiBackendPool(@Value("${ai.service.urls:${ai.service.url:http://localhost:5000}}") List<String> urls,
+                                     @Value("${ai.backends.eject-after-failures:3}") int ejectAfterFailures,
+                                     @Value("${ai.backends.base-ejection-time:PT30S}") Duration baseEjectionTime,
+                                     @Value("${ai.backends.hedge.enabled:true}") boolean hedging,
+                                     @Value("${ai.backends.hedge.min-delay:PT0.05S}") Duration minHedgeDelay,
+                                     @Value("${ai.backends.hedge.min-samples:50}") int minHedgeSamples) {
+        return new BackendPool(POOL_NAME, urls, ejectAfterFailures, baseEjectionTime,
+                hedging, minHedgeDelay, minHedgeSamples);
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter aiConcurrencyLimiter(@Value("${ai.limiter.initial-limit:20}") int initialLimit,
+                                                           @Value("${ai.limiter.min-limit:2}") int minLimit,
+                                                           @Value("${ai.limiter.max-limit:50}") int maxLimit,
+                                                           @Value("${ai.limiter.rtt-tolerance:1.5}") double rttTolerance,
+                                                           @Value("${ai.limiter.smoothing:0.2}") double smoothing,
+                                                           @Value("${ai.limiter.max-queue-wait:PT0.05S}") Duration maxQueueWait) {
+        return new AdaptiveConcurrencyLimiter(POOL_NAME, initialLimit, minLimit, maxLimit,
+                rttTolerance, smoothing, maxQueueWait);
+    }
+
+    @Bean
+    public WebClient.Builder aiWebClientBuilder(@Qualifier("aiConnectionProvider") ConnectionProvider aiConnectionProvider,
+                                                ObjectProvider<ObservationRegistry> observationRegistry) {
+        HttpClient httpClient = HttpClient.create(aiConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(responseTimeout)
+                .keepAlive(true)
+                // h2c without upgrade: only for an AI service known to speak HTTP/2 in cleartext
+                .protocol(http2PriorKnowledge ? HttpProtocol.H2C : HttpProtocol.HTTP11);
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize((int) maxInMemorySize.toBytes()))
+                .observationRegistry(observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
+    }
+}
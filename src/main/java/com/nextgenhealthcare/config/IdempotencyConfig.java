@@ -0,0 +1,38 @@
+package com.nextgenhealthcare.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nextgenhealthcare.idempotency.IdempotencyFilter;
+import com.nextgenhealthcare.idempotency.IdempotencyStore;
+import com.nextgenhealthcare.idempotency.InMemoryIdempotencyStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Idempotency-Key support on the appointment write endpoints. Retries are answered from an
+ * in-memory store unless an {@link IdempotencyStore} bean is declared.
+ */
+@Configuration
+public class IdempotencyConfig {
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(
+            ObjectProvider<IdempotencyStore> store,
+            ObjectMapper objectMapper,
+            @Value("${app.idempotency.ttl:PT24H}") Duration ttl,
+            @Value("${app.idempotency.max-entries:100000}") int maxEntries,
+            @Value("${app.idempotency.max-wait:PT10S}") Duration maxWait,
+            @Value("${app.idempotency.max-body:1MB}") DataSize maxBody) {
+        IdempotencyFilter filter = new IdempotencyFilter(
+                store.getIfAvailable(() -> new InMemoryIdempotencyStore(ttl, maxEntries)), objectMapper, maxWait,
+                Math.toIntExact(maxBody.toBytes()));
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/appointments", "/appointments/*");
+        return registration;
+    }
+}
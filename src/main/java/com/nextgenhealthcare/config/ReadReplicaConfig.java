@@ -0,0 +1,92 @@
+package com.nextgenhealthcare.config;
+
+import com.nextgenhealthcare.datasource.ReadYourWrites;
+import com.nextgenhealthcare.datasource.ReplicaRoutingDataSource;
+import com.nextgenhealthcare.tracing.ObservedDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.observation.ObservationRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read/write splitting, enabled by listing replica URLs in {@code app.datasource.replicas.urls}.
+ * The primary keeps the {@code spring.datasource.*} settings; replicas reuse its credentials and
+ * {@code spring.datasource.hikari.*} pool settings unless overridden under
+ * {@code app.datasource.replicas.*}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replicas.urls")
+public class ReadReplicaConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            DataSourceProperties properties,
+            Environment env,
+            @Value("${app.datasource.replicas.urls}") List<String> replicaUrls,
+            @Value("${app.datasource.replicas.username:}") String replicaUsername,
+            @Value("${app.datasource.replicas.password:}") String replicaPassword,
+            ObjectProvider<ObservationRegistry> observationRegistry) {
+        ObservationRegistry registry = observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP);
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        applyPoolSettings(env, primary);
+        primary.setPoolName("primary");
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                    .url(replicaUrls.get(i).trim())
+                    .username(replicaUsername.isEmpty() ? properties.determineUsername() : replicaUsername)
+                    .password(replicaPassword.isEmpty() ? properties.determinePassword() : replicaPassword)
+                    .build();
+            applyPoolSettings(env, replica);
+            Binder.get(env).bind("app.datasource.replicas.hikari", Bindable.ofInstance(replica));
+            replica.setPoolName("replica-" + i);
+            replica.setReadOnly(true);
+            replicas.add(new ObservedDataSource(replica, registry, replica.getPoolName()));
+        }
+        return new ReplicaRoutingDataSource(new ObservedDataSource(primary, registry, "primary"), replicas);
+    }
+
+    // The physical connection is fetched on the first statement, after the transaction's
+    // read-only flag is known
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routing) {
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    // Spring's default holds one connection for the whole request when open-in-view is on,
+    // which would pin a write after a read onto the replica
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionsAfterTransaction() {
+        return props -> props.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites(
+            @Value("${app.datasource.read-your-writes-window:PT5S}") Duration window) {
+        return new ReadYourWrites(window);
+    }
+
+    private static void applyPoolSettings(Environment env, HikariDataSource ds) {
+        Binder.get(env).bind("spring.datasource.hikari", Bindable.ofInstance(ds));
+    }
+}
@@ -0,0 +1,181 @@
+package com.nextgenhealthcare.config;
+
+import com.nextgenhealthcare.repository.AppointmentRepository;
+import com.nextgenhealthcare.repository.DoctorRepository;
+import com.nextgenhealthcare.repository.PatientRepository;
+import com.nextgenhealthcare.service.AppointmentService;
+import com.nextgenhealthcare.sharding.GlobalIdGenerator;
+import com.nextgenhealthcare.sharding.ReferenceTableInterceptor;
+import com.nextgenhealthcare.sharding.ReferenceTables;
+import com.nextgenhealthcare.sharding.ShardMap;
+import com.nextgenhealthcare.sharding.ShardRebalancer;
+import com.nextgenhealthcare.sharding.ShardRouter;
+import com.nextgenhealthcare.sharding.ShardRoutingDataSource;
+import com.nextgenhealthcare.sharding.ShardedAppointmentInterceptor;
+import com.nextgenhealthcare.sharding.ShardedAppointmentServiceInterceptor;
+import com.nextgenhealthcare.tracing.ObservedDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Horizontal sharding of appointments by doctor id, enabled by listing the extra shards' URLs in
+ * {@code app.datasource.shards.urls}. Shard 0 is {@code spring.datasource.*} and keeps every
+ * unsharded table (reminders, archive, shard map); doctors and patients are copied to all
+ * shards. Outbox events are written on the appointment's shard and collected onto shard 0. Shards reuse the primary's credentials and pool settings unless overridden under
+ * {@code app.datasource.shards.*}. Not combinable with read replicas.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.shards.urls")
+public class ShardingConfig {
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(
+            DataSourceProperties properties,
+            Environment env,
+            @Value("${app.datasource.shards.urls}") List<String> shardUrls,
+            @Value("${app.datasource.shards.username:}") String shardUsername,
+            @Value("${app.datasource.shards.password:}") String shardPassword,
+            ObjectProvider<ObservationRegistry> observationRegistry) {
+        if (env.containsProperty("app.datasource.replicas.urls")) {
+            throw new IllegalStateException("app.datasource.shards.urls and app.datasource.replicas.urls can't both be set");
+        }
+        ObservationRegistry registry = observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP);
+        HikariDataSource home = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(env).bind("spring.datasource.hikari", Bindable.ofInstance(home));
+        home.setPoolName("shard-0");
+
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(new ObservedDataSource(home, registry, "shard-0"));
+        for (int i = 0; i < shardUrls.size(); i++) {
+            HikariDataSource shard = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                    .url(shardUrls.get(i).trim())
+                    .username(shardUsername.isEmpty() ? properties.determineUsername() : shardUsername)
+                    .password(shardPassword.isEmpty() ? properties.determinePassword() : shardPassword)
+                    .build();
+            Binder.get(env).bind("spring.datasource.hikari", Bindable.ofInstance(shard));
+            Binder.get(env).bind("app.datasource.shards.hikari", Bindable.ofInstance(shard));
+            shard.setPoolName("shard-" + (i + 1));
+            shards.add(new ObservedDataSource(shard, registry, shard.getPoolName()));
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    // As with replicas: the shard is known once the routed transaction has started
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource routing) {
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer releaseShardConnectionsAfterTransaction() {
+        return props -> props.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    // Rows keep their id when they change shard, so appointment ids come from one counter on shard 0
+    @Bean
+    public HibernatePropertiesCustomizer globalAppointmentIds(
+            @Value("${app.datasource.shards.id-block-size:100}") int idBlockSize) {
+        return props -> props.put(GlobalIdGenerator.BLOCK_SIZE, idBlockSize);
+    }
+
+    @Bean
+    public ShardMap shardMap(ShardRoutingDataSource shards,
+                             @Value("${app.datasource.shards.buckets:1024}") int buckets) {
+        return new ShardMap(new JdbcTemplate(shards.shard(0)), shards.shardCount(), buckets);
+    }
+
+    @Bean
+    public ReferenceTables referenceTables(ShardRoutingDataSource shards) {
+        return new ReferenceTables(shards);
+    }
+
+    @Bean
+    public ShardRouter shardRouter(ShardRoutingDataSource shards, ShardMap shardMap, ReferenceTables referenceTables,
+                                   EntityManagerFactory entityManagerFactory,
+                                   DataSource dataSource,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.datasource.shards.scatter-threads:16}") int scatterThreads,
+                                   @Value("${app.datasource.shards.scatter-timeout:PT10S}") Duration scatterTimeout) {
+        return new ShardRouter(shards, shardMap, referenceTables, entityManagerFactory, dataSource, transactionManager,
+                scatterThreads, scatterTimeout);
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(ShardRouter shardRouter) {
+        return new ShardRebalancer(shardRouter);
+    }
+
+    // Repositories are built before the router exists; the interceptors look it up on first use
+    @Bean
+    static BeanPostProcessor shardedRepositoryPostProcessor(ObjectProvider<ShardRouter> router,
+                                                            ObjectProvider<ReferenceTables> referenceTables) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxy, info) -> {
+                                Class<?> repository = info.getRepositoryInterface();
+                                if (repository == AppointmentRepository.class) {
+                                    proxy.addAdvice(new ShardedAppointmentInterceptor(router::getObject));
+                                } else if (repository == DoctorRepository.class) {
+                                    proxy.addAdvice(new ReferenceTableInterceptor(ReferenceTables.DOCTORS,
+                                            referenceTables::getObject));
+                                } else if (repository == PatientRepository.class) {
+                                    proxy.addAdvice(new ReferenceTableInterceptor(ReferenceTables.PATIENTS,
+                                            referenceTables::getObject));
+                                }
+                            }));
+                }
+                return bean;
+            }
+
+            // Ahead of the transaction advice, so the service's transaction starts on the right shard
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof AppointmentService)) {
+                    return bean;
+                }
+                ShardedAppointmentServiceInterceptor.checkRouted(AopUtils.getTargetClass(bean));
+                ShardedAppointmentServiceInterceptor routing = new ShardedAppointmentServiceInterceptor(router::getObject);
+                if (bean instanceof Advised advised) {
+                    advised.addAdvice(0, routing);
+                    return bean;
+                }
+                ProxyFactory factory = new ProxyFactory(bean);
+                factory.setProxyTargetClass(true);
+                factory.addAdvice(routing);
+                return factory.getProxy();
+            }
+        };
+    }
+}
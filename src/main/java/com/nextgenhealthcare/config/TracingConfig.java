@@ -0,0 +1,58 @@
+package com.nextgenhealthcare.config;
+
+import com.nextgenhealthcare.tracing.ObservedDataSource;
+import com.nextgenhealthcare.tracing.RepositoryObservationInterceptor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.observation.ObservationPredicate;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Spans below the controller: repository calls and connection checkout. HTTP server and
+ * WebClient spans come from Spring's own observations (see {@link WebClientConfig}); sampling
+ * and propagation are configured under {@code management.tracing.*}.
+ */
+@Configuration
+public class TracingConfig {
+
+    // Spring Security adds four spans per request that only restate the filter chain
+    @Bean
+    public ObservationPredicate skipSecurityObservations() {
+        return (name, context) -> !name.startsWith("spring.security.");
+    }
+
+    @Bean
+    static BeanPostProcessor repositoryObservationPostProcessor(ObjectProvider<ObservationRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxy, info) -> proxy.addAdvice(new RepositoryObservationInterceptor(
+                                    registry.getIfAvailable(() -> ObservationRegistry.NOOP),
+                                    info.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Replica pools are wrapped where ReadReplicaConfig builds them
+    @Bean
+    static BeanPostProcessor connectionAcquireObservationPostProcessor(ObjectProvider<ObservationRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource pool) {
+                    return new ObservedDataSource(pool, registry.getIfAvailable(() -> ObservationRegistry.NOOP),
+                            pool.getPoolName() != null ? pool.getPoolName() : beanName);
+                }
+                return bean;
+            }
+        };
+    }
+}
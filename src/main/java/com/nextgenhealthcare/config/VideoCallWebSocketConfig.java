@@ -1,25 +1,90 @@
 package com.nextgenhealthcare.config;
 
 import com.nextgenhealthcare.websocket.VideoCallWebSocketHandler;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHttpHeaders;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.StandardWebSocketUpgradeStrategy;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableWebSocket
 public class VideoCallWebSocketConfig implements WebSocketConfigurer {
 
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
     private final VideoCallWebSocketHandler videoCallWebSocketHandler;
+    private final boolean permessageDeflate;
 
-    public VideoCallWebSocketConfig(VideoCallWebSocketHandler videoCallWebSocketHandler) {
+    public VideoCallWebSocketConfig(VideoCallWebSocketHandler videoCallWebSocketHandler,
+                                    @Value("${app.signaling.permessage-deflate:true}") boolean permessageDeflate) {
         this.videoCallWebSocketHandler = videoCallWebSocketHandler;
+        this.permessageDeflate = permessageDeflate;
     }
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
         registry.addHandler(videoCallWebSocketHandler, "/ws/video")
+                .setHandshakeHandler(new DefaultHandshakeHandler(upgradeStrategy()) {
+                    @Override
+                    protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+                            List<WebSocketExtension> requested, List<WebSocketExtension> supported) {
+                        List<WebSocketExtension> accepted = super.filterRequestedExtensions(request, requested, supported);
+                        return permessageDeflate ? accepted
+                                : accepted.stream().filter(e -> !PERMESSAGE_DEFLATE.equals(e.getName())).toList();
+                    }
+                })
                 .setAllowedOrigins("*");
     }
-}
 
+    // Tomcat negotiates extensions again from the raw Sec-WebSocket-Extensions header, ignoring
+    // what the handshake handler accepted, so with deflate off the header is hidden from it
+    private StandardWebSocketUpgradeStrategy upgradeStrategy() {
+        return new StandardWebSocketUpgradeStrategy() {
+            @Override
+            protected void upgradeHttpToWebSocket(HttpServletRequest request, HttpServletResponse response,
+                    ServerEndpointConfig endpointConfig, Map<String, String> pathParams) throws Exception {
+                super.upgradeHttpToWebSocket(permessageDeflate ? request : withoutExtensions(request),
+                        response, endpointConfig, pathParams);
+            }
+        };
+    }
+
+    private static HttpServletRequest withoutExtensions(HttpServletRequest request) {
+        return new HttpServletRequestWrapper(request) {
+            @Override
+            public String getHeader(String name) {
+                return isExtensions(name) ? null : super.getHeader(name);
+            }
+
+            @Override
+            public Enumeration<String> getHeaders(String name) {
+                return isExtensions(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+            }
+
+            @Override
+            public Enumeration<String> getHeaderNames() {
+                return Collections.enumeration(Collections.list(super.getHeaderNames()).stream()
+                        .filter(name -> !isExtensions(name)).toList());
+            }
+
+            private boolean isExtensions(String name) {
+                return WebSocketHttpHeaders.SEC_WEBSOCKET_EXTENSIONS.equalsIgnoreCase(name);
+            }
+        };
+    }
+}
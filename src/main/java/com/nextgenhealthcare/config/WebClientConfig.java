@@ -1,17 +1,21 @@
 package com.nextgenhealthcare.config;
 
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.web.reactive.function.client.WebClient;
 
 @Configuration
 public class WebClientConfig {
     
+    // Observed: each exchange is a client span and carries the trace context (traceparent).
+    // The AI service has its own builder in AiClientConfig
     @Bean
-    public WebClient.Builder webClientBuilder() {
-        return WebClient.builder();
+    @Primary
+    public WebClient.Builder webClientBuilder(ObjectProvider<ObservationRegistry> observationRegistry) {
+        return WebClient.builder()
+                .observationRegistry(observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
     }
 }
-
-
-
@@ -4,8 +4,11 @@ import com.nextgenhealthcare.dto.SymptomCheckRequest;
 import com.nextgenhealthcare.dto.SymptomCheckResponse;
 import com.nextgenhealthcare.service.AIService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -35,6 +38,15 @@ public class AIController {
         return ResponseEntity.ok(response);
     }
     
+    // Partial results as they arrive: symptoms, then conditions, then the recommendation
+    @PostMapping(value = "/symptom-check/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<Map<String, Object>>>> streamSymptoms(@RequestBody SymptomCheckRequest request) {
+        if (request.getSymptoms() == null || request.getSymptoms().trim().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(aiService.streamSymptomCheck(request.getSymptoms()));
+    }
+    
     @GetMapping("/health")
     public ResponseEntity<Map<String, String>> health() {
         boolean isAvailable = aiService.isServiceAvailable();
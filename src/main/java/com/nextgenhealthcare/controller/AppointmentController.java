@@ -1,17 +1,29 @@
 package com.nextgenhealthcare.controller;
 
+import com.nextgenhealthcare.dto.AppointmentChangeFeed;
 import com.nextgenhealthcare.dto.AppointmentDTO;
+import com.nextgenhealthcare.dto.AppointmentResponse;
+import com.nextgenhealthcare.dto.FieldsetResponse;
+import com.nextgenhealthcare.exception.InvalidFieldsException;
 import com.nextgenhealthcare.exception.ResourceNotFoundException;
+import com.nextgenhealthcare.live.AppointmentLiveFeed;
 import com.nextgenhealthcare.model.Appointment;
 import com.nextgenhealthcare.model.Doctor;
 import com.nextgenhealthcare.model.Patient;
+import com.nextgenhealthcare.outbox.AppointmentOutbox;
 import com.nextgenhealthcare.repository.AppointmentRepository;
 import com.nextgenhealthcare.repository.DoctorRepository;
+import com.nextgenhealthcare.repository.FieldProjection;
 import com.nextgenhealthcare.repository.PatientRepository;
 import com.nextgenhealthcare.service.AppointmentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -21,30 +33,78 @@ public class AppointmentController {
     @Autowired private AppointmentRepository appointmentRepo;
     @Autowired private DoctorRepository doctorRepo;
     @Autowired private PatientRepository patientRepo;
+    @Autowired private AppointmentOutbox outbox;
+    @Autowired private AppointmentLiveFeed liveFeed;
 
+    // The lists take ?fields=id,appointmentTime,status,doctorName for just those columns, selected as such (no ETag)
     @GetMapping
-    public List<Appointment> getAll() { return appointmentService.getAllAppointments(); }
+    public ResponseEntity<?> getAll(@RequestParam(required = false) String fields) {
+        if (fields != null) {
+            List<String> picked = FieldProjection.APPOINTMENTS.parse(fields);
+            return ResponseEntity.ok(new FieldsetResponse(picked, appointmentService.getAllFields(picked)));
+        }
+        return withListETag(appointmentService.getAllAppointments());
+    }
+
+    // Incremental sync: pass the returned nextSince back as since
+    @GetMapping("/changes")
+    public ResponseEntity<AppointmentChangeFeed> changes(@RequestParam(defaultValue = "0") long since,
+                                                         @RequestParam(defaultValue = "500") int limit) {
+        AppointmentChangeFeed feed = outbox.changesSince(since, limit);
+        return feed.isCursorExpired() ? ResponseEntity.status(HttpStatus.GONE).body(feed) : ResponseEntity.ok(feed);
+    }
 
+    // Dashboard push instead of polling: a snapshot, then upsert/deleted events for one doctor or one day
+    @GetMapping(value = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> live(@RequestParam(required = false) Long doctorId,
+                                           @RequestParam(required = false)
+                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        if ((doctorId == null) == (date == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(liveFeed.subscribe(doctorId != null
+                ? AppointmentLiveFeed.doctorTopic(doctorId) : AppointmentLiveFeed.dayTopic(date)));
+    }
+
+    // Live appointments only, unless includeArchived=true asks for the full history
     @GetMapping("/patient/{patientId}")
-    public List<Appointment> getByPatientId(@PathVariable Long patientId) {
-        return appointmentService.getByPatientId(patientId);
+    public ResponseEntity<?> getByPatientId(@PathVariable Long patientId,
+                                            @RequestParam(defaultValue = "false") boolean includeArchived,
+                                            @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            if (includeArchived) {
+                throw new InvalidFieldsException("fields can't be combined with includeArchived=true");
+            }
+            List<String> picked = FieldProjection.APPOINTMENTS.parse(fields);
+            return ResponseEntity.ok(new FieldsetResponse(picked, appointmentService.getFieldsByPatientId(patientId, picked)));
+        }
+        return withListETag(includeArchived
+                ? appointmentService.getPatientHistory(patientId)
+                : appointmentService.getByPatientId(patientId));
     }
 
     @GetMapping("/doctor/{doctorId}")
-    public List<Appointment> getByDoctorId(@PathVariable Long doctorId) {
-        return appointmentService.getByDoctorId(doctorId);
+    public ResponseEntity<?> getByDoctorId(@PathVariable Long doctorId, @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            List<String> picked = FieldProjection.APPOINTMENTS.parse(fields);
+            return ResponseEntity.ok(new FieldsetResponse(picked, appointmentService.getFieldsByDoctorId(doctorId, picked)));
+        }
+        return withListETag(appointmentService.getByDoctorId(doctorId));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Appointment> getById(@PathVariable Long id) {
-        return appointmentService.getAppointmentById(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<AppointmentResponse> getById(@PathVariable Long id) {
+        return appointmentService.getAppointmentById(id)
+                .map(a -> ResponseEntity.ok().eTag(ETags.of("appointment", a.getId(), a.getVersion()))
+                        .body(AppointmentResponse.from(a)))
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
-    public ResponseEntity<Appointment> create(@RequestBody AppointmentDTO dto) {
-        Patient patient = patientRepo.findById(dto.getPatientId())
+    public ResponseEntity<AppointmentResponse> create(@RequestBody AppointmentDTO dto) {
+        Patient patient = patientRepo.findByIdAndDeletedAtIsNull(dto.getPatientId())
                 .orElseThrow(() -> new ResourceNotFoundException("Patient not found: " + dto.getPatientId()));
-        Doctor doctor = doctorRepo.findById(dto.getDoctorId())
+        Doctor doctor = doctorRepo.findByIdAndDeletedAtIsNull(dto.getDoctorId())
                 .orElseThrow(() -> new ResourceNotFoundException("Doctor not found: " + dto.getDoctorId()));
 
         Appointment appointment = new Appointment(
@@ -56,25 +116,25 @@ public class AppointmentController {
         );
 
         Appointment created = appointmentService.createAppointment(appointment);
-        return ResponseEntity.status(201).body(created);
+        return ResponseEntity.status(201).body(AppointmentResponse.from(created));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Appointment> update(@PathVariable Long id, @RequestBody AppointmentDTO dto) {
+    public ResponseEntity<AppointmentResponse> update(@PathVariable Long id, @RequestBody AppointmentDTO dto) {
         // Get existing appointment
-        Appointment existingAppointment = appointmentService.getAppointmentById(id)
+        Appointment existingAppointment = appointmentService.getAppointmentForUpdate(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Appointment not found: " + id));
 
         // Update patient if patientId is provided
         if (dto.getPatientId() != null) {
-            Patient patient = patientRepo.findById(dto.getPatientId())
+            Patient patient = patientRepo.findByIdAndDeletedAtIsNull(dto.getPatientId())
                     .orElseThrow(() -> new ResourceNotFoundException("Patient not found: " + dto.getPatientId()));
             existingAppointment.setPatient(patient);
         }
 
         // Update doctor if doctorId is provided
         if (dto.getDoctorId() != null) {
-            Doctor doctor = doctorRepo.findById(dto.getDoctorId())
+            Doctor doctor = doctorRepo.findByIdAndDeletedAtIsNull(dto.getDoctorId())
                     .orElseThrow(() -> new ResourceNotFoundException("Doctor not found: " + dto.getDoctorId()));
             existingAppointment.setDoctor(doctor);
         }
@@ -91,8 +151,8 @@ public class AppointmentController {
         }
 
         // Save the updated appointment
-        Appointment updated = appointmentRepo.save(existingAppointment);
-        return ResponseEntity.ok(updated);
+        Appointment updated = appointmentService.saveAppointment(existingAppointment);
+        return ResponseEntity.ok(AppointmentResponse.from(updated));
     }
 
     @DeleteMapping("/{id}")
@@ -100,4 +160,10 @@ public class AppointmentController {
         appointmentService.deleteAppointment(id);
         return ResponseEntity.noContent().build();
     }
+
+    private static ResponseEntity<List<AppointmentResponse>> withListETag(List<Appointment> appointments) {
+        return ResponseEntity.ok()
+                .eTag(ETags.ofList("appointments", appointments, Appointment::getId, Appointment::getVersion))
+                .body(appointments.stream().map(AppointmentResponse::from).toList());
+    }
 }
@@ -1,6 +1,9 @@
 package com.nextgenhealthcare.controller;
 
+import com.nextgenhealthcare.dto.FieldsetResponse;
+import com.nextgenhealthcare.dto.DoctorResponse;
 import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.repository.FieldProjection;
 import com.nextgenhealthcare.service.DoctorService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -12,12 +15,31 @@ import java.util.List;
 public class DoctorController {
     @Autowired private DoctorService service;
 
+    // Lean view by default; ?include=appointments returns the full entity graph (no ETag) and
+    // ?fields=id,name only the named columns, selected as such (no ETag)
     @GetMapping
-    public List<Doctor> getAll() { return service.getAll(); }
+    public ResponseEntity<?> getAll(@RequestParam(required = false) String include,
+                                    @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            List<String> picked = FieldProjection.DOCTORS.parse(fields);
+            return ResponseEntity.ok(new FieldsetResponse(picked, service.getAllFields(picked)));
+        }
+        List<Doctor> doctors = service.getAll();
+        if ("appointments".equals(include)) {
+            return ResponseEntity.ok(doctors);
+        }
+        return ResponseEntity.ok()
+                .eTag(ETags.ofList("doctors", doctors, Doctor::getId, Doctor::getVersion))
+                .body(doctors.stream().map(DoctorResponse::from).toList());
+    }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Doctor> getById(@PathVariable Long id) {
-        return service.getById(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<?> getById(@PathVariable Long id, @RequestParam(required = false) String include) {
+        return service.getById(id).<ResponseEntity<?>>map(d -> "appointments".equals(include)
+                ? ResponseEntity.ok(d)
+                // A matching If-None-Match is answered with 304 before the body is written
+                : ResponseEntity.ok().eTag(ETags.of("doctor", d.getId(), d.getVersion())).body(DoctorResponse.from(d)))
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
@@ -30,9 +52,9 @@ public class DoctorController {
         return ResponseEntity.ok(service.update(id, d));
     }
 
+    // 202 when the row is already hidden but its appointments are still being purged
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
-        service.delete(id);
-        return ResponseEntity.noContent().build();
+        return service.delete(id) ? ResponseEntity.noContent().build() : ResponseEntity.accepted().build();
     }
 }
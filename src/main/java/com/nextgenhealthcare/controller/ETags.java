@@ -0,0 +1,42 @@
+package com.nextgenhealthcare.controller;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * ETags derived from entity versions, so a conditional GET can be answered
+ * without serializing the body.
+ */
+final class ETags {
+
+    private ETags() {}
+
+    static String of(String kind, Long id, long version) {
+        return "\"" + kind + "-" + id + "-v" + version + "\"";
+    }
+
+    /**
+     * Tag for a list: FNV-1a over the (id, version) pairs in order, so any insert, update,
+     * delete or reordering changes it.
+     * Weak, because Tomcat never gzips a response carrying a strong ETag and lists are
+     * the responses worth compressing; If-None-Match still matches weak tags on GET.
+     */
+    static <T> String ofList(String kind, List<T> items, Function<T, Long> id, ToLongFunction<T> version) {
+        long hash = 0xcbf29ce484222325L;
+        for (T item : items) {
+            hash = mix(hash, id.apply(item));
+            hash = mix(hash, version.applyAsLong(item));
+        }
+        return "W/\"" + kind + "-" + items.size() + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    private static long mix(long hash, Long value) {
+        long v = value != null ? value : 0L;
+        for (int i = 0; i < 8; i++) {
+            hash ^= (v >>> (i * 8)) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -1,6 +1,9 @@
 package com.nextgenhealthcare.controller;
 
+import com.nextgenhealthcare.dto.FieldsetResponse;
+import com.nextgenhealthcare.dto.PatientResponse;
 import com.nextgenhealthcare.model.Patient;
+import com.nextgenhealthcare.repository.FieldProjection;
 import com.nextgenhealthcare.service.PatientService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -12,12 +15,30 @@ import java.util.List;
 public class PatientController {
     @Autowired private PatientService service;
 
+    // Lean view by default; ?include=appointments returns the full entity graph (no ETag) and
+    // ?fields=id,name only the named columns, selected as such (no ETag)
     @GetMapping
-    public List<Patient> getAll() { return service.getAll(); }
+    public ResponseEntity<?> getAll(@RequestParam(required = false) String include,
+                                    @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            List<String> picked = FieldProjection.PATIENTS.parse(fields);
+            return ResponseEntity.ok(new FieldsetResponse(picked, service.getAllFields(picked)));
+        }
+        List<Patient> patients = service.getAll();
+        if ("appointments".equals(include)) {
+            return ResponseEntity.ok(patients);
+        }
+        return ResponseEntity.ok()
+                .eTag(ETags.ofList("patients", patients, Patient::getId, Patient::getVersion))
+                .body(patients.stream().map(PatientResponse::from).toList());
+    }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Patient> getById(@PathVariable Long id) {
-        return service.getById(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<?> getById(@PathVariable Long id, @RequestParam(required = false) String include) {
+        return service.getById(id).<ResponseEntity<?>>map(p -> "appointments".equals(include)
+                ? ResponseEntity.ok(p)
+                : ResponseEntity.ok().eTag(ETags.of("patient", p.getId(), p.getVersion())).body(PatientResponse.from(p)))
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
@@ -32,9 +53,9 @@ public class PatientController {
         return ResponseEntity.ok(updated);
     }
 
+    // 202 when the row is already hidden but its appointments are still being purged
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
-        service.delete(id);
-        return ResponseEntity.noContent().build();
+        return service.delete(id) ? ResponseEntity.noContent().build() : ResponseEntity.accepted().build();
     }
 }
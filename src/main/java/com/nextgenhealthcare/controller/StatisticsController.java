@@ -0,0 +1,37 @@
+package com.nextgenhealthcare.controller;
+
+import com.nextgenhealthcare.dto.AppointmentStats;
+import com.nextgenhealthcare.stats.AppointmentStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/stats")
+public class StatisticsController {
+    private static final int MAX_DAYS = 366;
+
+    @Autowired private AppointmentStatistics statistics;
+
+    // Served from in-memory counters; from/to (ISO dates) default to 30 days either side of today
+    @GetMapping("/appointments")
+    public ResponseEntity<AppointmentStats> appointments(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate today = LocalDate.now();
+        LocalDate start = from != null ? from : today.minusDays(30);
+        LocalDate end = to != null ? to : today.plusDays(30);
+        if (end.isBefore(start) || end.toEpochDay() - start.toEpochDay() >= MAX_DAYS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(statistics.snapshot(start, end));
+    }
+
+    @PostMapping("/appointments/reconcile")
+    public long reconcile() {
+        return statistics.reconcile();
+    }
+}
@@ -0,0 +1,22 @@
+package com.nextgenhealthcare.controller;
+
+import com.nextgenhealthcare.dto.TraceSummary;
+import com.nextgenhealthcare.tracing.TraceCollector;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.List;
+
+@RestController
+@RequestMapping("/traces")
+public class TraceController {
+    @Autowired private TraceCollector traceCollector;
+
+    // Only sampled requests are collected (management.tracing.sampling.probability)
+    @GetMapping("/slowest")
+    public List<TraceSummary> slowest(@RequestParam(defaultValue = "10") int limit,
+                                      @RequestParam(defaultValue = "PT15M") Duration window) {
+        return traceCollector.slowest(Math.max(1, Math.min(limit, 100)), window);
+    }
+}
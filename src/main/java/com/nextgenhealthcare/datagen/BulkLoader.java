@@ -0,0 +1,190 @@
+package com.nextgenhealthcare.datagen;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Streams a {@link SyntheticDataGenerator} dataset into the database with batched JDBC
+ * inserts, one transaction per batch. Rows are generated inside the statement setter, so
+ * memory use does not depend on the dataset size.
+ *
+ * On MySQL, rewriteBatchedStatements=true (set in application.properties) turns each
+ * batch into multi-row INSERTs.
+ *
+ * Appointments reference doctors and patients by generator index; the ids the database
+ * assigned to those come back as generated keys, batch by batch. Appointment ids are not
+ * collected at all.
+ */
+@Component
+public class BulkLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkLoader.class);
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+
+    public BulkLoader(JdbcTemplate jdbc, TransactionTemplate tx, @Value("${datagen.batch-size:5000}") int batchSize) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.batchSize = batchSize;
+    }
+
+    public LoadSummary load(DatasetSpec spec) {
+        SyntheticDataGenerator gen = new SyntheticDataGenerator(spec);
+        long start = System.nanoTime();
+        log.info("Loading synthetic dataset: {}", spec);
+
+        IdRange doctors = insertRows("doctors", spec.getDoctors(),
+                "insert into doctors (name, specialization, email, version) values (?, ?, ?, 0)",
+                (ps, i) -> {
+                    ps.setString(1, gen.doctorName(i));
+                    ps.setString(2, gen.doctorSpecialization(i));
+                    ps.setString(3, gen.doctorEmail(i));
+                }, true);
+
+        IdRange patients = insertRows("patients", spec.getPatients(),
+                "insert into patients (name, age, email, version) values (?, ?, ?, 0)",
+                (ps, i) -> {
+                    ps.setString(1, gen.patientName(i));
+                    ps.setInt(2, gen.patientAge(i));
+                    ps.setString(3, gen.patientEmail(i));
+                }, true);
+
+        SplittableRandom random = gen.appointmentRandom();
+        SyntheticDataGenerator.AppointmentRow row = new SyntheticDataGenerator.AppointmentRow();
+        insertRows("appointments", spec.getAppointments(),
+                "insert into appointments (patient_id, doctor_id, appointment_time, reason, status, version) "
+                        + "values (?, ?, ?, ?, ?, 0)",
+                (ps, i) -> {
+                    gen.nextAppointment(random, row);
+                    ps.setLong(1, patients.id(row.patient));
+                    ps.setLong(2, doctors.id(row.doctor));
+                    ps.setTimestamp(3, Timestamp.valueOf(row.time));
+                    ps.setString(4, row.reason);
+                    ps.setString(5, row.status);
+                }, false);
+
+        LoadSummary summary = new LoadSummary(spec, (System.nanoTime() - start) / 1_000_000);
+        log.info("Synthetic dataset loaded: {}", summary);
+        return summary;
+    }
+
+    // Returns the ids assigned to the rows when keepIds is set, null otherwise
+    private IdRange insertRows(String table, long count, String sql, RowWriter writer, boolean keepIds) {
+        IdRange ids = keepIds ? new IdRange(batchSize, count) : null;
+        long start = System.nanoTime();
+        long progressStep = Math.max(batchSize, count / 10);
+        long nextProgress = progressStep;
+
+        for (long offset = 0; offset < count; offset += batchSize) {
+            int size = (int) Math.min(batchSize, count - offset);
+            long base = offset;
+            BatchPreparedStatementSetter setter = new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    writer.write(ps, base + i);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            };
+            if (ids == null) {
+                tx.executeWithoutResult(status -> jdbc.batchUpdate(sql, setter));
+            } else {
+                GeneratedKeyHolder keys = new GeneratedKeyHolder();
+                tx.executeWithoutResult(status ->
+                        jdbc.batchUpdate(con -> con.prepareStatement(sql, new String[] {"id"}), setter, keys));
+                ids.add(offset, size, keys.getKeyList());
+            }
+            if (offset + size >= nextProgress) {
+                double seconds = (System.nanoTime() - start) / 1e9;
+                log.info("{}: {}/{} rows ({} rows/s)", table, offset + size, count, (long) ((offset + size) / seconds));
+                nextProgress += progressStep;
+            }
+        }
+        return ids;
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(PreparedStatement ps, long index) throws SQLException;
+    }
+
+    /**
+     * Maps generator indexes to the ids the database assigned, per batch. A batch whose keys
+     * are consecutive, as they normally are, keeps only its first id.
+     */
+    private static final class IdRange {
+        private final int batchSize;
+        private final long[] firsts;
+        private final long[][] scattered;
+
+        IdRange(int batchSize, long count) {
+            int batches = (int) ((count + batchSize - 1) / batchSize);
+            this.batchSize = batchSize;
+            this.firsts = new long[batches];
+            this.scattered = new long[batches][];
+        }
+
+        void add(long offset, int size, List<Map<String, Object>> keys) {
+            if (keys.size() != size) {
+                throw new IllegalStateException("Expected " + size + " generated keys, got " + keys.size());
+            }
+            long[] ids = new long[size];
+            for (int i = 0; i < size; i++) {
+                ids[i] = ((Number) keys.get(i).values().iterator().next()).longValue();
+            }
+            int batch = (int) (offset / batchSize);
+            firsts[batch] = ids[0];
+            if (ids[size - 1] - ids[0] + 1 != size) {
+                scattered[batch] = ids;
+            }
+        }
+
+        long id(long index) {
+            int batch = (int) (index / batchSize);
+            int at = (int) (index % batchSize);
+            long[] ids = scattered[batch];
+            return ids == null ? firsts[batch] + at : ids[at];
+        }
+    }
+
+    public static class LoadSummary {
+        private final DatasetSpec spec;
+        private final long elapsedMillis;
+
+        LoadSummary(DatasetSpec spec, long elapsedMillis) {
+            this.spec = spec;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public DatasetSpec getSpec() { return spec; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        public long getRowsPerSecond() {
+            long rows = spec.getAppointments() + spec.getDoctors() + spec.getPatients();
+            return elapsedMillis == 0 ? rows : rows * 1000 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return spec + " in " + elapsedMillis + " ms (" + getRowsPerSecond() + " rows/s)";
+        }
+    }
+}
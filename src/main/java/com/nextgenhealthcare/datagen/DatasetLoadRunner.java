@@ -0,0 +1,57 @@
+package com.nextgenhealthcare.datagen;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads a synthetic dataset at startup when the "datagen" profile is active, e.g.
+ * {@code java -jar backend.jar --spring.profiles.active=datagen --datagen.appointments=10m}
+ */
+@Component
+@Profile("datagen")
+public class DatasetLoadRunner implements ApplicationRunner {
+
+    private final BulkLoader loader;
+    private final ConfigurableApplicationContext context;
+    private final String appointments;
+    private final int doctors;
+    private final int patients;
+    private final long seed;
+    private final boolean exitAfterLoad;
+
+    public DatasetLoadRunner(BulkLoader loader,
+                             ConfigurableApplicationContext context,
+                             @Value("${datagen.appointments:10k}") String appointments,
+                             @Value("${datagen.doctors:0}") int doctors,
+                             @Value("${datagen.patients:0}") int patients,
+                             @Value("${datagen.seed:42}") long seed,
+                             @Value("${datagen.exit-after-load:true}") boolean exitAfterLoad) {
+        this.loader = loader;
+        this.context = context;
+        this.appointments = appointments;
+        this.doctors = doctors;
+        this.patients = patients;
+        this.seed = seed;
+        this.exitAfterLoad = exitAfterLoad;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        DatasetSpec spec = DatasetSpec.forAppointments(DatasetSpec.parseCount(appointments)).withSeed(seed);
+        if (doctors > 0) {
+            spec = spec.withDoctors(doctors);
+        }
+        if (patients > 0) {
+            spec = spec.withPatients(patients);
+        }
+        loader.load(spec);
+        if (exitAfterLoad) {
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.nextgenhealthcare.datagen;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Size and shape of a synthetic dataset. Doctor and patient counts scale with the
+ * appointment count unless set explicitly.
+ */
+public class DatasetSpec {
+
+    private final long appointments;
+    private final int doctors;
+    private final int patients;
+    private final long seed;
+    private final LocalDate from;
+    private final LocalDate to;
+
+    public DatasetSpec(long appointments, int doctors, int patients, long seed, LocalDate from, LocalDate to) {
+        if (appointments <= 0 || doctors <= 0 || patients <= 0) {
+            throw new IllegalArgumentException("Dataset sizes must be positive");
+        }
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("Dataset date range is empty: " + from + " .. " + to);
+        }
+        this.appointments = appointments;
+        this.doctors = doctors;
+        this.patients = patients;
+        this.seed = seed;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Roughly 2,000 appointments per doctor and 8 per patient, over the last two years
+     * plus the next three months.
+     */
+    public static DatasetSpec forAppointments(long appointments) {
+        LocalDate today = LocalDate.now();
+        return new DatasetSpec(appointments,
+                (int) Math.max(5, appointments / 2_000),
+                (int) Math.max(50, appointments / 8),
+                42L, today.minusYears(2), today.plusMonths(3));
+    }
+
+    /**
+     * Parses counts such as "10k", "2.5m" or "50000000".
+     */
+    public static long parseCount(String value) {
+        String v = value.trim().toLowerCase(Locale.ROOT).replace("_", "");
+        long multiplier = 1;
+        if (v.endsWith("k")) {
+            multiplier = 1_000;
+        } else if (v.endsWith("m")) {
+            multiplier = 1_000_000;
+        }
+        if (multiplier > 1) {
+            v = v.substring(0, v.length() - 1);
+        }
+        return Math.round(Double.parseDouble(v) * multiplier);
+    }
+
+    public DatasetSpec withDoctors(int doctors) {
+        return new DatasetSpec(appointments, doctors, patients, seed, from, to);
+    }
+
+    public DatasetSpec withPatients(int patients) {
+        return new DatasetSpec(appointments, doctors, patients, seed, from, to);
+    }
+
+    public DatasetSpec withSeed(long seed) {
+        return new DatasetSpec(appointments, doctors, patients, seed, from, to);
+    }
+
+    public long getAppointments() { return appointments; }
+    public int getDoctors() { return doctors; }
+    public int getPatients() { return patients; }
+    public long getSeed() { return seed; }
+    public LocalDate getFrom() { return from; }
+    public LocalDate getTo() { return to; }
+
+    @Override
+    public String toString() {
+        return appointments + " appointments, " + doctors + " doctors, " + patients + " patients, "
+                + from + " .. " + to + ", seed " + seed;
+    }
+}
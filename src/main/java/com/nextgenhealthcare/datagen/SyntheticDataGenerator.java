@@ -0,0 +1,194 @@
+package com.nextgenhealthcare.datagen;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.SplittableRandom;
+
+/**
+ * Produces synthetic rows one at a time, so datasets of any size can be streamed
+ * without holding them in memory.
+ *
+ * Distributions:
+ * - doctors by specialization follow a fixed mix (general medicine most common);
+ * - doctor and patient popularity is skewed: a small share of each sees most appointments;
+ * - appointments grow towards the present, cluster on weekdays and in morning/afternoon peaks,
+ *   and get a status consistent with whether they are in the past.
+ *
+ * Doctor and patient attributes are pure functions of (seed, index); appointments come from
+ * a seeded random stream, so the same spec always yields the same dataset.
+ */
+public class SyntheticDataGenerator {
+
+    static final String[] SPECIALIZATIONS = {
+            "General Medicine", "Pediatrics", "Cardiology", "Dermatology", "Orthopedics", "Neurology",
+            "Psychiatry", "Gynecology", "Ophthalmology", "ENT", "Endocrinology", "Oncology"
+    };
+    private static final int[] SPECIALIZATION_WEIGHTS = {30, 12, 9, 8, 8, 6, 6, 6, 5, 4, 3, 3};
+
+    private static final String[][] REASONS = {
+            {"Annual physical", "Flu symptoms", "Follow-up", "Blood pressure check", "Vaccination"},
+            {"Well-child visit", "Ear infection", "Fever", "Vaccination", "Growth check"},
+            {"Chest pain", "ECG review", "Hypertension follow-up", "Palpitations", "Stress test"},
+            {"Rash", "Mole check", "Acne", "Eczema follow-up", "Skin biopsy results"},
+            {"Knee pain", "Back pain", "Fracture follow-up", "Shoulder injury", "Physio review"},
+            {"Migraine", "Dizziness", "Numbness", "Seizure follow-up", "Memory concerns"},
+            {"Initial assessment", "Medication review", "Anxiety", "Depression follow-up", "Sleep problems"},
+            {"Routine exam", "Prenatal visit", "Contraception", "Pelvic pain", "Follow-up"},
+            {"Eye exam", "Blurred vision", "Glaucoma check", "Eye infection", "Cataract follow-up"},
+            {"Sinusitis", "Hearing loss", "Sore throat", "Tonsillitis", "Ear pain"},
+            {"Diabetes review", "Thyroid check", "Hormone results", "Weight management", "Follow-up"},
+            {"Treatment review", "Screening results", "Chemotherapy follow-up", "Initial consult", "Scan review"}
+    };
+
+    private static final String[] FIRST_NAMES = {
+            "James", "Mary", "Ahmed", "Fatima", "Wei", "Li", "Carlos", "Sofia", "Olusegun", "Amara",
+            "John", "Aisha", "Raj", "Priya", "Ivan", "Elena", "Kenji", "Yuki", "David", "Sarah",
+            "Omar", "Layla", "Lucas", "Emma", "Noah", "Zara", "Mateo", "Chloe", "Hassan", "Nadia"
+    };
+    private static final String[] LAST_NAMES = {
+            "Smith", "Khan", "Garcia", "Chen", "Okafor", "Patel", "Ivanov", "Tanaka", "Brown", "Ali",
+            "Martinez", "Nguyen", "Johnson", "Hussain", "Rossi", "Kim", "Silva", "Mensah", "Cohen", "Lopez"
+    };
+
+    // Appointment start hours with a morning and an afternoon peak
+    private static final int[] HOURS = {8, 9, 9, 10, 10, 10, 11, 11, 12, 13, 14, 14, 15, 15, 16, 17};
+
+    private static final double DOCTOR_SKEW = 1.8;
+    private static final double PATIENT_SKEW = 2.5;
+    private static final double RECENT_GROWTH = 1.3;
+
+    private final DatasetSpec spec;
+    private final int[] specializationCdf;
+    private final long days;
+    private final LocalDate today = LocalDate.now();
+
+    public SyntheticDataGenerator(DatasetSpec spec) {
+        this.spec = spec;
+        this.specializationCdf = new int[SPECIALIZATION_WEIGHTS.length];
+        int sum = 0;
+        for (int i = 0; i < SPECIALIZATION_WEIGHTS.length; i++) {
+            sum += SPECIALIZATION_WEIGHTS[i];
+            specializationCdf[i] = sum;
+        }
+        this.days = ChronoUnit.DAYS.between(spec.getFrom(), spec.getTo());
+    }
+
+    public DatasetSpec getSpec() {
+        return spec;
+    }
+
+    // ---- doctors ----
+
+    public int specializationIndex(long doctor) {
+        int r = (int) Math.floorMod(hash(doctor, 1), (long) specializationCdf[specializationCdf.length - 1]);
+        for (int i = 0; i < specializationCdf.length; i++) {
+            if (r < specializationCdf[i]) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    public String doctorSpecialization(long doctor) {
+        return SPECIALIZATIONS[specializationIndex(doctor)];
+    }
+
+    public String doctorName(long doctor) {
+        return "Dr. " + pick(FIRST_NAMES, doctor, 2) + " " + pick(LAST_NAMES, doctor, 3);
+    }
+
+    public String doctorEmail(long doctor) {
+        return "doctor" + doctor + "@clinic.example.com";
+    }
+
+    // ---- patients ----
+
+    public String patientName(long patient) {
+        return pick(FIRST_NAMES, patient, 4) + " " + pick(LAST_NAMES, patient, 5);
+    }
+
+    // Sum of three uniforms: a bell curve over 1..95 centred in the forties
+    public int patientAge(long patient) {
+        long h = hash(patient, 6);
+        int sum = (int) ((h & 0xffff) % 32) + (int) (((h >>> 16) & 0xffff) % 32) + (int) (((h >>> 32) & 0xffff) % 32);
+        return 1 + sum;
+    }
+
+    public String patientEmail(long patient) {
+        return "patient" + patient + "@mail.example.com";
+    }
+
+    // ---- appointments ----
+
+    public SplittableRandom appointmentRandom() {
+        return new SplittableRandom(spec.getSeed());
+    }
+
+    /**
+     * Fills {@code row} with the next appointment of the stream driven by {@code random}.
+     * Doctor and patient are zero-based indexes into the generated doctors and patients.
+     */
+    public void nextAppointment(SplittableRandom random, AppointmentRow row) {
+        row.doctor = skewed(random, spec.getDoctors(), DOCTOR_SKEW);
+        row.patient = skewed(random, spec.getPatients(), PATIENT_SKEW);
+
+        LocalDate day = pickDay(random);
+        int hour = HOURS[random.nextInt(HOURS.length)];
+        row.time = day.atTime(hour, 15 * random.nextInt(4));
+
+        String[] reasons = REASONS[specializationIndex(row.doctor)];
+        row.reason = reasons[random.nextInt(reasons.length)];
+
+        int roll = random.nextInt(100);
+        if (day.isBefore(today)) {
+            row.status = roll < 85 ? "COMPLETED" : roll < 95 ? "CANCELLED" : "NO_SHOW";
+        } else {
+            row.status = roll < 88 ? "SCHEDULED" : "CANCELLED";
+        }
+    }
+
+    private LocalDate pickDay(SplittableRandom random) {
+        LocalDate day = null;
+        for (int attempt = 0; attempt < 4; attempt++) {
+            // Density rises towards the end of the range: the practice is growing
+            long offset = (long) (days * Math.pow(random.nextDouble(), 1.0 / RECENT_GROWTH));
+            day = spec.getFrom().plusDays(Math.min(offset, days - 1));
+            DayOfWeek dow = day.getDayOfWeek();
+            boolean weekend = dow == DayOfWeek.SATURDAY || dow == DayOfWeek.SUNDAY;
+            if (!weekend || random.nextInt(100) < 15) {
+                break;
+            }
+        }
+        return day;
+    }
+
+    // Power-law pick in [0, n): low indexes are chosen far more often
+    private static long skewed(SplittableRandom random, long n, double skew) {
+        return Math.min(n - 1, (long) (n * Math.pow(random.nextDouble(), skew)));
+    }
+
+    private <T> T pick(T[] values, long index, int salt) {
+        return values[(int) Math.floorMod(hash(index, salt), (long) values.length)];
+    }
+
+    // splitmix64 finaliser over (seed, index, salt)
+    private long hash(long index, int salt) {
+        long z = spec.getSeed() * 0x9E3779B97F4A7C15L + index * 0xBF58476D1CE4E5B9L + salt;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Mutable holder reused for every generated appointment.
+     */
+    public static class AppointmentRow {
+        public long doctor;
+        public long patient;
+        public LocalDateTime time;
+        public String reason;
+        public String status;
+    }
+}
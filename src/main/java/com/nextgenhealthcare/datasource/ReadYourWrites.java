@@ -0,0 +1,92 @@
+package com.nextgenhealthcare.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Keeps a client's reads on the primary for a short window after it writes, so it never reads
+ * its own change back from a lagging replica.
+ *
+ * A committed read-write transaction pins the current thread to the primary and, inside an
+ * HTTP request, sets a cookie holding the end of the window. Later requests carrying the cookie
+ * are pinned until it expires; the cookie makes this work across instances without shared state.
+ */
+public class ReadYourWrites extends OncePerRequestFilter implements TransactionExecutionListener {
+
+    static final String COOKIE = "rw-primary-until";
+    private static final String COOKIE_SET = ReadYourWrites.class.getName() + ".cookieSet";
+
+    private final Duration window;
+
+    public ReadYourWrites(Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // The cookie comes from the client: never honour more than one window from now
+        long until = Math.min(cookieValue(request), System.currentTimeMillis() + window.toMillis());
+        if (until > System.currentTimeMillis()) {
+            RoutingContext.pinPrimaryUntil(until);
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RoutingContext.clear();
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure != null || transaction.isReadOnly() || !transaction.isNewTransaction()) {
+            return;
+        }
+        long until = System.currentTimeMillis() + window.toMillis();
+        RoutingContext.pinPrimaryUntil(until);
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servlet && servlet.getResponse() != null
+                && !servlet.getResponse().isCommitted()) {
+            // Several writes in one request end their windows within milliseconds; one cookie will do
+            HttpServletRequest request = servlet.getRequest();
+            if (request.getAttribute(COOKIE_SET) == null) {
+                Cookie cookie = new Cookie(COOKIE, Long.toString(until));
+                cookie.setPath("/");
+                cookie.setHttpOnly(true);
+                cookie.setMaxAge((int) Math.max(1, window.toSeconds()));
+                servlet.getResponse().addCookie(cookie);
+                request.setAttribute(COOKIE_SET, Boolean.TRUE);
+            }
+        }
+    }
+
+    private static long cookieValue(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,50 @@
+package com.nextgenhealthcare.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread override for {@link ReplicaRoutingDataSource}: while pinned, read-only
+ * transactions go to the primary as well. Set for the rest of a request after it writes, for
+ * requests that carry a read-your-writes cookie, and around reads that must not see replica lag.
+ * Has no effect when no replicas are configured.
+ */
+public final class RoutingContext {
+
+    private static final ThreadLocal<Long> PRIMARY_UNTIL = new ThreadLocal<>();
+
+    private RoutingContext() {}
+
+    public static boolean isPrimaryPinned() {
+        Long until = PRIMARY_UNTIL.get();
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    // Never shortens an existing pin
+    public static void pinPrimaryUntil(long epochMillis) {
+        Long current = PRIMARY_UNTIL.get();
+        if (current == null || current < epochMillis) {
+            PRIMARY_UNTIL.set(epochMillis);
+        }
+    }
+
+    public static void clear() {
+        PRIMARY_UNTIL.remove();
+    }
+
+    /**
+     * Runs {@code read} against the primary regardless of transaction read-only flags.
+     */
+    public static <T> T onPrimary(Supplier<T> read) {
+        Long previous = PRIMARY_UNTIL.get();
+        PRIMARY_UNTIL.set(Long.MAX_VALUE);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_UNTIL.remove();
+            } else {
+                PRIMARY_UNTIL.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.nextgenhealthcare.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentChange {
+    private Long sequence;
+    private String type;
+    private Long appointmentId;
+    private LocalDateTime occurredAt;
+    // Stored JSON snapshot, written through without re-parsing
+    @JsonRawValue
+    private String appointment;
+}
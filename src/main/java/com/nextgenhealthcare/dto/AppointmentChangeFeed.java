@@ -0,0 +1,14 @@
+package com.nextgenhealthcare.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class AppointmentChangeFeed {
+    private List<AppointmentChange> changes;
+    // Pass back as ?since= to continue
+    private Long nextSince;
+    private boolean hasMore;
+    // since predates the retained window: resync, then continue from nextSince
+    private boolean cursorExpired;
+}
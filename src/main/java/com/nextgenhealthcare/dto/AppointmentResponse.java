@@ -0,0 +1,49 @@
+package com.nextgenhealthcare.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.nextgenhealthcare.model.Appointment;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Response body for an appointment: the same JSON as the entity, but copied out of it so no
+ * Hibernate proxy or back-reference reaches Jackson, and written by a fixed serializer.
+ */
+@JsonSerialize(using = AppointmentResponse.Serializer.class)
+public record AppointmentResponse(Long id, LocalDateTime appointmentTime, String reason, String status) {
+
+    public static AppointmentResponse from(Appointment a) {
+        return new AppointmentResponse(a.getId(), a.getAppointmentTime(), a.getReason(), a.getStatus());
+    }
+
+    static final class Serializer extends StdSerializer<AppointmentResponse> {
+
+        private static final SerializedString ID = new SerializedString("id");
+        private static final SerializedString APPOINTMENT_TIME = new SerializedString("appointmentTime");
+        private static final SerializedString REASON = new SerializedString("reason");
+        private static final SerializedString STATUS = new SerializedString("status");
+
+        Serializer() {
+            super(AppointmentResponse.class);
+        }
+
+        @Override
+        public void serialize(AppointmentResponse value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(value);
+            gen.writeFieldName(ID);
+            ResponseJson.writeLong(gen, value.id());
+            gen.writeFieldName(APPOINTMENT_TIME);
+            ResponseJson.writeDateTime(gen, value.appointmentTime());
+            gen.writeFieldName(REASON);
+            gen.writeString(value.reason());
+            gen.writeFieldName(STATUS);
+            gen.writeString(value.status());
+            gen.writeEndObject();
+        }
+    }
+}
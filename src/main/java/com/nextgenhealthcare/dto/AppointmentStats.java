@@ -0,0 +1,21 @@
+package com.nextgenhealthcare.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+public class AppointmentStats {
+    private Map<Long, Long> appointmentsByDoctor;
+    private Map<String, Long> appointmentsByStatus;
+    private Map<LocalDate, Long> appointmentsByDay;
+    // Non-cancelled appointments / (doctors x slots per day x days) over from..to
+    private Map<String, Double> utilizationBySpecialization;
+    private LocalDate from;
+    private LocalDate to;
+    // Null until the first reconcile has run
+    private LocalDateTime reconciledAt;
+    private long lastReconcileDrift;
+}
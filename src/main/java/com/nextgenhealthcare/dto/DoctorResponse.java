@@ -0,0 +1,47 @@
+package com.nextgenhealthcare.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.nextgenhealthcare.model.Doctor;
+
+import java.io.IOException;
+
+/**
+ * Lean view of a Doctor without the appointments collection.
+ */
+@JsonSerialize(using = DoctorResponse.Serializer.class)
+public record DoctorResponse(Long id, String name, String specialization, String email) {
+
+    public static DoctorResponse from(Doctor d) {
+        return new DoctorResponse(d.getId(), d.getName(), d.getSpecialization(), d.getEmail());
+    }
+
+    static final class Serializer extends StdSerializer<DoctorResponse> {
+
+        private static final SerializedString ID = new SerializedString("id");
+        private static final SerializedString NAME = new SerializedString("name");
+        private static final SerializedString SPECIALIZATION = new SerializedString("specialization");
+        private static final SerializedString EMAIL = new SerializedString("email");
+
+        Serializer() {
+            super(DoctorResponse.class);
+        }
+
+        @Override
+        public void serialize(DoctorResponse value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(value);
+            gen.writeFieldName(ID);
+            ResponseJson.writeLong(gen, value.id());
+            gen.writeFieldName(NAME);
+            gen.writeString(value.name());
+            gen.writeFieldName(SPECIALIZATION);
+            gen.writeString(value.specialization());
+            gen.writeFieldName(EMAIL);
+            gen.writeString(value.email());
+            gen.writeEndObject();
+        }
+    }
+}
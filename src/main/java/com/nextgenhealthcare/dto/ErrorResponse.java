@@ -0,0 +1,85 @@
+package com.nextgenhealthcare.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Error body: {@code timestamp}, {@code status}, {@code error}, {@code message} and, for
+ * validation failures, {@code errors}. The reason phrase of every status is encoded once, and
+ * the timestamp (to the second) is shared by all errors written in the same second.
+ */
+@JsonSerialize(using = ErrorResponse.Serializer.class)
+public record ErrorResponse(HttpStatus status, String message, Map<String, String> errors) {
+
+    public ErrorResponse(HttpStatus status, String message) {
+        this(status, message, null);
+    }
+
+    static final class Serializer extends StdSerializer<ErrorResponse> {
+
+        private static final SerializedString TIMESTAMP = new SerializedString("timestamp");
+        private static final SerializedString STATUS = new SerializedString("status");
+        private static final SerializedString ERROR = new SerializedString("error");
+        private static final SerializedString MESSAGE = new SerializedString("message");
+        private static final SerializedString ERRORS = new SerializedString("errors");
+        private static final Map<HttpStatus, SerializedString> REASONS = new EnumMap<>(HttpStatus.class);
+
+        static {
+            for (HttpStatus status : HttpStatus.values()) {
+                REASONS.put(status, new SerializedString(status.getReasonPhrase()));
+            }
+        }
+
+        private volatile Stamp stamp = new Stamp(0, null);
+
+        Serializer() {
+            super(ErrorResponse.class);
+        }
+
+        @Override
+        public void serialize(ErrorResponse value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(value);
+            gen.writeFieldName(TIMESTAMP);
+            gen.writeString(timestamp());
+            gen.writeFieldName(STATUS);
+            gen.writeNumber(value.status().value());
+            gen.writeFieldName(ERROR);
+            gen.writeString(REASONS.get(value.status()));
+            gen.writeFieldName(MESSAGE);
+            gen.writeString(value.message());
+            if (value.errors() != null) {
+                gen.writeFieldName(ERRORS);
+                gen.writeStartObject();
+                for (Map.Entry<String, String> e : value.errors().entrySet()) {
+                    gen.writeStringField(e.getKey(), e.getValue());
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+        }
+
+        private SerializedString timestamp() {
+            long second = System.currentTimeMillis() / 1000;
+            Stamp current = stamp;
+            if (current.second != second) {
+                current = new Stamp(second, new SerializedString(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS)
+                        .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)));
+                stamp = current;
+            }
+            return current.text;
+        }
+
+        private record Stamp(long second, SerializedString text) {}
+    }
+}
@@ -0,0 +1,66 @@
+package com.nextgenhealthcare.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A list answered with {@code fields=}: one JSON object per row holding only the picked fields,
+ * written straight from the projected column values.
+ */
+@JsonSerialize(using = FieldsetResponse.Serializer.class)
+public final class FieldsetResponse {
+
+    private final SerializedString[] names;
+    private final List<Object[]> rows;
+
+    public FieldsetResponse(List<String> fields, List<Object[]> rows) {
+        this.names = fields.stream().map(SerializedString::new).toArray(SerializedString[]::new);
+        this.rows = rows;
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    static final class Serializer extends StdSerializer<FieldsetResponse> {
+
+        Serializer() {
+            super(FieldsetResponse.class);
+        }
+
+        @Override
+        public void serialize(FieldsetResponse value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            SerializedString[] names = value.names;
+            gen.writeStartArray(value, value.rows.size());
+            for (Object[] row : value.rows) {
+                gen.writeStartObject();
+                for (int i = 0; i < names.length; i++) {
+                    gen.writeFieldName(names[i]);
+                    Object v = row[i];
+                    if (v == null) {
+                        gen.writeNull();
+                    } else if (v instanceof String s) {
+                        gen.writeString(s);
+                    } else if (v instanceof Long l) {
+                        gen.writeNumber(l.longValue());
+                    } else if (v instanceof Integer n) {
+                        gen.writeNumber(n.intValue());
+                    } else if (v instanceof LocalDateTime t) {
+                        ResponseJson.writeDateTime(gen, t);
+                    } else {
+                        provider.defaultSerializeValue(v, gen);
+                    }
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.nextgenhealthcare.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.nextgenhealthcare.model.Patient;
+
+import java.io.IOException;
+
+/**
+ * Lean view of a Patient without the appointments collection.
+ */
+@JsonSerialize(using = PatientResponse.Serializer.class)
+public record PatientResponse(Long id, String name, Integer age, String email) {
+
+    public static PatientResponse from(Patient p) {
+        return new PatientResponse(p.getId(), p.getName(), p.getAge(), p.getEmail());
+    }
+
+    static final class Serializer extends StdSerializer<PatientResponse> {
+
+        private static final SerializedString ID = new SerializedString("id");
+        private static final SerializedString NAME = new SerializedString("name");
+        private static final SerializedString AGE = new SerializedString("age");
+        private static final SerializedString EMAIL = new SerializedString("email");
+
+        Serializer() {
+            super(PatientResponse.class);
+        }
+
+        @Override
+        public void serialize(PatientResponse value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(value);
+            gen.writeFieldName(ID);
+            ResponseJson.writeLong(gen, value.id());
+            gen.writeFieldName(NAME);
+            gen.writeString(value.name());
+            gen.writeFieldName(AGE);
+            ResponseJson.writeInt(gen, value.age());
+            gen.writeFieldName(EMAIL);
+            gen.writeString(value.email());
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.nextgenhealthcare.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Shared pieces of the hand-written response serializers. Field names are
+ * {@link com.fasterxml.jackson.core.io.SerializedString}s in each serializer, so they are quoted
+ * and encoded once; values go straight to the generator.
+ */
+final class ResponseJson {
+
+    private static final ThreadLocal<char[]> DATE_TIME = ThreadLocal.withInitial(() -> new char[29]);
+
+    private ResponseJson() {}
+
+    static void writeLong(JsonGenerator gen, Long value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value.longValue());
+        }
+    }
+
+    static void writeInt(JsonGenerator gen, Integer value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value.intValue());
+        }
+    }
+
+    /**
+     * Same text as Jackson's default {@code LocalDateTime} serializer (ISO-8601, seconds always,
+     * fraction only as long as needed), written from a per-thread buffer.
+     */
+    static void writeDateTime(JsonGenerator gen, LocalDateTime value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+            return;
+        }
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            gen.writeString(value.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            return;
+        }
+        char[] buf = DATE_TIME.get();
+        digits(buf, 0, year, 4);
+        buf[4] = '-';
+        digits(buf, 5, value.getMonthValue(), 2);
+        buf[7] = '-';
+        digits(buf, 8, value.getDayOfMonth(), 2);
+        buf[10] = 'T';
+        digits(buf, 11, value.getHour(), 2);
+        buf[13] = ':';
+        digits(buf, 14, value.getMinute(), 2);
+        buf[16] = ':';
+        digits(buf, 17, value.getSecond(), 2);
+        int len = 19;
+        int nano = value.getNano();
+        if (nano > 0) {
+            buf[19] = '.';
+            digits(buf, 20, nano, 9);
+            len = 29;
+            while (buf[len - 1] == '0') {
+                len--;
+            }
+        }
+        gen.writeString(buf, 0, len);
+    }
+
+    private static void digits(char[] buf, int at, int value, int width) {
+        for (int i = at + width - 1; i >= at; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.nextgenhealthcare.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class TraceSummary {
+    private String traceId;
+    // Name of the local root span, e.g. "http post /ai/symptom-check"
+    private String name;
+    private Instant startedAt;
+    private double durationMillis;
+    // In start order
+    private List<SpanSummary> spans;
+
+    @Data
+    public static class SpanSummary {
+        private String spanId;
+        private String parentId;
+        private String name;
+        private String kind;
+        // Start relative to the root span
+        private double offsetMillis;
+        private double durationMillis;
+        private Map<String, String> tags;
+    }
+}
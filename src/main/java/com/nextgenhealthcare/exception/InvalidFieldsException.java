@@ -0,0 +1,6 @@
+package com.nextgenhealthcare.exception;
+
+// A fields= parameter naming something the resource doesn't have; answered with 400
+public class InvalidFieldsException extends RuntimeException {
+    public InvalidFieldsException(String msg) { super(msg, null, false, false); }
+}
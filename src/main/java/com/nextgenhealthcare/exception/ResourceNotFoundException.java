@@ -1,6 +1,7 @@
 package com.nextgenhealthcare.exception;
 
+// Thrown for every missing id a client asks about, so no stack trace is captured
 public class ResourceNotFoundException extends RuntimeException {
-    public ResourceNotFoundException(String msg) { super(msg); }
-    public ResourceNotFoundException(String msg, Throwable t) { super(msg, t); }
+    public ResourceNotFoundException(String msg) { super(msg, null, false, false); }
+    public ResourceNotFoundException(String msg, Throwable t) { super(msg, t, false, false); }
 }
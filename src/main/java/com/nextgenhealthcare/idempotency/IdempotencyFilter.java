@@ -0,0 +1,223 @@
+package com.nextgenhealthcare.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nextgenhealthcare.dto.ErrorResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Makes POST, PUT and PATCH requests that carry an {@code Idempotency-Key} header safe to retry.
+ * The first request with a key runs and its response is stored. A retry with the same key, method,
+ * path and body gets the stored response back, marked {@code Idempotent-Replayed: true}, without
+ * reaching the controller. A retry that arrives while the first request is still running waits
+ * for it. The same key with a different request is rejected with 422, and a retry still waiting
+ * after {@code maxWait} gets 409. 5xx responses are not stored, so the request can be retried.
+ *
+ * Keys belong to the caller that sent them: the authenticated user, or the client address for
+ * anonymous requests. Bodies are buffered for the fingerprint, so one larger than
+ * {@code maxBody} is refused with 413.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED = "Idempotent-Replayed";
+    private static final Set<String> METHODS = Set.of("POST", "PUT", "PATCH");
+    private static final List<String> STORED_HEADERS = List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.ETAG,
+            HttpHeaders.LOCATION, HttpHeaders.SET_COOKIE);
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final Duration maxWait;
+    private final int maxBody;
+
+    public IdempotencyFilter(IdempotencyStore store, ObjectMapper objectMapper, Duration maxWait, int maxBody) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.maxWait = maxWait;
+        this.maxBody = maxBody;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !METHODS.contains(request.getMethod()) || request.getHeader(HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        byte[] body = request.getContentLengthLong() > maxBody ? null
+                : request.getInputStream().readNBytes(maxBody + 1);
+        if (body == null || body.length > maxBody) {
+            writeError(response, HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Requests with an " + HEADER + " are limited to " + maxBody + " bytes");
+            return;
+        }
+        String fingerprint = fingerprint(request, body);
+        String scopedKey = scoped(request, key);
+
+        IdempotencyStore.Claim claim;
+        try {
+            claim = store.claim(scopedKey, fingerprint, maxWait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for " + HEADER + " " + key);
+        }
+        switch (claim.outcome()) {
+            case REPLAY -> replay(claim.response(), response);
+            case MISMATCH -> writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    HEADER + " was already used for a different request");
+            case IN_PROGRESS -> writeError(response, HttpStatus.CONFLICT,
+                    "A request with this " + HEADER + " is still being processed");
+            case ACQUIRED -> runAndStore(scopedKey, fingerprint, new CachedBodyRequest(request, body), response, chain);
+        }
+    }
+
+    private void runAndStore(String key, String fingerprint, HttpServletRequest request, HttpServletResponse response,
+                             FilterChain chain) throws ServletException, IOException {
+        ContentCachingResponseWrapper recorded = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            chain.doFilter(request, recorded);
+            if (recorded.getStatus() < 500) {
+                Map<String, List<String>> headers = new LinkedHashMap<>();
+                for (String name : STORED_HEADERS) {
+                    List<String> values = name.equals(HttpHeaders.CONTENT_TYPE)
+                            ? Stream.ofNullable(recorded.getContentType()).toList()
+                            : List.copyOf(recorded.getHeaders(name));
+                    if (!values.isEmpty()) {
+                        headers.put(name, values);
+                    }
+                }
+                store.complete(key, new StoredResponse(fingerprint, recorded.getStatus(), headers,
+                        recorded.getContentAsByteArray()));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                store.release(key);
+            }
+            recorded.copyBodyToResponse();
+        }
+    }
+
+    private static void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status());
+        stored.headers().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        response.setHeader(REPLAYED, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(status, message));
+    }
+
+    private static String scoped(HttpServletRequest request, String key) {
+        Principal user = request.getUserPrincipal();
+        String caller = user != null ? "user:" + user.getName() : "addr:" + request.getRemoteAddr();
+        return caller + '\n' + key;
+    }
+
+    private static String fingerprint(HttpServletRequest request, byte[] body) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update((request.getMethod() + ' ' + request.getRequestURI() + '\n').getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(sha.digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // The body was read for the fingerprint; the controller reads it again from here
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The whole body is already in memory, so it is all available at once
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.nextgenhealthcare.idempotency;
+
+import java.time.Duration;
+
+/**
+ * Remembers the response to each Idempotency-Key so a retried request gets it back instead of
+ * running again. Declare a bean of this type (e.g. backed by Redis) to replace the default
+ * {@link InMemoryIdempotencyStore}, which only covers retries that reach the same instance.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Claims {@code key} for a request. A new key is acquired at once and the caller must then
+     * {@link #complete} or {@link #release} it. A key with a stored response is a replay. While
+     * another request holds the key, waits up to {@code maxWait} for it to finish.
+     */
+    Claim claim(String key, String fingerprint, Duration maxWait) throws InterruptedException;
+
+    /** Stores the response of the request that acquired {@code key}. */
+    void complete(String key, StoredResponse response);
+
+    /** Gives up an acquired key without a response, so the next retry runs the request. */
+    void release(String key);
+
+    enum Outcome { ACQUIRED, REPLAY, MISMATCH, IN_PROGRESS }
+
+    record Claim(Outcome outcome, StoredResponse response) {
+        public static final Claim ACQUIRED = new Claim(Outcome.ACQUIRED, null);
+        public static final Claim MISMATCH = new Claim(Outcome.MISMATCH, null);
+        public static final Claim IN_PROGRESS = new Claim(Outcome.IN_PROGRESS, null);
+
+        public static Claim replay(StoredResponse response) {
+            return new Claim(Outcome.REPLAY, response);
+        }
+    }
+}
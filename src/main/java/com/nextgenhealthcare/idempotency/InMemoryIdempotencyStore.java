@@ -0,0 +1,110 @@
+package com.nextgenhealthcare.idempotency;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Stored responses are kept in insertion order with one TTL for all, so the expired ones are
+ * always at the head and the oldest is evicted first once {@code maxEntries} is reached. Requests
+ * still running are kept apart, never evicted, as futures that retries of the same key wait on.
+ */
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    // Both guarded by this
+    private final LinkedHashMap<String, Stored> stored = new LinkedHashMap<>();
+    private final Map<String, Pending> pending = new HashMap<>();
+
+    public InMemoryIdempotencyStore(Duration ttl, int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public Claim claim(String key, String fingerprint, Duration maxWait) throws InterruptedException {
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        while (true) {
+            CompletableFuture<StoredResponse> running;
+            synchronized (this) {
+                expire(System.nanoTime());
+                Stored done = stored.get(key);
+                if (done != null) {
+                    return done.response.fingerprint().equals(fingerprint) ? Claim.replay(done.response) : Claim.MISMATCH;
+                }
+                Pending inFlight = pending.get(key);
+                if (inFlight == null) {
+                    pending.put(key, new Pending(fingerprint, new CompletableFuture<>()));
+                    return Claim.ACQUIRED;
+                }
+                if (!inFlight.fingerprint.equals(fingerprint)) {
+                    return Claim.MISMATCH;
+                }
+                running = inFlight.response;
+            }
+            StoredResponse response;
+            try {
+                response = running.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                return Claim.IN_PROGRESS;
+            } catch (ExecutionException e) {
+                response = null;
+            }
+            if (response != null) {
+                return Claim.replay(response);
+            }
+            // Released without a response: the next claim may take the key over
+        }
+    }
+
+    @Override
+    public void complete(String key, StoredResponse response) {
+        Pending inFlight;
+        synchronized (this) {
+            inFlight = pending.remove(key);
+            stored.remove(key);
+            stored.put(key, new Stored(response, System.nanoTime() + ttlNanos));
+            if (stored.size() > maxEntries) {
+                Iterator<Stored> eldest = stored.values().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        if (inFlight != null) {
+            inFlight.response.complete(response);
+        }
+    }
+
+    @Override
+    public void release(String key) {
+        Pending inFlight;
+        synchronized (this) {
+            inFlight = pending.remove(key);
+        }
+        if (inFlight != null) {
+            inFlight.response.complete(null);
+        }
+    }
+
+    public synchronized int size() {
+        return stored.size() + pending.size();
+    }
+
+    private void expire(long now) {
+        Iterator<Stored> it = stored.values().iterator();
+        while (it.hasNext() && it.next().expiresAt - now <= 0) {
+            it.remove();
+        }
+    }
+
+    private record Stored(StoredResponse response, long expiresAt) {}
+
+    private record Pending(String fingerprint, CompletableFuture<StoredResponse> response) {}
+}
@@ -0,0 +1,11 @@
+package com.nextgenhealthcare.idempotency;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A response kept for replay, with the fingerprint (method, path and body hash) of the request
+ * that produced it.
+ */
+public record StoredResponse(String fingerprint, int status, Map<String, List<String>> headers, byte[] body) {
+}
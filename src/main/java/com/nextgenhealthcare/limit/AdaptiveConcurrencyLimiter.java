@@ -0,0 +1,195 @@
+package com.nextgenhealthcare.limit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit for calls to a downstream service that finds its own value from observed
+ * round-trip times, in the style of a gradient limiter: each sample compares the short-term RTT
+ * with a slow moving average, and the limit shrinks as latency rises above it (queueing
+ * downstream) and grows by about sqrt(limit) while latency holds and the limit is actually used.
+ * Timeouts and server errors cut the limit multiplicatively (AIMD).
+ *
+ * Callers over the limit wait up to {@code maxQueueWait} for a slot and are then rejected, so a
+ * slow downstream sheds load instead of building a queue. Publishes
+ * {@code concurrency.limiter.limit}, {@code .in.flight} and {@code .rejected}, tagged by name.
+ */
+public class AdaptiveConcurrencyLimiter implements MeterBinder {
+
+    // Samples in the long-term RTT average
+    private static final double LONG_WINDOW = 600;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+    private final Duration maxQueueWait;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final LongAdder rejected = new LongAdder();
+    private double limit;
+    private int inFlight;
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      double rttTolerance, double smoothing, Duration maxQueueWait) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Need 1 <= minLimit <= maxLimit");
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.maxQueueWait = maxQueueWait;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Takes a slot, waiting up to {@code maxQueueWait} for one.
+     *
+     * @return the slot, to be completed exactly once, or empty if the call should be rejected
+     */
+    public Optional<Token> acquire() {
+        return acquire(maxQueueWait.toNanos());
+    }
+
+    // For callers that must not block
+    public Optional<Token> tryAcquire() {
+        return acquire(0);
+    }
+
+    private Optional<Token> acquire(long waitNanos) {
+        long remaining = waitNanos;
+        lock.lock();
+        try {
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0) {
+                    rejected.increment();
+                    return Optional.empty();
+                }
+                try {
+                    remaining = released.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    rejected.increment();
+                    return Optional.empty();
+                }
+            }
+            inFlight++;
+            return Optional.of(new Token(inFlight));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("concurrency.limiter.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("name", name).register(registry);
+        Gauge.builder("concurrency.limiter.in.flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("name", name).register(registry);
+        FunctionCounter.builder("concurrency.limiter.rejected", this, AdaptiveConcurrencyLimiter::getRejected)
+                .tag("name", name).register(registry);
+    }
+
+    private void release(int inFlightAtStart, long rttNanos, boolean dropped) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (dropped) {
+                limit = Math.max(minLimit, limit * DROP_BACKOFF);
+            } else if (rttNanos > 0) {
+                onSample(inFlightAtStart, rttNanos);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onSample(int inFlightAtStart, long rttNanos) {
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) / LONG_WINDOW;
+            // Recovering from a slow period: let the baseline come down quickly too
+            if (longRttNanos > 2 * rttNanos) {
+                longRttNanos *= 0.95;
+            }
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, rttTolerance * longRttNanos / rttNanos));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        // Lightly used: latency says nothing about a higher limit
+        if (inFlightAtStart < limit / 2) {
+            newLimit = Math.min(newLimit, limit);
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + newLimit * smoothing));
+    }
+
+    /** One admitted call; report how it ended exactly once. */
+    public final class Token {
+
+        private final int inFlightAtStart;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Token(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        public void onSuccess(long rttNanos) {
+            if (done.compareAndSet(false, true)) {
+                release(inFlightAtStart, rttNanos, false);
+            }
+        }
+
+        // Timeout, connection failure or server error: the downstream is overloaded or failing
+        public void onDropped() {
+            if (done.compareAndSet(false, true)) {
+                release(inFlightAtStart, 0, true);
+            }
+        }
+
+        // Frees the slot without a sample, e.g. a client error or a cancelled call
+        public void onIgnore() {
+            if (done.compareAndSet(false, true)) {
+                release(inFlightAtStart, 0, false);
+            }
+        }
+    }
+}
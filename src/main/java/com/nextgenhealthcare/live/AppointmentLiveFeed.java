@@ -0,0 +1,425 @@
+package com.nextgenhealthcare.live;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nextgenhealthcare.dto.AppointmentResponse;
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.repository.AppointmentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes appointment changes to dashboards subscribed to a doctor or a day, over SSE.
+ *
+ * A subscriber first gets a {@code snapshot} event (the appointments as a list), then
+ * {@code upsert} and {@code deleted} events as AppointmentService changes commit on this
+ * instance. An appointment moved to another doctor or day is an upsert for the new topic and a
+ * delete for the old one. Each event is serialized once and queued to every subscriber of its
+ * topic; publishers never block on a client. A subscriber's queue is bounded: when it fills up,
+ * the subscriber is either sent a fresh snapshot in place of what it missed ({@code resync}) or
+ * disconnected ({@code drop}, an EventSource then reconnects and starts with a snapshot). A
+ * subscriber still waiting for its resync snapshot {@code app.live.send-timeout} later, and
+ * filling up again, is disconnected as well.
+ *
+ * Writes to clients happen on a small shared pool and block while the client's socket is full.
+ * A write still blocked after the send timeout disconnects its subscriber and adds a sender
+ * thread to the pool, so one stalled client holds up no one else; the thread is given back
+ * once the container's write timeout releases it.
+ */
+@Component
+public class AppointmentLiveFeed implements MeterBinder, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentLiveFeed.class);
+    static final String SNAPSHOT = "snapshot";
+    static final String UPSERT = "upsert";
+    static final String DELETED = "deleted";
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+
+    private final AppointmentRepository repo;
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final boolean resync;
+    private final long sendTimeoutNanos;
+    private final int senderThreads;
+    private final ThreadPoolExecutor senders;
+    // Guarded by senders
+    private int stalledSenders;
+    private final Map<String, Set<Subscriber>> topics = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private Counter resyncs;
+    private Counter drops;
+    private Counter timeouts;
+
+    public AppointmentLiveFeed(AppointmentRepository repo,
+                               ObjectMapper objectMapper,
+                               @Value("${app.live.buffer-size:256}") int bufferSize,
+                               @Value("${app.live.slow-consumer:resync}") String slowConsumer,
+                               @Value("${app.live.sender-threads:4}") int senderThreads,
+                               @Value("${app.live.send-timeout:PT10S}") Duration sendTimeout) {
+        if (!"resync".equals(slowConsumer) && !"drop".equals(slowConsumer)) {
+            throw new IllegalArgumentException("app.live.slow-consumer must be resync or drop: " + slowConsumer);
+        }
+        this.repo = repo;
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.resync = "resync".equals(slowConsumer);
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.senderThreads = senderThreads;
+        AtomicInteger threads = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "live-feed-" + threads.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    public static String doctorTopic(long doctorId) {
+        return "doctor:" + doctorId;
+    }
+
+    public static String dayTopic(LocalDate day) {
+        return "day:" + day;
+    }
+
+    /** Opens a subscription; the snapshot is the first thing sent on it. */
+    public SseEmitter subscribe(String topic) {
+        // No server-side timeout: the heartbeat finds dead connections
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscriber subscriber = new Subscriber(topic, emitter, bufferSize);
+        // compute() so a concurrent unsubscribe can't drop the set this subscriber is joining
+        topics.compute(topic, (t, subscribed) -> {
+            Set<Subscriber> set = subscribed != null ? subscribed : ConcurrentHashMap.newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+        subscribers.incrementAndGet();
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        subscriber.needsSnapshot = true;
+        schedule(subscriber);
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.get();
+    }
+
+    public void onSaved(Appointment.PersistedState before, Appointment saved) {
+        String topic = topicOf(saved.getDoctor() != null ? saved.getDoctor().getId() : null);
+        String day = dayOf(saved.getAppointmentTime());
+        List<String> removedFrom = new ArrayList<>(2);
+        if (before != null) {
+            String oldTopic = topicOf(before.doctorId());
+            String oldDay = dayOf(before.appointmentTime());
+            if (oldTopic != null && !oldTopic.equals(topic)) removedFrom.add(oldTopic);
+            if (oldDay != null && !oldDay.equals(day)) removedFrom.add(oldDay);
+        }
+        List<String> upsertTo = new ArrayList<>(2);
+        if (topic != null) upsertTo.add(topic);
+        if (day != null) upsertTo.add(day);
+        if (!anySubscribed(upsertTo) && !anySubscribed(removedFrom)) {
+            return;
+        }
+        String upsert = toJson(AppointmentResponse.from(saved));
+        String deleted = removedFrom.isEmpty() ? null : deletedJson(saved.getId());
+        afterCommit(() -> {
+            publish(upsertTo, UPSERT, upsert);
+            publish(removedFrom, DELETED, deleted);
+        });
+    }
+
+    public void onDeleted(Long id, Appointment.PersistedState state) {
+        List<String> from = new ArrayList<>(2);
+        String topic = topicOf(state != null ? state.doctorId() : null);
+        String day = dayOf(state != null ? state.appointmentTime() : null);
+        if (topic != null) from.add(topic);
+        if (day != null) from.add(day);
+        if (!anySubscribed(from)) {
+            return;
+        }
+        String deleted = deletedJson(id);
+        afterCommit(() -> publish(from, DELETED, deleted));
+    }
+
+    /** Keeps idle connections open through proxies and finds the ones that went away. */
+    @Scheduled(fixedDelayString = "${app.live.heartbeat-ms:30000}")
+    public void heartbeat() {
+        for (Set<Subscriber> topic : topics.values()) {
+            for (Subscriber s : topic) {
+                enqueue(s, HEARTBEAT);
+            }
+        }
+    }
+
+    /** Disconnects subscribers whose current write has been blocked longer than the send timeout. */
+    @Scheduled(fixedDelayString = "${app.live.watchdog-ms:1000}")
+    public void disconnectStalled() {
+        long now = System.nanoTime();
+        for (Set<Subscriber> topic : topics.values()) {
+            for (Subscriber s : topic) {
+                long started = s.sendStarted;
+                if (started != 0 && now - started > sendTimeoutNanos && s.stalled.compareAndSet(false, true)) {
+                    increment(timeouts);
+                    log.debug("Disconnecting a subscriber to {} stalled in a write", s.topic);
+                    // The blocked sender completes the emitter once its write returns
+                    unsubscribe(s);
+                    s.buffer.clear();
+                    resizeSenders(1);
+                    // In case the write returned meanwhile and nothing is draining any more
+                    schedule(s);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("appointments.live.subscribers", subscribers, AtomicInteger::get)
+                .description("Open appointment subscriptions")
+                .register(registry);
+        resyncs = Counter.builder("appointments.live.slow-consumers").tag("action", "resync").register(registry);
+        drops = Counter.builder("appointments.live.slow-consumers").tag("action", "drop").register(registry);
+        timeouts = Counter.builder("appointments.live.slow-consumers").tag("action", "timeout").register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        senders.shutdownNow();
+        for (Set<Subscriber> topic : topics.values()) {
+            topic.forEach(s -> s.emitter.complete());
+        }
+    }
+
+    private void publish(List<String> to, String name, String data) {
+        if (data == null) {
+            return;
+        }
+        for (String topic : to) {
+            Set<Subscriber> subscribed = topics.get(topic);
+            if (subscribed == null) {
+                continue;
+            }
+            // Built once and shared: every subscriber writes the same frame
+            Set<DataWithMediaType> event = SseEmitter.event()
+                    .id(Long.toString(sequence.incrementAndGet())).name(name).data(data).build();
+            for (Subscriber s : subscribed) {
+                enqueue(s, event);
+            }
+        }
+    }
+
+    private void enqueue(Subscriber s, Set<DataWithMediaType> event) {
+        if (s.buffer.offer(event)) {
+            schedule(s);
+        } else if (resync && !(s.needsSnapshot && System.nanoTime() - s.resyncedAt > sendTimeoutNanos)) {
+            // What is queued is now stale; the snapshot replaces all of it
+            s.buffer.clear();
+            if (!s.needsSnapshot) {
+                s.resyncedAt = System.nanoTime();
+                s.needsSnapshot = true;
+            }
+            increment(resyncs);
+            schedule(s);
+        } else {
+            increment(drops);
+            log.debug("Dropping slow subscriber to {}", s.topic);
+            // Completed by the sender, never here: the publisher must not wait on the client
+            unsubscribe(s);
+            s.buffer.clear();
+            schedule(s);
+        }
+    }
+
+    private void schedule(Subscriber s) {
+        if (s.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(s));
+            } catch (RuntimeException e) {
+                s.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscriber s) {
+        try {
+            do {
+                if (!s.subscribed.get()) {
+                    // Dropped or timed out; draining stays set so nothing is scheduled again
+                    s.emitter.complete();
+                    return;
+                }
+                if (s.needsSnapshot) {
+                    s.needsSnapshot = false;
+                    send(s, snapshot(s.topic).build());
+                }
+                Set<DataWithMediaType> event;
+                while (s.subscribed.get() && !s.needsSnapshot && (event = s.buffer.poll()) != null) {
+                    send(s, event);
+                }
+                s.draining.set(false);
+            } while ((!s.subscribed.get() || s.needsSnapshot || !s.buffer.isEmpty())
+                    && s.draining.compareAndSet(false, true));
+        } catch (IOException | IllegalStateException e) {
+            // Client went away or the emitter is already complete; nothing left to report to
+            unsubscribe(s);
+            s.emitter.complete();
+        } catch (RuntimeException e) {
+            log.warn("Sending to a subscriber of {} failed", s.topic, e);
+            unsubscribe(s);
+            s.emitter.completeWithError(e);
+        } finally {
+            if (s.stalled.get()) {
+                resizeSenders(-1);
+            }
+        }
+    }
+
+    private void send(Subscriber s, Set<DataWithMediaType> event) throws IOException {
+        s.sendStarted = System.nanoTime();
+        try {
+            s.emitter.send(event);
+        } finally {
+            s.sendStarted = 0;
+        }
+    }
+
+    // Grown while senders are blocked on stalled clients, back to senderThreads as they return
+    private void resizeSenders(int delta) {
+        synchronized (senders) {
+            stalledSenders += delta;
+            int size = senderThreads + stalledSenders;
+            if (delta > 0) {
+                senders.setMaximumPoolSize(size);
+                senders.setCorePoolSize(size);
+            } else {
+                senders.setCorePoolSize(size);
+                senders.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    private SseEmitter.SseEventBuilder snapshot(String topic) {
+        List<Appointment> appointments;
+        if (topic.startsWith("doctor:")) {
+            appointments = repo.findByDoctorId(Long.parseLong(topic.substring("doctor:".length())));
+        } else {
+            LocalDate day = LocalDate.parse(topic.substring("day:".length()));
+            appointments = repo.findByAppointmentTimeGreaterThanEqualAndAppointmentTimeLessThanOrderByAppointmentTimeAsc(
+                    day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        }
+        // Deltas are upserts and deletes by id, so one that the snapshot already reflects is harmless
+        return SseEmitter.event().id(Long.toString(sequence.get())).name(SNAPSHOT)
+                .data(toJson(appointments.stream().map(AppointmentResponse::from).toList()));
+    }
+
+    private void unsubscribe(Subscriber s) {
+        if (s.subscribed.compareAndSet(true, false)) {
+            subscribers.decrementAndGet();
+            topics.computeIfPresent(s.topic, (t, subscribed) -> {
+                subscribed.remove(s);
+                return subscribed.isEmpty() ? null : subscribed;
+            });
+        }
+    }
+
+    private boolean anySubscribed(List<String> candidates) {
+        for (String topic : candidates) {
+            if (topics.containsKey(topic)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void afterCommit(Runnable publish) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish.run();
+                }
+            });
+        } else {
+            publish.run();
+        }
+    }
+
+    private static String topicOf(Long doctorId) {
+        return doctorId != null ? doctorTopic(doctorId) : null;
+    }
+
+    private static String dayOf(LocalDateTime time) {
+        return time != null ? dayTopic(time.toLocalDate()) : null;
+    }
+
+    private String deletedJson(Long id) {
+        return "{\"id\":" + Objects.requireNonNull(id) + "}";
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    private static final class Subscriber {
+        final String topic;
+        final SseEmitter emitter;
+        final ArrayBlockingQueue<Set<DataWithMediaType>> buffer;
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean subscribed = new AtomicBoolean(true);
+        final AtomicBoolean stalled = new AtomicBoolean();
+        volatile boolean needsSnapshot;
+        volatile long resyncedAt;
+        // When the write in progress began, 0 between writes
+        volatile long sendStarted;
+
+        Subscriber(String topic, SseEmitter emitter, int bufferSize) {
+            this.topic = topic;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+}
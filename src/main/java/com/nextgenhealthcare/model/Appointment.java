@@ -1,15 +1,19 @@
 package com.nextgenhealthcare.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.nextgenhealthcare.sharding.GlobalId;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments", indexes = {
+        @Index(name = "idx_appointments_time", columnList = "appointment_time")
+})
 public class Appointment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GlobalId
     private Long id;
 
     // Many appointments can belong to one patient
@@ -33,6 +37,18 @@ public class Appointment {
     @Column(length = 50)
     private String status = "SCHEDULED";
 
+    // Bumped on every update; drives optimistic locking and the HTTP ETag
+    @Version
+    @JsonIgnore
+    private long version;
+
+    // Values as last loaded or written, so an update can be applied to statistics as a delta
+    @Transient
+    @JsonIgnore
+    private PersistedState persistedState;
+
+    public record PersistedState(Long doctorId, String status, LocalDateTime appointmentTime) {}
+
     public Appointment() {}
 
     // Constructor without explicit status (status will default to "SCHEDULED")
@@ -74,4 +90,16 @@ public class Appointment {
     public void setStatus(String status) {
         if (status != null) this.status = status;
     }
+
+    public long getVersion() { return version; }
+
+    // Null for an appointment that has not been saved yet
+    public PersistedState getPersistedState() { return persistedState; }
+
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void capturePersistedState() {
+        persistedState = new PersistedState(doctor != null ? doctor.getId() : null, status, appointmentTime);
+    }
 }
@@ -0,0 +1,54 @@
+package com.nextgenhealthcare.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Appointment moved out of the live table by the archiver. Keeps the original id; patient and
+ * doctor are plain ids so archived history outlives the rows they pointed to.
+ */
+@Entity
+@Table(name = "appointments_archive", indexes = {
+        @Index(name = "idx_archive_patient", columnList = "patient_id, appointment_time"),
+        @Index(name = "idx_archive_doctor", columnList = "doctor_id, appointment_time")
+})
+public class ArchivedAppointment {
+
+    @Id
+    private Long id;
+
+    @Column(name = "patient_id")
+    private Long patientId;
+
+    @Column(name = "doctor_id")
+    private Long doctorId;
+
+    @Column(name = "appointment_time")
+    private LocalDateTime appointmentTime;
+
+    @Column(length = 100)
+    private String reason;
+
+    @Column(length = 50)
+    private String status;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    public ArchivedAppointment() {}
+
+    public Long getId() { return id; }
+    public Long getPatientId() { return patientId; }
+    public Long getDoctorId() { return doctorId; }
+    public LocalDateTime getAppointmentTime() { return appointmentTime; }
+    public String getReason() { return reason; }
+    public String getStatus() { return status; }
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+
+    // Same JSON shape as a live appointment, for history lists that mix both
+    public Appointment toAppointment() {
+        Appointment a = new Appointment(null, null, appointmentTime, reason, status);
+        a.setId(id);
+        return a;
+    }
+}
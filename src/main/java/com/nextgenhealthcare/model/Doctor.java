@@ -1,7 +1,9 @@
 package com.nextgenhealthcare.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,6 +19,16 @@ public class Doctor {
     private String specialization;
     private String email;
 
+    // Bumped on every update; drives optimistic locking and the HTTP ETag
+    @Version
+    @JsonIgnore
+    private long version;
+
+    // Set when the doctor is deleted; the row stays, hidden, until its appointments are purged
+    @Column(name = "deleted_at")
+    @JsonIgnore
+    private LocalDateTime deletedAt;
+
     @OneToMany(mappedBy = "doctor", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference(value = "doctor-appointments")
     private List<Appointment> appointments = new ArrayList<>();
@@ -42,6 +54,10 @@ public class Doctor {
     public String getEmail() { return email; }
     public void setEmail(String email) { this.email = email; }
 
+    public long getVersion() { return version; }
+
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+
     public List<Appointment> getAppointments() { return appointments; }
     public void setAppointments(List<Appointment> appointments) { this.appointments = appointments; }
 }
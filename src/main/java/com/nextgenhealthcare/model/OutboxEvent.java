@@ -0,0 +1,75 @@
+package com.nextgenhealthcare.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Transactional outbox row for an appointment change.
+ * The feed sequence, assigned once the row has committed, is the change-feed cursor.
+ */
+@Entity
+@Table(name = "appointment_outbox", indexes = {
+        @Index(name = "idx_outbox_unpublished", columnList = "published_at, feed_seq")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_outbox_origin", columnNames = {"origin_shard", "origin_id"})
+})
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Null until OutboxSequencer numbers the committed row
+    @Column(name = "feed_seq", unique = true)
+    private Long feedSequence;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    // CREATED, UPDATED or DELETED
+    @Column(name = "event_type", nullable = false, length = 20)
+    private String eventType;
+
+    // JSON snapshot of the appointment after the change
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+
+    // With sharding: where a row collected from another shard's outbox was written
+    @Column(name = "origin_shard")
+    private Integer originShard;
+
+    @Column(name = "origin_id")
+    private Long originId;
+
+    public OutboxEvent() {}
+
+    public OutboxEvent(Long aggregateId, String eventType, String payload, LocalDateTime createdAt) {
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() { return id; }
+
+    public Long getFeedSequence() { return feedSequence; }
+    public void setFeedSequence(Long feedSequence) { this.feedSequence = feedSequence; }
+
+    public Long getAggregateId() { return aggregateId; }
+    public String getEventType() { return eventType; }
+    public String getPayload() { return payload; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public LocalDateTime getPublishedAt() { return publishedAt; }
+    public void setPublishedAt(LocalDateTime publishedAt) { this.publishedAt = publishedAt; }
+
+    public Integer getOriginShard() { return originShard; }
+    public Long getOriginId() { return originId; }
+}
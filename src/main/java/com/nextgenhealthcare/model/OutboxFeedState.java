@@ -0,0 +1,37 @@
+package com.nextgenhealthcare.model;
+
+import jakarta.persistence.*;
+
+/**
+ * The single row behind the change-feed sequence: the last sequence handed out and the highest
+ * one already purged. Locked for every assignment, so sequences follow commit order.
+ */
+@Entity
+@Table(name = "appointment_outbox_feed")
+public class OutboxFeedState {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "last_sequence", nullable = false)
+    private long lastSequence;
+
+    @Column(name = "purged_through", nullable = false)
+    private long purgedThrough;
+
+    public OutboxFeedState() {}
+
+    public OutboxFeedState(Integer id) {
+        this.id = id;
+    }
+
+    public Integer getId() { return id; }
+
+    public long getLastSequence() { return lastSequence; }
+    public void setLastSequence(long lastSequence) { this.lastSequence = lastSequence; }
+
+    public long getPurgedThrough() { return purgedThrough; }
+    public void setPurgedThrough(long purgedThrough) { this.purgedThrough = purgedThrough; }
+}
@@ -1,7 +1,9 @@
 package com.nextgenhealthcare.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,6 +19,16 @@ public class Patient {
     private Integer age;              // <-- Integer (nullable)
     private String email;
 
+    // Bumped on every update; drives optimistic locking and the HTTP ETag
+    @Version
+    @JsonIgnore
+    private long version;
+
+    // Set when the patient is deleted; the row stays, hidden, until its appointments are purged
+    @Column(name = "deleted_at")
+    @JsonIgnore
+    private LocalDateTime deletedAt;
+
     @OneToMany(mappedBy = "patient", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference(value = "patient-appointments")
     private List<Appointment> appointments = new ArrayList<>();
@@ -43,6 +55,10 @@ public class Patient {
     public String getEmail() { return email; }
     public void setEmail(String email) { this.email = email; }
 
+    public long getVersion() { return version; }
+
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+
     public List<Appointment> getAppointments() { return appointments; }
     public void setAppointments(List<Appointment> appointments) { this.appointments = appointments; }
 }
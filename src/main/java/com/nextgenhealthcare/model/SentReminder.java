@@ -0,0 +1,67 @@
+package com.nextgenhealthcare.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Ledger row for one reminder. It is inserted as PENDING when an instance claims the reminder,
+ * becomes SENT once the sink accepted it and FAILED when the sink threw; FAILED rows and PENDING
+ * ones whose claim went stale are retried. The unique key keeps a reminder to one claim at a
+ * time, across restarts and instances.
+ */
+@Entity
+@Table(name = "appointment_reminders_sent",
+        uniqueConstraints = @UniqueConstraint(name = "uk_reminder_sent",
+                columnNames = {"appointment_id", "appointment_time", "offset_minutes"}))
+public class SentReminder {
+
+    public static final String PENDING = "PENDING";
+    public static final String SENT = "SENT";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "appointment_id", nullable = false)
+    private Long appointmentId;
+
+    // Part of the key so a rescheduled appointment gets fresh reminders
+    @Column(name = "appointment_time", nullable = false)
+    private LocalDateTime appointmentTime;
+
+    @Column(name = "offset_minutes", nullable = false)
+    private Long offsetMinutes;
+
+    @Column(name = "status", nullable = false, length = 16)
+    private String status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    public SentReminder() {}
+
+    public SentReminder(Long appointmentId, LocalDateTime appointmentTime, Long offsetMinutes, LocalDateTime claimedAt) {
+        this.appointmentId = appointmentId;
+        this.appointmentTime = appointmentTime;
+        this.offsetMinutes = offsetMinutes;
+        this.status = PENDING;
+        this.attempts = 1;
+        this.claimedAt = claimedAt;
+    }
+
+    public Long getId() { return id; }
+    public Long getAppointmentId() { return appointmentId; }
+    public LocalDateTime getAppointmentTime() { return appointmentTime; }
+    public Long getOffsetMinutes() { return offsetMinutes; }
+    public String getStatus() { return status; }
+    public int getAttempts() { return attempts; }
+    public LocalDateTime getClaimedAt() { return claimedAt; }
+    public LocalDateTime getSentAt() { return sentAt; }
+}
@@ -0,0 +1,104 @@
+package com.nextgenhealthcare.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nextgenhealthcare.datasource.RoutingContext;
+import com.nextgenhealthcare.dto.AppointmentChange;
+import com.nextgenhealthcare.dto.AppointmentChangeFeed;
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.model.OutboxEvent;
+import com.nextgenhealthcare.model.OutboxFeedState;
+import com.nextgenhealthcare.repository.OutboxEventRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes appointment change events into the outbox and serves the change feed.
+ */
+@Component
+public class AppointmentOutbox {
+
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+
+    private static final int MAX_FEED_PAGE = 1000;
+
+    private final OutboxEventRepository repo;
+    private final ObjectMapper objectMapper;
+    private final OutboxSequencer sequencer;
+
+    public AppointmentOutbox(OutboxEventRepository repo,
+                             ObjectMapper objectMapper,
+                             OutboxSequencer sequencer) {
+        this.repo = repo;
+        this.objectMapper = objectMapper;
+        this.sequencer = sequencer;
+    }
+
+    /**
+     * Records a change. Must run inside the transaction that performs the change,
+     * so the event is stored if and only if the change commits.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String eventType, Appointment appointment) {
+        repo.save(new OutboxEvent(appointment.getId(), eventType, toJson(appointment), LocalDateTime.now()));
+    }
+
+    /**
+     * Returns changes with a feed sequence greater than {@code since}. Sequences are handed out
+     * in commit order by the relay's sequencing pass (see OutboxSequencer), so a cursor never
+     * steps past a late commit; this is a plain read and only sees rows already numbered. A cursor
+     * older than the retained window comes back with {@code cursorExpired} set and no changes;
+     * the consumer has to resync from a full read and continue from the returned nextSince.
+     */
+    public AppointmentChangeFeed changesSince(long since, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_FEED_PAGE));
+        // Fetch one extra row to know whether another page follows. Read from the primary: a
+        // lagging replica would miss rows the sequencer has just numbered
+        List<OutboxEvent> rows = RoutingContext.onPrimary(() -> repo.findByFeedSequenceGreaterThanOrderByFeedSequenceAsc(
+                since, PageRequest.of(0, size + 1)));
+        // Read after the rows: a purge in between shows up here rather than as a silent gap
+        OutboxFeedState state = RoutingContext.onPrimary(sequencer::state);
+
+        AppointmentChangeFeed feed = new AppointmentChangeFeed();
+        if (since < state.getPurgedThrough()) {
+            feed.setChanges(List.of());
+            feed.setNextSince(state.getLastSequence());
+            feed.setCursorExpired(true);
+            return feed;
+        }
+        boolean hasMore = rows.size() > size;
+        List<AppointmentChange> changes = new ArrayList<>(Math.min(rows.size(), size));
+        for (OutboxEvent e : hasMore ? rows.subList(0, size) : rows) {
+            changes.add(new AppointmentChange(e.getFeedSequence(), e.getEventType(), e.getAggregateId(),
+                    e.getCreatedAt(), e.getPayload()));
+        }
+        feed.setChanges(changes);
+        feed.setNextSince(changes.isEmpty() ? since : changes.get(changes.size() - 1).getSequence());
+        feed.setHasMore(hasMore);
+        return feed;
+    }
+
+    private String toJson(Appointment a) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("id", a.getId());
+        node.put("patientId", a.getPatient() != null ? a.getPatient().getId() : null);
+        node.put("doctorId", a.getDoctor() != null ? a.getDoctor().getId() : null);
+        node.put("appointmentTime", a.getAppointmentTime() != null ? a.getAppointmentTime().toString() : null);
+        node.put("reason", a.getReason());
+        node.put("status", a.getStatus());
+        try {
+            return objectMapper.writeValueAsString(node);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize appointment " + a.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.nextgenhealthcare.outbox;
+
+import com.nextgenhealthcare.model.OutboxEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps published events in memory. Intended for tests and local development.
+ */
+public class InMemoryOutboxPublisher implements OutboxPublisher {
+
+    private final List<OutboxEvent> published = new ArrayList<>();
+    private int batches;
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> batch) {
+        published.addAll(batch);
+        batches++;
+    }
+
+    public synchronized List<OutboxEvent> getPublished() {
+        return new ArrayList<>(published);
+    }
+
+    public synchronized int getBatchCount() {
+        return batches;
+    }
+
+    public synchronized void clear() {
+        published.clear();
+        batches = 0;
+    }
+}
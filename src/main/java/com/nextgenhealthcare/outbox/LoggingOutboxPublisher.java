@@ -0,0 +1,23 @@
+package com.nextgenhealthcare.outbox;
+
+import com.nextgenhealthcare.model.OutboxEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Default publisher used until a real broker is wired in.
+ */
+public class LoggingOutboxPublisher implements OutboxPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggingOutboxPublisher.class);
+
+    @Override
+    public void publish(List<OutboxEvent> batch) {
+        for (OutboxEvent e : batch) {
+            log.debug("Outbox event {} {} for appointment {}", e.getId(), e.getEventType(), e.getAggregateId());
+        }
+        log.info("Published {} appointment change event(s)", batch.size());
+    }
+}
@@ -0,0 +1,14 @@
+package com.nextgenhealthcare.outbox;
+
+import com.nextgenhealthcare.model.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Delivers drained outbox events to other services (broker, webhook...).
+ * A batch that throws is retried on the next relay run, so delivery is at-least-once.
+ * Declare a bean of this type to replace the default logging publisher.
+ */
+public interface OutboxPublisher {
+    void publish(List<OutboxEvent> batch);
+}
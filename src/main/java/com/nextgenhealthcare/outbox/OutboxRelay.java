@@ -0,0 +1,127 @@
+package com.nextgenhealthcare.outbox;
+
+import com.nextgenhealthcare.model.OutboxEvent;
+import com.nextgenhealthcare.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Drains unpublished outbox rows, in feed sequence order, in batches to the configured {@link OutboxPublisher}.
+ * Each batch is published and marked in its own transaction; a failing batch stays
+ * unpublished and is retried on the next run.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository repo;
+    private final OutboxSequencer sequencer;
+    private final OutboxPublisher publisher;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration retention;
+    // A lock rather than synchronized: drain does JDBC I/O and must not pin a virtual thread
+    private final ReentrantLock draining = new ReentrantLock();
+
+    public OutboxRelay(OutboxEventRepository repo,
+                       OutboxSequencer sequencer,
+                       ObjectProvider<OutboxPublisher> publisherProvider,
+                       TransactionTemplate tx,
+                       @Value("${outbox.batch-size:200}") int batchSize,
+                       @Value("${outbox.max-batches-per-run:50}") int maxBatchesPerRun,
+                       @Value("${outbox.retention:P7D}") Duration retention) {
+        this.repo = repo;
+        this.sequencer = sequencer;
+        this.publisher = publisherProvider.getIfAvailable(LoggingOutboxPublisher::new);
+        this.tx = tx;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.retention = retention;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay-interval-ms:1000}")
+    public void scheduledDrain() {
+        drain();
+    }
+
+    // Published rows are kept for the change feed until the retention expires
+    @Scheduled(fixedDelayString = "${outbox.purge-interval-ms:3600000}")
+    public void purge() {
+        Integer purged = tx.execute(status -> {
+            Long through = repo.maxSequencePublishedBefore(LocalDateTime.now().minus(retention));
+            if (through == null) {
+                return 0;
+            }
+            // Lets the change feed tell a consumer its cursor fell out of the window
+            sequencer.markPurgedThrough(through);
+            return repo.deleteThrough(through);
+        });
+        if (purged != null && purged > 0) {
+            log.info("Purged {} published outbox event(s)", purged);
+        }
+    }
+
+    /**
+     * Publishes pending events until the outbox is empty or the per-run cap is reached.
+     *
+     * @return number of events published
+     */
+    public int drain() {
+        draining.lock();
+        try {
+            return drainLocked();
+        } finally {
+            draining.unlock();
+        }
+    }
+
+    private int drainLocked() {
+        try {
+            sequencer.assign();
+        } catch (Exception e) {
+            log.warn("Outbox sequencing failed, will retry: {}", e.getMessage());
+            return 0;
+        }
+        int total = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            Integer published;
+            try {
+                published = tx.execute(status -> publishBatch());
+            } catch (Exception e) {
+                log.warn("Outbox publish failed, will retry: {}", e.getMessage());
+                break;
+            }
+            if (published == null || published == 0) {
+                break;
+            }
+            total += published;
+            if (published < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private int publishBatch() {
+        List<OutboxEvent> batch = repo.findByPublishedAtIsNullAndFeedSequenceIsNotNullOrderByFeedSequenceAsc(PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        publisher.publish(batch);
+        repo.markPublished(batch.stream().map(OutboxEvent::getId).toList(), LocalDateTime.now());
+        return batch.size();
+    }
+}
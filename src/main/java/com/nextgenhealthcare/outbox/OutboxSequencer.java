@@ -0,0 +1,144 @@
+package com.nextgenhealthcare.outbox;
+
+import com.nextgenhealthcare.model.OutboxEvent;
+import com.nextgenhealthcare.model.OutboxFeedState;
+import com.nextgenhealthcare.repository.OutboxEventRepository;
+import com.nextgenhealthcare.repository.OutboxFeedStateRepository;
+import com.nextgenhealthcare.sharding.ShardRoutingDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Numbers committed outbox rows for the change feed. The generated id follows insert order,
+ * not commit order, so a cursor over ids can step past a transaction that commits late; a
+ * row only gets its feed sequence here, after it has committed and under a lock on the
+ * counter row, so sequences are handed out in the order rows become visible.
+ *
+ * With sharding, appointment writes record their events in the outbox of their own shard;
+ * committed rows there are first copied to shard 0 (skipping any already copied) and then
+ * deleted, and numbered like the rest.
+ */
+@Component
+public class OutboxSequencer {
+
+    private final OutboxEventRepository repo;
+    private final OutboxFeedStateRepository stateRepo;
+    private final TransactionTemplate tx;
+    private final TransactionTemplate separateTx;
+    private final ShardRoutingDataSource shards;
+    private final int batchSize;
+
+    public OutboxSequencer(OutboxEventRepository repo,
+                           OutboxFeedStateRepository stateRepo,
+                           TransactionTemplate tx,
+                           ObjectProvider<ShardRoutingDataSource> shards,
+                           @Value("${outbox.batch-size:200}") int batchSize) {
+        this.repo = repo;
+        this.stateRepo = stateRepo;
+        this.tx = tx;
+        this.separateTx = new TransactionTemplate(tx.getTransactionManager());
+        this.separateTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.shards = shards.getIfAvailable();
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Assigns sequences to every committed row that has none yet.
+     *
+     * @return number of rows numbered
+     */
+    public int assign() {
+        if (shards != null) {
+            for (int s = 1; s < shards.shardCount(); s++) {
+                collect(s);
+            }
+        }
+        int total = 0;
+        while (repo.existsByFeedSequenceIsNull()) {
+            Integer assigned = tx.execute(status -> assignBatch());
+            if (assigned == null || assigned == 0) {
+                break;
+            }
+            total += assigned;
+        }
+        return total;
+    }
+
+    /** Current feed state; a fresh one when nothing has been numbered yet. */
+    public OutboxFeedState state() {
+        return stateRepo.findById(OutboxFeedState.ID).orElseGet(() -> new OutboxFeedState(OutboxFeedState.ID));
+    }
+
+    /** Records that rows up to {@code sequence} are gone. Must run in the purging transaction. */
+    public void markPurgedThrough(long sequence) {
+        OutboxFeedState state = lockState();
+        if (sequence > state.getPurgedThrough()) {
+            state.setPurgedThrough(sequence);
+        }
+    }
+
+    private int assignBatch() {
+        OutboxFeedState state = lockState();
+        // Read after taking the lock, so rows numbered by a concurrent caller are not seen again
+        List<OutboxEvent> rows = repo.findByFeedSequenceIsNullOrderByIdAsc(PageRequest.of(0, batchSize));
+        long last = state.getLastSequence();
+        for (OutboxEvent e : rows) {
+            e.setFeedSequence(++last);
+        }
+        state.setLastSequence(last);
+        return rows.size();
+    }
+
+    private void collect(int shard) {
+        JdbcTemplate source = new JdbcTemplate(shards.shard(shard));
+        NamedParameterJdbcTemplate home = new NamedParameterJdbcTemplate(shards.shard(0));
+        while (true) {
+            List<Object[]> rows = source.query("SELECT id, aggregate_id, event_type, payload, created_at "
+                            + "FROM appointment_outbox ORDER BY id LIMIT " + batchSize,
+                    (rs, n) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getString(4),
+                            rs.getTimestamp(5)});
+            if (rows.isEmpty()) {
+                return;
+            }
+            List<Long> ids = rows.stream().map(r -> (Long) r[0]).toList();
+            // Copied on an earlier run whose delete failed
+            Set<Long> copied = new HashSet<>(home.queryForList("SELECT origin_id FROM appointment_outbox "
+                    + "WHERE origin_shard = :shard AND origin_id IN (:ids)", Map.of("shard", shard, "ids", ids), Long.class));
+            home.getJdbcTemplate().batchUpdate("INSERT INTO appointment_outbox (aggregate_id, event_type, payload, "
+                            + "created_at, origin_shard, origin_id) VALUES (?, ?, ?, ?, ?, ?)",
+                    rows.stream().filter(r -> !copied.contains((Long) r[0]))
+                            .map(r -> new Object[]{r[1], r[2], r[3], r[4], shard, r[0]}).toList());
+            source.batchUpdate("DELETE FROM appointment_outbox WHERE id = ?", ids.stream().map(id -> new Object[]{id}).toList());
+            if (rows.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private OutboxFeedState lockState() {
+        return stateRepo.findForUpdate(OutboxFeedState.ID).orElseGet(() -> {
+            createState();
+            return stateRepo.findForUpdate(OutboxFeedState.ID).orElseThrow();
+        });
+    }
+
+    private void createState() {
+        try {
+            separateTx.executeWithoutResult(status -> stateRepo.saveAndFlush(new OutboxFeedState(OutboxFeedState.ID)));
+        } catch (DataIntegrityViolationException e) {
+            // Created by a concurrent caller
+        }
+    }
+}
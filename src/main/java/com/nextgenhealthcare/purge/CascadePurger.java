@@ -0,0 +1,305 @@
+package com.nextgenhealthcare.purge;
+
+import com.nextgenhealthcare.live.AppointmentLiveFeed;
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.model.Patient;
+import com.nextgenhealthcare.outbox.AppointmentOutbox;
+import com.nextgenhealthcare.reminder.ReminderScheduler;
+import com.nextgenhealthcare.repository.DoctorRepository;
+import com.nextgenhealthcare.repository.PatientRepository;
+import com.nextgenhealthcare.sharding.ShardRouter;
+import com.nextgenhealthcare.stats.AppointmentStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Deletes a doctor or a patient together with their appointments without loading them through
+ * the {@code appointments} collection. The row is first marked {@code deleted_at}, which hides
+ * it from the API; the appointments then go in batches of {@code app.purge.batch-size}, each
+ * selected by owner, deleted with one {@code DELETE ... WHERE id IN (...)} and committed on its
+ * own, and the row itself goes last.
+ *
+ * Owners with up to {@code app.purge.inline-max} appointments are purged before the delete
+ * returns. Larger ones are purged one at a time on a background thread that pauses between
+ * batches; a periodic sweep picks up purges cut short by a restart or a failure.
+ *
+ * With sharding, the count and the batches run where the appointments are: on the doctor's
+ * shard, or on every shard in turn for a patient. Each batch commits on its shard together with
+ * its outbox events, which OutboxSequencer then collects onto shard 0.
+ */
+@Component
+public class CascadePurger implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CascadePurger.class);
+
+    public enum Owner {
+        DOCTOR("doctors", "doctor_id"),
+        PATIENT("patients", "patient_id");
+
+        private final String table;
+        private final String column;
+
+        Owner(String table, String column) {
+            this.table = table;
+            this.column = column;
+        }
+    }
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final DoctorRepository doctorRepo;
+    private final PatientRepository patientRepo;
+    private final AppointmentStatistics statistics;
+    private final AppointmentOutbox outbox;
+    private final ReminderScheduler reminderScheduler;
+    private final AppointmentLiveFeed liveFeed;
+    private final ShardRouter router;
+    private final int inlineMax;
+    private final int batchSize;
+    private final Duration pause;
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    private final ExecutorService background = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "purge-1");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public CascadePurger(NamedParameterJdbcTemplate jdbc,
+                         TransactionTemplate tx,
+                         DoctorRepository doctorRepo,
+                         PatientRepository patientRepo,
+                         AppointmentStatistics statistics,
+                         AppointmentOutbox outbox,
+                         ReminderScheduler reminderScheduler,
+                         AppointmentLiveFeed liveFeed,
+                         ObjectProvider<ShardRouter> router,
+                         @Value("${app.purge.inline-max:2000}") int inlineMax,
+                         @Value("${app.purge.batch-size:500}") int batchSize,
+                         @Value("${app.purge.batch-pause:PT0.2S}") Duration pause) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.doctorRepo = doctorRepo;
+        this.patientRepo = patientRepo;
+        this.statistics = statistics;
+        this.outbox = outbox;
+        this.reminderScheduler = reminderScheduler;
+        this.liveFeed = liveFeed;
+        this.router = router.getIfAvailable();
+        this.inlineMax = inlineMax;
+        this.batchSize = batchSize;
+        this.pause = pause;
+    }
+
+    /**
+     * Hides the row and purges it, inline or in the background depending on how many
+     * appointments it has. A missing id is a no-op.
+     *
+     * @return true when the row and its appointments are gone, false when the purge continues
+     *         in the background
+     */
+    public boolean delete(Owner owner, long id) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now()));
+        jdbc.update("UPDATE " + owner.table + " SET deleted_at = :now WHERE id = :id AND deleted_at IS NULL", params);
+        if (countAppointments(owner, id) > inlineMax) {
+            submit(owner, id);
+            return false;
+        }
+        String key = key(owner, id);
+        if (!running.add(key)) {
+            // Already being purged in the background
+            return false;
+        }
+        try {
+            purge(owner, id, Duration.ZERO);
+            return true;
+        } finally {
+            running.remove(key);
+        }
+    }
+
+    /** Resumes purges of rows that are hidden but still present. */
+    @Scheduled(initialDelayString = "${app.purge.initial-delay-ms:60000}",
+            fixedDelayString = "${app.purge.interval-ms:300000}")
+    public void resumePending() {
+        for (Owner owner : Owner.values()) {
+            jdbc.getJdbcTemplate().queryForList(
+                    "SELECT id FROM " + owner.table + " WHERE deleted_at IS NOT NULL", Long.class)
+                    .forEach(id -> submit(owner, id));
+        }
+    }
+
+    private void submit(Owner owner, long id) {
+        String key = key(owner, id);
+        if (!running.add(key)) {
+            return;
+        }
+        background.execute(() -> {
+            try {
+                purge(owner, id, pause);
+            } catch (Exception e) {
+                log.warn("Purging {} {} failed, will retry: {}", owner.table, id, e.getMessage());
+            } finally {
+                running.remove(key);
+            }
+        });
+    }
+
+    private long countAppointments(Owner owner, long id) {
+        String sql = "SELECT COUNT(*) FROM appointments WHERE " + owner.column + " = :id";
+        Map<String, Long> params = Map.of("id", id);
+        if (router == null) {
+            return jdbc.queryForObject(sql, params, Long.class);
+        }
+        if (owner == Owner.DOCTOR) {
+            return router.onKeyShard(id, true, () -> jdbc.queryForObject(sql, params, Long.class));
+        }
+        return router.scatter(router.allShards(), shard -> jdbc.queryForObject(sql, params, Long.class))
+                .stream().mapToLong(Long::longValue).sum();
+    }
+
+    private void purge(Owner owner, long id, Duration pause) {
+        int total = 0;
+        while (true) {
+            int removed = 0;
+            for (int shard : shardsToPurge(owner)) {
+                removed += purgeShard(owner, id, shard, pause);
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+            }
+            total += removed;
+            // A rebalance may have carried some of the rows onto a shard already done
+            if (removed == 0 || shardsToPurge(owner).size() == 1) {
+                break;
+            }
+        }
+        // Picks up, through the JPA cascade, anything added since the last batch
+        tx.executeWithoutResult(status -> {
+            if (owner == Owner.DOCTOR) {
+                doctorRepo.deleteById(id);
+            } else {
+                patientRepo.deleteById(id);
+            }
+        });
+        if (owner == Owner.DOCTOR) {
+            statistics.onDoctorDeleted(id);
+        }
+        if (total > 0) {
+            log.info("Purged {} {} with {} appointment(s)", owner.table, id, total);
+        }
+    }
+
+    // A patient's appointments can be on any shard; a doctor's are all on the doctor's shard
+    private List<Integer> shardsToPurge(Owner owner) {
+        return router != null && owner == Owner.PATIENT ? router.allShards() : List.of(0);
+    }
+
+    private int purgeShard(Owner owner, long id, int shard, Duration pause) {
+        int total = 0;
+        while (true) {
+            List<Long> removed = deleteBatchOn(owner, id, shard);
+            removed.forEach(reminderScheduler::onAppointmentRemoved);
+            total += removed.size();
+            if (removed.size() < batchSize) {
+                return total;
+            }
+            if (!pause.isZero()) {
+                try {
+                    Thread.sleep(pause.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return total;
+                }
+            }
+        }
+    }
+
+    // In a transaction of its own on the rows' shard, so the outbox events commit with the delete
+    private List<Long> deleteBatchOn(Owner owner, long id, int shard) {
+        if (router == null) {
+            return tx.execute(status -> deleteBatch(owner, id));
+        }
+        if (owner == Owner.DOCTOR) {
+            // Follows the doctor's bucket should a rebalance move it between batches
+            return router.onKeyShard(id, false, () -> deleteBatch(owner, id));
+        }
+        return router.onShard(shard, false, () -> deleteBatch(owner, id));
+    }
+
+    private List<Long> deleteBatch(Owner owner, long id) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("limit", batchSize);
+        List<Appointment> removed = new ArrayList<>();
+        jdbc.query("SELECT id, patient_id, doctor_id, appointment_time, reason, status FROM appointments "
+                        + "WHERE " + owner.column + " = :id ORDER BY id LIMIT :limit FOR UPDATE", params,
+                rs -> { removed.add(toAppointment(rs)); });
+        if (removed.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = removed.stream().map(Appointment::getId).toList();
+        jdbc.update("DELETE FROM appointments WHERE id IN (:ids)", params.addValue("ids", ids));
+        // Same bookkeeping as AppointmentService.deleteAppointment, per row
+        for (Appointment a : removed) {
+            Appointment.PersistedState state = new Appointment.PersistedState(
+                    a.getDoctor() != null ? a.getDoctor().getId() : null, a.getStatus(), a.getAppointmentTime());
+            statistics.onDeleted(state);
+            outbox.record(AppointmentOutbox.DELETED, a);
+            liveFeed.onDeleted(a.getId(), state);
+        }
+        return ids;
+    }
+
+    private static Appointment toAppointment(ResultSet rs) throws SQLException {
+        Patient patient = null;
+        long patientId = rs.getLong(2);
+        if (!rs.wasNull()) {
+            patient = new Patient();
+            patient.setId(patientId);
+        }
+        Doctor doctor = null;
+        long doctorId = rs.getLong(3);
+        if (!rs.wasNull()) {
+            doctor = new Doctor();
+            doctor.setId(doctorId);
+        }
+        Timestamp time = rs.getTimestamp(4);
+        Appointment a = new Appointment(patient, doctor, time != null ? time.toLocalDateTime() : null,
+                rs.getString(5), rs.getString(6));
+        a.setId(rs.getLong(1));
+        return a;
+    }
+
+    private static String key(Owner owner, long id) {
+        return owner.table + ":" + id;
+    }
+
+    @Override
+    public void destroy() {
+        background.shutdownNow();
+    }
+}
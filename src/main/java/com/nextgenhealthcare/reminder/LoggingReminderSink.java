@@ -0,0 +1,19 @@
+package com.nextgenhealthcare.reminder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Default sink used until a real delivery channel is wired in.
+ */
+public class LoggingReminderSink implements ReminderSink {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggingReminderSink.class);
+
+    @Override
+    public void send(ReminderEvent event) {
+        log.info("Reminder for appointment {} at {} (patient {}, doctor {}, {} before)",
+                event.getAppointmentId(), event.getAppointmentTime(),
+                event.getPatientId(), event.getDoctorId(), event.getOffset());
+    }
+}
@@ -0,0 +1,33 @@
+package com.nextgenhealthcare.reminder;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * A reminder that became due: the appointment starts {@code offset} after it was scheduled to fire.
+ */
+public class ReminderEvent {
+    private final Long appointmentId;
+    private final Long patientId;
+    private final Long doctorId;
+    private final LocalDateTime appointmentTime;
+    private final Duration offset;
+    private final LocalDateTime triggeredAt;
+
+    public ReminderEvent(Long appointmentId, Long patientId, Long doctorId,
+                         LocalDateTime appointmentTime, Duration offset, LocalDateTime triggeredAt) {
+        this.appointmentId = appointmentId;
+        this.patientId = patientId;
+        this.doctorId = doctorId;
+        this.appointmentTime = appointmentTime;
+        this.offset = offset;
+        this.triggeredAt = triggeredAt;
+    }
+
+    public Long getAppointmentId() { return appointmentId; }
+    public Long getPatientId() { return patientId; }
+    public Long getDoctorId() { return doctorId; }
+    public LocalDateTime getAppointmentTime() { return appointmentTime; }
+    public Duration getOffset() { return offset; }
+    public LocalDateTime getTriggeredAt() { return triggeredAt; }
+}
@@ -0,0 +1,308 @@
+package com.nextgenhealthcare.reminder;
+
+import com.nextgenhealthcare.datasource.RoutingContext;
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.model.SentReminder;
+import com.nextgenhealthcare.repository.AppointmentRepository;
+import com.nextgenhealthcare.repository.SentReminderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Fires appointment reminders at configurable offsets before the appointment time.
+ *
+ * Only a sliding window of upcoming reminders is held in memory: every refresh loads the
+ * appointments whose reminders fall between the previous horizon and now + lookahead, one
+ * indexed range query per offset. Due items sit in a priority queue ordered by fire time.
+ * Creates, updates and cancellations arrive incrementally from AppointmentService; superseded
+ * queue entries are skipped lazily when they reach the head.
+ *
+ * Every send is first claimed in appointment_reminders_sent under a unique key, so only one
+ * instance sends a reminder even after a restart (the first window reaches back by catch-up) or
+ * with several instances running. The row stays PENDING until the sink accepts the reminder and
+ * turns SENT; when the sink fails it turns FAILED, and a periodic pass retries failed reminders
+ * and ones whose claim is older than {@code reminders.claim-timeout}, up to
+ * {@code reminders.max-attempts} sends, while the appointment is still ahead.
+ */
+@Component
+public class ReminderScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(ReminderScheduler.class);
+    private static final String SCHEDULED = "SCHEDULED";
+
+    private final AppointmentRepository appointmentRepo;
+    private final SentReminderRepository sentRepo;
+    private final ReminderSink sink;
+    private final List<Duration> offsets;
+    private final Duration lookahead;
+    private final Duration catchUp;
+    private final Duration claimTimeout;
+    private final int maxAttempts;
+
+    // Guarded by this
+    private final PriorityQueue<PendingReminder> queue =
+            new PriorityQueue<>(Comparator.comparing(PendingReminder::dueAt));
+    private final Map<Long, LocalDateTime> tracked = new HashMap<>();
+    private LocalDateTime loadedUntil;
+
+    public ReminderScheduler(AppointmentRepository appointmentRepo,
+                             SentReminderRepository sentRepo,
+                             ObjectProvider<ReminderSink> sinkProvider,
+                             @Value("${reminders.offsets:PT24H,PT1H}") List<Duration> offsets,
+                             @Value("${reminders.lookahead:PT15M}") Duration lookahead,
+                             @Value("${reminders.catch-up:PT15M}") Duration catchUp,
+                             @Value("${reminders.claim-timeout:PT5M}") Duration claimTimeout,
+                             @Value("${reminders.max-attempts:5}") int maxAttempts) {
+        this.appointmentRepo = appointmentRepo;
+        this.sentRepo = sentRepo;
+        this.sink = sinkProvider.getIfAvailable(LoggingReminderSink::new);
+        this.offsets = List.copyOf(offsets);
+        this.lookahead = lookahead;
+        this.catchUp = catchUp;
+        this.claimTimeout = claimTimeout;
+        this.maxAttempts = maxAttempts;
+        log.info("Reminder scheduler using offsets {} with lookahead {}", this.offsets, lookahead);
+    }
+
+    @Scheduled(fixedDelayString = "${reminders.refresh-interval-ms:60000}")
+    public void scheduledRefresh() {
+        refreshWindow(LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${reminders.tick-ms:1000}")
+    public void scheduledTick() {
+        processDue(LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${reminders.retry-interval-ms:60000}")
+    public void scheduledRetry() {
+        retryUnsent(LocalDateTime.now());
+    }
+
+    /**
+     * Extends the loaded window up to now + lookahead.
+     */
+    public void refreshWindow(LocalDateTime now) {
+        LocalDateTime from;
+        LocalDateTime to = now.plus(lookahead);
+        synchronized (this) {
+            from = loadedUntil != null ? loadedUntil : now.minus(catchUp);
+            if (!to.isAfter(from)) {
+                return;
+            }
+        }
+
+        int loaded = 0;
+        for (Duration offset : offsets) {
+            // Reminder due in (from, to]  <=>  appointment in (from + offset, to + offset]
+            List<Appointment> upcoming = appointmentRepo
+                    .findByStatusAndAppointmentTimeGreaterThanAndAppointmentTimeLessThanEqual(
+                            SCHEDULED, from.plus(offset), to.plus(offset));
+            synchronized (this) {
+                for (Appointment a : upcoming) {
+                    enqueue(a.getId(), a.getAppointmentTime(), offset);
+                }
+            }
+            loaded += upcoming.size();
+        }
+
+        synchronized (this) {
+            loadedUntil = to;
+            tracked.values().removeIf(time -> time.isBefore(now));
+        }
+        log.debug("Reminder window extended to {} ({} reminder(s) queued)", to, loaded);
+    }
+
+    /**
+     * Sends every reminder due at or before {@code now}.
+     *
+     * @return number of reminders handed to the sink
+     */
+    public int processDue(LocalDateTime now) {
+        List<PendingReminder> due = new ArrayList<>();
+        synchronized (this) {
+            while (!queue.isEmpty() && !queue.peek().dueAt().isAfter(now)) {
+                PendingReminder r = queue.poll();
+                // Skip entries superseded by a reschedule or cancellation
+                if (r.appointmentTime().equals(tracked.get(r.appointmentId()))) {
+                    due.add(r);
+                }
+            }
+        }
+
+        int sent = 0;
+        for (PendingReminder r : due) {
+            if (fire(r, now)) {
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Sends again the reminders whose last attempt failed or was abandoned mid-send.
+     *
+     * @return number of reminders handed to the sink
+     */
+    public int retryUnsent(LocalDateTime now) {
+        List<SentReminder> unsent = RoutingContext.onPrimary(
+                () -> sentRepo.findRetryable(now, now.minus(claimTimeout), maxAttempts));
+        int sent = 0;
+        for (SentReminder row : unsent) {
+            Duration offset = Duration.ofMinutes(row.getOffsetMinutes());
+            PendingReminder r = new PendingReminder(row.getAppointmentTime().minus(offset),
+                    row.getAppointmentId(), row.getAppointmentTime(), offset);
+            if (fire(r, now)) {
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Called after an appointment was created or updated. Inside a transaction the change is
+     * applied once it commits, so a rolled-back write leaves the queue as it was.
+     */
+    public void onAppointmentSaved(Appointment appointment, LocalDateTime now) {
+        Long id = appointment.getId();
+        LocalDateTime time = appointment.getAppointmentTime();
+        boolean active = SCHEDULED.equals(appointment.getStatus()) && time != null;
+        afterCommit(() -> track(id, time, active, now));
+    }
+
+    /**
+     * Called after an appointment was deleted.
+     */
+    public void onAppointmentRemoved(Long appointmentId) {
+        afterCommit(() -> untrack(appointmentId));
+    }
+
+    private void track(Long id, LocalDateTime time, boolean active, LocalDateTime now) {
+        synchronized (this) {
+            if (active && time.equals(tracked.get(id))) {
+                return;
+            }
+            tracked.remove(id);
+            // Until the first refresh nothing is loaded; that refresh will pick the appointment up
+            if (!active || loadedUntil == null) {
+                return;
+            }
+            for (Duration offset : offsets) {
+                LocalDateTime dueAt = time.minus(offset);
+                // Reminders already in the past at booking time are not sent;
+                // ones beyond the window are loaded by a later refresh
+                if (!dueAt.isBefore(now) && !dueAt.isAfter(loadedUntil)) {
+                    enqueue(id, time, offset);
+                }
+            }
+        }
+    }
+
+    private synchronized void untrack(Long appointmentId) {
+        tracked.remove(appointmentId);
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    public synchronized int getQueuedCount() {
+        return queue.size();
+    }
+
+    private void enqueue(Long appointmentId, LocalDateTime appointmentTime, Duration offset) {
+        tracked.put(appointmentId, appointmentTime);
+        queue.add(new PendingReminder(appointmentTime.minus(offset), appointmentId, appointmentTime, offset));
+    }
+
+    private boolean fire(PendingReminder r, LocalDateTime now) {
+        // Re-read (from the primary) so changes made by other instances or bulk deletes are honoured
+        Appointment current = RoutingContext.onPrimary(() -> appointmentRepo.findById(r.appointmentId())).orElse(null);
+        if (current == null || !SCHEDULED.equals(current.getStatus())) {
+            return false;
+        }
+        if (!r.appointmentTime().equals(current.getAppointmentTime())) {
+            onAppointmentSaved(current, now);
+            return false;
+        }
+        if (!r.appointmentTime().isAfter(now)) {
+            return false;
+        }
+
+        Long claimed = claim(r, now);
+        if (claimed == null) {
+            return false;
+        }
+
+        try {
+            sink.send(new ReminderEvent(
+                    current.getId(),
+                    current.getPatient() != null ? current.getPatient().getId() : null,
+                    current.getDoctor() != null ? current.getDoctor().getId() : null,
+                    current.getAppointmentTime(),
+                    r.offset(),
+                    now));
+        } catch (Exception e) {
+            log.error("Reminder sink failed for appointment {}, will retry", r.appointmentId(), e);
+            sentRepo.finish(claimed, SentReminder.FAILED, null);
+            return false;
+        }
+        sentRepo.finish(claimed, SentReminder.SENT, now);
+        return true;
+    }
+
+    // Id of the ledger row now held by this instance, or null when the reminder was sent or is being sent
+    private Long claim(PendingReminder r, LocalDateTime now) {
+        try {
+            return sentRepo.saveAndFlush(new SentReminder(
+                    r.appointmentId(), r.appointmentTime(), r.offset().toMinutes(), now)).getId();
+        } catch (DataIntegrityViolationException e) {
+            SentReminder existing = RoutingContext.onPrimary(() -> sentRepo
+                    .findByAppointmentIdAndAppointmentTimeAndOffsetMinutes(
+                            r.appointmentId(), r.appointmentTime(), r.offset().toMinutes()))
+                    .orElse(null);
+            if (existing == null || !isRetryable(existing, now)) {
+                log.debug("Reminder for appointment {} ({} before) already sent or in flight", r.appointmentId(), r.offset());
+                return null;
+            }
+            int taken = sentRepo.reclaim(existing.getId(), existing.getStatus(), existing.getClaimedAt(), now);
+            return taken == 1 ? existing.getId() : null;
+        }
+    }
+
+    private boolean isRetryable(SentReminder row, LocalDateTime now) {
+        if (row.getAttempts() >= maxAttempts) {
+            return false;
+        }
+        return SentReminder.FAILED.equals(row.getStatus())
+                || (SentReminder.PENDING.equals(row.getStatus()) && row.getClaimedAt().isBefore(now.minus(claimTimeout)));
+    }
+
+    private record PendingReminder(LocalDateTime dueAt, Long appointmentId,
+                                   LocalDateTime appointmentTime, Duration offset) { }
+}
@@ -0,0 +1,9 @@
+package com.nextgenhealthcare.reminder;
+
+/**
+ * Destination for due reminders (email, SMS, push gateway...).
+ * Declare a bean of this type to replace the default logging sink.
+ */
+public interface ReminderSink {
+    void send(ReminderEvent event);
+}
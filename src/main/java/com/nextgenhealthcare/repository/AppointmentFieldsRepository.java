@@ -0,0 +1,13 @@
+package com.nextgenhealthcare.repository;
+
+import java.util.List;
+
+/**
+ * Column projections behind {@code fields=} on the appointment lists; see {@link FieldProjection}.
+ * Named like the finders they stand in for, so sharding routes them the same way.
+ */
+public interface AppointmentFieldsRepository {
+    List<Object[]> findAllFields(List<String> fields);
+    List<Object[]> findFieldsByDoctorId(Long doctorId, List<String> fields);
+    List<Object[]> findFieldsByPatientId(Long patientId, List<String> fields);
+}
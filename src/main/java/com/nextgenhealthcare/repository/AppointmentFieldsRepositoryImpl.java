@@ -0,0 +1,28 @@
+package com.nextgenhealthcare.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.List;
+
+class AppointmentFieldsRepositoryImpl implements AppointmentFieldsRepository {
+
+    @PersistenceContext private EntityManager em;
+
+    @Override
+    public List<Object[]> findAllFields(List<String> fields) {
+        return FieldProjection.APPOINTMENTS.select(em, fields, null);
+    }
+
+    @Override
+    public List<Object[]> findFieldsByDoctorId(Long doctorId, List<String> fields) {
+        return FieldProjection.APPOINTMENTS.select(em, fields,
+                (cb, a) -> cb.equal(a.get("doctor").get("id"), doctorId));
+    }
+
+    @Override
+    public List<Object[]> findFieldsByPatientId(Long patientId, List<String> fields) {
+        return FieldProjection.APPOINTMENTS.select(em, fields,
+                (cb, a) -> cb.equal(a.get("patient").get("id"), patientId));
+    }
+}
@@ -4,10 +4,19 @@ import com.nextgenhealthcare.model.Appointment;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+public interface AppointmentRepository extends JpaRepository<Appointment, Long>, AppointmentFieldsRepository {
     List<Appointment> findByPatientId(Long patientId);
     List<Appointment> findByDoctorId(Long doctorId);
+
+    // Range scan on idx_appointments_time; lower bound exclusive so consecutive windows don't overlap
+    List<Appointment> findByStatusAndAppointmentTimeGreaterThanAndAppointmentTimeLessThanEqual(
+            String status, LocalDateTime from, LocalDateTime to);
+
+    // One day's appointments for the live dashboard snapshot, also on idx_appointments_time
+    List<Appointment> findByAppointmentTimeGreaterThanEqualAndAppointmentTimeLessThanOrderByAppointmentTimeAsc(
+            LocalDateTime from, LocalDateTime to);
 }
@@ -0,0 +1,12 @@
+package com.nextgenhealthcare.repository;
+
+import com.nextgenhealthcare.model.ArchivedAppointment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ArchivedAppointmentRepository extends JpaRepository<ArchivedAppointment, Long> {
+    List<ArchivedAppointment> findByPatientIdOrderByAppointmentTimeAsc(Long patientId);
+}
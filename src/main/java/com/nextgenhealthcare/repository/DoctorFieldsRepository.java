@@ -0,0 +1,8 @@
+package com.nextgenhealthcare.repository;
+
+import java.util.List;
+
+// Column projection behind fields= on the doctor list; see FieldProjection
+public interface DoctorFieldsRepository {
+    List<Object[]> findAllFields(List<String> fields);
+}
@@ -4,5 +4,12 @@ import com.nextgenhealthcare.model.Doctor;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface DoctorRepository extends JpaRepository<Doctor, Long> { }
+public interface DoctorRepository extends JpaRepository<Doctor, Long>, DoctorFieldsRepository {
+    // Doctors being purged (deleted_at set) no longer exist as far as clients are concerned
+    List<Doctor> findByDeletedAtIsNull();
+    Optional<Doctor> findByIdAndDeletedAtIsNull(Long id);
+}
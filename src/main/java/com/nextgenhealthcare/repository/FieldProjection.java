@@ -0,0 +1,119 @@
+package com.nextgenhealthcare.repository;
+
+import com.nextgenhealthcare.exception.InvalidFieldsException;
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.model.Patient;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The fields a client can pick with {@code fields=} on a list endpoint, each mapped to an
+ * attribute path. {@link #select} selects exactly the picked columns; an association is joined
+ * only when one of its attributes other than the id is picked (the id is the foreign key).
+ */
+public final class FieldProjection<T> {
+
+    public static final FieldProjection<Appointment> APPOINTMENTS = new FieldProjection<>(Appointment.class,
+            "id", "id",
+            "appointmentTime", "appointmentTime",
+            "reason", "reason",
+            "status", "status",
+            "patientId", "patient.id",
+            "patientName", "patient.name",
+            "doctorId", "doctor.id",
+            "doctorName", "doctor.name");
+
+    public static final FieldProjection<Doctor> DOCTORS = new FieldProjection<>(Doctor.class,
+            "id", "id", "name", "name", "specialization", "specialization", "email", "email");
+
+    public static final FieldProjection<Patient> PATIENTS = new FieldProjection<>(Patient.class,
+            "id", "id", "name", "name", "age", "age", "email", "email");
+
+    @FunctionalInterface
+    public interface Filter<T> {
+        Predicate on(CriteriaBuilder cb, Root<T> root);
+    }
+
+    private final Class<T> type;
+    private final Map<String, String> paths = new LinkedHashMap<>();
+
+    private FieldProjection(Class<T> type, String... fieldsAndPaths) {
+        this.type = type;
+        for (int i = 0; i < fieldsAndPaths.length; i += 2) {
+            paths.put(fieldsAndPaths[i], fieldsAndPaths[i + 1]);
+        }
+    }
+
+    /** Parses a comma-separated {@code fields=} value, keeping the client's order and dropping repeats. */
+    public List<String> parse(String fields) {
+        List<String> picked = new ArrayList<>();
+        for (String part : fields.split(",")) {
+            String field = part.trim();
+            if (field.isEmpty() || picked.contains(field)) {
+                continue;
+            }
+            if (!paths.containsKey(field)) {
+                throw new InvalidFieldsException("Unknown field '" + field + "', expected any of " + paths.keySet());
+            }
+            picked.add(field);
+        }
+        if (picked.isEmpty()) {
+            throw new InvalidFieldsException("fields names no field, expected any of " + paths.keySet());
+        }
+        return picked;
+    }
+
+    /** One array per row, holding the picked fields' values in the order given. */
+    public List<Object[]> select(EntityManager em, List<String> fields, Filter<T> filter) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(type);
+        Map<String, From<T, ?>> joins = new HashMap<>();
+        List<Selection<?>> columns = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            String path = paths.get(field);
+            if (path == null) {
+                throw new InvalidFieldsException("Unknown field '" + field + "'");
+            }
+            columns.add(path(root, joins, path));
+        }
+        query.multiselect(columns);
+        if (filter != null) {
+            query.where(filter.on(cb, root));
+        }
+        List<Tuple> rows = em.createQuery(query).getResultList();
+        List<Object[]> values = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            values.add(row.toArray());
+        }
+        return values;
+    }
+
+    private static <T> Path<?> path(Root<T> root, Map<String, From<T, ?>> joins, String path) {
+        int dot = path.indexOf('.');
+        if (dot < 0) {
+            return root.get(path);
+        }
+        String association = path.substring(0, dot);
+        String attribute = path.substring(dot + 1);
+        if (attribute.equals("id")) {
+            return root.get(association).get(attribute);
+        }
+        return joins.computeIfAbsent(association, a -> root.join(a, JoinType.LEFT)).get(attribute);
+    }
+}
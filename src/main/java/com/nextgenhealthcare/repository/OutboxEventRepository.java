@@ -0,0 +1,37 @@
+package com.nextgenhealthcare.repository;
+
+import com.nextgenhealthcare.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    boolean existsByFeedSequenceIsNull();
+
+    List<OutboxEvent> findByFeedSequenceIsNullOrderByIdAsc(Pageable page);
+
+    List<OutboxEvent> findByPublishedAtIsNullAndFeedSequenceIsNotNullOrderByFeedSequenceAsc(Pageable page);
+
+    List<OutboxEvent> findByFeedSequenceGreaterThanOrderByFeedSequenceAsc(Long since, Pageable page);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.publishedAt = :publishedAt where e.id in :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("publishedAt") LocalDateTime publishedAt);
+
+    @Query("select max(e.feedSequence) from OutboxEvent e where e.publishedAt < :cutoff")
+    Long maxSequencePublishedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    // Published rows always form a prefix of the sequence: the relay publishes in sequence order
+    @Modifying
+    @Query("delete from OutboxEvent e where e.feedSequence <= :through")
+    int deleteThrough(@Param("through") Long through);
+}
@@ -0,0 +1,19 @@
+package com.nextgenhealthcare.repository;
+
+import com.nextgenhealthcare.model.OutboxFeedState;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface OutboxFeedStateRepository extends JpaRepository<OutboxFeedState, Integer> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from OutboxFeedState s where s.id = :id")
+    Optional<OutboxFeedState> findForUpdate(@Param("id") Integer id);
+}
@@ -0,0 +1,17 @@
+package com.nextgenhealthcare.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.List;
+
+class PatientFieldsRepositoryImpl implements PatientFieldsRepository {
+
+    @PersistenceContext private EntityManager em;
+
+    // Same rows as findByDeletedAtIsNull
+    @Override
+    public List<Object[]> findAllFields(List<String> fields) {
+        return FieldProjection.PATIENTS.select(em, fields, (cb, root) -> cb.isNull(root.get("deletedAt")));
+    }
+}
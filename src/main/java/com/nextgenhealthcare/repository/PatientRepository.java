@@ -4,5 +4,12 @@ import com.nextgenhealthcare.model.Patient;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface PatientRepository extends JpaRepository<Patient, Long> { }
+public interface PatientRepository extends JpaRepository<Patient, Long>, PatientFieldsRepository {
+    // Patients being purged (deleted_at set) no longer exist as far as clients are concerned
+    List<Patient> findByDeletedAtIsNull();
+    Optional<Patient> findByIdAndDeletedAtIsNull(Long id);
+}
@@ -0,0 +1,40 @@
+package com.nextgenhealthcare.repository;
+
+import com.nextgenhealthcare.model.SentReminder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SentReminderRepository extends JpaRepository<SentReminder, Long> {
+
+    Optional<SentReminder> findByAppointmentIdAndAppointmentTimeAndOffsetMinutes(
+            Long appointmentId, LocalDateTime appointmentTime, Long offsetMinutes);
+
+    // Takes over a FAILED or stale PENDING row; 0 when another instance got there first
+    @Transactional
+    @Modifying
+    @Query("update SentReminder r set r.status = 'PENDING', r.claimedAt = :now, r.attempts = r.attempts + 1 "
+            + "where r.id = :id and r.status = :status and r.claimedAt = :claimedAt")
+    int reclaim(@Param("id") Long id, @Param("status") String status,
+                @Param("claimedAt") LocalDateTime claimedAt, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("update SentReminder r set r.status = :status, r.sentAt = :sentAt where r.id = :id")
+    int finish(@Param("id") Long id, @Param("status") String status, @Param("sentAt") LocalDateTime sentAt);
+
+    @Query("select r from SentReminder r where r.appointmentTime > :now and r.attempts < :maxAttempts "
+            + "and (r.status = 'FAILED' or (r.status = 'PENDING' and r.claimedAt < :staleBefore)) "
+            + "order by r.claimedAt")
+    List<SentReminder> findRetryable(@Param("now") LocalDateTime now,
+                                     @Param("staleBefore") LocalDateTime staleBefore,
+                                     @Param("maxAttempts") int maxAttempts);
+}
@@ -1,44 +1,96 @@
 package com.nextgenhealthcare.service;
 
+import com.nextgenhealthcare.balancer.BackendPool;
 import com.nextgenhealthcare.dto.SymptomCheckRequest;
 import com.nextgenhealthcare.dto.SymptomCheckResponse;
+import com.nextgenhealthcare.limit.AdaptiveConcurrencyLimiter;
+import com.nextgenhealthcare.triage.PreTriage;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class AIService {
     
     private static final Logger logger = LoggerFactory.getLogger(AIService.class);
     private final WebClient webClient;
+    private final ObservationRegistry observationRegistry;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final BackendPool backends;
+    private final PreTriage preTriage;
+    private final String aiServiceUrl;
     
-    @Value("${ai.service.url:http://localhost:5000}")
-    private String aiServiceUrl;
+    @Value("${ai.stream.heartbeat:PT15S}")
+    private Duration streamHeartbeat = Duration.ofSeconds(15);
     
-    public AIService(WebClient.Builder webClientBuilder, @Value("${ai.service.url:http://localhost:5000}") String configuredUrl) {
-        // Ensure the URL is available at construction time
-        this.aiServiceUrl = configuredUrl;
-        this.webClient = webClientBuilder
-                .baseUrl(this.aiServiceUrl)
-                .build();
-        logger.info("AIService initialized with URL: {}", this.aiServiceUrl);
+    public AIService(@Qualifier("aiWebClientBuilder") WebClient.Builder webClientBuilder,
+                     @Qualifier("aiBackendPool") BackendPool backends,
+                     ObservationRegistry observationRegistry,
+                     @Qualifier("aiConcurrencyLimiter") AdaptiveConcurrencyLimiter limiter,
+                     PreTriage preTriage) {
+        this.observationRegistry = observationRegistry;
+        this.preTriage = preTriage;
+        this.limiter = limiter;
+        this.backends = backends;
+        this.aiServiceUrl = String.join(", ", backends.urls());
+        // Requests carry the replica's base URL, picked per call by the pool
+        this.webClient = webClientBuilder.build();
+        logger.info("AIService initialized with URL(s): {}", this.aiServiceUrl);
     }
     
+    // Span around the whole check: health probe, AI call with retries and fallbacks
     public SymptomCheckResponse checkSymptoms(String symptoms) {
+        return Observation.createNotStarted("ai.symptom-check", observationRegistry)
+                .observe(() -> checkSymptomsUnobserved(symptoms));
+    }
+
+    private SymptomCheckResponse checkSymptomsUnobserved(String symptoms) {
         logger.info("Checking symptoms: {}", symptoms.substring(0, Math.min(50, symptoms.length())));
         
+        // Unambiguous descriptions don't need the model
+        Optional<SymptomCheckResponse> local = preTriage.shortcut(symptoms);
+        if (local.isPresent()) {
+            logger.info("Answered by pre-triage: {}", local.get().getSuggestedSpecialization());
+            return local.get();
+        }
+        
+        // Shed load up front rather than queue behind a slow model server
+        Optional<AdaptiveConcurrencyLimiter.Token> admitted = limiter.acquire();
+        if (admitted.isEmpty()) {
+            logger.warn("AI call rejected: {} in flight at limit {}", limiter.getInFlight(), limiter.getLimit());
+            return createBusyResponse(symptoms);
+        }
+        AdaptiveConcurrencyLimiter.Token token = admitted.get();
+        
         // First check if service is available
         if (!isServiceAvailable()) {
+            token.onDropped();
             logger.error("AI service is not available at {}", aiServiceUrl);
-            return createErrorResponse(
+            return fallback(symptoms,
                 "AI service is not available",
                 "Please ensure the AI service is running on port 5000. Start it with: cd ai-service && python app.py"
             );
@@ -48,30 +100,49 @@ public class AIService {
             SymptomCheckRequest request = new SymptomCheckRequest();
             request.setSymptoms(symptoms);
             
-            logger.info("Sending request to AI service: {}/api/symptom-check", aiServiceUrl);
+            logger.info("Sending request to AI service /api/symptom-check, replicas: {}", aiServiceUrl);
             
-            SymptomCheckResponse response = webClient.post()
-                    .uri("/api/symptom-check")
-                    .bodyValue(request)
-                    .retrieve()
-                    .bodyToMono(SymptomCheckResponse.class)
-                    .timeout(Duration.ofSeconds(30))
+            // Timed per attempt, so the sample never includes the backoff between retries
+            AtomicLong attemptStart = new AtomicLong();
+            AtomicInteger attempts = new AtomicInteger();
+            SymptomCheckResponse response = backends.execute(base -> webClient.post()
+                            .uri(base + "/api/symptom-check")
+                            .bodyValue(request)
+                            .retrieve()
+                            .bodyToMono(SymptomCheckResponse.class)
+                            .timeout(Duration.ofSeconds(30)), true)
+                    .doOnSubscribe(subscription -> {
+                        attempts.incrementAndGet();
+                        attemptStart.set(System.nanoTime());
+                    })
                     .retryWhen(Retry.backoff(2, Duration.ofSeconds(1))
                             .filter(throwable -> !(throwable instanceof WebClientResponseException)))
                     .block();
             
             if (response == null) {
+                token.onIgnore();
                 logger.error("Received null response from AI service");
-                return createErrorResponse(
+                return fallback(symptoms,
                     "No response from AI service",
                     "The AI service did not return a valid response. Please try again."
                 );
             }
             
+            if (attempts.get() > 1) {
+                // The failed attempts before it were the overload signal
+                token.onDropped();
+            } else {
+                token.onSuccess(System.nanoTime() - attemptStart.get());
+            }
             logger.info("Successfully received response from AI service");
             return response;
             
         } catch (WebClientResponseException e) {
+            if (e.getStatusCode().is5xxServerError()) {
+                token.onDropped();
+            } else {
+                token.onIgnore();
+            }
             logger.error("Error from AI service: Status={}, Body={}", e.getStatusCode(), e.getResponseBodyAsString());
             String errorMessage = "AI service error";
             String recommendation = "Please try again later or consult with a healthcare professional.";
@@ -84,17 +155,141 @@ public class AIService {
                 recommendation = "There was an error processing your symptoms. Please try again with a different description.";
             }
             
-            return createErrorResponse(errorMessage, recommendation);
+            return fallback(symptoms, errorMessage, recommendation);
             
         } catch (Exception e) {
+            token.onDropped();
             logger.error("Unexpected error calling AI service: {}", e.getMessage(), e);
-            return createErrorResponse(
+            return fallback(symptoms,
                 "Connection error",
                 String.format("Cannot connect to AI service at %s. Please ensure it is running: cd ai-service && python app.py", aiServiceUrl)
             );
         }
     }
     
+    /**
+     * Streams a symptom check as server-sent events, in order: {@code symptoms} (extracted
+     * symptoms and suggested specialization), {@code conditions}, {@code recommendation}.
+     * Relays the AI service's NDJSON stream ({@code /api/symptom-check/stream}) as parts arrive;
+     * against an AI service without it, the single response is split into the same events.
+     * A failure becomes a final {@code error} event. Cancelling the returned Flux (the client
+     * disconnecting) cancels the upstream request; keep-alive comments every
+     * {@code ai.stream.heartbeat} make a disconnect show up while the model is still working,
+     * since the servlet container only notices one when it writes.
+     */
+    public Flux<ServerSentEvent<Map<String, Object>>> streamSymptomCheck(String symptoms) {
+        SymptomCheckRequest request = new SymptomCheckRequest();
+        request.setSymptoms(symptoms);
+
+        Flux<SymptomCheckResponse> parts = backends.stream(base -> webClient.post()
+                .uri(base + "/api/symptom-check/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(request)
+                .retrieve()
+                .bodyToFlux(SymptomCheckResponse.class)
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> webClient.post()
+                        .uri(base + "/api/symptom-check")
+                        .bodyValue(request)
+                        .retrieve()
+                        .bodyToFlux(SymptomCheckResponse.class)));
+
+        return Flux.defer(() -> {
+            Set<StreamPart> sent = EnumSet.noneOf(StreamPart.class);
+            Optional<SymptomCheckResponse> local = preTriage.shortcut(symptoms);
+            if (local.isPresent()) {
+                return Flux.fromIterable(toEvents(local.get(), sent));
+            }
+            // Never blocks the request thread; a stream's duration is not an RTT sample
+            Optional<AdaptiveConcurrencyLimiter.Token> admitted = limiter.tryAcquire();
+            if (admitted.isEmpty()) {
+                return streamFallback(symptoms, sent, "AI service is busy",
+                        "Too many symptom checks are in progress. Please try again in a moment.");
+            }
+            AdaptiveConcurrencyLimiter.Token token = admitted.get();
+            Sinks.Empty<Void> done = Sinks.empty();
+            Flux<ServerSentEvent<Map<String, Object>>> heartbeats = Flux.interval(streamHeartbeat)
+                    .map(i -> ServerSentEvent.<Map<String, Object>>builder().comment("keep-alive").build())
+                    .takeUntilOther(done.asMono());
+            return parts
+                    // Between parts, not overall: a slow model may stream for longer than this
+                    .timeout(Duration.ofSeconds(30))
+                    .doOnError(e -> {
+                        if (!(e instanceof WebClientResponseException w) || w.getStatusCode().is5xxServerError()) {
+                            token.onDropped();
+                        }
+                    })
+                    .concatMapIterable(part -> toEvents(part, sent))
+                    .onErrorResume(e -> {
+                        logger.warn("Streamed symptom check failed: {}", e.getMessage());
+                        return streamFallback(symptoms, sent,
+                                e instanceof WebClientResponseException w && w.getStatusCode().value() == 503
+                                        ? "AI service is not ready" : "AI service error",
+                                "Please try again later or consult with a healthcare professional.");
+                    })
+                    .doFinally(signal -> {
+                        token.onIgnore();
+                        done.tryEmitEmpty();
+                    })
+                    .mergeWith(heartbeats);
+        });
+    }
+
+    // Pre-triage results for the parts not sent yet, then the error
+    private Flux<ServerSentEvent<Map<String, Object>>> streamFallback(String symptoms, Set<StreamPart> sent,
+                                                                      String error, String recommendation) {
+        List<ServerSentEvent<Map<String, Object>>> events = new ArrayList<>(4);
+        preTriage.classify(symptoms).ifPresent(local -> events.addAll(toEvents(local, sent)));
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("error", error);
+        data.put("recommendation", recommendation);
+        events.add(ServerSentEvent.<Map<String, Object>>builder(data).event("error").build());
+        return Flux.fromIterable(events);
+    }
+
+    private enum StreamPart { SYMPTOMS, CONDITIONS, RECOMMENDATION }
+
+    // Each group is sent once, in StreamPart order, whatever mix of fields a line carries
+    private static List<ServerSentEvent<Map<String, Object>>> toEvents(SymptomCheckResponse part, Set<StreamPart> sent) {
+        List<ServerSentEvent<Map<String, Object>>> events = new ArrayList<>(3);
+        if (part.getExtractedSymptoms() != null && sent.add(StreamPart.SYMPTOMS)) {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("extractedSymptoms", part.getExtractedSymptoms());
+            data.put("suggestedSpecialization", part.getSuggestedSpecialization());
+            events.add(ServerSentEvent.builder(data).event("symptoms").build());
+        }
+        if (part.getPossibleConditions() != null && sent.add(StreamPart.CONDITIONS)) {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("possibleConditions", part.getPossibleConditions());
+            data.put("confidence", part.getConfidence());
+            events.add(ServerSentEvent.builder(data).event("conditions").build());
+        }
+        if (part.getRecommendation() != null && sent.add(StreamPart.RECOMMENDATION)) {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("recommendation", part.getRecommendation());
+            events.add(ServerSentEvent.builder(data).event("recommendation").build());
+        }
+        return events;
+    }
+
+    private SymptomCheckResponse createBusyResponse(String symptoms) {
+        return fallback(symptoms,
+            "AI service is busy",
+            "Too many symptom checks are in progress. Please try again in a moment."
+        );
+    }
+    
+    // The in-process pre-triage answer if it recognises any symptom, else the error response
+    private SymptomCheckResponse fallback(String symptoms, String condition, String recommendation) {
+        return preTriage.classify(symptoms)
+                .map(local -> {
+                    logger.info("Answering from pre-triage ({}): {}", condition, local.getSuggestedSpecialization());
+                    local.setRecommendation(local.getRecommendation()
+                            + " This is a quick keyword check; the full AI analysis is unavailable right now.");
+                    return local;
+                })
+                .orElseGet(() -> createErrorResponse(condition, recommendation));
+    }
+    
     private SymptomCheckResponse createErrorResponse(String condition, String recommendation) {
         SymptomCheckResponse errorResponse = new SymptomCheckResponse();
         errorResponse.setPossibleConditions(Arrays.asList(condition));
@@ -106,19 +301,25 @@ public class AIService {
     }
     
     public boolean isServiceAvailable() {
-        try {
-            String response = webClient.get()
-                    .uri("/health")
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(Duration.ofSeconds(5))
+        Observation observation = Observation.createNotStarted("ai.health-probe", observationRegistry).start();
+        boolean available = false;
+        try (Observation.Scope ignored = observation.openScope()) {
+            // Fails over to the next replica, so this answers whether any of them is up
+            String response = backends.execute(base -> webClient.get()
+                            .uri(base + "/health")
+                            .retrieve()
+                            .bodyToMono(String.class)
+                            .timeout(Duration.ofSeconds(5)), false)
                     .block();
-            boolean available = response != null && response.contains("healthy");
+            available = response != null && response.contains("healthy");
             logger.info("AI service health check: {}", available ? "available" : "unavailable");
             return available;
         } catch (Exception e) {
             logger.warn("AI service health check failed: {}", e.getMessage());
+            observation.error(e);
             return false;
+        } finally {
+            observation.lowCardinalityKeyValue("available", String.valueOf(available)).stop();
         }
     }
 }
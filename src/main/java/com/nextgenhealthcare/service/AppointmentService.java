@@ -1,25 +1,58 @@
 package com.nextgenhealthcare.service;
 
+import com.nextgenhealthcare.live.AppointmentLiveFeed;
 import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.model.ArchivedAppointment;
+import com.nextgenhealthcare.outbox.AppointmentOutbox;
+import com.nextgenhealthcare.reminder.ReminderScheduler;
 import com.nextgenhealthcare.repository.AppointmentRepository;
+import com.nextgenhealthcare.repository.ArchivedAppointmentRepository;
+import com.nextgenhealthcare.sharding.ShardRouted;
+import com.nextgenhealthcare.stats.AppointmentStatistics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class AppointmentService {
     @Autowired private AppointmentRepository repo;
+    @Autowired private ArchivedAppointmentRepository archiveRepo;
+    @Autowired private ReminderScheduler reminderScheduler;
+    @Autowired private AppointmentOutbox outbox;
+    @Autowired private AppointmentStatistics statistics;
+    @Autowired private AppointmentLiveFeed liveFeed;
 
+    @Transactional(readOnly = true)
     public List<Appointment> getAllAppointments() { return repo.findAll(); }
+    @Transactional(readOnly = true)
     public Optional<Appointment> getAppointmentById(Long id) { return repo.findById(id); }
 
+    // For read-modify-write: a read-write transaction is served by the primary, so the
+    // version checked on save is current
+    @Transactional
+    @ShardRouted(ShardRouted.By.REPOSITORY)
+    public Optional<Appointment> getAppointmentForUpdate(Long id) { return repo.findById(id); }
+
+    @Transactional
+    @ShardRouted(ShardRouted.By.APPOINTMENT)
     public Appointment createAppointment(Appointment appointment) {
         if (appointment.getStatus() == null) appointment.setStatus("SCHEDULED");
-        return repo.save(appointment);
+        Appointment saved = repo.save(appointment);
+        statistics.onSaved(null, saved);
+        outbox.record(AppointmentOutbox.CREATED, saved);
+        reminderScheduler.onAppointmentSaved(saved, LocalDateTime.now());
+        liveFeed.onSaved(null, saved);
+        return saved;
     }
 
+    @Transactional
+    @ShardRouted(ShardRouted.By.APPOINTMENT_ID)
     public Appointment updateAppointment(Long id, Appointment updated) {
         return repo.findById(id).map(existing -> {
             if (updated.getAppointmentTime() != null) existing.setAppointmentTime(updated.getAppointmentTime());
@@ -27,15 +60,65 @@ public class AppointmentService {
             if (updated.getStatus() != null) existing.setStatus(updated.getStatus());
             if (updated.getDoctor() != null) existing.setDoctor(updated.getDoctor());
             if (updated.getPatient() != null) existing.setPatient(updated.getPatient());
-            return repo.save(existing);
+            return saveAppointment(existing);
         }).orElseGet(() -> {
             updated.setId(id);
-            return repo.save(updated);
+            Appointment saved = repo.save(updated);
+            statistics.onSaved(null, saved);
+            outbox.record(AppointmentOutbox.CREATED, saved);
+            reminderScheduler.onAppointmentSaved(saved, LocalDateTime.now());
+            liveFeed.onSaved(null, saved);
+            return saved;
         });
     }
 
-    public void deleteAppointment(Long id) { repo.deleteById(id); }
+    // Persists an appointment already modified by the caller
+    @Transactional
+    @ShardRouted(ShardRouted.By.APPOINTMENT)
+    public Appointment saveAppointment(Appointment appointment) {
+        Appointment.PersistedState before = appointment.getPersistedState();
+        Appointment saved = repo.save(appointment);
+        statistics.onSaved(before, saved);
+        outbox.record(AppointmentOutbox.UPDATED, saved);
+        reminderScheduler.onAppointmentSaved(saved, LocalDateTime.now());
+        liveFeed.onSaved(before, saved);
+        return saved;
+    }
+
+    @Transactional
+    @ShardRouted(ShardRouted.By.APPOINTMENT_ID)
+    public void deleteAppointment(Long id) {
+        repo.findById(id).ifPresent(existing -> {
+            repo.delete(existing);
+            statistics.onDeleted(existing.getPersistedState());
+            outbox.record(AppointmentOutbox.DELETED, existing);
+            liveFeed.onDeleted(id, existing.getPersistedState());
+        });
+        reminderScheduler.onAppointmentRemoved(id);
+    }
 
+    @Transactional(readOnly = true)
     public List<Appointment> getByPatientId(Long patientId) { return repo.findByPatientId(patientId); }
+
+    // Full history: live appointments plus those moved to the archive, oldest first
+    @Transactional(readOnly = true)
+    public List<Appointment> getPatientHistory(Long patientId) {
+        List<Appointment> history = new ArrayList<>();
+        archiveRepo.findByPatientIdOrderByAppointmentTimeAsc(patientId)
+                .forEach(a -> history.add(a.toAppointment()));
+        history.addAll(repo.findByPatientId(patientId));
+        history.sort(Comparator.comparing(Appointment::getAppointmentTime,
+                Comparator.nullsLast(Comparator.naturalOrder())));
+        return history;
+    }
+    @Transactional(readOnly = true)
     public List<Appointment> getByDoctorId(Long doctorId) { return repo.findByDoctorId(doctorId); }
+
+    // Only the named columns, for fields= on the list endpoints
+    @Transactional(readOnly = true)
+    public List<Object[]> getAllFields(List<String> fields) { return repo.findAllFields(fields); }
+    @Transactional(readOnly = true)
+    public List<Object[]> getFieldsByPatientId(Long patientId, List<String> fields) { return repo.findFieldsByPatientId(patientId, fields); }
+    @Transactional(readOnly = true)
+    public List<Object[]> getFieldsByDoctorId(Long doctorId, List<String> fields) { return repo.findFieldsByDoctorId(doctorId, fields); }
 }
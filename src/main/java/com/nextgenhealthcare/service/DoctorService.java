@@ -1,9 +1,13 @@
 package com.nextgenhealthcare.service;
 
+import com.nextgenhealthcare.exception.ResourceNotFoundException;
 import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.purge.CascadePurger;
 import com.nextgenhealthcare.repository.DoctorRepository;
+import com.nextgenhealthcare.stats.AppointmentStatistics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,12 +15,27 @@ import java.util.Optional;
 @Service
 public class DoctorService {
     @Autowired private DoctorRepository repo;
+    @Autowired private AppointmentStatistics statistics;
+    @Autowired private CascadePurger purger;
 
-    public List<Doctor> getAll() { return repo.findAll(); }
-    public Optional<Doctor> getById(Long id) { return repo.findById(id); }
-    public Doctor create(Doctor d) { return repo.save(d); }
+    @Transactional(readOnly = true)
+    public List<Doctor> getAll() { return repo.findByDeletedAtIsNull(); }
+    // Only the named columns, for fields=
+    @Transactional(readOnly = true)
+    public List<Object[]> getAllFields(List<String> fields) { return repo.findAllFields(fields); }
+    @Transactional(readOnly = true)
+    public Optional<Doctor> getById(Long id) { return repo.findByIdAndDeletedAtIsNull(id); }
+    @Transactional
+    public Doctor create(Doctor d) {
+        Doctor saved = repo.save(d);
+        statistics.onDoctorSaved(saved);
+        return saved;
+    }
+    // One read-write transaction so the lookup is served by the primary too
+    @Transactional
     public Doctor update(Long id, Doctor updated) {
-        return repo.findById(id).map(existing -> {
+        Doctor saved = repo.findById(id).map(existing -> {
+            if (existing.getDeletedAt() != null) throw new ResourceNotFoundException("Doctor not found: " + id);
             if (updated.getName() != null) existing.setName(updated.getName());
             if (updated.getSpecialization() != null) existing.setSpecialization(updated.getSpecialization());
             if (updated.getEmail() != null) existing.setEmail(updated.getEmail());
@@ -25,6 +44,10 @@ public class DoctorService {
             updated.setId(id);
             return repo.save(updated);
         });
+        statistics.onDoctorSaved(saved);
+        return saved;
     }
-    public void delete(Long id) { repo.deleteById(id); }
+    // Not transactional: the purger commits each batch of appointments on its own
+    // Returns false when the appointments are still being purged in the background
+    public boolean delete(Long id) { return purger.delete(CascadePurger.Owner.DOCTOR, id); }
 }
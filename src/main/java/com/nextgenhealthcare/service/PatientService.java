@@ -1,9 +1,12 @@
 package com.nextgenhealthcare.service;
 
+import com.nextgenhealthcare.exception.ResourceNotFoundException;
 import com.nextgenhealthcare.model.Patient;
+import com.nextgenhealthcare.purge.CascadePurger;
 import com.nextgenhealthcare.repository.PatientRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,13 +14,23 @@ import java.util.Optional;
 @Service
 public class PatientService {
     @Autowired private PatientRepository repo;
+    @Autowired private CascadePurger purger;
 
-    public List<Patient> getAll() { return repo.findAll(); }
-    public Optional<Patient> getById(Long id) { return repo.findById(id); }
+    @Transactional(readOnly = true)
+    public List<Patient> getAll() { return repo.findByDeletedAtIsNull(); }
+    // Only the named columns, for fields=
+    @Transactional(readOnly = true)
+    public List<Object[]> getAllFields(List<String> fields) { return repo.findAllFields(fields); }
+    @Transactional(readOnly = true)
+    public Optional<Patient> getById(Long id) { return repo.findByIdAndDeletedAtIsNull(id); }
+    @Transactional
     public Patient create(Patient p) { return repo.save(p); }
 
+    // One read-write transaction so the lookup is served by the primary too
+    @Transactional
     public Patient update(Long id, Patient updated) {
         return repo.findById(id).map(existing -> {
+            if (existing.getDeletedAt() != null) throw new ResourceNotFoundException("Patient not found: " + id);
             if (updated.getName() != null) existing.setName(updated.getName());
             // check for null — age is Integer now
             if (updated.getAge() != null) existing.setAge(updated.getAge());
@@ -29,5 +42,7 @@ public class PatientService {
         });
     }
 
-    public void delete(Long id) { repo.deleteById(id); }
+    // Not transactional: the purger commits each batch of appointments on its own
+    // Returns false when the appointments are still being purged in the background
+    public boolean delete(Long id) { return purger.delete(CascadePurger.Owner.PATIENT, id); }
 }
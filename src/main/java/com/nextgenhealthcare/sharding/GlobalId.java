@@ -0,0 +1,20 @@
+package com.nextgenhealthcare.sharding;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An id that stays unique across shards, so a row can move between them and keep it
+ * (see {@link GlobalIdGenerator}).
+ */
+@Documented
+@IdGeneratorType(GlobalIdGenerator.class)
+@Target({ElementType.FIELD, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface GlobalId {
+}
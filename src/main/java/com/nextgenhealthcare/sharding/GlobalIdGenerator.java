@@ -0,0 +1,136 @@
+package com.nextgenhealthcare.sharding;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.AnnotationBasedGenerator;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.generator.OnExecutionGenerator;
+import org.hibernate.id.IdentityGenerator;
+import org.hibernate.id.PostInsertIdentityPersister;
+import org.hibernate.id.insert.InsertGeneratedIdentifierDelegate;
+import org.hibernate.jdbc.AbstractReturningWork;
+import org.hibernate.mapping.Column;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.lang.reflect.Member;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.EnumSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ids for {@link GlobalId} entities. Unsharded, the table's identity column hands them out.
+ * With sharding, rows keep their id when they move to another shard, so ids come from one
+ * counter in {@code id_blocks} on shard 0 instead, reserved {@link #BLOCK_SIZE} at a time in a
+ * transaction of their own; ShardRouter seeds the counter above every id already stored.
+ *
+ * The column stays an identity column in both cases, so the schema doesn't depend on the mode.
+ */
+public class GlobalIdGenerator
+        implements AnnotationBasedGenerator<GlobalId>, OnExecutionGenerator, BeforeExecutionGenerator {
+
+    /** Hibernate setting with the ids reserved per block; unset leaves ids to the identity column. */
+    public static final String BLOCK_SIZE = "nextgen.sharding.id-block-size";
+    static final String TABLE = "id_blocks";
+
+    private final IdentityGenerator identity = new IdentityGenerator();
+    private String name;
+    private int blockSize;
+    // A lock rather than synchronized: reserving a block does JDBC I/O and must not pin a virtual thread
+    private final ReentrantLock reserving = new ReentrantLock();
+    private long next;
+    private long end;
+
+    @Override
+    public void initialize(GlobalId annotation, Member member, GeneratorCreationContext context) {
+        this.name = context.getPersistentClass().getTable().getName();
+        this.blockSize = context.getServiceRegistry().getService(ConfigurationService.class)
+                .getSetting(BLOCK_SIZE, StandardConverters.INTEGER, 0);
+        for (Column column : context.getPersistentClass().getIdentifier().getColumns()) {
+            column.setIdentity(true);
+        }
+    }
+
+    @Override
+    public boolean generatedOnExecution() {
+        return blockSize <= 0;
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EnumSet.of(EventType.INSERT);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                           EventType eventType) {
+        reserving.lock();
+        try {
+            if (next == end) {
+                next = reserve(session);
+                end = next + blockSize;
+            }
+            return next++;
+        } finally {
+            reserving.unlock();
+        }
+    }
+
+    private long reserve(SharedSessionContractImplementor session) {
+        return ShardContext.on(0, () -> session.getTransactionCoordinator().createIsolationDelegate()
+                .delegateWork(new AbstractReturningWork<Long>() {
+                    @Override
+                    public Long execute(Connection connection) throws SQLException {
+                        long start;
+                        try (PreparedStatement select = connection.prepareStatement(
+                                "SELECT next_id FROM " + TABLE + " WHERE name = ? FOR UPDATE")) {
+                            select.setString(1, name);
+                            try (ResultSet rs = select.executeQuery()) {
+                                if (!rs.next()) {
+                                    throw new IllegalStateException("No id counter for " + name + " in " + TABLE);
+                                }
+                                start = rs.getLong(1);
+                            }
+                        }
+                        try (PreparedStatement update = connection.prepareStatement(
+                                "UPDATE " + TABLE + " SET next_id = ? WHERE name = ?")) {
+                            update.setLong(1, start + blockSize);
+                            update.setString(2, name);
+                            update.executeUpdate();
+                        }
+                        return start;
+                    }
+                }, true));
+    }
+
+    @Override
+    public boolean referenceColumnsInSql(Dialect dialect) {
+        return identity.referenceColumnsInSql(dialect);
+    }
+
+    @Override
+    public boolean writePropertyValue() {
+        return identity.writePropertyValue();
+    }
+
+    @Override
+    public String[] getReferencedColumnValues(Dialect dialect) {
+        return identity.getReferencedColumnValues(dialect);
+    }
+
+    @Override
+    public InsertGeneratedIdentifierDelegate getGeneratedIdentifierDelegate(PostInsertIdentityPersister persister) {
+        return identity.getGeneratedIdentifierDelegate(persister);
+    }
+
+    @Override
+    public String[] getUniqueKeyPropertyNames(EntityPersister persister) {
+        return identity.getUniqueKeyPropertyNames(persister);
+    }
+}
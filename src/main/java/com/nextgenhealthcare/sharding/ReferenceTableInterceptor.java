@@ -0,0 +1,81 @@
+package com.nextgenhealthcare.sharding;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Leaves {@code DoctorRepository} and {@code PatientRepository} calls on shard 0 and, once a
+ * write has committed there, copies the rows it touched to the other shards. A failed copy is
+ * logged and repaired by the next write to the same row.
+ */
+public class ReferenceTableInterceptor implements MethodInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReferenceTableInterceptor.class);
+
+    private final String table;
+    private final Supplier<ReferenceTables> tablesSupplier;
+
+    public ReferenceTableInterceptor(String table, Supplier<ReferenceTables> tablesSupplier) {
+        this.table = table;
+        this.tablesSupplier = tablesSupplier;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        String name = invocation.getMethod().getName();
+        if (!name.startsWith("save") && !name.startsWith("delete")) {
+            return result;
+        }
+        Object[] args = invocation.getArguments();
+        // deleteAll() and deleteAllInBatch() don't say which rows went
+        Set<Long> ids = args.length == 0 ? null : new HashSet<>();
+        if (ids != null) {
+            for (Object arg : args) {
+                collectIds(arg, ids);
+            }
+            collectIds(result, ids);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    sync(ids);
+                }
+            });
+        } else {
+            sync(ids);
+        }
+        return result;
+    }
+
+    private void sync(Set<Long> ids) {
+        try {
+            tablesSupplier.get().sync(table, ids);
+        } catch (RuntimeException e) {
+            log.warn("Copying {} {} to the other shards failed: {}", table, ids != null ? ids : "(all)", e.getMessage());
+        }
+    }
+
+    private static void collectIds(Object value, Set<Long> ids) {
+        if (value instanceof Long id) {
+            ids.add(id);
+        } else if (value instanceof Iterable<?> items) {
+            items.forEach(item -> collectIds(item, ids));
+        } else if (value != null) {
+            BeanWrapperImpl entity = new BeanWrapperImpl(value);
+            if (entity.isReadableProperty("id") && entity.getPropertyValue("id") instanceof Long id) {
+                ids.add(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.nextgenhealthcare.sharding;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps {@code doctors} and {@code patients} on every shard. They are written on shard 0 through
+ * JPA as before and copied row by row to the other shards after commit, so appointments on any
+ * shard can join and reference them.
+ *
+ * A row gone from shard 0 is deleted from the other shards too. Only the reference rows are
+ * copied and deleted here; CascadePurger removes an owner's appointments, on whichever shard
+ * holds them, before the row itself goes.
+ */
+public class ReferenceTables {
+
+    public static final String DOCTORS = "doctors";
+    public static final String PATIENTS = "patients";
+    private static final Set<String> TABLES = Set.of(DOCTORS, PATIENTS);
+    private static final int CHUNK = 500;
+
+    private final ShardRoutingDataSource shards;
+
+    public ReferenceTables(ShardRoutingDataSource shards) {
+        this.shards = shards;
+    }
+
+    /**
+     * Copies the current shard 0 state of the given rows to every other shard.
+     *
+     * @param ids rows to copy, or null to compare the whole table
+     */
+    public void sync(String table, Collection<Long> ids) {
+        checkTable(table);
+        NamedParameterJdbcTemplate home = new NamedParameterJdbcTemplate(shards.shard(0));
+        for (int s = 1; s < shards.shardCount(); s++) {
+            NamedParameterJdbcTemplate shard = new NamedParameterJdbcTemplate(shards.shard(s));
+            List<Long> pending = ids != null ? new ArrayList<>(ids)
+                    : shard.getJdbcTemplate().queryForList("SELECT id FROM " + table, Long.class);
+            if (ids == null) {
+                Set<Long> all = new HashSet<>(pending);
+                all.addAll(home.getJdbcTemplate().queryForList("SELECT id FROM " + table, Long.class));
+                pending = new ArrayList<>(all);
+            }
+            for (int from = 0; from < pending.size(); from += CHUNK) {
+                List<Long> chunk = pending.subList(from, Math.min(pending.size(), from + CHUNK));
+                syncChunk(table, chunk, home, shard);
+            }
+        }
+    }
+
+    /** Copies the whole table to a shard that has none of it yet. */
+    public void copyAll(String table, int shard) {
+        checkTable(table);
+        JdbcTemplate home = new JdbcTemplate(shards.shard(0));
+        JdbcTemplate target = new JdbcTemplate(shards.shard(shard));
+        long after = Long.MIN_VALUE;
+        while (true) {
+            List<Map<String, Object>> rows = home.queryForList(
+                    "SELECT * FROM " + table + " WHERE id > ? ORDER BY id LIMIT " + CHUNK, after);
+            if (rows.isEmpty()) {
+                return;
+            }
+            for (Map<String, Object> row : rows) {
+                insert(target, table, row);
+            }
+            after = ((Number) rows.get(rows.size() - 1).get("id")).longValue();
+        }
+    }
+
+    private void syncChunk(String table, List<Long> ids, NamedParameterJdbcTemplate home,
+                           NamedParameterJdbcTemplate shard) {
+        Map<String, List<Long>> params = Map.of("ids", ids);
+        Set<Long> present = new HashSet<>();
+        for (Map<String, Object> row : home.queryForList("SELECT * FROM " + table + " WHERE id IN (:ids)", params)) {
+            present.add(((Number) row.get("id")).longValue());
+            upsert(shard.getJdbcTemplate(), table, row);
+        }
+        List<Long> gone = ids.stream().filter(id -> !present.contains(id)).toList();
+        if (!gone.isEmpty()) {
+            shard.update("DELETE FROM " + table + " WHERE id IN (:ids)", Map.of("ids", gone));
+        }
+    }
+
+    private static void upsert(JdbcTemplate target, String table, Map<String, Object> row) {
+        List<String> columns = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        Object id = null;
+        for (Map.Entry<String, Object> e : row.entrySet()) {
+            if (e.getKey().equalsIgnoreCase("id")) {
+                id = e.getValue();
+            } else {
+                columns.add(e.getKey() + " = ?");
+                values.add(e.getValue());
+            }
+        }
+        values.add(id);
+        if (target.update("UPDATE " + table + " SET " + String.join(", ", columns) + " WHERE id = ?",
+                values.toArray()) == 0) {
+            insert(target, table, row);
+        }
+    }
+
+    private static void insert(JdbcTemplate target, String table, Map<String, Object> row) {
+        target.update("INSERT INTO " + table + " (" + String.join(", ", row.keySet()) + ") VALUES ("
+                + String.join(", ", row.keySet().stream().map(c -> "?").toList()) + ")", row.values().toArray());
+    }
+
+    private static void checkTable(String table) {
+        if (!TABLES.contains(table)) {
+            throw new IllegalArgumentException("Not a reference table: " + table);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.nextgenhealthcare.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard the current thread's next connection comes from. Unset means shard 0, which also
+ * holds every table that is not sharded. Set by {@link ShardRouter} around routed repository
+ * calls; has no effect when sharding is not configured.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+    private ShardContext() {}
+
+    /** The pinned shard, or null when the thread is not inside a routed call. */
+    public static Integer current() {
+        return SHARD.get();
+    }
+
+    public static <T> T on(int shard, Supplier<T> work) {
+        Integer previous = SHARD.get();
+        SHARD.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                SHARD.remove();
+            } else {
+                SHARD.set(previous);
+            }
+        }
+    }
+}
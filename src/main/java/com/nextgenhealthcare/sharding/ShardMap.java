@@ -0,0 +1,119 @@
+package com.nextgenhealthcare.sharding;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Maps a shard key (the doctor id) to a shard through a fixed number of virtual buckets:
+ * key to bucket by hash, bucket to shard by an editable table. Rebalancing moves whole buckets,
+ * so adding a shard never rehashes keys that stay where they are.
+ *
+ * The assignment is kept in {@code shard_buckets} on shard 0 so every instance and restart
+ * agrees on it; {@link #refresh()} picks up moves made by another instance. Each bucket has a
+ * lock: routed calls hold it shared, a bucket move holds it exclusively.
+ */
+public class ShardMap implements MeterBinder {
+
+    private final JdbcTemplate home;
+    private final int shards;
+    private final ReadWriteLock[] locks;
+    private volatile int[] assignment;
+
+    public ShardMap(JdbcTemplate home, int shards, int buckets) {
+        if (buckets < shards) {
+            throw new IllegalArgumentException("Need at least one bucket per shard: " + buckets + " < " + shards);
+        }
+        this.home = home;
+        this.shards = shards;
+        this.locks = new ReadWriteLock[buckets];
+        for (int b = 0; b < buckets; b++) {
+            locks[b] = new ReentrantReadWriteLock();
+        }
+        home.execute("CREATE TABLE IF NOT EXISTS shard_buckets (bucket INT PRIMARY KEY, shard INT NOT NULL)");
+        if (home.queryForObject("SELECT COUNT(*) FROM shard_buckets", Integer.class) == 0) {
+            home.batchUpdate("INSERT INTO shard_buckets (bucket, shard) VALUES (?, ?)", IntStream.range(0, buckets)
+                    .mapToObj(b -> new Object[]{b, b % shards}).toList());
+        }
+        refresh();
+    }
+
+    /** Reloads the assignment; fails if it names a shard that is no longer configured. */
+    public void refresh() {
+        int[] loaded = new int[locks.length];
+        List<int[]> rows = home.query("SELECT bucket, shard FROM shard_buckets",
+                (rs, n) -> new int[]{rs.getInt(1), rs.getInt(2)});
+        if (rows.size() != locks.length) {
+            throw new IllegalStateException("shard_buckets has " + rows.size() + " buckets, configured "
+                    + locks.length + "; the bucket count can't change once data is sharded");
+        }
+        for (int[] row : rows) {
+            if (row[1] < 0 || row[1] >= shards) {
+                throw new IllegalStateException("Bucket " + row[0] + " is on shard " + row[1] + " but only "
+                        + shards + " shards are configured; rebalance before removing a shard");
+            }
+            loaded[row[0]] = row[1];
+        }
+        assignment = loaded;
+    }
+
+    public int shardCount() {
+        return shards;
+    }
+
+    public int bucketCount() {
+        return locks.length;
+    }
+
+    public int bucketOf(long key) {
+        // Fibonacci hashing spreads sequential ids evenly
+        return (int) Math.floorMod(key * 0x9E3779B97F4A7C15L >>> 32, (long) locks.length);
+    }
+
+    public int shardOf(long key) {
+        return assignment[bucketOf(key)];
+    }
+
+    public int shardOfBucket(int bucket) {
+        return assignment[bucket];
+    }
+
+    public ReadWriteLock lock(int bucket) {
+        return locks[bucket];
+    }
+
+    /** Points a bucket at another shard; the caller has moved its rows and holds its write lock. */
+    void assign(int bucket, int shard) {
+        home.update("UPDATE shard_buckets SET shard = ? WHERE bucket = ?", shard, bucket);
+        int[] next = assignment.clone();
+        next[bucket] = shard;
+        assignment = next;
+    }
+
+    public int bucketsOn(int shard) {
+        int n = 0;
+        for (int s : assignment) {
+            if (s == shard) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (int s = 0; s < shards; s++) {
+            int shard = s;
+            Gauge.builder("shard.buckets", this, m -> m.bucketsOn(shard))
+                    .tag("shard", Integer.toString(shard))
+                    .description("Virtual buckets assigned to the shard")
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.nextgenhealthcare.sharding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves buckets between shards: one bucket at a time, with its appointments copied over before
+ * the map points at the new shard. Calls routed to a bucket wait while it moves; everything
+ * else keeps running.
+ *
+ * The bucket lock only covers this instance. Other instances pick up the new assignment on
+ * their next {@link #refreshMap()}, so with several instances running, moves belong in a quiet
+ * period or behind a single writer.
+ */
+public class ShardRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    public record Move(int bucket, int from, int to, int appointments) {}
+
+    private final ShardRouter router;
+    private final ReentrantLock rebalancing = new ReentrantLock();
+
+    public ShardRebalancer(ShardRouter router) {
+        this.router = router;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.shards.map-refresh-ms:30000}")
+    public void refreshMap() {
+        router.map().refresh();
+    }
+
+    /** Moves one bucket and the appointments of every doctor hashed to it. */
+    public Move moveBucket(int bucket, int to) {
+        rebalancing.lock();
+        try {
+            return move(bucket, to);
+        } finally {
+            rebalancing.unlock();
+        }
+    }
+
+    /**
+     * Evens out appointments per shard by moving whole buckets from the busiest shard to the
+     * idlest, as long as a move narrows the gap between them. A bucket counts one more than its
+     * appointments so empty buckets spread out too; after adding a shard this fills it.
+     */
+    public List<Move> rebalance() {
+        rebalancing.lock();
+        try {
+            ShardMap map = router.map();
+            long[] bucketLoad = new long[map.bucketCount()];
+            Arrays.fill(bucketLoad, 1);
+            for (int s = 0; s < router.shardCount(); s++) {
+                router.jdbc(s).query("SELECT doctor_id, COUNT(*) FROM appointments WHERE doctor_id IS NOT NULL "
+                        + "GROUP BY doctor_id", rs -> { bucketLoad[map.bucketOf(rs.getLong(1))] += rs.getLong(2); });
+            }
+            List<Move> moves = new ArrayList<>();
+            while (true) {
+                long[] shardLoad = new long[router.shardCount()];
+                for (int b = 0; b < bucketLoad.length; b++) {
+                    shardLoad[map.shardOfBucket(b)] += bucketLoad[b];
+                }
+                int busiest = 0;
+                int idlest = 0;
+                for (int s = 1; s < shardLoad.length; s++) {
+                    if (shardLoad[s] > shardLoad[busiest]) busiest = s;
+                    if (shardLoad[s] < shardLoad[idlest]) idlest = s;
+                }
+                // The largest bucket that still leaves the busiest shard at or above the idlest
+                long gap = shardLoad[busiest] - shardLoad[idlest];
+                int candidate = -1;
+                for (int b = 0; b < bucketLoad.length; b++) {
+                    if (map.shardOfBucket(b) == busiest && bucketLoad[b] * 2 <= gap
+                            && (candidate < 0 || bucketLoad[b] > bucketLoad[candidate])) {
+                        candidate = b;
+                    }
+                }
+                if (candidate < 0) {
+                    return moves;
+                }
+                moves.add(move(candidate, idlest));
+            }
+        } finally {
+            rebalancing.unlock();
+        }
+    }
+
+    private Move move(int bucket, int to) {
+        ShardMap map = router.map();
+        if (to < 0 || to >= router.shardCount()) {
+            throw new IllegalArgumentException("No shard " + to);
+        }
+        Lock lock = map.lock(bucket).writeLock();
+        lock.lock();
+        try {
+            int from = map.shardOfBucket(bucket);
+            if (from == to) {
+                return new Move(bucket, from, to, 0);
+            }
+            List<Long> doctors = router.jdbc(from).queryForList(
+                    "SELECT DISTINCT doctor_id FROM appointments WHERE doctor_id IS NOT NULL", Long.class).stream()
+                    .filter(id -> map.bucketOf(id) == bucket).toList();
+            int moved = 0;
+            for (Long doctor : doctors) {
+                moved += router.moveAppointments(from, to, "doctor_id = ?", doctor);
+            }
+            map.assign(bucket, to);
+            log.info("Moved bucket {} from shard {} to shard {} ({} appointments)", bucket, from, to, moved);
+            return new Move(bucket, from, to, moved);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
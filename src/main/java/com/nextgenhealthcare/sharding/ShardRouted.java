@@ -0,0 +1,32 @@
+package com.nextgenhealthcare.sharding;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares how an {@code AppointmentService} method that opens a read-write transaction is
+ * routed to a shard. With sharding enabled, every such method must carry it; startup fails
+ * otherwise (see {@link ShardedAppointmentServiceInterceptor}).
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardRouted {
+
+    By value();
+
+    enum By {
+        /** The first argument is the appointment being written; runs on its doctor's shard. */
+        APPOINTMENT,
+        /**
+         * The first argument is the appointment id; an optional second argument is a replacement
+         * whose doctor, when given, decides the target shard.
+         */
+        APPOINTMENT_ID,
+        /** Does not write appointments; each repository call is routed on its own. */
+        REPOSITORY
+    }
+}
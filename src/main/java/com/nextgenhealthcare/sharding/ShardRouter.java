@@ -0,0 +1,368 @@
+package com.nextgenhealthcare.sharding;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Runs work on one shard or on all of them. A single-shard call joins the caller's transaction
+ * when that one is already on the shard, and otherwise gets its own transaction there; a scatter
+ * runs one task per shard in parallel on a bounded pool and waits for all of them.
+ *
+ * Appointment ids come from one counter on shard 0 (see {@link GlobalIdGenerator}), so they stay
+ * unique across shards and a row keeps its id when it moves; they say nothing about where a row
+ * lives. On startup a shard without the schema gets it created, plus a copy of the reference
+ * tables, and the counter is put above every id already stored.
+ */
+public class ShardRouter implements SmartInitializingSingleton, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRouter.class);
+    private static final int MOVE_CHUNK = 500;
+    private static final String MOVE_COLUMNS = "id, patient_id, doctor_id, appointment_time, reason, status, version";
+    private static final Object RETRY = new Object();
+
+    private final ShardRoutingDataSource shards;
+    private final ShardMap map;
+    private final ReferenceTables referenceTables;
+    private final EntityManagerFactory entityManagerFactory;
+    // Joins the transaction on whichever shard the thread is pinned to
+    private final JdbcTemplate transactional;
+    private final TransactionTemplate readWrite;
+    private final TransactionTemplate readOnly;
+    private final ExecutorService scatterPool;
+    private final Duration scatterTimeout;
+
+    public ShardRouter(ShardRoutingDataSource shards, ShardMap map, ReferenceTables referenceTables,
+                       EntityManagerFactory entityManagerFactory, DataSource dataSource,
+                       PlatformTransactionManager transactionManager, int scatterThreads, Duration scatterTimeout) {
+        this.shards = shards;
+        this.map = map;
+        this.referenceTables = referenceTables;
+        this.entityManagerFactory = entityManagerFactory;
+        this.transactional = new JdbcTemplate(dataSource);
+        this.readWrite = new TransactionTemplate(transactionManager);
+        this.readWrite.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnly.setReadOnly(true);
+        this.scatterTimeout = scatterTimeout;
+        AtomicInteger threads = new AtomicInteger();
+        this.scatterPool = Executors.newFixedThreadPool(scatterThreads, r -> {
+            Thread t = new Thread(r, "shard-scatter-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public ShardMap map() {
+        return map;
+    }
+
+    public int shardCount() {
+        return shards.shardCount();
+    }
+
+    /**
+     * Runs {@code work} on {@code shard}: inside the caller's transaction when that one is on the
+     * same shard and can take the work, otherwise in a new transaction there.
+     */
+    public <T> T onShard(int shard, boolean readOnlyWork, Supplier<T> work) {
+        Integer pinned = ShardContext.current();
+        if ((pinned != null ? pinned : 0) == shard && TransactionSynchronizationManager.isActualTransactionActive()
+                && (readOnlyWork || !TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+            return ShardContext.on(shard, work);
+        }
+        TransactionTemplate tx = readOnlyWork ? readOnly : readWrite;
+        return ShardContext.on(shard, () -> tx.execute(status -> work.get()));
+    }
+
+    /**
+     * Runs an appointment write on the shard of its doctor, holding the buckets involved against
+     * a concurrent move, so everything {@code write} does (the row, its outbox event) commits in
+     * one transaction there.
+     *
+     * @param id    the appointment when the write may change its doctor or the caller doesn't
+     *              know it; null for a new appointment or an unchanged doctor
+     * @param key   the doctor id after the write, -1 for none, or null to keep the current one
+     */
+    public <T> T writeAppointment(Long id, Long key, Supplier<T> write) {
+        if (id == null) {
+            long target = key != null ? key : -1;
+            return withBuckets(List.of(target), () -> onShard(shardOfKey(target), false, write));
+        }
+        while (true) {
+            int source = locate(id);
+            Long current = source >= 0 ? doctorKey(source, id) : null;
+            long target = key != null ? key : current != null ? current : -1;
+            List<Long> keys = current != null ? List.of(current, target) : List.of(target);
+            Object result = withBuckets(keys, () -> {
+                // Moved by a rebalance, or given another doctor, before the locks were taken
+                if (source >= 0 && !Objects.equals(doctorKey(source, id), current)) {
+                    return RETRY;
+                }
+                int to = shardOfKey(target);
+                return source < 0 || source == to ? onShard(to, false, write) : moveAndWrite(id, source, to, write);
+            });
+            if (result != RETRY) {
+                @SuppressWarnings("unchecked")
+                T value = (T) result;
+                return value;
+            }
+        }
+    }
+
+    /** Holds the buckets of {@code keys} (doctor ids; negative ones are skipped) shared, in a fixed order. */
+    public <T> T withBuckets(Collection<Long> keys, Supplier<T> work) {
+        TreeSet<Integer> buckets = new TreeSet<>();
+        for (long key : keys) {
+            if (key >= 0) {
+                buckets.add(map.bucketOf(key));
+            }
+        }
+        List<Lock> held = new ArrayList<>(buckets.size());
+        try {
+            for (int bucket : buckets) {
+                Lock lock = map.lock(bucket).readLock();
+                lock.lock();
+                held.add(lock);
+            }
+            return work.get();
+        } finally {
+            held.forEach(Lock::unlock);
+        }
+    }
+
+    // Appointments without a doctor stay on shard 0
+    public int shardOfKey(long key) {
+        return key < 0 ? 0 : map.shardOf(key);
+    }
+
+    /** Runs {@code work} on the key's shard while holding its bucket against a concurrent move. */
+    public <T> T onKeyShard(long key, boolean readOnlyWork, Supplier<T> work) {
+        var lock = map.lock(map.bucketOf(key)).readLock();
+        lock.lock();
+        try {
+            return onShard(map.shardOf(key), readOnlyWork, work);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs {@code work} once per listed shard in parallel, with the shard pinned for the task's
+     * thread, and returns the results in shard order. {@code work} starts its own transactions.
+     */
+    public <T> List<T> scatter(List<Integer> targets, IntFunction<T> work) {
+        List<Future<T>> futures = new ArrayList<>(targets.size());
+        for (int shard : targets) {
+            futures.add(CompletableFuture.supplyAsync(() -> ShardContext.on(shard, () -> work.apply(shard)), scatterPool));
+        }
+        long deadline = System.nanoTime() + scatterTimeout.toNanos();
+        List<T> results = new ArrayList<>(targets.size());
+        try {
+            for (Future<T> f : futures) {
+                results.add(f.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+        } catch (ExecutionException | CompletionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Scatter over " + targets.size() + " shards timed out after " + scatterTimeout);
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shards", e);
+        }
+        return results;
+    }
+
+    public List<Integer> allShards() {
+        List<Integer> all = new ArrayList<>(shards.shardCount());
+        for (int s = 0; s < shards.shardCount(); s++) {
+            all.add(s);
+        }
+        return all;
+    }
+
+    /** The shard currently holding the appointment, or -1. */
+    public int locate(long id) {
+        for (int s = 0; s < shards.shardCount(); s++) {
+            if (exists(s, id)) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves the appointments matching {@code where} from one shard to another in chunks, keeping
+     * ids and versions. Each chunk is written to the target before it is deleted from the
+     * source, and a chunk already on the target is replaced, so an interrupted move can simply
+     * be run again.
+     *
+     * @return rows moved
+     */
+    public int moveAppointments(int from, int to, String where, Object... args) {
+        JdbcTemplate source = jdbc(from);
+        JdbcTemplate target = jdbc(to);
+        int moved = 0;
+        while (true) {
+            List<Map<String, Object>> rows = source.queryForList("SELECT " + MOVE_COLUMNS
+                    + " FROM appointments WHERE " + where + " ORDER BY id LIMIT " + MOVE_CHUNK, args);
+            if (rows.isEmpty()) {
+                return moved;
+            }
+            List<Object[]> values = rows.stream().map(r -> new Object[]{r.get("id"), r.get("patient_id"),
+                    r.get("doctor_id"), r.get("appointment_time"), r.get("reason"), r.get("status"), r.get("version")}).toList();
+            List<Object[]> ids = rows.stream().map(r -> new Object[]{r.get("id")}).toList();
+            target.batchUpdate("DELETE FROM appointments WHERE id = ?", ids);
+            target.batchUpdate("INSERT INTO appointments (id, patient_id, doctor_id, appointment_time, reason, status, "
+                    + "version) VALUES (?, ?, ?, ?, ?, ?, ?)", values);
+            source.batchUpdate("DELETE FROM appointments WHERE id = ?", ids);
+            moved += rows.size();
+        }
+    }
+
+    /**
+     * Moves one appointment and writes it as a unit. The source row is locked and deleted in a
+     * transaction on {@code from}; inside it, a transaction on {@code to} inserts the copy and
+     * runs {@code write}. A failing write rolls both back and leaves the row where it was. Only
+     * a failure of the final source commit, after the target has committed, can leave a stale
+     * copy behind on {@code from}.
+     */
+    private <T> T moveAndWrite(long id, int from, int to, Supplier<T> write) {
+        return onShard(from, false, () -> {
+            List<Map<String, Object>> rows = transactional.queryForList(
+                    "SELECT " + MOVE_COLUMNS + " FROM appointments WHERE id = ? FOR UPDATE", id);
+            if (rows.isEmpty()) {
+                return onShard(to, false, write);
+            }
+            Map<String, Object> r = rows.get(0);
+            transactional.update("DELETE FROM appointments WHERE id = ?", id);
+            return onShard(to, false, () -> {
+                // Left over from an earlier move whose source commit failed
+                transactional.update("DELETE FROM appointments WHERE id = ?", id);
+                transactional.update("INSERT INTO appointments (" + MOVE_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)",
+                        r.get("id"), r.get("patient_id"), r.get("doctor_id"), r.get("appointment_time"),
+                        r.get("reason"), r.get("status"), r.get("version"));
+                return write.get();
+            });
+        });
+    }
+
+    // The appointment's doctor id, -1 for none, or null when the row isn't on the shard
+    private Long doctorKey(int shard, long id) {
+        List<Long> doctors = jdbc(shard).queryForList("SELECT doctor_id FROM appointments WHERE id = ?", Long.class, id);
+        if (doctors.isEmpty()) {
+            return null;
+        }
+        return doctors.get(0) != null ? doctors.get(0) : -1L;
+    }
+
+    JdbcTemplate jdbc(int shard) {
+        return new JdbcTemplate(shards.shard(shard));
+    }
+
+    private boolean exists(int shard, long id) {
+        return !jdbc(shard).queryForList("SELECT 1 FROM appointments WHERE id = ?", Integer.class, id).isEmpty();
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        for (int s = 1; s < shards.shardCount(); s++) {
+            if (!hasTable(s, "appointments")) {
+                log.info("Creating schema on shard {}", s);
+                ShardContext.on(s, () -> {
+                    sessionFactory.getSchemaManager().exportMappedObjects(true);
+                    return null;
+                });
+                referenceTables.copyAll(ReferenceTables.DOCTORS, s);
+                referenceTables.copyAll(ReferenceTables.PATIENTS, s);
+            }
+        }
+        seedIds();
+    }
+
+    // Another instance may be seeding or already handing out ids; the counter only ever goes up
+    private void seedIds() {
+        JdbcTemplate home = jdbc(0);
+        home.execute("CREATE TABLE IF NOT EXISTS " + GlobalIdGenerator.TABLE
+                + " (name VARCHAR(64) PRIMARY KEY, next_id BIGINT NOT NULL)");
+        // Archived rows keep their id, and the archiver skips ids it already holds
+        long next = maxId(home, "appointments_archive") + 1;
+        for (int s = 0; s < shards.shardCount(); s++) {
+            next = Math.max(next, maxId(jdbc(s), "appointments") + 1);
+        }
+        if (home.update("UPDATE " + GlobalIdGenerator.TABLE + " SET next_id = ? WHERE name = 'appointments' AND next_id < ?",
+                next, next) == 0) {
+            try {
+                home.update("INSERT INTO " + GlobalIdGenerator.TABLE + " (name, next_id) VALUES ('appointments', ?)", next);
+            } catch (DuplicateKeyException e) {
+                // Already there and high enough
+            }
+        }
+    }
+
+    private static long maxId(JdbcTemplate jdbc, String table) {
+        Long max = jdbc.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        return max != null ? max : 0;
+    }
+
+    private boolean hasTable(int shard, String table) {
+        try {
+            return JdbcUtils.extractDatabaseMetaData(shards.shard(shard), (DatabaseMetaData md) -> {
+                for (String name : new String[]{table, table.toUpperCase()}) {
+                    try (ResultSet rs = md.getTables(null, null, name, new String[]{"TABLE"})) {
+                        if (rs.next()) {
+                            return true;
+                        }
+                    }
+                }
+                return false;
+            });
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Cannot read the schema of shard " + shard, e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scatterPool.shutdownNow();
+    }
+}
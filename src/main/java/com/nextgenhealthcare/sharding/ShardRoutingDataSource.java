@@ -0,0 +1,60 @@
+package com.nextgenhealthcare.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out connections to the shard in {@link ShardContext}, or to shard 0 outside a routed
+ * call. Like the replica router it must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, with Hibernate
+ * releasing connections after each transaction, so the shard is chosen per transaction.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        if (shards.size() < 2) {
+            throw new IllegalArgumentException("Sharding needs at least two shards, got " + shards.size());
+        }
+        this.shards = List.copyOf(shards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = ShardContext.current();
+        return shard != null ? shard : 0;
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    /** The shard's own pool, for JDBC work that must not depend on the thread's context. */
+    public DataSource shard(int shard) {
+        return shards.get(shard);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (DataSource ds : shards) {
+            if (ds instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.nextgenhealthcare.sharding;
+
+import com.nextgenhealthcare.model.Appointment;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.Hibernate;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Routes {@code AppointmentRepository} calls by doctor id:
+ * <ul>
+ *   <li>calls with an appointment, or a {@code ...ByDoctorId} finder, run on that doctor's shard;</li>
+ *   <li>everything else ({@code findById}, {@code findByPatientId}, {@code findAll}, counts, time-window scans)
+ *       is scattered to all shards in parallel and the results merged: lists concatenated,
+ *       counts summed, pages re-sorted and cut from each shard's first offset + size rows.</li>
+ * </ul>
+ * A shard call joins the caller's transaction when that one is on the same shard and runs in
+ * its own otherwise, so entities from other shards come back detached. Saving an appointment
+ * whose doctor now hashes to another shard moves its row there as part of the save (see
+ * {@link ShardRouter#writeAppointment}).
+ */
+public class ShardedAppointmentInterceptor implements MethodInterceptor {
+
+    private final Supplier<ShardRouter> routerSupplier;
+
+    public ShardedAppointmentInterceptor(Supplier<ShardRouter> routerSupplier) {
+        this.routerSupplier = routerSupplier;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        // Already on a shard: a scatter task or a routed call
+        if (ShardContext.current() != null || invocation.getMethod().getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+        ShardRouter router = routerSupplier.get();
+        Method method = invocation.getMethod();
+        Object[] args = invocation.getArguments();
+        String name = method.getName();
+        boolean readOnly = isRead(name);
+        Object first = args.length > 0 ? args[0] : null;
+
+        if (first instanceof Appointment appointment) {
+            if (name.startsWith("save")) {
+                return router.writeAppointment(mayMove(appointment), keyOf(appointment), () -> proceed(invocation));
+            }
+            return router.withBuckets(List.of(keyOf(appointment)), () ->
+                    router.onShard(router.shardOfKey(keyOf(appointment)), readOnly, () -> proceed(invocation)));
+        }
+        if (first instanceof Iterable<?> items && containsAppointments(items)) {
+            return byShard(router, invocation, items, readOnly);
+        }
+        if (first instanceof Long doctorId && name.contains("ByDoctorId")) {
+            return router.onKeyShard(doctorId, readOnly, () -> proceed(invocation));
+        }
+        if (first instanceof Long id && (name.equals("deleteById") || name.startsWith("getReference")
+                || name.equals("getById") || name.equals("getOne"))) {
+            int shard = router.locate(id);
+            if (shard < 0 && name.equals("deleteById")) {
+                return null;
+            }
+            return router.onShard(Math.max(shard, 0), readOnly, () -> Hibernate.unproxy(proceed(invocation)));
+        }
+        return scatter(router, invocation);
+    }
+
+    private Object scatter(ShardRouter router, MethodInvocation invocation) {
+        Object[] args = invocation.getArguments().clone();
+        Pageable page = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof Pageable p && p.isPaged()) {
+                page = p;
+                // Any shard may hold every row of the requested page
+                args[i] = PageRequest.of(0, (int) (p.getOffset() + p.getPageSize()), p.getSort());
+            }
+        }
+        return merge(invocation.getMethod(), router.scatter(router.allShards(), shard -> call(invocation, args)), args, page);
+    }
+
+    private Object byShard(ShardRouter router, MethodInvocation invocation, Iterable<?> items, boolean readOnly) {
+        Map<Integer, List<Object>> groups = new LinkedHashMap<>();
+        List<Long> keys = new ArrayList<>();
+        for (Object item : items) {
+            Appointment a = (Appointment) item;
+            groups.computeIfAbsent(router.shardOfKey(keyOf(a)), s -> new ArrayList<>()).add(a);
+            keys.add(keyOf(a));
+        }
+        ProxyMethodInvocation pmi = (ProxyMethodInvocation) invocation;
+        return router.withBuckets(keys, () -> {
+            List<Object> results = new ArrayList<>();
+            groups.forEach((shard, group) -> results.add(router.onShard(shard, readOnly,
+                    () -> proceed(pmi.invocableClone(group)))));
+            return merge(invocation.getMethod(), results, invocation.getArguments(), null);
+        });
+    }
+
+    // The id of a stored appointment that may have changed doctor, so its row may have to move
+    static Long mayMove(Appointment appointment) {
+        Appointment.PersistedState before = appointment.getPersistedState();
+        Long doctorId = appointment.getDoctor() != null ? appointment.getDoctor().getId() : null;
+        return before != null && Objects.equals(before.doctorId(), doctorId) ? null : appointment.getId();
+    }
+
+    static long keyOf(Appointment appointment) {
+        return appointment.getDoctor() != null && appointment.getDoctor().getId() != null
+                ? appointment.getDoctor().getId() : -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object merge(Method method, List<Object> results, Object[] args, Pageable page) {
+        Class<?> type = method.getReturnType();
+        if (Slice.class.isAssignableFrom(type)) {
+            List<Object> all = new ArrayList<>();
+            long total = 0;
+            for (Object r : results) {
+                all.addAll(((Slice<Object>) r).getContent());
+                total += r instanceof Page<?> p ? p.getTotalElements() : ((Slice<Object>) r).getNumberOfElements();
+            }
+            Pageable pageable = page != null ? page : Pageable.unpaged();
+            all.sort(comparator(pageable.getSort().isSorted() ? pageable.getSort() : Sort.by("id")));
+            if (page == null) {
+                return new PageImpl<>(all, pageable, total);
+            }
+            int from = (int) Math.min(all.size(), page.getOffset());
+            return new PageImpl<>(all.subList(from, Math.min(all.size(), from + page.getPageSize())), page, total);
+        }
+        if (Iterable.class.isAssignableFrom(type)) {
+            List<Object> all = new ArrayList<>();
+            for (Object r : results) {
+                if (r != null) {
+                    ((Iterable<Object>) r).forEach(all::add);
+                }
+            }
+            for (Object arg : args) {
+                if (arg instanceof Sort sort && sort.isSorted()) {
+                    all.sort(comparator(sort));
+                }
+            }
+            return all;
+        }
+        if (type == Optional.class) {
+            return results.stream().map(r -> (Optional<Object>) r).filter(Optional::isPresent).findFirst()
+                    .orElse(Optional.empty());
+        }
+        if (type == long.class || type == Long.class) {
+            return results.stream().mapToLong(r -> ((Number) r).longValue()).sum();
+        }
+        if (type == int.class || type == Integer.class) {
+            return results.stream().mapToInt(r -> ((Number) r).intValue()).sum();
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return results.stream().anyMatch(Boolean.TRUE::equals);
+        }
+        return results.stream().filter(Objects::nonNull).findFirst().orElse(null);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<Object> comparator(Sort sort) {
+        Comparator<Object> result = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<Object> byProperty = Comparator.comparing(
+                    o -> (Comparable) new BeanWrapperImpl(o).getPropertyValue(order.getProperty()),
+                    Comparator.nullsLast(Comparator.naturalOrder()));
+            result = result.thenComparing(order.isAscending() ? byProperty : byProperty.reversed());
+        }
+        return result;
+    }
+
+    private static Object call(MethodInvocation invocation, Object[] args) {
+        try {
+            return invocation.getMethod().invoke(((ProxyMethodInvocation) invocation).getProxy(), args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new UndeclaredThrowableException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object proceed(MethodInvocation invocation) {
+        try {
+            return invocation.proceed();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    private static boolean containsAppointments(Iterable<?> items) {
+        var it = items.iterator();
+        return it.hasNext() && it.next() instanceof Appointment;
+    }
+
+    private static boolean isRead(String name) {
+        return name.startsWith("find") || name.startsWith("get") || name.startsWith("exists")
+                || name.startsWith("count") || name.startsWith("read") || name.startsWith("query");
+    }
+}
@@ -0,0 +1,95 @@
+package com.nextgenhealthcare.sharding;
+
+import com.nextgenhealthcare.model.Appointment;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Runs {@code AppointmentService} writes on the appointment's shard, outside the service's own
+ * transaction, as declared by {@link ShardRouted} on each write method. That transaction then
+ * starts on the shard, so the appointment row and the outbox event recorded with it commit
+ * together there; OutboxSequencer later collects the event onto shard 0.
+ */
+public class ShardedAppointmentServiceInterceptor implements MethodInterceptor {
+
+    private final Supplier<ShardRouter> routerSupplier;
+
+    public ShardedAppointmentServiceInterceptor(Supplier<ShardRouter> routerSupplier) {
+        this.routerSupplier = routerSupplier;
+    }
+
+    /**
+     * Fails when a public method of the service opens a read-write transaction without saying
+     * how it is routed, so a new write can't silently land on shard 0.
+     */
+    public static void checkRouted(Class<?> service) {
+        List<String> unrouted = new ArrayList<>();
+        for (Method method : service.getDeclaredMethods()) {
+            if (!Modifier.isPublic(method.getModifiers()) || method.isSynthetic()
+                    || method.isAnnotationPresent(ShardRouted.class)) {
+                continue;
+            }
+            Transactional transactional = AnnotatedElementUtils.findMergedAnnotation(method, Transactional.class);
+            if (transactional == null) {
+                transactional = AnnotatedElementUtils.findMergedAnnotation(service, Transactional.class);
+            }
+            if (transactional == null || !transactional.readOnly()) {
+                unrouted.add(method.getName());
+            }
+        }
+        if (!unrouted.isEmpty()) {
+            throw new IllegalStateException(service.getSimpleName() + " has writes without @ShardRouted: " + unrouted);
+        }
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        ShardRouted routed = AnnotatedElementUtils.findMergedAnnotation(method, ShardRouted.class);
+        if (routed == null || routed.value() == ShardRouted.By.REPOSITORY) {
+            return invocation.proceed();
+        }
+        Object[] args = invocation.getArguments();
+        Object first = args.length > 0 ? args[0] : null;
+        Object second = args.length > 1 ? args[1] : null;
+
+        switch (routed.value()) {
+            case APPOINTMENT -> {
+                if (first instanceof Appointment appointment) {
+                    return routerSupplier.get().writeAppointment(ShardedAppointmentInterceptor.mayMove(appointment),
+                            ShardedAppointmentInterceptor.keyOf(appointment), () -> proceed(invocation));
+                }
+            }
+            case APPOINTMENT_ID -> {
+                if (first instanceof Long id && (second == null || second instanceof Appointment)) {
+                    // A doctor given with a replacement takes over from the current one
+                    Long key = second instanceof Appointment updated && updated.getDoctor() != null
+                            ? ShardedAppointmentInterceptor.keyOf(updated) : null;
+                    return routerSupplier.get().writeAppointment(id, key, () -> proceed(invocation));
+                }
+            }
+            default -> { }
+        }
+        throw new IllegalArgumentException("Cannot route " + method.getName() + " by " + routed.value()
+                + ": unexpected arguments");
+    }
+
+    private static Object proceed(MethodInvocation invocation) {
+        try {
+            return invocation.proceed();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.nextgenhealthcare.stats;
+
+import com.nextgenhealthcare.datasource.RoutingContext;
+import com.nextgenhealthcare.dto.AppointmentStats;
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.repository.DoctorRepository;
+import com.nextgenhealthcare.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Appointment counts per doctor, status and day, and booked-slot utilization per specialization,
+ * kept current by applying each committed create/update/delete as a delta instead of running
+ * GROUP BY queries on every dashboard refresh.
+ *
+ * A scheduled reconcile rebuilds the counters from the database and reports how far they had
+ * drifted, which also covers changes that bypass {@code AppointmentService} (cascade deletes of
+ * doctors or patients, bulk loads, other writers). With sharding the appointment counts are
+ * gathered from every shard.
+ */
+@Service
+public class AppointmentStatistics {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentStatistics.class);
+    private static final String CANCELLED = "CANCELLED";
+    private static final String UNKNOWN = "UNKNOWN";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate readOnlyTx;
+    private final DoctorRepository doctorRepo;
+    private final ShardRouter shardRouter;
+    private final int slotsPerDoctorPerDay;
+
+    private final Map<Long, String> doctorSpecializations = new ConcurrentHashMap<>();
+    private volatile StatsCounters counters = new StatsCounters();
+    // Deltas committed while a reconcile is reading the database; replayed onto its result
+    private volatile Queue<StatsDelta> pendingDuringReconcile;
+    // Read side: any number of writers apply deltas; write side: a reconcile swaps generations
+    private final ReentrantReadWriteLock generation = new ReentrantReadWriteLock();
+    private final ReentrantLock reconciling = new ReentrantLock();
+    private volatile LocalDateTime reconciledAt;
+    private volatile long lastDrift;
+
+    public AppointmentStatistics(JdbcTemplate jdbc,
+                                 TransactionTemplate tx,
+                                 DoctorRepository doctorRepo,
+                                 ObjectProvider<ShardRouter> shardRouter,
+                                 @Value("${stats.slots-per-doctor-per-day:16}") int slotsPerDoctorPerDay) {
+        this.jdbc = jdbc;
+        this.readOnlyTx = new TransactionTemplate(tx.getTransactionManager());
+        this.readOnlyTx.setReadOnly(true);
+        this.doctorRepo = doctorRepo;
+        this.shardRouter = shardRouter.getIfAvailable();
+        this.slotsPerDoctorPerDay = slotsPerDoctorPerDay;
+    }
+
+    /**
+     * Records a saved appointment. {@code before} is its state as previously persisted, or
+     * null for a new appointment. Applied when the surrounding transaction commits.
+     */
+    public void onSaved(Appointment.PersistedState before, Appointment after) {
+        List<StatsDelta> deltas = new ArrayList<>(2);
+        if (before != null) {
+            deltas.add(delta(before.doctorId(), before.status(), before.appointmentTime(), -1));
+        }
+        Long doctorId = after.getDoctor() != null ? after.getDoctor().getId() : null;
+        deltas.add(delta(doctorId, after.getStatus(), after.getAppointmentTime(), 1));
+        applyAfterCommit(deltas);
+    }
+
+    public void onDeleted(Appointment.PersistedState before) {
+        if (before != null) {
+            applyAfterCommit(List.of(delta(before.doctorId(), before.status(), before.appointmentTime(), -1)));
+        }
+    }
+
+    public void onDoctorSaved(Doctor doctor) {
+        if (doctor.getId() != null) {
+            doctorSpecializations.put(doctor.getId(), specializationOf(doctor.getSpecialization()));
+        }
+    }
+
+    public void onDoctorDeleted(Long doctorId) {
+        doctorSpecializations.remove(doctorId);
+    }
+
+    /**
+     * Current counters; per-day counts are limited to {@code [from, to]}, and utilization is
+     * booked slots over capacity (doctors x slots per day x days) within the same range.
+     */
+    public AppointmentStats snapshot(LocalDate from, LocalDate to) {
+        StatsCounters c = counters;
+        AppointmentStats stats = new AppointmentStats();
+        stats.setAppointmentsByDoctor(StatsCounters.sums(c.byDoctor));
+        stats.setAppointmentsByStatus(StatsCounters.sums(c.byStatus));
+
+        Map<LocalDate, Long> byDay = new LinkedHashMap<>();
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            LongAdder n = c.byDay.get(d);
+            byDay.put(d, n == null ? 0 : n.sum());
+        }
+        stats.setAppointmentsByDay(byDay);
+
+        long days = to.toEpochDay() - from.toEpochDay() + 1;
+        Map<String, Long> doctorsPerSpecialization = new HashMap<>();
+        doctorSpecializations.values().forEach(s -> doctorsPerSpecialization.merge(s, 1L, Long::sum));
+        Map<String, Long> booked = new HashMap<>();
+        c.bookedBySpecializationDay.forEach((key, n) -> {
+            if (!key.day().isBefore(from) && !key.day().isAfter(to)) {
+                booked.merge(key.specialization(), n.sum(), Long::sum);
+            }
+        });
+        Map<String, Double> utilization = new TreeMap<>();
+        doctorsPerSpecialization.forEach((specialization, doctors) -> {
+            long capacity = doctors * slotsPerDoctorPerDay * days;
+            utilization.put(specialization, (double) booked.getOrDefault(specialization, 0L) / capacity);
+        });
+        stats.setUtilizationBySpecialization(utilization);
+        stats.setFrom(from);
+        stats.setTo(to);
+        stats.setReconciledAt(reconciledAt);
+        stats.setLastReconcileDrift(lastDrift);
+        return stats;
+    }
+
+    @Scheduled(initialDelayString = "${stats.reconcile-initial-delay-ms:0}",
+            fixedDelayString = "${stats.reconcile-interval-ms:900000}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Rebuilds the counters from the database and swaps them in.
+     *
+     * @return total absolute difference between the live and the rebuilt counters
+     */
+    public long reconcile() {
+        reconciling.lock();
+        try {
+            Queue<StatsDelta> pending = new ConcurrentLinkedQueue<>();
+            pendingDuringReconcile = pending;
+            // The primary, so no delta applied before this point can be missing from the result
+            StatsCounters fresh = RoutingContext.onPrimary(() -> readOnlyTx.execute(status -> load()));
+
+            generation.writeLock().lock();
+            try {
+                // May double-count a delta that committed just before the queries' snapshot;
+                // the next reconcile corrects it
+                pending.forEach(fresh::apply);
+                long drift = counters.distanceTo(fresh);
+                counters = fresh;
+                pendingDuringReconcile = null;
+                lastDrift = drift;
+                reconciledAt = LocalDateTime.now();
+                if (drift > 0) {
+                    log.info("Appointment statistics reconciled, corrected drift of {}", drift);
+                }
+                return drift;
+            } finally {
+                generation.writeLock().unlock();
+            }
+        } finally {
+            reconciling.unlock();
+        }
+    }
+
+    private StatsCounters load() {
+        Map<Long, String> specializations = new HashMap<>();
+        jdbc.query("SELECT id, specialization FROM doctors",
+                rs -> { specializations.put(rs.getLong(1), specializationOf(rs.getString(2))); });
+
+        StatsCounters c = new StatsCounters();
+        if (shardRouter == null) {
+            countAppointments(c);
+        } else {
+            // Each task is pinned to its shard, which the routed jdbc then reads from
+            shardRouter.scatter(shardRouter.allShards(), shard -> {
+                countAppointments(c);
+                return null;
+            });
+        }
+
+        doctorSpecializations.keySet().retainAll(specializations.keySet());
+        doctorSpecializations.putAll(specializations);
+        return c;
+    }
+
+    private void countAppointments(StatsCounters c) {
+        jdbc.query("SELECT doctor_id, COUNT(*) FROM appointments WHERE doctor_id IS NOT NULL GROUP BY doctor_id",
+                rs -> { StatsCounters.add(c.byDoctor, rs.getLong(1), rs.getLong(2)); });
+        jdbc.query("SELECT status, COUNT(*) FROM appointments GROUP BY status",
+                rs -> { StatsCounters.add(c.byStatus, statusOf(rs.getString(1)), rs.getLong(2)); });
+        jdbc.query("SELECT CAST(appointment_time AS DATE), COUNT(*) FROM appointments "
+                        + "WHERE appointment_time IS NOT NULL GROUP BY CAST(appointment_time AS DATE)",
+                rs -> { StatsCounters.add(c.byDay, rs.getDate(1).toLocalDate(), rs.getLong(2)); });
+        jdbc.query("SELECT d.specialization, CAST(a.appointment_time AS DATE), COUNT(*) "
+                        + "FROM appointments a JOIN doctors d ON d.id = a.doctor_id "
+                        + "WHERE a.appointment_time IS NOT NULL AND (a.status IS NULL OR a.status <> '" + CANCELLED + "') "
+                        + "GROUP BY d.specialization, CAST(a.appointment_time AS DATE)",
+                rs -> {
+                    StatsCounters.add(c.bookedBySpecializationDay, new StatsCounters.SpecializationDay(
+                            specializationOf(rs.getString(1)), rs.getDate(2).toLocalDate()), rs.getLong(3));
+                });
+    }
+
+    private StatsDelta delta(Long doctorId, String status, LocalDateTime time, int sign) {
+        String s = statusOf(status);
+        return new StatsDelta(doctorId, specializationFor(doctorId), s,
+                time != null ? time.toLocalDate() : null, !CANCELLED.equals(s), sign);
+    }
+
+    private String specializationFor(Long doctorId) {
+        if (doctorId == null) {
+            return UNKNOWN;
+        }
+        String known = doctorSpecializations.get(doctorId);
+        if (known != null) {
+            return known;
+        }
+        String loaded = doctorRepo.findById(doctorId).map(d -> specializationOf(d.getSpecialization())).orElse(UNKNOWN);
+        doctorSpecializations.put(doctorId, loaded);
+        return loaded;
+    }
+
+    private void applyAfterCommit(List<StatsDelta> deltas) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(deltas);
+                }
+            });
+        } else {
+            apply(deltas);
+        }
+    }
+
+    private void apply(List<StatsDelta> deltas) {
+        generation.readLock().lock();
+        try {
+            StatsCounters c = counters;
+            Queue<StatsDelta> pending = pendingDuringReconcile;
+            for (StatsDelta d : deltas) {
+                c.apply(d);
+                if (pending != null) {
+                    pending.add(d);
+                }
+            }
+        } finally {
+            generation.readLock().unlock();
+        }
+    }
+
+    private static String statusOf(String status) {
+        return status != null ? status : UNKNOWN;
+    }
+
+    private static String specializationOf(String specialization) {
+        return specialization != null ? specialization : UNKNOWN;
+    }
+}
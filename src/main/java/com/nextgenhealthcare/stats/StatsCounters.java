@@ -0,0 +1,70 @@
+package com.nextgenhealthcare.stats;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One generation of appointment counters. LongAdder cells let concurrent writers update the
+ * same key without contending on a single word.
+ */
+class StatsCounters {
+
+    record SpecializationDay(String specialization, LocalDate day) {}
+
+    final Map<Long, LongAdder> byDoctor = new ConcurrentHashMap<>();
+    final Map<String, LongAdder> byStatus = new ConcurrentHashMap<>();
+    final Map<LocalDate, LongAdder> byDay = new ConcurrentHashMap<>();
+    // Non-cancelled appointments, the numerator of utilization
+    final Map<SpecializationDay, LongAdder> bookedBySpecializationDay = new ConcurrentHashMap<>();
+
+    void apply(StatsDelta delta) {
+        if (delta.doctorId() != null) {
+            add(byDoctor, delta.doctorId(), delta.sign());
+        }
+        add(byStatus, delta.status(), delta.sign());
+        if (delta.day() != null) {
+            add(byDay, delta.day(), delta.sign());
+            if (delta.booked()) {
+                add(bookedBySpecializationDay, new SpecializationDay(delta.specialization(), delta.day()), delta.sign());
+            }
+        }
+    }
+
+    static <K> void add(Map<K, LongAdder> map, K key, long n) {
+        map.computeIfAbsent(key, k -> new LongAdder()).add(n);
+    }
+
+    static <K extends Comparable<? super K>> Map<K, Long> sums(Map<K, LongAdder> map) {
+        Map<K, Long> out = new TreeMap<>();
+        map.forEach((k, v) -> {
+            long sum = v.sum();
+            if (sum != 0) {
+                out.put(k, sum);
+            }
+        });
+        return out;
+    }
+
+    // Sum of absolute per-key differences over every counter family
+    long distanceTo(StatsCounters other) {
+        return distance(byDoctor, other.byDoctor) + distance(byStatus, other.byStatus)
+                + distance(byDay, other.byDay) + distance(bookedBySpecializationDay, other.bookedBySpecializationDay);
+    }
+
+    private static <K> long distance(Map<K, LongAdder> a, Map<K, LongAdder> b) {
+        long d = 0;
+        for (Map.Entry<K, LongAdder> e : a.entrySet()) {
+            LongAdder o = b.get(e.getKey());
+            d += Math.abs(e.getValue().sum() - (o == null ? 0 : o.sum()));
+        }
+        for (Map.Entry<K, LongAdder> e : b.entrySet()) {
+            if (!a.containsKey(e.getKey())) {
+                d += Math.abs(e.getValue().sum());
+            }
+        }
+        return d;
+    }
+}
@@ -0,0 +1,8 @@
+package com.nextgenhealthcare.stats;
+
+import java.time.LocalDate;
+
+/**
+ * One appointment's contribution to the counters, added ({@code sign} 1) or removed (-1).
+ */
+record StatsDelta(Long doctorId, String specialization, String status, LocalDate day, boolean booked, int sign) {}
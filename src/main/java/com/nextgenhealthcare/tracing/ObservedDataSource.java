@@ -0,0 +1,49 @@
+package com.nextgenhealthcare.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Times each connection checkout from a pool as a {@code jdbc.connection.acquire} span, so time
+ * spent waiting on an exhausted Hikari pool shows up separately from statement execution.
+ */
+public class ObservedDataSource extends DelegatingDataSource implements Closeable {
+
+    private final ObservationRegistry registry;
+    private final String pool;
+
+    public ObservedDataSource(DataSource pool, ObservationRegistry registry, String poolName) {
+        super(pool);
+        this.registry = registry;
+        this.pool = poolName;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Observation observation = Observation.createNotStarted("jdbc.connection.acquire", registry)
+                .lowCardinalityKeyValue("pool", pool)
+                .start();
+        try {
+            return super.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (obtainTargetDataSource() instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+}
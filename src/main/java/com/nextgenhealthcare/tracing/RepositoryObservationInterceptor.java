@@ -0,0 +1,39 @@
+package com.nextgenhealthcare.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Wraps every Spring Data repository call in a {@code repository.invocation} observation; the
+ * span is named after repository and method, e.g. {@code doctor-repository.find-all}.
+ */
+public class RepositoryObservationInterceptor implements MethodInterceptor {
+
+    private final ObservationRegistry registry;
+    private final String repository;
+
+    public RepositoryObservationInterceptor(ObservationRegistry registry, Class<?> repositoryInterface) {
+        this.registry = registry;
+        this.repository = repositoryInterface.getSimpleName();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        String method = invocation.getMethod().getName();
+        Observation observation = Observation.createNotStarted("repository.invocation", registry)
+                .contextualName(repository + "." + method)
+                .lowCardinalityKeyValue("repository", repository)
+                .lowCardinalityKeyValue("method", method)
+                .start();
+        try (Observation.Scope ignored = observation.openScope()) {
+            return invocation.proceed();
+        } catch (Throwable t) {
+            observation.error(t);
+            throw t;
+        } finally {
+            observation.stop();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.nextgenhealthcare.tracing;
+
+import com.nextgenhealthcare.dto.TraceSummary;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.exporter.FinishedSpan;
+import io.micrometer.tracing.exporter.SpanReporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory span exporter. Spans of a sampled trace are gathered until its local root (the
+ * server span, or a span without parent such as a scheduled job) finishes; the assembled trace
+ * joins a bounded list of recent traces that the slowest ones are picked from.
+ */
+@Component
+public class TraceCollector implements SpanReporter {
+
+    private static final int MAX_PENDING_TRACES = 1_000;
+    private static final Duration PENDING_TIMEOUT = Duration.ofMinutes(1);
+
+    private final int capacity;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final Deque<TraceSummary> recent = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public TraceCollector(@Value("${tracing.recent-traces:500}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    private record Pending(Instant firstSeen, List<FinishedSpan> spans) {}
+
+    @Override
+    public void report(FinishedSpan span) {
+        Pending trace = pending.computeIfAbsent(span.getTraceId(),
+                id -> new Pending(Instant.now(), new ArrayList<>()));
+        synchronized (trace.spans()) {
+            trace.spans().add(span);
+        }
+        if (span.getParentId() == null || span.getKind() == Span.Kind.SERVER) {
+            pending.remove(span.getTraceId());
+            List<FinishedSpan> spans;
+            synchronized (trace.spans()) {
+                spans = List.copyOf(trace.spans());
+            }
+            add(summarize(span, spans));
+        }
+        if (pending.size() > MAX_PENDING_TRACES) {
+            // Spans that finish after their root (or whose root was not sampled here) never complete
+            Instant cutoff = Instant.now().minus(PENDING_TIMEOUT);
+            pending.values().removeIf(p -> p.firstSeen().isBefore(cutoff));
+        }
+    }
+
+    /**
+     * Slowest traces that finished within {@code window}, slowest first.
+     */
+    public List<TraceSummary> slowest(int limit, Duration window) {
+        Instant since = Instant.now().minus(window);
+        List<TraceSummary> candidates;
+        lock.lock();
+        try {
+            candidates = new ArrayList<>(recent);
+        } finally {
+            lock.unlock();
+        }
+        return candidates.stream()
+                .filter(t -> t.getStartedAt().plusNanos((long) (t.getDurationMillis() * 1e6)).isAfter(since))
+                .sorted(Comparator.comparingDouble(TraceSummary::getDurationMillis).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public List<TraceSummary> recent() {
+        lock.lock();
+        try {
+            return List.copyOf(recent);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            recent.clear();
+            pending.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void add(TraceSummary trace) {
+        lock.lock();
+        try {
+            recent.addLast(trace);
+            while (recent.size() > capacity) {
+                recent.removeFirst();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static TraceSummary summarize(FinishedSpan root, List<FinishedSpan> spans) {
+        Instant start = root.getStartTimestamp();
+        List<TraceSummary.SpanSummary> summaries = new ArrayList<>(spans.size());
+        spans.stream().sorted(Comparator.comparing(FinishedSpan::getStartTimestamp)).forEach(s -> {
+            TraceSummary.SpanSummary summary = new TraceSummary.SpanSummary();
+            summary.setSpanId(s.getSpanId());
+            summary.setParentId(s.getParentId());
+            summary.setName(s.getName());
+            summary.setKind(s.getKind() != null ? s.getKind().name() : null);
+            summary.setOffsetMillis(millisBetween(start, s.getStartTimestamp()));
+            summary.setDurationMillis(millisBetween(s.getStartTimestamp(), s.getEndTimestamp()));
+            summary.setTags(s.getTags());
+            summaries.add(summary);
+        });
+        TraceSummary trace = new TraceSummary();
+        trace.setTraceId(root.getTraceId());
+        trace.setName(root.getName());
+        trace.setStartedAt(start);
+        trace.setDurationMillis(millisBetween(start, root.getEndTimestamp()));
+        trace.setSpans(summaries);
+        return trace;
+    }
+
+    private static double millisBetween(Instant from, Instant to) {
+        return Duration.between(from, to).toNanos() / 1e6;
+    }
+}
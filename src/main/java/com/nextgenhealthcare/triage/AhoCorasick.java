@@ -0,0 +1,171 @@
+package com.nextgenhealthcare.triage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton over whole-word phrases, compiled to a dense transition table so
+ * matching is one array lookup per input character and allocates nothing.
+ *
+ * Text is seen as words of ASCII letters and digits, case-folded; any run of other characters
+ * is a single word separator. Phrases are matched with a separator on both sides, so
+ * "rash" does not match inside "brash" and "chest  pain," still matches "chest pain".
+ */
+final class AhoCorasick {
+
+    // 0 is the separator, 1-26 letters, 27-36 digits
+    private static final int ALPHABET = 37;
+    private static final int SEPARATOR = 0;
+
+    /** Receives each phrase found, in order of where it ends. */
+    interface MatchListener {
+        /**
+         * @param phrase index of the phrase as passed to the constructor
+         * @param wordsSoFar words of input up to and including the phrase's last word
+         * @param clause number of clause breaks ({@code , ; : . ! ?}) before the phrase
+         */
+        void onMatch(int phrase, int wordsSoFar, int clause);
+    }
+
+    private final int[] delta;
+    private final int[][] outputs;
+    private final int[] phraseWords;
+
+    AhoCorasick(List<String> phrases) {
+        List<int[]> trie = new ArrayList<>();
+        List<int[]> own = new ArrayList<>();
+        trie.add(newRow());
+        own.add(new int[0]);
+        phraseWords = new int[phrases.size()];
+
+        for (int p = 0; p < phrases.size(); p++) {
+            int state = 0;
+            int words = 0;
+            boolean prevSeparator = false;
+            String phrase = phrases.get(p);
+            // Leading separator, one separator per gap, trailing separator
+            for (int i = -1; i <= phrase.length(); i++) {
+                int c = (i < 0 || i == phrase.length()) ? SEPARATOR : classOf(phrase.charAt(i));
+                if (c == SEPARATOR && prevSeparator) {
+                    continue;
+                }
+                if (c == SEPARATOR && i >= 0) {
+                    words++;
+                }
+                int next = trie.get(state)[c];
+                if (next < 0) {
+                    next = trie.size();
+                    trie.get(state)[c] = next;
+                    trie.add(newRow());
+                    own.add(new int[0]);
+                }
+                state = next;
+                prevSeparator = c == SEPARATOR;
+            }
+            if (words == 0) {
+                throw new IllegalArgumentException("Phrase has no words: '" + phrase + "'");
+            }
+            phraseWords[p] = words;
+            int[] out = own.get(state);
+            out = Arrays.copyOf(out, out.length + 1);
+            out[out.length - 1] = p;
+            own.set(state, out);
+        }
+
+        int states = trie.size();
+        delta = new int[states * ALPHABET];
+        outputs = new int[states][];
+        int[] fail = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        outputs[0] = own.get(0);
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = trie.get(0)[c];
+            if (next < 0) {
+                delta[c] = 0;
+            } else {
+                delta[c] = next;
+                fail[next] = 0;
+                queue.add(next);
+            }
+        }
+        // Breadth first, so the fail state's row and outputs are complete when used
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int[] merged = own.get(state);
+            int[] inherited = outputs[fail[state]];
+            if (inherited.length > 0) {
+                merged = Arrays.copyOf(merged, merged.length + inherited.length);
+                System.arraycopy(inherited, 0, merged, merged.length - inherited.length, inherited.length);
+            }
+            outputs[state] = merged;
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = trie.get(state)[c];
+                if (next < 0) {
+                    delta[state * ALPHABET + c] = delta[fail[state] * ALPHABET + c];
+                } else {
+                    delta[state * ALPHABET + c] = next;
+                    fail[next] = delta[fail[state] * ALPHABET + c];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    int phraseWords(int phrase) {
+        return phraseWords[phrase];
+    }
+
+    void match(CharSequence text, MatchListener listener) {
+        int state = delta[SEPARATOR];
+        int words = 0;
+        int clause = 0;
+        boolean prevSeparator = true;
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            char ch = i == n ? ' ' : text.charAt(i);
+            int c = classOf(ch);
+            if (c == SEPARATOR && prevSeparator) {
+                if (isClauseBreak(ch)) {
+                    clause++;
+                }
+                continue;
+            }
+            if (c == SEPARATOR) {
+                words++;
+            }
+            state = delta[state * ALPHABET + c];
+            for (int phrase : outputs[state]) {
+                listener.onMatch(phrase, words, clause);
+            }
+            // A break ending a phrase belongs after it
+            if (isClauseBreak(ch)) {
+                clause++;
+            }
+            prevSeparator = c == SEPARATOR;
+        }
+    }
+
+    private static int classOf(char ch) {
+        if (ch >= 'a' && ch <= 'z') {
+            return ch - 'a' + 1;
+        }
+        if (ch >= 'A' && ch <= 'Z') {
+            return ch - 'A' + 1;
+        }
+        if (ch >= '0' && ch <= '9') {
+            return 27 + ch - '0';
+        }
+        return SEPARATOR;
+    }
+
+    private static boolean isClauseBreak(char ch) {
+        return ch == ',' || ch == ';' || ch == ':' || ch == '.' || ch == '!' || ch == '?';
+    }
+
+    private static int[] newRow() {
+        int[] row = new int[ALPHABET];
+        Arrays.fill(row, -1);
+        return row;
+    }
+}
@@ -0,0 +1,185 @@
+package com.nextgenhealthcare.triage;
+
+import com.nextgenhealthcare.dto.SymptomCheckResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * In-process symptom matcher: finds dictionary phrases in the description with an
+ * Aho-Corasick automaton and maps them to a specialization in microseconds.
+ *
+ * AIService answers from it directly when the match is unambiguous enough
+ * ({@code triage.shortcut-confidence}) and falls back to it whenever the AI service can't
+ * answer. Phrases right after "no", "not", "without" etc. in the same clause are ignored
+ * ("no fever").
+ */
+@Component
+public class PreTriage {
+
+    private static final Logger log = LoggerFactory.getLogger(PreTriage.class);
+    private static final List<String> NEGATIONS = List.of("no", "not", "without", "denies", "never", "none");
+    // Words after a negation that it still applies to: "no chest pain", "not much of a cough"
+    private static final int NEGATION_REACH = 3;
+    private static final int MAX_CONDITIONS = 5;
+
+    private final AhoCorasick automaton;
+    private final int negationBase;
+    private final Entry[] entries;
+    private final String[] symptoms;
+    private final String[] specializations;
+    private final double shortcutConfidence;
+
+    public PreTriage(@Value("${triage.dictionary:classpath:triage/symptom-dictionary.tsv}") Resource dictionary,
+                     @Value("${triage.shortcut-confidence:0.9}") double shortcutConfidence) {
+        this.shortcutConfidence = shortcutConfidence;
+        List<Entry> loaded = load(dictionary);
+        Map<String, Integer> symptomIds = new LinkedHashMap<>();
+        Map<String, Integer> specializationIds = new LinkedHashMap<>();
+        List<String> phrases = new ArrayList<>();
+        for (Entry e : loaded) {
+            e.symptomId = symptomIds.computeIfAbsent(e.symptom, k -> symptomIds.size());
+            e.specializationId = specializationIds.computeIfAbsent(e.specialization, k -> specializationIds.size());
+            phrases.add(e.phrase);
+        }
+        this.negationBase = phrases.size();
+        phrases.addAll(NEGATIONS);
+        this.automaton = new AhoCorasick(phrases);
+        this.entries = loaded.toArray(new Entry[0]);
+        this.symptoms = symptomIds.keySet().toArray(new String[0]);
+        this.specializations = specializationIds.keySet().toArray(new String[0]);
+        log.info("Pre-triage dictionary: {} phrases, {} symptoms, {} specializations",
+                entries.length, symptoms.length, specializations.length);
+    }
+
+    /** The local answer if it is confident enough to skip the AI service. */
+    public Optional<SymptomCheckResponse> shortcut(String description) {
+        return classify(description).filter(r -> r.getConfidence() >= shortcutConfidence);
+    }
+
+    /** The local answer for any description with at least one recognised symptom. */
+    public Optional<SymptomCheckResponse> classify(String description) {
+        int[] firstEntry = new int[symptoms.length];
+        Arrays.fill(firstEntry, -1);
+        double[] scores = new double[specializations.length];
+        int[] order = new int[symptoms.length];
+        // Symptoms found; last word a negation reaches; the clause it is in
+        int[] found = {0, -1, -1};
+        automaton.match(description, (phrase, wordsSoFar, clause) -> {
+            if (phrase >= negationBase) {
+                found[1] = wordsSoFar + NEGATION_REACH - 1;
+                found[2] = clause;
+                return;
+            }
+            int startWord = wordsSoFar - automaton.phraseWords(phrase);
+            if (clause == found[2] && startWord <= found[1] && startWord >= found[1] - NEGATION_REACH + 1) {
+                return;
+            }
+            Entry e = entries[phrase];
+            if (firstEntry[e.symptomId] < 0) {
+                firstEntry[e.symptomId] = phrase;
+                order[found[0]++] = e.symptomId;
+                scores[e.specializationId] += e.weight;
+            }
+        });
+        if (found[0] == 0) {
+            return Optional.empty();
+        }
+
+        int best = 0;
+        double total = 0;
+        for (int s = 0; s < scores.length; s++) {
+            total += scores[s];
+            if (scores[s] > scores[best]) {
+                best = s;
+            }
+        }
+        // Share of the evidence for the winner, discounted while there is little of it
+        double confidence = scores[best] / total * (1 - Math.exp(-scores[best]));
+
+        List<String> extracted = new ArrayList<>(found[0]);
+        List<Entry> supporting = new ArrayList<>();
+        for (int i = 0; i < found[0]; i++) {
+            Entry e = entries[firstEntry[order[i]]];
+            extracted.add(e.symptom);
+            if (e.specializationId == best) {
+                supporting.add(e);
+            }
+        }
+        supporting.sort((a, b) -> Double.compare(b.weight, a.weight));
+        Set<String> conditions = new LinkedHashSet<>();
+        for (Entry e : supporting) {
+            conditions.addAll(e.conditions);
+        }
+
+        SymptomCheckResponse response = new SymptomCheckResponse();
+        response.setExtractedSymptoms(extracted);
+        response.setSuggestedSpecialization(specializations[best]);
+        response.setPossibleConditions(conditions.stream().limit(MAX_CONDITIONS).toList());
+        response.setConfidence(Math.round(confidence * 100) / 100.0);
+        response.setRecommendation(String.format("Consider booking a %s consultation. Seek urgent care if "
+                + "symptoms are severe, sudden or getting worse.", specializations[best]));
+        return Optional.of(response);
+    }
+
+    private static List<Entry> load(Resource dictionary) {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(dictionary.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] cols = line.split("\t");
+                if (cols.length != 5) {
+                    throw new IllegalArgumentException(dictionary.getDescription() + " line " + lineNo
+                            + ": expected 5 tab-separated columns, got " + cols.length);
+                }
+                entries.add(new Entry(cols[0].trim(), cols[1].trim(), cols[2].trim(),
+                        Double.parseDouble(cols[3].trim()),
+                        Arrays.stream(cols[4].split(";")).map(String::trim).filter(s -> !s.isEmpty()).toList()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read pre-triage dictionary " + dictionary.getDescription(), e);
+        }
+        return entries;
+    }
+
+    private static final class Entry {
+
+        private final String phrase;
+        private final String symptom;
+        private final String specialization;
+        private final double weight;
+        private final List<String> conditions;
+        private int symptomId;
+        private int specializationId;
+
+        private Entry(String phrase, String symptom, String specialization, double weight, List<String> conditions) {
+            this.phrase = phrase;
+            this.symptom = symptom;
+            this.specialization = specialization;
+            this.weight = weight;
+            this.conditions = conditions;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.nextgenhealthcare.warmup;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.UUID;
+import java.util.function.IntPredicate;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs a two-party call through /ws/video over loopback: join, offer, answer and ICE
+ * candidates, then leave. Uses a throwaway room so no real participant can be paired with it.
+ */
+class SignalingWarmup {
+
+    private static final String SDP = "v=0\\r\\no=- 4611731400430051336 2 IN IP4 127.0.0.1\\r\\ns=-\\r\\nt=0 0\\r\\n"
+            + "a=group:BUNDLE 0 1\\r\\nm=audio 9 UDP/TLS/RTP/SAVPF 111\\r\\nc=IN IP4 0.0.0.0\\r\\n"
+            + "a=rtpmap:111 opus/48000/2\\r\\nm=video 9 UDP/TLS/RTP/SAVPF 96\\r\\na=rtpmap:96 VP8/90000\\r\\n";
+    private static final String CANDIDATE = "{\"candidate\":\"candidate:842163049 1 udp 1677729535 192.0.2.10 "
+            + "53705 typ srflx raddr 0.0.0.0 rport 0 generation 0\",\"sdpMid\":\"0\",\"sdpMLineIndex\":0}";
+
+    private final int port;
+    private final IntPredicate another;
+
+    // another: whether to run one more round, given the number already done
+    SignalingWarmup(int port, IntPredicate another) {
+        this.port = port;
+        this.another = another;
+    }
+
+    void run() throws Exception {
+        String url = "ws://localhost:" + port + "/ws/video";
+        String room = "warmup-" + UUID.randomUUID();
+        StandardWebSocketClient client = new StandardWebSocketClient();
+
+        Semaphore callerReceived = new Semaphore(0);
+        Semaphore calleeReceived = new Semaphore(0);
+        Semaphore joined = new Semaphore(0);
+        WebSocketSession caller = client.execute(new Counting(joined, callerReceived, "answer"), url)
+                .get(5, TimeUnit.SECONDS);
+        WebSocketSession callee = client.execute(new Counting(joined, calleeReceived, "offer", "ice-candidate"), url)
+                .get(5, TimeUnit.SECONDS);
+        try {
+            send(caller, "{\"type\":\"join\",\"roomId\":\"" + room + "\",\"userId\":\"warmup-doctor\",\"role\":\"DOCTOR\"}");
+            await(joined.tryAcquire(5, TimeUnit.SECONDS), "join " + room);
+            send(callee, "{\"type\":\"join\",\"roomId\":\"" + room + "\",\"userId\":\"warmup-patient\",\"role\":\"PATIENT\"}");
+            // Offers sent before both sides are in the room are dropped, so wait for
+            // joined + participant-joined on both sessions
+            await(joined.tryAcquire(3, 5, TimeUnit.SECONDS), "join " + room);
+
+            // Lockstep like a real negotiation: offer and candidate, then the answer
+            for (int i = 0; another.test(i); i++) {
+                send(caller, "{\"type\":\"offer\",\"sdp\":{\"type\":\"offer\",\"sdp\":\"" + SDP + "\"}}");
+                send(caller, "{\"type\":\"ice-candidate\",\"candidate\":" + CANDIDATE + "}");
+                await(calleeReceived.tryAcquire(2, 5, TimeUnit.SECONDS), "receive offer");
+                send(callee, "{\"type\":\"answer\",\"sdp\":{\"type\":\"answer\",\"sdp\":\"" + SDP + "\"}}");
+                await(callerReceived.tryAcquire(5, TimeUnit.SECONDS), "receive answer");
+            }
+            send(caller, "{\"type\":\"leave\"}");
+            send(callee, "{\"type\":\"leave\"}");
+        } finally {
+            closeQuietly(caller);
+            closeQuietly(callee);
+        }
+    }
+
+    private static void await(boolean arrived, String what) throws TimeoutException {
+        if (!arrived) {
+            throw new TimeoutException("signaling warm-up timed out waiting to " + what);
+        }
+    }
+
+    private static void send(WebSocketSession session, String payload) throws Exception {
+        session.sendMessage(new TextMessage(payload));
+    }
+
+    private static void closeQuietly(WebSocketSession session) {
+        try {
+            if (session.isOpen()) {
+                session.close(CloseStatus.NORMAL);
+            }
+        } catch (Exception ignored) {
+            // best effort
+        }
+    }
+
+    private static class Counting extends TextWebSocketHandler {
+
+        private final Semaphore joined;
+        private final Semaphore received;
+        private final String[] types;
+
+        Counting(Semaphore joined, Semaphore received, String... types) {
+            this.joined = joined;
+            this.received = received;
+            this.types = types;
+        }
+
+        @Override
+        protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+            String payload = message.getPayload();
+            if (payload.contains("\"type\":\"joined\"") || payload.contains("\"type\":\"participant-joined\"")) {
+                joined.release();
+                return;
+            }
+            for (String type : types) {
+                if (payload.contains("\"type\":\"" + type + "\"")) {
+                    received.release();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.nextgenhealthcare.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nextgenhealthcare.dto.AppointmentChangeFeed;
+import com.nextgenhealthcare.dto.AppointmentDTO;
+import com.nextgenhealthcare.dto.DoctorResponse;
+import com.nextgenhealthcare.dto.PatientResponse;
+import com.nextgenhealthcare.dto.SymptomCheckRequest;
+import com.nextgenhealthcare.dto.SymptomCheckResponse;
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.model.Patient;
+import com.nextgenhealthcare.repository.AppointmentRepository;
+import com.nextgenhealthcare.repository.DoctorRepository;
+import com.nextgenhealthcare.repository.PatientRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.EntityType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Primes the connection pool, Hibernate, Jackson and the HTTP and signaling paths before
+ * the instance reports ready. Spring Boot publishes {@code ReadinessState.ACCEPTING_TRAFFIC}
+ * only after all runners have finished, so /actuator/health/readiness stays OUT_OF_SERVICE
+ * until this completes. A failing step is logged and skipped; warm-up never blocks startup.
+ *
+ * Each path runs {@code app.warmup.iterations} times at most, and every step stops repeating
+ * once {@code app.warmup.max-duration} has passed since warm-up began, so readiness is delayed
+ * by a bounded amount however slow the database or the host is.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "app.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupRunner.class);
+
+    private final DataSource dataSource;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectMapper objectMapper;
+    private final DoctorRepository doctorRepo;
+    private final PatientRepository patientRepo;
+    private final AppointmentRepository appointmentRepo;
+    private final ConfigurableApplicationContext context;
+    private final int iterations;
+    private final Duration maxDuration;
+    private final boolean exitAfterWarmup;
+    private final Map<String, Long> stepMillis = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final List<String> failedSteps = Collections.synchronizedList(new ArrayList<>());
+    private volatile long deadline;
+
+    public WarmupRunner(DataSource dataSource,
+                        EntityManagerFactory entityManagerFactory,
+                        ObjectMapper objectMapper,
+                        DoctorRepository doctorRepo,
+                        PatientRepository patientRepo,
+                        AppointmentRepository appointmentRepo,
+                        ConfigurableApplicationContext context,
+                        @Value("${app.warmup.iterations:30}") int iterations,
+                        @Value("${app.warmup.max-duration:PT5S}") Duration maxDuration,
+                        @Value("${app.warmup.exit-after:false}") boolean exitAfterWarmup) {
+        this.dataSource = dataSource;
+        this.entityManagerFactory = entityManagerFactory;
+        this.objectMapper = objectMapper;
+        this.doctorRepo = doctorRepo;
+        this.patientRepo = patientRepo;
+        this.appointmentRepo = appointmentRepo;
+        this.context = context;
+        this.iterations = iterations;
+        this.maxDuration = maxDuration;
+        this.exitAfterWarmup = exitAfterWarmup;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        deadline = start + maxDuration.toNanos();
+        step("connection-pool", this::primeConnectionPool);
+        step("entity-metadata", this::primeEntityMetadata);
+        step("serializers", this::primeSerializers);
+
+        int port = localPort();
+        if (port > 0) {
+            step("http", () -> primeHttp(port));
+            step("signaling", () -> new SignalingWarmup(port, this::another).run());
+        }
+        log.info("Warm-up finished in {} ms: {}{}", (System.nanoTime() - start) / 1_000_000, stepMillis,
+                failedSteps.isEmpty() ? "" : " (failed: " + failedSteps + ")");
+
+        // Used by the CDS training run: start, warm every path, then exit and dump the archive
+        if (exitAfterWarmup) {
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+
+    /**
+     * Milliseconds spent in each step of the last run, in execution order.
+     */
+    public Map<String, Long> getStepMillis() {
+        synchronized (stepMillis) {
+            return new LinkedHashMap<>(stepMillis);
+        }
+    }
+
+    public List<String> getFailedSteps() {
+        return List.copyOf(failedSteps);
+    }
+
+    // Every step gets at least one pass, however late it starts
+    private boolean another(int done) {
+        return done == 0 || (done < iterations && System.nanoTime() - deadline < 0);
+    }
+
+    private void step(String name, ThrowingRunnable action) {
+        long start = System.nanoTime();
+        try {
+            action.run();
+        } catch (Exception e) {
+            failedSteps.add(name);
+            log.warn("Warm-up step {} failed: {}", name, e.toString());
+        }
+        stepMillis.put(name, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Hikari fills minimum-idle lazily in the background; holding that many connections at
+    // once forces them all to be opened now instead of on the first burst of requests
+    private void primeConnectionPool() throws Exception {
+        int size = 2;
+        if (dataSource.isWrapperFor(HikariDataSource.class)) {
+            HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+            size = hikari.getMinimumIdle() > 0 ? hikari.getMinimumIdle() : hikari.getMaximumPoolSize();
+            size = Math.min(size, hikari.getMaximumPoolSize());
+        }
+        List<Connection> held = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                Connection connection = dataSource.getConnection();
+                held.add(connection);
+                connection.isValid(1);
+            }
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+    }
+
+    private void primeEntityMetadata() {
+        for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+            entity.getAttributes().size();
+        }
+        PageRequest first = PageRequest.of(0, 1);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; another(i); i++) {
+            doctorRepo.findAll(first);
+            patientRepo.findAll(first);
+            appointmentRepo.findAll(first);
+            appointmentRepo.findById(-1L);
+            appointmentRepo.findByDoctorId(-1L);
+            appointmentRepo.findByPatientId(-1L);
+            appointmentRepo.findByStatusAndAppointmentTimeGreaterThanAndAppointmentTimeLessThanEqual(
+                    "SCHEDULED", now, now);
+        }
+    }
+
+    private void primeSerializers() throws Exception {
+        Doctor doctor = new Doctor("Warm Up", "General Practice", "warmup@example.com");
+        Patient patient = new Patient("Warm Up", 40, "warmup@example.com");
+        Appointment appointment = new Appointment(patient, doctor, LocalDateTime.now(), "Warm-up", "SCHEDULED");
+        doctor.getAppointments().add(appointment);
+        patient.getAppointments().add(appointment);
+        SymptomCheckResponse response = new SymptomCheckResponse();
+        AppointmentChangeFeed feed = new AppointmentChangeFeed();
+        feed.setChanges(List.of());
+
+        String appointmentDto = "{\"patientId\":1,\"doctorId\":1,\"appointmentTime\":\"2030-01-01T09:00:00\",\"reason\":\"x\"}";
+        String symptoms = "{\"symptoms\":\"headache\"}";
+        for (int i = 0; another(i); i++) {
+            objectMapper.writeValueAsBytes(doctor);
+            objectMapper.writeValueAsBytes(patient);
+            objectMapper.writeValueAsBytes(List.of(appointment));
+            objectMapper.writeValueAsBytes(DoctorResponse.from(doctor));
+            objectMapper.writeValueAsBytes(PatientResponse.from(patient));
+            objectMapper.writeValueAsBytes(feed);
+            objectMapper.writeValueAsBytes(response);
+            objectMapper.readValue(appointmentDto, AppointmentDTO.class);
+            objectMapper.readValue(symptoms, SymptomCheckRequest.class);
+            objectMapper.readValue(objectMapper.writeValueAsBytes(doctor), Doctor.class);
+        }
+    }
+
+    // Goes through Tomcat, the security filter chain, MVC, ETag handling and the exception
+    // handlers; unknown ids deliberately exercise the 404 path too. The per-doctor and
+    // per-patient lists are unbounded, so they are only ever asked for an unknown owner
+    private void primeHttp(int port) throws Exception {
+        long doctorId = firstId(doctorRepo.findAll(PageRequest.of(0, 1)).map(Doctor::getId).getContent());
+        long patientId = firstId(patientRepo.findAll(PageRequest.of(0, 1)).map(Patient::getId).getContent());
+        long appointmentId = firstId(appointmentRepo.findAll(PageRequest.of(0, 1)).map(Appointment::getId).getContent());
+
+        String base = "http://localhost:" + port;
+        List<HttpRequest> requests = List.of(
+                get(base + "/doctors/" + doctorId),
+                get(base + "/patients/" + patientId),
+                get(base + "/appointments/" + appointmentId),
+                get(base + "/appointments/doctor/-1"),
+                get(base + "/appointments/patient/-1"),
+                get(base + "/appointments/changes?since=" + Long.MAX_VALUE + "&limit=1"));
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        for (int i = 0; another(i); i++) {
+            for (HttpRequest request : requests) {
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+            }
+        }
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(5)).GET().build();
+    }
+
+    private static long firstId(List<Long> ids) {
+        return ids.isEmpty() ? -1L : ids.get(0);
+    }
+
+    private int localPort() {
+        if (context instanceof WebServerApplicationContext web && web.getWebServer() != null) {
+            return web.getWebServer().getPort();
+        }
+        return -1;
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,78 @@
+package com.nextgenhealthcare.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format of /ws/video messages. Both carry the same message tree; JSON travels in text
+ * frames, CBOR in binary frames, so a frame's type says how to decode it.
+ */
+public enum SignalingCodec {
+
+    JSON(new ObjectMapper()) {
+        @Override
+        public WebSocketMessage<?> encode(ObjectNode message) {
+            return new TextMessage(message.toString());
+        }
+
+        @Override
+        public JsonNode decode(WebSocketMessage<?> message) throws IOException {
+            return mapper.readTree(((TextMessage) message).getPayload());
+        }
+    },
+
+    CBOR(new ObjectMapper(new CBORFactory())) {
+        @Override
+        public WebSocketMessage<?> encode(ObjectNode message) {
+            try {
+                return new BinaryMessage(mapper.writeValueAsBytes(message));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public JsonNode decode(WebSocketMessage<?> message) throws IOException {
+            ByteBuffer payload = ((BinaryMessage) message).getPayload();
+            if (payload.hasArray()) {
+                return mapper.readTree(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+            }
+            byte[] bytes = new byte[payload.remaining()];
+            payload.duplicate().get(bytes);
+            return mapper.readTree(bytes);
+        }
+    };
+
+    final ObjectMapper mapper;
+
+    SignalingCodec(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    public abstract WebSocketMessage<?> encode(ObjectNode message);
+
+    public abstract JsonNode decode(WebSocketMessage<?> message) throws IOException;
+
+    public static SignalingCodec of(WebSocketMessage<?> message) {
+        return message instanceof BinaryMessage ? CBOR : JSON;
+    }
+
+    // Name as sent in a join's "codec" field; null for anything unknown
+    public static SignalingCodec named(String name) {
+        for (SignalingCodec codec : values()) {
+            if (codec.name().equalsIgnoreCase(name)) {
+                return codec;
+            }
+        }
+        return null;
+    }
+}
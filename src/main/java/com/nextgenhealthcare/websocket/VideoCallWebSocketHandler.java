@@ -3,38 +3,101 @@ package com.nextgenhealthcare.websocket;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.service.AppointmentService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * WebSocket handler for WebRTC video call signaling.
  * Supports one-to-one video calls with room-based connection management.
+ * Clients send JSON text frames or CBOR binary frames (see {@link SignalingCodec}); what the
+ * server sends back is fixed by the client's join.
+ * Patients can instead wait in a doctor's {@link WaitingRoom}; the doctor's admit-next puts the
+ * first of them in a new room and tells the doctor which one to join.
  */
 @Component
-public class VideoCallWebSocketHandler extends TextWebSocketHandler {
+public class VideoCallWebSocketHandler extends AbstractWebSocketHandler implements DisposableBean {
 
     private static final Logger log = LoggerFactory.getLogger(VideoCallWebSocketHandler.class);
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final Map<String, VideoRoom> rooms = new ConcurrentHashMap<>();
+    private final Map<Long, WaitingRoom> waitingRooms = new ConcurrentHashMap<>();
+    private final AtomicLong visits = new AtomicLong();
+    private ScheduledExecutorService queueUpdates;
+
+    // A session's own messages and forwards from the other participant arrive on different
+    // threads, and a raw session rejects a send while another is in progress
+    private static final String SENDER = "sender";
+    private static final int SEND_TIME_LIMIT_MS = 10_000;
+    private static final int SEND_BUFFER_LIMIT = 512 * 1024;
+    // Codec for messages to this session: the join's "codec" field, else its first frame's type
+    private static final String CODEC = "codec";
+    private static final String WAITING_FOR = "waitingFor";
+
+    // A full video offer can exceed the container's 8KB default message buffer
+    @Value("${app.signaling.max-message-bytes:65536}")
+    private int maxMessageBytes = 64 * 1024;
+
+    // Waiters hear about position and ETA changes at most once per interval
+    @Value("${app.waiting-room.update-interval:PT1S}")
+    private Duration waitingRoomUpdateInterval = Duration.ofSeconds(1);
+
+    // ETA per patient ahead until the doctor's own admit rate has been seen
+    @Value("${app.waiting-room.default-consult:PT15M}")
+    private Duration defaultConsult = Duration.ofMinutes(15);
+
+    // Absent when the handler is built outside Spring; waiters then give doctorId and appointmentTime
+    @Autowired(required = false)
+    private AppointmentService appointmentService;
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
-        log.info("WebSocket connection established: {}", session.getId());
+        session.setTextMessageSizeLimit(maxMessageBytes);
+        session.setBinaryMessageSizeLimit(maxMessageBytes);
+        session.getAttributes().put(SENDER,
+                new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, SEND_BUFFER_LIMIT));
+        log.info("WebSocket connection established: {} (extensions {})", session.getId(), session.getExtensions());
     }
 
     @Override
-    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        handleSignal(session, message);
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        handleSignal(session, message);
+    }
+
+    private void handleSignal(WebSocketSession session, WebSocketMessage<?> message) {
+        SignalingCodec frameCodec = SignalingCodec.of(message);
+        session.getAttributes().putIfAbsent(CODEC, frameCodec);
         try {
-            JsonNode payload = objectMapper.readTree(message.getPayload());
+            JsonNode payload = frameCodec.decode(message);
             String type = payload.path("type").asText();
 
             log.debug("Received message type '{}' from session {}", type, session.getId());
@@ -45,6 +108,9 @@ public class VideoCallWebSocketHandler extends TextWebSocketHandler {
                 case "answer" -> handleAnswer(session, payload);
                 case "ice-candidate" -> handleIceCandidate(session, payload);
                 case "leave" -> handleLeave(session);
+                case "wait" -> handleWait(session, payload);
+                case "leave-queue" -> leaveWaitingRoom(session);
+                case "admit-next" -> handleAdmitNext(session, payload);
                 case "ping" -> sendMessage(session, buildMessage("pong"));
                 default -> log.warn("Unsupported message type '{}' from session {}", type, session.getId());
             }
@@ -57,9 +123,17 @@ public class VideoCallWebSocketHandler extends TextWebSocketHandler {
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
         log.info("WebSocket connection closed: {} ({})", session.getId(), status);
+        leaveWaitingRoom(session);
         removeFromRoom(session);
     }
 
+    @Override
+    public synchronized void destroy() {
+        if (queueUpdates != null) {
+            queueUpdates.shutdownNow();
+        }
+    }
+
     /**
      * Handles a participant joining a room.
      * Enforces 2-participant limit per room.
@@ -69,12 +143,21 @@ public class VideoCallWebSocketHandler extends TextWebSocketHandler {
         String userId = payload.path("userId").asText(null);
         String role = payload.path("role").asText("GUEST");
         String displayName = payload.path("displayName").asText("Unknown");
+        String codecName = payload.path("codec").asText(null);
 
         if (roomId == null || roomId.isBlank() || userId == null || userId.isBlank()) {
             log.warn("Invalid join payload from session {}: missing roomId or userId", session.getId());
             sendError(session, "INVALID_JOIN", "roomId and userId are required");
             return;
         }
+        if (codecName != null) {
+            SignalingCodec codec = SignalingCodec.named(codecName);
+            if (codec == null) {
+                sendError(session, "UNSUPPORTED_CODEC", "Unsupported codec: " + codecName);
+                return;
+            }
+            session.getAttributes().put(CODEC, codec);
+        }
 
         VideoRoom room = rooms.computeIfAbsent(roomId, VideoRoom::new);
 
@@ -101,6 +184,7 @@ public class VideoCallWebSocketHandler extends TextWebSocketHandler {
         ObjectNode joinedMessage = buildMessage("joined");
         joinedMessage.put("roomId", roomId);
         joinedMessage.put("userId", userId);
+        joinedMessage.put("codec", codec(session).name().toLowerCase());
         sendMessage(session, joinedMessage);
 
         // Notify other participant if exists
@@ -217,6 +301,131 @@ public class VideoCallWebSocketHandler extends TextWebSocketHandler {
         sendMessage(otherParticipant.getSession(), candidateMessage);
     }
 
+    /**
+     * Queues a patient for a doctor. With an appointmentId the doctor and appointment time come
+     * from the appointment; otherwise doctorId is required and appointmentTime is optional.
+     */
+    private void handleWait(WebSocketSession session, JsonNode payload) {
+        String userId = payload.path("userId").asText(null);
+        String displayName = payload.path("displayName").asText("Unknown");
+        int urgency = payload.path("urgency").asInt(0);
+        Long doctorId = payload.hasNonNull("doctorId") ? payload.get("doctorId").asLong() : null;
+        LocalDateTime appointmentTime = payload.hasNonNull("appointmentTime")
+                ? LocalDateTime.parse(payload.get("appointmentTime").asText()) : null;
+
+        if (payload.hasNonNull("appointmentId") && appointmentService != null) {
+            long appointmentId = payload.get("appointmentId").asLong();
+            Optional<Appointment> appointment = appointmentService.getAppointmentById(appointmentId);
+            if (appointment.isEmpty()) {
+                sendError(session, "APPOINTMENT_NOT_FOUND", "Appointment not found: " + appointmentId);
+                return;
+            }
+            doctorId = appointment.get().getDoctor().getId();
+            appointmentTime = appointment.get().getAppointmentTime();
+        }
+        if (doctorId == null || userId == null || userId.isBlank()) {
+            sendError(session, "INVALID_WAIT", "userId and doctorId or appointmentId are required");
+            return;
+        }
+
+        leaveWaitingRoom(session);
+        session.getAttributes().put(WAITING_FOR, doctorId);
+        waitingRooms.computeIfAbsent(doctorId, id -> new WaitingRoom(id, defaultConsult, this::scheduleQueueUpdate))
+                .add(session, userId, displayName, urgency, appointmentTime);
+        log.info("User {} ({}) is waiting for doctor {}", userId, displayName, doctorId);
+
+        ObjectNode waiting = buildMessage("waiting");
+        waiting.put("doctorId", doctorId);
+        sendMessage(session, waiting);
+    }
+
+    /**
+     * Moves the first waiter into a new room and sends the doctor its id to join.
+     */
+    private void handleAdmitNext(WebSocketSession session, JsonNode payload) throws IOException {
+        if (!payload.hasNonNull("doctorId")) {
+            sendError(session, "INVALID_ADMIT", "doctorId is required");
+            return;
+        }
+        long doctorId = payload.get("doctorId").asLong();
+        WaitingRoom waitingRoom = waitingRooms.get(doctorId);
+        WaitingRoom.Waiter next = waitingRoom != null ? waitingRoom.admitNext() : null;
+        if (next == null) {
+            ObjectNode empty = buildMessage("queue-empty");
+            empty.put("doctorId", doctorId);
+            sendMessage(session, empty);
+            return;
+        }
+
+        WebSocketSession patient = next.getSession();
+        patient.getAttributes().remove(WAITING_FOR);
+        String roomId = "visit-" + doctorId + "-" + visits.incrementAndGet();
+        rooms.computeIfAbsent(roomId, VideoRoom::new);
+        log.info("Doctor {} admitted {} into room {}", doctorId, next.getUserId(), roomId);
+
+        ObjectNode admitted = buildMessage("admitted");
+        admitted.put("roomId", roomId);
+        admitted.put("doctorId", doctorId);
+        sendMessage(patient, admitted);
+        ObjectNode join = buildMessage("join");
+        join.put("roomId", roomId);
+        join.put("userId", next.getUserId());
+        join.put("role", "PATIENT");
+        join.put("displayName", next.getDisplayName());
+        handleJoin(patient, join);
+
+        ObjectNode ready = buildMessage("patient-admitted");
+        ready.put("roomId", roomId);
+        ready.put("userId", next.getUserId());
+        ready.put("displayName", next.getDisplayName());
+        ready.put("waiting", waitingRoom.size());
+        sendMessage(session, ready);
+    }
+
+    private void leaveWaitingRoom(WebSocketSession session) {
+        Object doctorId = session.getAttributes().remove(WAITING_FOR);
+        WaitingRoom waitingRoom = doctorId != null ? waitingRooms.get(doctorId) : null;
+        if (waitingRoom != null && waitingRoom.remove(session.getId())) {
+            log.info("Session {} left the waiting room of doctor {}", session.getId(), doctorId);
+        }
+    }
+
+    // Called by a waiting room on its first change since the last push
+    private void scheduleQueueUpdate(WaitingRoom waitingRoom) {
+        try {
+            queueUpdates().schedule(() -> pushQueuePositions(waitingRoom),
+                    waitingRoomUpdateInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Shutting down; no queue update for doctor {}", waitingRoom.getDoctorId());
+        }
+    }
+
+    private void pushQueuePositions(WaitingRoom waitingRoom) {
+        try {
+            for (WaitingRoom.Update update : waitingRoom.changes()) {
+                ObjectNode position = buildMessage("queue-position");
+                position.put("doctorId", waitingRoom.getDoctorId());
+                position.put("position", update.position());
+                position.put("etaSeconds", update.etaSeconds());
+                position.put("queueLength", update.queueLength());
+                sendMessage(update.waiter().getSession(), position);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Pushing queue positions for doctor {} failed", waitingRoom.getDoctorId(), e);
+        }
+    }
+
+    private synchronized ScheduledExecutorService queueUpdates() {
+        if (queueUpdates == null) {
+            queueUpdates = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "waiting-room-updates");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return queueUpdates;
+    }
+
     /**
      * Handles participant leaving the room.
      */
@@ -276,12 +485,22 @@ public class VideoCallWebSocketHandler extends TextWebSocketHandler {
             return;
         }
         try {
-            session.sendMessage(new TextMessage(message.toString()));
+            sender(session).sendMessage(codec(session).encode(message));
         } catch (IOException ex) {
             log.warn("Failed to send WebSocket message to session {}", session.getId(), ex);
         }
     }
 
+    private static SignalingCodec codec(WebSocketSession session) {
+        Object codec = session.getAttributes().get(CODEC);
+        return codec instanceof SignalingCodec c ? c : SignalingCodec.JSON;
+    }
+
+    private static WebSocketSession sender(WebSocketSession session) {
+        Object sender = session.getAttributes().get(SENDER);
+        return sender instanceof WebSocketSession decorated ? decorated : session;
+    }
+
     /**
      * Sends an error message to a WebSocket session.
      */
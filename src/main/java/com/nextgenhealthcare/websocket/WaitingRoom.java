@@ -0,0 +1,167 @@
+package com.nextgenhealthcare.websocket;
+
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * One doctor's queue of patients waiting to be admitted to a call. Most urgent first, then
+ * earliest appointment, then earliest arrival. Adding, removing and admitting are O(log n);
+ * positions are only worked out when {@link #changes()} walks the queue, which the owner is
+ * asked to schedule once per burst of changes.
+ */
+public class WaitingRoom {
+
+    private static final Comparator<Waiter> ORDER = Comparator
+            .comparingInt((Waiter w) -> -w.urgency)
+            .thenComparing(w -> w.appointmentTime)
+            .thenComparingLong(w -> w.seq);
+    private static final double CONSULT_WEIGHT = 0.2;
+
+    private final long doctorId;
+    private final Consumer<WaitingRoom> onDirty;
+    private final TreeSet<Waiter> queue = new TreeSet<>(ORDER);
+    private final Map<String, Waiter> bySession = new HashMap<>();
+    private final long minConsultNanos;
+    private final long maxConsultNanos;
+    private long seq;
+    private long consultNanos;
+    private long lastAdmitNanos;
+    private boolean dirty;
+
+    public WaitingRoom(long doctorId, Duration defaultConsult, Consumer<WaitingRoom> onDirty) {
+        this.doctorId = doctorId;
+        this.onDirty = onDirty;
+        this.consultNanos = defaultConsult.toNanos();
+        // A run of no-shows or a doctor's break shouldn't swing every ETA
+        this.minConsultNanos = consultNanos / 4;
+        this.maxConsultNanos = consultNanos * 4;
+    }
+
+    public long getDoctorId() {
+        return doctorId;
+    }
+
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    /** Queues the session, replacing an earlier entry of the same session. */
+    public synchronized void add(WebSocketSession session, String userId, String displayName,
+                                 int urgency, LocalDateTime appointmentTime) {
+        Waiter previous = bySession.remove(session.getId());
+        if (previous != null) {
+            queue.remove(previous);
+        }
+        Waiter waiter = new Waiter(session, userId, displayName, urgency,
+                appointmentTime != null ? appointmentTime : LocalDateTime.now(), seq++);
+        queue.add(waiter);
+        bySession.put(session.getId(), waiter);
+        markDirty();
+    }
+
+    public synchronized boolean remove(String sessionId) {
+        Waiter waiter = bySession.remove(sessionId);
+        if (waiter == null) {
+            return false;
+        }
+        queue.remove(waiter);
+        markDirty();
+        return true;
+    }
+
+    /**
+     * Takes the first waiter whose session is still open, or null when nobody is waiting. The
+     * time since the previous admit feeds the average consultation length used for ETAs.
+     */
+    public synchronized Waiter admitNext() {
+        Waiter next;
+        while ((next = queue.pollFirst()) != null) {
+            bySession.remove(next.session.getId());
+            if (next.session.isOpen()) {
+                long now = System.nanoTime();
+                if (lastAdmitNanos != 0) {
+                    long sample = Math.min(maxConsultNanos, Math.max(minConsultNanos, now - lastAdmitNanos));
+                    consultNanos += (long) (CONSULT_WEIGHT * (sample - consultNanos));
+                }
+                lastAdmitNanos = now;
+                markDirty();
+                return next;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Clears the dirty flag and returns the waiters whose position or ETA (to the minute) moved
+     * since they were last told, with the values they should now see.
+     */
+    public synchronized List<Update> changes() {
+        dirty = false;
+        List<Update> updates = new ArrayList<>();
+        long remaining = lastAdmitNanos == 0 ? 0
+                : Math.max(0, consultNanos - (System.nanoTime() - lastAdmitNanos));
+        int position = 0;
+        for (Waiter w : queue) {
+            position++;
+            long etaSeconds = Duration.ofNanos(remaining + (position - 1) * consultNanos).toSeconds();
+            if (w.position != position || w.etaSeconds / 60 != etaSeconds / 60) {
+                w.position = position;
+                w.etaSeconds = etaSeconds;
+                updates.add(new Update(w, position, etaSeconds, queue.size()));
+            }
+        }
+        return updates;
+    }
+
+    private void markDirty() {
+        if (!dirty) {
+            dirty = true;
+            onDirty.accept(this);
+        }
+    }
+
+    public static final class Waiter {
+        private final WebSocketSession session;
+        private final String userId;
+        private final String displayName;
+        private final int urgency;
+        private final LocalDateTime appointmentTime;
+        private final long seq;
+        // Last values sent to the waiter, guarded by the room
+        private int position;
+        private long etaSeconds = -60;
+
+        private Waiter(WebSocketSession session, String userId, String displayName, int urgency,
+                       LocalDateTime appointmentTime, long seq) {
+            this.session = session;
+            this.userId = userId;
+            this.displayName = displayName;
+            this.urgency = urgency;
+            this.appointmentTime = appointmentTime;
+            this.seq = seq;
+        }
+
+        public WebSocketSession getSession() {
+            return session;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    public record Update(Waiter waiter, int position, long etaSeconds, int queueLength) {}
+}
@@ -0,0 +1,108 @@
+package com.nextgenhealthcare.backend;
+
+import com.nextgenhealthcare.balancer.BackendPool;
+import com.nextgenhealthcare.dto.SymptomCheckResponse;
+import com.nextgenhealthcare.service.AIService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class AiBackendPoolTests {
+
+    private static final AiServiceStub A = startStub();
+    private static final AiServiceStub B = startStub();
+    private static final AiServiceStub C = startStub();
+
+    @DynamicPropertySource
+    static void aiService(DynamicPropertyRegistry registry) {
+        registry.add("ai.service.urls", () -> A.url() + "," + B.url() + "," + C.url());
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        A.close();
+        B.close();
+        C.close();
+    }
+
+    @Autowired private AIService aiService;
+    @Autowired private BackendPool aiBackendPool;
+
+    @Test
+    void aDeadReplicaIsEjectedWhileCallsFailOverToTheOthers() {
+        C.close();
+        for (int i = 0; i < 20; i++) {
+            SymptomCheckResponse response = aiService.checkSymptoms("headache and nausea");
+            assertThat(response.getSuggestedSpecialization()).isEqualTo("Neurology");
+        }
+
+        assertThat(aiBackendPool.isEjected(C.url())).isTrue();
+        assertThat(aiBackendPool.isEjected(A.url())).isFalse();
+        // Each call reached exactly one live replica
+        assertThat(A.symptomCheckCount() + B.symptomCheckCount()).isEqualTo(20);
+        assertThat(A.symptomCheckCount()).isPositive();
+        assertThat(B.symptomCheckCount()).isPositive();
+    }
+
+    @Test
+    void callsSlowerThanTheP95AreHedgedToAnotherReplicaAndTheLoserCancelled() {
+        AiServiceStub fast = startStub();
+        AiServiceStub slow = startStub();
+        try {
+            fast.setLatencyMillis(10);
+            slow.setLatencyMillis(10);
+            BackendPool pool = new BackendPool("hedge-test", List.of(fast.url(), slow.url()), 3,
+                    Duration.ofSeconds(30), true, Duration.ZERO, 20);
+            WebClient client = WebClient.create();
+
+            for (int i = 0; i < 40; i++) {
+                call(pool, client);
+            }
+            long warmupHedges = pool.hedgeCount();
+            // Only the tail is duplicated
+            assertThat(warmupHedges).isLessThan(8);
+            assertThat(fast.symptomCheckCount() + slow.symptomCheckCount()).isEqualTo(40 + warmupHedges);
+
+            slow.setLatencyMillis(1000);
+            for (int i = 0; i < 10; i++) {
+                long start = System.nanoTime();
+                assertThat(call(pool, client).getSuggestedSpecialization()).isEqualTo("Neurology");
+                assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(500));
+                assertThat(pool.outstanding(slow.url())).isZero();
+            }
+            assertThat(pool.hedgeCount()).isGreaterThan(warmupHedges);
+        } finally {
+            fast.close();
+            slow.close();
+        }
+    }
+
+    private static SymptomCheckResponse call(BackendPool pool, WebClient client) {
+        return pool.execute(base -> client.post()
+                .uri(base + "/api/symptom-check")
+                .bodyValue("{\"symptoms\":\"headache\"}")
+                .header("Content-Type", "application/json")
+                .retrieve()
+                .bodyToMono(SymptomCheckResponse.class), true).block(Duration.ofSeconds(5));
+    }
+
+    private static AiServiceStub startStub() {
+        try {
+            return new AiServiceStub(0, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
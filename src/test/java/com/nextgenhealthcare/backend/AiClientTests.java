@@ -0,0 +1,106 @@
+package com.nextgenhealthcare.backend;
+
+import com.nextgenhealthcare.dto.SymptomCheckResponse;
+import com.nextgenhealthcare.service.AIService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.search.Search;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "ai.client.max-connections=4")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class AiClientTests {
+
+    private static final AiServiceStub AI = startStub();
+
+    @DynamicPropertySource
+    static void aiService(DynamicPropertyRegistry registry) {
+        registry.add("ai.service.url", AI::url);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        AI.close();
+    }
+
+    @Autowired private AIService aiService;
+
+    @Test
+    @Order(1)
+    void callsReuseThePooledConnectionAndPublishPoolMetrics() {
+        // Health probe and call run one after the other
+        for (int i = 0; i < 5; i++) {
+            SymptomCheckResponse response = aiService.checkSymptoms("headache and nausea");
+            assertThat(response.getSuggestedSpecialization()).isEqualTo("Neurology");
+        }
+
+        Gauge max = pool("max.connections").gauge();
+        assertThat(max).isNotNull();
+        assertThat(max.value()).isEqualTo(4);
+        // Keep-alive connections serve all ten requests; one may still be returning to the pool
+        // when the next request is sent, so there can be two
+        assertThat(pool("total.connections").gauge().value()).isLessThanOrEqualTo(2);
+        Timer acquire = pool("pending.connections.time").tag("status", "SUCCESS").timer();
+        assertThat(acquire).isNotNull();
+        // Only acquires that had to wait for a connection are timed
+        assertThat(acquire.count()).isZero();
+    }
+
+    @Test
+    @Order(2)
+    void callersBeyondThePoolSizeQueueForAConnection() throws Exception {
+        AI.setLatencyMillis(200);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<SymptomCheckResponse>> calls = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                calls.add(callers.submit(() -> aiService.checkSymptoms("headache and nausea")));
+            }
+            for (Future<SymptomCheckResponse> call : calls) {
+                assertThat(call.get(10, TimeUnit.SECONDS).getSuggestedSpecialization()).isEqualTo("Neurology");
+            }
+        } finally {
+            callers.shutdownNow();
+            AI.setLatencyMillis(0);
+        }
+
+        assertThat(pool("total.connections").gauge().value()).isLessThanOrEqualTo(4);
+        Timer acquire = pool("pending.connections.time").tag("status", "SUCCESS").timer();
+        assertThat(acquire.count()).isPositive();
+    }
+
+    // Meters live in the global registry, shared with other test contexts; pick this stub's pool
+    private static Search pool(String meter) {
+        return Metrics.globalRegistry.find("reactor.netty.connection.provider." + meter)
+                .tag("name", "ai-service")
+                .tag("remote.address", AI.url().substring("http://".length()));
+    }
+
+    private static AiServiceStub startStub() {
+        try {
+            return new AiServiceStub(0, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.nextgenhealthcare.backend;
+
+import com.nextgenhealthcare.dto.SymptomCheckResponse;
+import com.nextgenhealthcare.limit.AdaptiveConcurrencyLimiter;
+import com.nextgenhealthcare.service.AIService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"ai.limiter.initial-limit=8", "ai.limiter.max-queue-wait=PT0S"})
+class AiConcurrencyLimitTests {
+
+    private static final AiServiceStub AI = startStub();
+
+    @DynamicPropertySource
+    static void aiService(DynamicPropertyRegistry registry) {
+        registry.add("ai.service.url", AI::url);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        AI.close();
+    }
+
+    @Autowired private AIService aiService;
+    @Autowired private AdaptiveConcurrencyLimiter aiConcurrencyLimiter;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Test
+    void limitFollowsLatencyAndDrops() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 10, 2, 100, 1.5, 0.2, Duration.ZERO);
+        long fast = Duration.ofMillis(20).toNanos();
+
+        // Busy at a steady latency: grows
+        for (int i = 0; i < 20; i++) {
+            List<AdaptiveConcurrencyLimiter.Token> tokens = fill(limiter);
+            tokens.forEach(t -> t.onSuccess(fast));
+        }
+        int grown = limiter.getLimit();
+        assertThat(grown).isGreaterThan(10);
+
+        // Latency ten times the baseline: shrinks
+        for (int i = 0; i < 3; i++) {
+            fill(limiter).forEach(t -> t.onSuccess(fast * 10));
+        }
+        int shrunk = limiter.getLimit();
+        assertThat(shrunk).isLessThan(grown / 2);
+
+        // Each timeout or server error takes off 10%
+        limiter.acquire().orElseThrow().onDropped();
+        assertThat(limiter.getLimit()).isLessThan(shrunk);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void aDegradingAiServiceGetsFewerConcurrentCallsAndTheRestFailFast() throws Exception {
+        // Nothing pre-triage recognises, so a rejected call gets the plain busy response
+        AI.setLatencyMillis(20);
+        for (int i = 0; i < 10; i++) {
+            assertThat(aiService.checkSymptoms("feeling unwell").getSuggestedSpecialization()).isEqualTo("Neurology");
+        }
+        assertThat(aiConcurrencyLimiter.getLimit()).isEqualTo(8);
+
+        AI.setLatencyMillis(500);
+        List<Long> rejectedMillis = new ArrayList<>();
+        ExecutorService callers = Executors.newFixedThreadPool(12);
+        try {
+            for (int round = 0; round < 2; round++) {
+                List<Future<Object[]>> calls = new ArrayList<>();
+                for (int i = 0; i < 12; i++) {
+                    calls.add(callers.submit(() -> {
+                        long start = System.nanoTime();
+                        SymptomCheckResponse response = aiService.checkSymptoms("feeling unwell");
+                        return new Object[] {response, Duration.ofNanos(System.nanoTime() - start).toMillis()};
+                    }));
+                }
+                for (Future<Object[]> call : calls) {
+                    Object[] result = call.get(10, TimeUnit.SECONDS);
+                    if (((SymptomCheckResponse) result[0]).getPossibleConditions().contains("AI service is busy")) {
+                        rejectedMillis.add((Long) result[1]);
+                    }
+                }
+            }
+        } finally {
+            callers.shutdownNow();
+            AI.setLatencyMillis(0);
+        }
+
+        assertThat(aiConcurrencyLimiter.getLimit()).isLessThan(8);
+        assertThat(rejectedMillis).hasSizeGreaterThan(8).allSatisfy(ms -> assertThat(ms).isLessThan(250));
+        assertThat(meterRegistry.get("concurrency.limiter.limit").tag("name", "ai-service").gauge().value())
+                .isEqualTo(aiConcurrencyLimiter.getLimit());
+        assertThat(meterRegistry.get("concurrency.limiter.rejected").tag("name", "ai-service").functionCounter().count())
+                .isEqualTo(rejectedMillis.size());
+        assertThat(meterRegistry.get("concurrency.limiter.in.flight").tag("name", "ai-service").gauge().value())
+                .isZero();
+    }
+
+    private static List<AdaptiveConcurrencyLimiter.Token> fill(AdaptiveConcurrencyLimiter limiter) {
+        List<AdaptiveConcurrencyLimiter.Token> tokens = new ArrayList<>();
+        limiter.tryAcquire().ifPresent(t -> {
+            tokens.add(t);
+            while (true) {
+                var next = limiter.tryAcquire();
+                if (next.isEmpty()) {
+                    break;
+                }
+                tokens.add(next.get());
+            }
+        });
+        return tokens;
+    }
+
+    private static AiServiceStub startStub() {
+        try {
+            return new AiServiceStub(0, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.nextgenhealthcare.backend;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for the Python AI service ({@code /health}, {@code /api/symptom-check} and
+ * the NDJSON {@code /api/symptom-check/stream}) with configurable latency and error rate.
+ */
+public class AiServiceStub implements AutoCloseable {
+
+    public static final String SYMPTOM_RESPONSE = "{"
+            + "\"possibleConditions\":[\"Migraine\",\"Tension headache\"],"
+            + "\"recommendation\":\"Rest and stay hydrated; see a neurologist if it persists.\","
+            + "\"suggestedSpecialization\":\"Neurology\","
+            + "\"confidence\":0.82,"
+            + "\"extractedSymptoms\":[\"headache\",\"nausea\"]}";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicInteger symptomChecks = new AtomicInteger();
+    private final AtomicInteger abortedStreams = new AtomicInteger();
+    private volatile boolean streaming = true;
+    private volatile long streamStepMillis;
+    private volatile long latencyMillis;
+    private volatile double errorRate;
+    private volatile String lastTraceparent;
+
+    public AiServiceStub(long latencyMillis, double errorRate) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.errorRate = errorRate;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 512);
+        this.executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/health", exchange -> respond(exchange, 200, "{\"status\":\"healthy\"}"));
+        server.createContext("/api/symptom-check", exchange -> {
+            symptomChecks.incrementAndGet();
+            lastTraceparent = exchange.getRequestHeaders().getFirst("traceparent");
+            exchange.getRequestBody().readAllBytes();
+            sleep(this.latencyMillis);
+            if (this.errorRate > 0 && ThreadLocalRandom.current().nextDouble() < this.errorRate) {
+                respond(exchange, 500, "{\"error\":\"model failure\"}");
+            } else {
+                respond(exchange, 200, SYMPTOM_RESPONSE);
+            }
+        });
+        // Parts of SYMPTOM_RESPONSE, one JSON object per line, streamStepMillis apart
+        server.createContext("/api/symptom-check/stream", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            if (!this.streaming) {
+                respond(exchange, 404, "{\"error\":\"not found\"}");
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+            exchange.sendResponseHeaders(200, 0);
+            String[] lines = {
+                    "{\"extractedSymptoms\":[\"headache\",\"nausea\"],\"suggestedSpecialization\":\"Neurology\"}",
+                    "{\"possibleConditions\":[\"Migraine\",\"Tension headache\"],\"confidence\":0.82}",
+                    "{\"recommendation\":\"Rest and stay hydrated; see a neurologist if it persists.\"}"};
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int i = 0; i < lines.length; i++) {
+                    if (i > 0) {
+                        sleep(this.streamStepMillis);
+                    }
+                    out.write((lines[i] + "\n").getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            } catch (IOException e) {
+                abortedStreams.incrementAndGet();
+            }
+        });
+        server.start();
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public void setStreamStepMillis(long streamStepMillis) {
+        this.streamStepMillis = streamStepMillis;
+    }
+
+    // Streams whose reader went away before the last part was written
+    public int abortedStreamCount() {
+        return abortedStreams.get();
+    }
+
+    // W3C trace context sent with the most recent symptom check
+    public String lastTraceparent() {
+        return lastTraceparent;
+    }
+
+    public int symptomCheckCount() {
+        return symptomChecks.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
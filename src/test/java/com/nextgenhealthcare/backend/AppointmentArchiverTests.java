@@ -0,0 +1,72 @@
+package com.nextgenhealthcare.backend;
+
+import com.nextgenhealthcare.archive.AppointmentArchiver;
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.model.ArchivedAppointment;
+import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.model.Patient;
+import com.nextgenhealthcare.repository.ArchivedAppointmentRepository;
+import com.nextgenhealthcare.repository.DoctorRepository;
+import com.nextgenhealthcare.repository.PatientRepository;
+import com.nextgenhealthcare.service.AppointmentService;
+import com.nextgenhealthcare.stats.AppointmentStatistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"archive.batch-size=2", "archive.batch-pause=PT0S"})
+class AppointmentArchiverTests {
+
+    @LocalServerPort private int port;
+    @Autowired private AppointmentArchiver archiver;
+    @Autowired private AppointmentService appointmentService;
+    @Autowired private AppointmentStatistics statistics;
+    @Autowired private ArchivedAppointmentRepository archiveRepo;
+    @Autowired private PatientRepository patientRepo;
+    @Autowired private DoctorRepository doctorRepo;
+
+    @Test
+    void finishedAppointmentsPastTheHorizonMoveToTheArchiveInBatches() throws Exception {
+        Patient patient = patientRepo.save(new Patient("Ann Lee", 29, "ann@example.com"));
+        Doctor doctor = doctorRepo.save(new Doctor("Dr. Kay", "Dermatology", "kay@example.com"));
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 1; i <= 3; i++) {
+            appointmentService.createAppointment(
+                    new Appointment(patient, doctor, now.minusYears(2).plusDays(i), "Checkup " + i, "COMPLETED"));
+        }
+        appointmentService.createAppointment(new Appointment(patient, doctor, now.minusYears(2), "Never closed", "SCHEDULED"));
+        appointmentService.createAppointment(new Appointment(patient, doctor, now.minusDays(3), "Recent", "COMPLETED"));
+        statistics.reconcile();
+
+        assertThat(archiver.archive(now.minusYears(1))).isEqualTo(3);
+        assertThat(archiver.archive(now.minusYears(1))).isZero();
+
+        assertThat(appointmentService.getByPatientId(patient.getId())).extracting(Appointment::getReason)
+                .containsExactlyInAnyOrder("Never closed", "Recent");
+        assertThat(archiveRepo.findByPatientIdOrderByAppointmentTimeAsc(patient.getId()))
+                .extracting(ArchivedAppointment::getReason).containsExactly("Checkup 1", "Checkup 2", "Checkup 3");
+        assertThat(appointmentService.getPatientHistory(patient.getId())).extracting(Appointment::getReason)
+                .containsExactly("Never closed", "Checkup 1", "Checkup 2", "Checkup 3", "Recent");
+        // Archiving was applied to the counters as it happened
+        assertThat(statistics.reconcile()).isZero();
+
+        String base = "http://localhost:" + port + "/appointments/patient/" + patient.getId();
+        assertThat(get(base)).doesNotContain("Checkup");
+        assertThat(get(base + "?includeArchived=true")).contains("Checkup 1", "Checkup 3", "Recent");
+    }
+
+    private static String get(String url) throws Exception {
+        return HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create(url)).build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
@@ -0,0 +1,146 @@
+package com.nextgenhealthcare.backend;
+
+import com.nextgenhealthcare.dto.AppointmentChange;
+import com.nextgenhealthcare.dto.AppointmentChangeFeed;
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.model.OutboxEvent;
+import com.nextgenhealthcare.model.Patient;
+import com.nextgenhealthcare.outbox.AppointmentOutbox;
+import com.nextgenhealthcare.outbox.InMemoryOutboxPublisher;
+import com.nextgenhealthcare.outbox.OutboxRelay;
+import com.nextgenhealthcare.outbox.OutboxSequencer;
+import com.nextgenhealthcare.repository.DoctorRepository;
+import com.nextgenhealthcare.repository.PatientRepository;
+import com.nextgenhealthcare.service.AppointmentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"outbox.batch-size=2", "outbox.retention=PT0S"})
+class AppointmentOutboxTests {
+
+    @TestConfiguration
+    static class PublisherConfig {
+        @Bean
+        InMemoryOutboxPublisher inMemoryOutboxPublisher() {
+            return new InMemoryOutboxPublisher();
+        }
+    }
+
+    @Autowired private InMemoryOutboxPublisher publisher;
+    @Autowired private OutboxRelay relay;
+    @Autowired private AppointmentOutbox outbox;
+    @Autowired private AppointmentService appointmentService;
+    @Autowired private PatientRepository patientRepo;
+    @Autowired private DoctorRepository doctorRepo;
+    @Autowired private OutboxSequencer sequencer;
+    @Autowired private TransactionTemplate tx;
+
+    private long start;
+
+    @BeforeEach
+    void startFromTheHead() {
+        relay.drain();
+        publisher.clear();
+        start = sequencer.state().getLastSequence();
+    }
+
+    @Test
+    void mutationsAreRelayedInBatchesAndExposedAsFeed() {
+        Patient patient = patientRepo.save(new Patient("Ann Lee", 29, "ann@example.com"));
+        Doctor doctor = doctorRepo.save(new Doctor("Dr. Kay", "Dermatology", "kay@example.com"));
+
+        Appointment a = appointmentService.createAppointment(
+                new Appointment(patient, doctor, LocalDateTime.now().plusDays(3), "Rash"));
+        a.setStatus("CONFIRMED");
+        appointmentService.saveAppointment(a);
+        appointmentService.deleteAppointment(a.getId());
+
+        assertThat(relay.drain()).isEqualTo(3);
+        assertThat(publisher.getBatchCount()).isEqualTo(2);
+        assertThat(publisher.getPublished()).extracting(OutboxEvent::getEventType)
+                .containsExactly(AppointmentOutbox.CREATED, AppointmentOutbox.UPDATED, AppointmentOutbox.DELETED);
+        assertThat(relay.drain()).isZero();
+
+        AppointmentChangeFeed first = outbox.changesSince(start, 2);
+        assertThat(first.getChanges()).hasSize(2);
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(first.getChanges().get(1).getAppointment()).contains("\"status\":\"CONFIRMED\"");
+
+        AppointmentChangeFeed rest = outbox.changesSince(first.getNextSince(), 2);
+        assertThat(rest.getChanges()).extracting(AppointmentChange::getType).containsExactly(AppointmentOutbox.DELETED);
+        assertThat(rest.isHasMore()).isFalse();
+    }
+
+    @Test
+    void aSlowCommitIsNotSkippedByTheCursor() throws Exception {
+        Patient patient = patientRepo.save(new Patient("Sol Slow", 50, "sol@example.com"));
+        Doctor doctor = doctorRepo.save(new Doctor("Dr. Late", "Neurology", "late@example.com"));
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Inserted first, so it holds the lower id, but commits last
+        CompletableFuture<Appointment> slow = CompletableFuture.supplyAsync(() -> tx.execute(status -> {
+            Appointment a = appointmentService.createAppointment(
+                    new Appointment(patient, doctor, LocalDateTime.now().plusDays(1), "Slow"));
+            written.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return a;
+        }));
+        assertThat(written.await(10, TimeUnit.SECONDS)).isTrue();
+        Appointment fast = appointmentService.createAppointment(
+                new Appointment(patient, doctor, LocalDateTime.now().plusDays(2), "Fast"));
+
+        // Reading the feed does not number rows; that is left to the relay's sequencing pass
+        assertThat(outbox.changesSince(start, 10).getChanges()).isEmpty();
+        sequencer.assign();
+        AppointmentChangeFeed before = outbox.changesSince(start, 10);
+        assertThat(before.getChanges()).extracting(AppointmentChange::getAppointmentId).containsExactly(fast.getId());
+
+        release.countDown();
+        Appointment late = slow.get(10, TimeUnit.SECONDS);
+        sequencer.assign();
+        AppointmentChangeFeed after = outbox.changesSince(before.getNextSince(), 10);
+        assertThat(after.getChanges()).extracting(AppointmentChange::getAppointmentId).containsExactly(late.getId());
+    }
+
+    @Test
+    void aCursorOlderThanTheRetainedWindowIsFlaggedAsExpired() throws Exception {
+        Patient patient = patientRepo.save(new Patient("Eve Old", 70, "eve@example.com"));
+        Doctor doctor = doctorRepo.save(new Doctor("Dr. Past", "Geriatrics", "past@example.com"));
+        appointmentService.createAppointment(new Appointment(patient, doctor, LocalDateTime.now().plusDays(1), "Old"));
+        appointmentService.createAppointment(new Appointment(patient, doctor, LocalDateTime.now().plusDays(2), "Older"));
+        relay.drain();
+        Thread.sleep(20);
+
+        relay.purge();
+
+        AppointmentChangeFeed expired = outbox.changesSince(start, 10);
+        assertThat(expired.isCursorExpired()).isTrue();
+        assertThat(expired.getChanges()).isEmpty();
+        assertThat(expired.getNextSince()).isEqualTo(start + 2);
+
+        // Resumed from the returned head, the feed carries on with the next change
+        Appointment next = appointmentService.createAppointment(
+                new Appointment(patient, doctor, LocalDateTime.now().plusDays(3), "New"));
+        sequencer.assign();
+        AppointmentChangeFeed resumed = outbox.changesSince(expired.getNextSince(), 10);
+        assertThat(resumed.isCursorExpired()).isFalse();
+        assertThat(resumed.getChanges()).extracting(AppointmentChange::getAppointmentId).containsExactly(next.getId());
+    }
+}
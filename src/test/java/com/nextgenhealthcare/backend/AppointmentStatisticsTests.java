@@ -0,0 +1,113 @@
+package com.nextgenhealthcare.backend;
+
+import com.nextgenhealthcare.dto.AppointmentStats;
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.model.Patient;
+import com.nextgenhealthcare.repository.PatientRepository;
+import com.nextgenhealthcare.service.AppointmentService;
+import com.nextgenhealthcare.service.DoctorService;
+import com.nextgenhealthcare.stats.AppointmentStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "stats.slots-per-doctor-per-day=4")
+class AppointmentStatisticsTests {
+
+    @LocalServerPort private int port;
+    @Autowired private AppointmentStatistics statistics;
+    @Autowired private AppointmentService appointmentService;
+    @Autowired private DoctorService doctorService;
+    @Autowired private PatientRepository patientRepo;
+    @Autowired private JdbcTemplate jdbc;
+
+    private final LocalDate day = LocalDate.now().plusDays(2);
+    private Patient patient;
+    private Doctor doctor;
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("DELETE FROM appointments");
+        jdbc.update("DELETE FROM doctors");
+        statistics.reconcile();
+        patient = patientRepo.save(new Patient("Ann Lee", 29, "ann@example.com"));
+        doctor = doctorService.create(new Doctor("Dr. Kay", "Dermatology", "kay@example.com"));
+    }
+
+    @Test
+    void committedChangesAreAppliedAsDeltas() {
+        Appointment a = appointmentService.createAppointment(
+                new Appointment(patient, doctor, day.atTime(9, 0), "Rash"));
+        appointmentService.createAppointment(new Appointment(patient, doctor, day.atTime(10, 0), "Follow-up"));
+
+        AppointmentStats stats = statistics.snapshot(day, day);
+        assertThat(stats.getAppointmentsByDoctor()).containsEntry(doctor.getId(), 2L);
+        assertThat(stats.getAppointmentsByStatus()).containsEntry("SCHEDULED", 2L);
+        assertThat(stats.getAppointmentsByDay()).containsEntry(day, 2L);
+        assertThat(stats.getUtilizationBySpecialization()).containsEntry("Dermatology", 0.5);
+
+        Appointment loaded = appointmentService.getAppointmentForUpdate(a.getId()).orElseThrow();
+        loaded.setStatus("CANCELLED");
+        loaded.setAppointmentTime(day.plusDays(1).atTime(9, 0));
+        appointmentService.saveAppointment(loaded);
+
+        stats = statistics.snapshot(day, day.plusDays(1));
+        assertThat(stats.getAppointmentsByStatus()).containsEntry("SCHEDULED", 1L).containsEntry("CANCELLED", 1L);
+        assertThat(stats.getAppointmentsByDay()).containsEntry(day, 1L).containsEntry(day.plusDays(1), 1L);
+        // Cancelled appointments don't occupy a slot
+        assertThat(stats.getUtilizationBySpecialization()).containsEntry("Dermatology", 1.0 / 8);
+
+        appointmentService.deleteAppointment(a.getId());
+        stats = statistics.snapshot(day, day.plusDays(1));
+        assertThat(stats.getAppointmentsByStatus()).containsEntry("SCHEDULED", 1L).doesNotContainKey("CANCELLED");
+        assertThat(statistics.reconcile()).isZero();
+    }
+
+    @Test
+    void reconcileCorrectsChangesMadeOutsideTheService() {
+        appointmentService.createAppointment(new Appointment(patient, doctor, day.atTime(9, 0), "Rash"));
+        jdbc.update("INSERT INTO appointments (patient_id, doctor_id, appointment_time, reason, status, version) "
+                + "VALUES (?, ?, ?, 'Walk-in', 'SCHEDULED', 0)", patient.getId(), doctor.getId(), day.atTime(11, 0));
+
+        assertThat(statistics.snapshot(day, day).getAppointmentsByDay()).containsEntry(day, 1L);
+
+        // doctor, status, day and booked-slot counters each off by one
+        assertThat(statistics.reconcile()).isEqualTo(4);
+        AppointmentStats stats = statistics.snapshot(day, day);
+        assertThat(stats.getAppointmentsByDay()).containsEntry(day, 2L);
+        assertThat(stats.getLastReconcileDrift()).isEqualTo(4);
+        assertThat(stats.getReconciledAt()).isNotNull();
+    }
+
+    @Test
+    void endpointServesTheCounters() throws Exception {
+        appointmentService.createAppointment(new Appointment(patient, doctor, day.atTime(9, 0), "Rash"));
+
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                        + "/stats/appointments?from=" + day + "&to=" + day)).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).contains("\"" + day + "\":1").contains("\"Dermatology\":0.25");
+
+        HttpResponse<String> invalid = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                        + "/stats/appointments?from=" + day + "&to=" + day.minusDays(1))).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(invalid.statusCode()).isEqualTo(400);
+    }
+}
@@ -0,0 +1,120 @@
+package com.nextgenhealthcare.backend;
+
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.model.Patient;
+import com.nextgenhealthcare.repository.AppointmentRepository;
+import com.nextgenhealthcare.repository.DoctorRepository;
+import com.nextgenhealthcare.repository.PatientRepository;
+import com.nextgenhealthcare.service.AppointmentService;
+import com.nextgenhealthcare.service.DoctorService;
+import com.nextgenhealthcare.service.PatientService;
+import com.nextgenhealthcare.stats.AppointmentStatistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.purge.inline-max=10",
+        "app.purge.batch-size=7",
+        "app.purge.batch-pause=PT0.05S"
+})
+class CascadePurgeTests {
+
+    @LocalServerPort private int port;
+    @Autowired private DoctorService doctorService;
+    @Autowired private PatientService patientService;
+    @Autowired private AppointmentService appointmentService;
+    @Autowired private DoctorRepository doctorRepo;
+    @Autowired private PatientRepository patientRepo;
+    @Autowired private AppointmentRepository appointmentRepo;
+    @Autowired private AppointmentStatistics statistics;
+    @Autowired private JdbcTemplate jdbc;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @Test
+    void smallDeletesFinishInlineAndKeepTheBookkeepingInStep() {
+        Doctor doctor = doctorService.create(new Doctor("Dr. Small", "Dermatology", "small@example.com"));
+        Doctor other = doctorService.create(new Doctor("Dr. Stays", "Dermatology", "stays@example.com"));
+        Patient patient = patientService.create(new Patient("Pat Small", 40, "pat@example.com"));
+        List<Long> ids = book(patient, doctor, 8);
+        Appointment kept = appointmentService.createAppointment(
+                new Appointment(patient, other, LocalDateTime.now().plusDays(1), "Stays"));
+
+        assertThat(doctorService.delete(doctor.getId())).isTrue();
+
+        assertThat(doctorRepo.findById(doctor.getId())).isEmpty();
+        assertThat(appointmentRepo.findAllById(ids)).isEmpty();
+        assertThat(appointmentRepo.findById(kept.getId())).isPresent();
+        assertThat(statistics.snapshot(LocalDate.now(), LocalDate.now()).getAppointmentsByDoctor())
+                .doesNotContainKey(doctor.getId());
+        // Change-feed consumers hear about every appointment that went
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM appointment_outbox WHERE event_type = 'DELETED' "
+                + "AND aggregate_id IN (" + join(ids) + ")", Long.class)).isEqualTo(ids.size());
+
+        assertThat(patientService.delete(patient.getId())).isTrue();
+        assertThat(patientRepo.findById(patient.getId())).isEmpty();
+        assertThat(appointmentRepo.findById(kept.getId())).isEmpty();
+        assertThat(doctorService.getById(other.getId())).isPresent();
+    }
+
+    @Test
+    void largeDeletesHideTheRowAtOnceAndPurgeInTheBackground() throws Exception {
+        Doctor doctor = doctorService.create(new Doctor("Dr. Tenured", "Cardiology", "tenured@example.com"));
+        Patient patient = patientService.create(new Patient("Lee Long", 61, "lee@example.com"));
+        List<Long> ids = book(patient, doctor, 40);
+
+        HttpResponse<String> deleted = send("DELETE", "/doctors/" + doctor.getId(), null);
+        assertThat(deleted.statusCode()).isEqualTo(202);
+
+        // Gone for clients straight away, though the row is still being purged
+        assertThat(send("GET", "/doctors/" + doctor.getId(), null).statusCode()).isEqualTo(404);
+        assertThat(doctorService.getAll()).extracting(Doctor::getId).doesNotContain(doctor.getId());
+        HttpResponse<String> booking = send("POST", "/appointments", "{\"patientId\":" + patient.getId()
+                + ",\"doctorId\":" + doctor.getId() + ",\"appointmentTime\":\"2031-04-05T10:00:00\"}");
+        assertThat(booking.statusCode()).isEqualTo(404);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (doctorRepo.existsById(doctor.getId()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(doctorRepo.existsById(doctor.getId())).isFalse();
+        assertThat(appointmentRepo.findAllById(ids)).isEmpty();
+        assertThat(patientService.getById(patient.getId())).isPresent();
+        patientService.delete(patient.getId());
+    }
+
+    private List<Long> book(Patient patient, Doctor doctor, int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(appointmentService.createAppointment(new Appointment(patient, doctor,
+                    LocalDateTime.now().plusDays(1).plusMinutes(15L * i), "Visit " + i)).getId());
+        }
+        return ids;
+    }
+
+    private static String join(List<Long> ids) {
+        return String.join(",", ids.stream().map(String::valueOf).toList());
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/json")
+                .method(method, body != null ? HttpRequest.BodyPublishers.ofString(body) : HttpRequest.BodyPublishers.noBody());
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
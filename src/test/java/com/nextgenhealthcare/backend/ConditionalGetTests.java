@@ -0,0 +1,98 @@
+package com.nextgenhealthcare.backend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nextgenhealthcare.dto.DoctorResponse;
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.model.Patient;
+import com.nextgenhealthcare.repository.AppointmentRepository;
+import com.nextgenhealthcare.repository.DoctorRepository;
+import com.nextgenhealthcare.repository.PatientRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.compression.enabled=true",
+        "server.compression.mime-types=application/json",
+        "server.compression.min-response-size=2KB"
+})
+class ConditionalGetTests {
+
+    @LocalServerPort private int port;
+    @Autowired private DoctorRepository doctorRepo;
+    @Autowired private PatientRepository patientRepo;
+    @Autowired private AppointmentRepository appointmentRepo;
+    @Autowired private ObjectMapper objectMapper;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @Test
+    void unchangedDoctorIsAnsweredWith304UntilUpdated() throws Exception {
+        Doctor doctor = doctorRepo.save(new Doctor("Dr. Etag", "Neurology", "etag@example.com"));
+
+        HttpResponse<String> first = get("/doctors/" + doctor.getId(), null);
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+        assertThat(first.statusCode()).isEqualTo(200);
+        assertThat(first.body()).doesNotContain("appointments");
+
+        HttpResponse<String> cached = get("/doctors/" + doctor.getId(), etag);
+        assertThat(cached.statusCode()).isEqualTo(304);
+        assertThat(cached.body()).isEmpty();
+
+        HttpRequest put = HttpRequest.newBuilder(uri("/doctors/" + doctor.getId()))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString("{\"email\":\"etag2@example.com\"}"))
+                .build();
+        assertThat(http.send(put, HttpResponse.BodyHandlers.ofString()).statusCode()).isEqualTo(200);
+
+        HttpResponse<String> changed = get("/doctors/" + doctor.getId(), etag);
+        assertThat(changed.statusCode()).isEqualTo(200);
+        assertThat(changed.headers().firstValue("ETag").orElseThrow()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void leanViewAndCompressionShrinkDoctorPayload() throws Exception {
+        Doctor doctor = doctorRepo.save(new Doctor("Dr. Busy", "Cardiology", "busy@example.com"));
+        Patient patient = patientRepo.save(new Patient("Sam Poe", 52, "sam@example.com"));
+        List<Appointment> appointments = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            appointments.add(new Appointment(patient, doctor, LocalDateTime.now().plusHours(i), "Follow-up visit " + i));
+        }
+        appointmentRepo.saveAll(appointments);
+
+        HttpResponse<String> full = get("/doctors/" + doctor.getId() + "?include=appointments", null);
+        HttpResponse<String> lean = get("/doctors/" + doctor.getId(), null);
+        assertThat(objectMapper.readValue(lean.body(), DoctorResponse.class).name()).isEqualTo("Dr. Busy");
+        assertThat(lean.body().length()).isLessThan(full.body().length() / 50);
+
+        HttpRequest gzipList = HttpRequest.newBuilder(uri("/appointments/doctor/" + doctor.getId()))
+                .header("Accept-Encoding", "gzip").GET().build();
+        HttpResponse<byte[]> compressed = http.send(gzipList, HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(compressed.headers().firstValue("Content-Encoding")).hasValue("gzip");
+        assertThat(compressed.headers().firstValue("ETag")).isPresent();
+    }
+
+    private HttpResponse<String> get(String path, String ifNoneMatch) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path)).GET();
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
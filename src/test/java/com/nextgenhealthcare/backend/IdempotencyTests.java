@@ -0,0 +1,174 @@
+package com.nextgenhealthcare.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nextgenhealthcare.idempotency.IdempotencyFilter;
+import com.nextgenhealthcare.idempotency.InMemoryIdempotencyStore;
+import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.model.Patient;
+import com.nextgenhealthcare.service.AppointmentService;
+import com.nextgenhealthcare.service.DoctorService;
+import com.nextgenhealthcare.service.PatientService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class IdempotencyTests {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @LocalServerPort private int port;
+    @Autowired private AppointmentService appointmentService;
+    @Autowired private DoctorService doctorService;
+    @Autowired private PatientService patientService;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @Test
+    void aRetriedCreateReturnsTheFirstResponseWithoutASecondRow() throws Exception {
+        Doctor doctor = doctorService.create(new Doctor("Dr. Retry", "Cardiology", "retry@example.com"));
+        Patient patient = patientService.create(new Patient("Rita Retry", 33, "rita@example.com"));
+        String body = appointment(patient, doctor, "Checkup");
+        String key = UUID.randomUUID().toString();
+
+        HttpResponse<String> first = send("POST", "/appointments", key, body);
+        HttpResponse<String> retry = send("POST", "/appointments", key, body);
+
+        assertThat(first.statusCode()).isEqualTo(201);
+        assertThat(first.headers().firstValue("Idempotent-Replayed")).isEmpty();
+        assertThat(retry.statusCode()).isEqualTo(201);
+        assertThat(retry.headers().firstValue("Idempotent-Replayed")).hasValue("true");
+        assertThat(retry.body()).isEqualTo(first.body());
+        assertThat(appointmentService.getByDoctorId(doctor.getId())).hasSize(1);
+
+        // Same key, different request
+        HttpResponse<String> reused = send("POST", "/appointments", key, appointment(patient, doctor, "Other"));
+        assertThat(reused.statusCode()).isEqualTo(422);
+        assertThat(JSON.readTree(reused.body()).path("status").asInt()).isEqualTo(422);
+
+        // Updates replay too, ETag included
+        long id = JSON.readTree(first.body()).path("id").asLong();
+        String updateKey = UUID.randomUUID().toString();
+        HttpResponse<String> updated = send("PUT", "/appointments/" + id, updateKey, "{\"status\":\"CONFIRMED\"}");
+        HttpResponse<String> updateRetry = send("PUT", "/appointments/" + id, updateKey, "{\"status\":\"CONFIRMED\"}");
+        assertThat(updateRetry.statusCode()).isEqualTo(200);
+        assertThat(updateRetry.headers().firstValue("ETag")).isEqualTo(updated.headers().firstValue("ETag"));
+        assertThat(updateRetry.headers().firstValue("Idempotent-Replayed")).hasValue("true");
+
+        // Without a key every request runs
+        send("POST", "/appointments", null, body);
+        assertThat(appointmentService.getByDoctorId(doctor.getId())).hasSize(2);
+    }
+
+    @Test
+    void concurrentRetriesWaitForTheFirstAndShareItsResult() throws Exception {
+        Doctor doctor = doctorService.create(new Doctor("Dr. Race", "Cardiology", "race@example.com"));
+        Patient patient = patientService.create(new Patient("Ray Race", 52, "ray@example.com"));
+        String body = appointment(patient, doctor, "Follow-up");
+        String key = UUID.randomUUID().toString();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            responses.add(pool.submit(() -> {
+                start.await();
+                return send("POST", "/appointments", key, body);
+            }));
+        }
+        start.countDown();
+        Set<Long> ids = new HashSet<>();
+        for (Future<HttpResponse<String>> f : responses) {
+            HttpResponse<String> response = f.get();
+            assertThat(response.statusCode()).isEqualTo(201);
+            JsonNode created = JSON.readTree(response.body());
+            ids.add(created.path("id").asLong());
+        }
+        pool.shutdown();
+
+        assertThat(ids).hasSize(1);
+        assertThat(appointmentService.getByDoctorId(doctor.getId())).hasSize(1);
+    }
+
+    @Test
+    void replaysCookiesKeepsKeysPerCallerAndRefusesOversizedBodies() throws Exception {
+        IdempotencyFilter filter = new IdempotencyFilter(new InMemoryIdempotencyStore(Duration.ofMinutes(1), 100),
+                JSON, Duration.ofSeconds(1), 64);
+        AtomicInteger runs = new AtomicInteger();
+        FilterChain chain = (request, response) -> {
+            runs.incrementAndGet();
+            request.getInputStream().readAllBytes();
+            HttpServletResponse http = (HttpServletResponse) response;
+            http.setStatus(201);
+            http.addCookie(new Cookie("rw-primary-until", "42"));
+            http.getWriter().write("{}");
+        };
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(keyed("alice", "k1", "{\"a\":1}"), first, chain);
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+        filter.doFilter(keyed("alice", "k1", "{\"a\":1}"), retry, chain);
+        assertThat(runs).hasValue(1);
+        assertThat(retry.getHeader("Idempotent-Replayed")).isEqualTo("true");
+        assertThat(retry.getHeaders("Set-Cookie")).isEqualTo(first.getHeaders("Set-Cookie")).isNotEmpty();
+
+        // Another caller's key of the same name is its own
+        filter.doFilter(keyed("bob", "k1", "{\"b\":2}"), new MockHttpServletResponse(), chain);
+        assertThat(runs).hasValue(2);
+
+        MockHttpServletResponse tooLarge = new MockHttpServletResponse();
+        filter.doFilter(keyed("alice", "k2", "{\"reason\":\"" + "x".repeat(100) + "\"}"), tooLarge, chain);
+        assertThat(tooLarge.getStatus()).isEqualTo(413);
+        assertThat(runs).hasValue(2);
+    }
+
+    private static MockHttpServletRequest keyed(String user, String key, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/appointments");
+        request.addHeader("Idempotency-Key", key);
+        request.setUserPrincipal(() -> user);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static String appointment(Patient patient, Doctor doctor, String reason) {
+        return "{\"patientId\":" + patient.getId() + ",\"doctorId\":" + doctor.getId()
+                + ",\"appointmentTime\":\"2031-02-03T10:00:00\",\"reason\":\"" + reason + "\"}";
+    }
+
+    private HttpResponse<String> send(String method, String path, String key, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body));
+        if (key != null) {
+            request.header("Idempotency-Key", key);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
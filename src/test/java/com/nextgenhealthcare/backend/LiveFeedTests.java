@@ -0,0 +1,247 @@
+package com.nextgenhealthcare.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nextgenhealthcare.live.AppointmentLiveFeed;
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.model.Patient;
+import com.nextgenhealthcare.repository.AppointmentRepository;
+import com.nextgenhealthcare.service.AppointmentService;
+import com.nextgenhealthcare.service.DoctorService;
+import com.nextgenhealthcare.service.PatientService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A tiny buffer so that bursts overflow it and exercise the resync path, and a single sender
+// so that a client stalling it would hold up everyone
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.live.buffer-size=2",
+        "app.live.sender-threads=1",
+        "app.live.send-timeout=PT3S"
+})
+class LiveFeedTests {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @LocalServerPort private int port;
+    @Autowired private AppointmentService appointmentService;
+    @Autowired private DoctorService doctorService;
+    @Autowired private PatientService patientService;
+    @Autowired private AppointmentLiveFeed feed;
+    @Autowired private AppointmentRepository appointmentRepo;
+    @Autowired private MeterRegistry meterRegistry;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @Test
+    void subscribersGetASnapshotThenTheChangesForTheirDoctorOrDay() throws Exception {
+        Doctor first = doctorService.create(new Doctor("Dr. Live", "Cardiology", "live@example.com"));
+        Doctor second = doctorService.create(new Doctor("Dr. Other", "Cardiology", "other@example.com"));
+        Patient patient = patientService.create(new Patient("Lou Live", 30, "lou@example.com"));
+        LocalDateTime time = LocalDate.of(2031, 5, 6).atTime(9, 0);
+        Appointment existing = appointmentService.createAppointment(new Appointment(patient, first, time, "Existing"));
+
+        Subscription doctorFeed = subscribe("doctorId=" + first.getId());
+        Subscription dayFeed = subscribe("date=2031-05-06");
+        assertThat(doctorFeed.next().snapshotIds()).containsExactly(existing.getId());
+        assertThat(dayFeed.next().snapshotIds()).containsExactly(existing.getId());
+
+        Appointment created = appointmentService.createAppointment(
+                new Appointment(patient, first, time.plusHours(1), "New"));
+        for (Subscription s : List.of(doctorFeed, dayFeed)) {
+            Event upsert = s.next();
+            assertThat(upsert.name()).isEqualTo("upsert");
+            assertThat(upsert.data().path("id").asLong()).isEqualTo(created.getId());
+            assertThat(upsert.data().path("reason").asText()).isEqualTo("New");
+        }
+
+        // Another doctor, same day: gone from the first doctor's feed, still on the day's
+        Appointment moving = appointmentService.getAppointmentForUpdate(created.getId()).orElseThrow();
+        moving.setDoctor(second);
+        appointmentService.saveAppointment(moving);
+        Event removed = doctorFeed.next();
+        assertThat(removed.name()).isEqualTo("deleted");
+        assertThat(removed.data().path("id").asLong()).isEqualTo(created.getId());
+        assertThat(dayFeed.next().name()).isEqualTo("upsert");
+
+        appointmentService.deleteAppointment(existing.getId());
+        assertThat(doctorFeed.next().name()).isEqualTo("deleted");
+        assertThat(dayFeed.next().name()).isEqualTo("deleted");
+
+        assertThat(http.send(HttpRequest.newBuilder(uri("/appointments/live")).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(400);
+
+        doctorFeed.close();
+        dayFeed.close();
+        appointmentService.deleteAppointment(created.getId());
+    }
+
+    @Test
+    void subscribersThatFallBehindEndUpWithTheCurrentState() throws Exception {
+        Doctor doctor = doctorService.create(new Doctor("Dr. Burst", "Cardiology", "burst@example.com"));
+        Patient patient = patientService.create(new Patient("Bea Burst", 41, "bea@example.com"));
+        List<Appointment> appointments = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            appointments.add(appointmentService.createAppointment(
+                    new Appointment(patient, doctor, LocalDateTime.now().plusDays(i + 1), "v0")));
+        }
+        List<Subscription> subscriptions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            subscriptions.add(subscribe("doctorId=" + doctor.getId()));
+        }
+        for (int round = 1; round <= 20; round++) {
+            for (Appointment a : appointments) {
+                Appointment current = appointmentService.getAppointmentForUpdate(a.getId()).orElseThrow();
+                current.setReason("v" + round);
+                appointmentService.saveAppointment(current);
+            }
+        }
+
+        // Applying snapshots and deltas in order gives every subscriber the final reasons
+        for (Subscription s : subscriptions) {
+            Map<Long, String> view = new ConcurrentHashMap<>();
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!(view.size() == 5 && view.values().stream().allMatch("v20"::equals))
+                    && System.currentTimeMillis() < deadline) {
+                Event e = s.next();
+                if (e.name().equals("snapshot")) {
+                    view.clear();
+                    e.data().forEach(a -> view.put(a.path("id").asLong(), a.path("reason").asText()));
+                } else if (e.name().equals("upsert")) {
+                    view.put(e.data().path("id").asLong(), e.data().path("reason").asText());
+                }
+            }
+            assertThat(view).hasSize(5).allSatisfy((id, reason) -> assertThat(reason).isEqualTo("v20"));
+            s.close();
+        }
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (feed.subscriberCount() > 0 && System.currentTimeMillis() < deadline) {
+            feed.heartbeat();
+            Thread.sleep(50);
+        }
+        assertThat(feed.subscriberCount()).isZero();
+    }
+
+    @Test
+    void aClientThatStopsReadingIsDisconnectedWithoutHoldingUpTheOthers() throws Exception {
+        Doctor busy = doctorService.create(new Doctor("Dr. Crowded", "Cardiology", "crowded@example.com"));
+        Doctor quiet = doctorService.create(new Doctor("Dr. Quiet", "Cardiology", "quiet@example.com"));
+        Patient patient = patientService.create(new Patient("Stan Still", 50, "stan@example.com"));
+        List<Appointment> many = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            many.add(new Appointment(patient, busy, LocalDateTime.now().plusMinutes(i), "A rather long reason " + i));
+        }
+        appointmentRepo.saveAll(many);
+
+        // Asks for the large snapshot, then never reads it
+        try (Socket stalled = new Socket()) {
+            stalled.setReceiveBufferSize(1024);
+            stalled.connect(new InetSocketAddress("localhost", port));
+            stalled.getOutputStream().write(("GET /appointments/live?doctorId=" + busy.getId() + " HTTP/1.1\r\n"
+                    + "Host: localhost\r\nAccept: text/event-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+
+            long deadline = System.currentTimeMillis() + 20_000;
+            while (feed.subscriberCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            while (feed.subscriberCount() > 0 && System.currentTimeMillis() < deadline) {
+                feed.disconnectStalled();
+                Thread.sleep(100);
+            }
+            assertThat(feed.subscriberCount()).isZero();
+            assertThat(meterRegistry.get("appointments.live.slow-consumers").tag("action", "timeout")
+                    .counter().count()).isEqualTo(1);
+
+            Subscription other = subscribe("doctorId=" + quiet.getId());
+            assertThat(other.next().snapshotIds()).isEmpty();
+            other.close();
+        }
+    }
+
+    private Subscription subscribe(String query) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri("/appointments/live?" + query))
+                .header("Accept", "text/event-stream").build();
+        HttpResponse<Stream<String>> response = http.send(request, HttpResponse.BodyHandlers.ofLines());
+        assertThat(response.statusCode()).isEqualTo(200);
+        Subscription subscription = new Subscription(response.body());
+        Thread reader = new Thread(subscription::read, "live-feed-test-reader");
+        reader.setDaemon(true);
+        reader.start();
+        return subscription;
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private record Event(String name, JsonNode data) {
+        List<Long> snapshotIds() {
+            assertThat(name).isEqualTo("snapshot");
+            List<Long> ids = new ArrayList<>();
+            data.forEach(a -> ids.add(a.path("id").asLong()));
+            return ids;
+        }
+    }
+
+    private static final class Subscription {
+        private final Stream<String> lines;
+        private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+
+        Subscription(Stream<String> lines) {
+            this.lines = lines;
+        }
+
+        void read() {
+            String[] name = {null};
+            try {
+                lines.forEach(line -> {
+                    if (line.startsWith("event:")) {
+                        name[0] = line.substring(6);
+                    } else if (line.startsWith("data:")) {
+                        try {
+                            events.add(new Event(name[0], JSON.readTree(line.substring(5))));
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Closed by the test
+            }
+        }
+
+        Event next() throws InterruptedException {
+            Event e = events.poll(5, TimeUnit.SECONDS);
+            assertThat(e).as("event within 5s").isNotNull();
+            return e;
+        }
+
+        void close() {
+            lines.close();
+        }
+    }
+}
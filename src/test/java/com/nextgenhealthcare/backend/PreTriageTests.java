@@ -0,0 +1,87 @@
+package com.nextgenhealthcare.backend;
+
+import com.nextgenhealthcare.dto.SymptomCheckResponse;
+import com.nextgenhealthcare.service.AIService;
+import com.nextgenhealthcare.triage.PreTriage;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class PreTriageTests {
+
+    private static final AiServiceStub AI = startStub();
+
+    @DynamicPropertySource
+    static void aiService(DynamicPropertyRegistry registry) {
+        registry.add("ai.service.url", AI::url);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        AI.close();
+    }
+
+    @Autowired private PreTriage preTriage;
+    @Autowired private AIService aiService;
+
+    @AfterEach
+    void reset() {
+        AI.setErrorRate(0);
+    }
+
+    @Test
+    void matchesWholePhrasesAndSkipsNegatedOnes() {
+        SymptomCheckResponse r = preTriage.classify("Sharp CHEST   pain since Monday, no fever; racing heart at night").orElseThrow();
+
+        assertThat(r.getExtractedSymptoms()).containsExactly("chest pain", "palpitations");
+        assertThat(r.getSuggestedSpecialization()).isEqualTo("Cardiology");
+        assertThat(r.getPossibleConditions()).startsWith("Angina").doesNotHaveDuplicates();
+        assertThat(r.getConfidence()).isGreaterThan(0.9);
+
+        // Inside other words, or only negated
+        assertThat(preTriage.classify("a brash reaction")).isEmpty();
+        assertThat(preTriage.classify("without any headache")).isEmpty();
+    }
+
+    @Test
+    void mixedSymptomsGetALowerConfidence() {
+        SymptomCheckResponse r = preTriage.classify("headache and nausea").orElseThrow();
+
+        assertThat(r.getExtractedSymptoms()).containsExactly("headache", "nausea");
+        assertThat(r.getConfidence()).isLessThan(0.5);
+        assertThat(preTriage.shortcut("headache and nausea")).isEmpty();
+    }
+
+    @Test
+    void confidentInputsSkipTheAiServiceAndFailuresFallBackToPreTriage() {
+        int before = AI.symptomCheckCount();
+        SymptomCheckResponse shortcut = aiService.checkSymptoms("itchy rash with hives on both arms");
+        assertThat(shortcut.getSuggestedSpecialization()).isEqualTo("Dermatology");
+        assertThat(AI.symptomCheckCount()).isEqualTo(before);
+
+        AI.setErrorRate(1.0);
+        SymptomCheckResponse fallback = aiService.checkSymptoms("persistent headache and dizziness");
+        assertThat(AI.symptomCheckCount()).isGreaterThan(before);
+        assertThat(fallback.getSuggestedSpecialization()).isEqualTo("Neurology");
+        assertThat(fallback.getConfidence()).isPositive();
+        assertThat(fallback.getRecommendation()).contains("full AI analysis is unavailable");
+    }
+
+    private static AiServiceStub startStub() {
+        try {
+            return new AiServiceStub(0, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.nextgenhealthcare.backend;
+
+import com.nextgenhealthcare.datagen.BulkLoader;
+import com.nextgenhealthcare.datagen.DatasetSpec;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Loads a synthetic dataset and checks that the hot queries are served from an index.
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTests {
+
+    @Autowired private BulkLoader loader;
+    @Autowired private JdbcTemplate jdbc;
+
+    @BeforeAll
+    void load() {
+        loader.load(DatasetSpec.forAppointments(10_000));
+    }
+
+    @Test
+    void datasetHasExpectedShape() {
+        assertThat(jdbc.queryForObject("select count(*) from appointments", Long.class)).isEqualTo(10_000L);
+        assertThat(jdbc.queryForObject("select count(*) from doctors", Long.class)).isEqualTo(5L);
+
+        // Skew: the busiest doctor has well above the average share
+        List<Map<String, Object>> perDoctor = jdbc.queryForList(
+                "select doctor_id, count(*) c from appointments group by doctor_id order by c desc");
+        long busiest = ((Number) perDoctor.get(0).get("c")).longValue();
+        assertThat(busiest).isGreaterThan(10_000L / 5);
+
+        // Past appointments are never still SCHEDULED
+        assertThat(jdbc.queryForObject("select count(*) from appointments where status = 'SCHEDULED' "
+                + "and appointment_time < current_date", Long.class)).isZero();
+    }
+
+    @Test
+    void hotQueriesUseIndexes() {
+        assertIndexed("select * from appointments where doctor_id = 3");
+        assertIndexed("select * from appointments where patient_id = 17");
+        assertIndexed("select * from appointments where status = 'SCHEDULED' "
+                + "and appointment_time > timestamp '2026-01-01 08:00:00' "
+                + "and appointment_time <= timestamp '2026-01-01 08:15:00'");
+    }
+
+    private void assertIndexed(String sql) {
+        String plan = jdbc.queryForObject("explain " + sql, String.class);
+        assertThat(plan).as(plan).doesNotContainIgnoringCase("tableScan");
+    }
+}
@@ -0,0 +1,141 @@
+package com.nextgenhealthcare.backend;
+
+import com.nextgenhealthcare.datasource.RoutingContext;
+import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.repository.DoctorRepository;
+import com.nextgenhealthcare.service.DoctorService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two separate H2 databases stand in for primary and replica. Nothing replicates between them,
+ * so which one served a read shows in the data it returns.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:rw-primary;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "app.datasource.replicas.urls=" + ReadReplicaRoutingTests.REPLICA_URL,
+        "app.datasource.read-your-writes-window=PT5S"
+})
+class ReadReplicaRoutingTests {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:rw-replica;DB_CLOSE_DELAY=-1;MODE=MySQL";
+
+    @LocalServerPort private int port;
+    @Autowired private DataSource dataSource;
+    @Autowired private DoctorService doctorService;
+    @Autowired private DoctorRepository doctorRepo;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void copySchemaToReplica() {
+        RoutingContext.clear();
+        // Outside a transaction the routing data source always uses the primary
+        primary = new JdbcTemplate(dataSource);
+        replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        replica.execute("DROP ALL OBJECTS");
+        for (String statement : primary.queryForList("SCRIPT NODATA", String.class)) {
+            if (!statement.startsWith("CREATE USER")) {
+                replica.execute(statement);
+            }
+        }
+        replica.update("INSERT INTO doctors (name, specialization, email, version) VALUES (?, ?, ?, 0)",
+                "Dr. Replica", "Radiology", "replica@example.com");
+    }
+
+    @AfterEach
+    void cleanPrimary() {
+        primary.update("DELETE FROM doctors");
+    }
+
+    @Test
+    void readOnlyServiceMethodsAndRepositoryReadsUseTheReplica() {
+        assertThat(doctorService.getAll()).extracting(Doctor::getName).containsExactly("Dr. Replica");
+        assertThat(doctorRepo.findAll()).extracting(Doctor::getName).containsExactly("Dr. Replica");
+    }
+
+    @Test
+    void writesGoToThePrimary() {
+        doctorService.create(new Doctor("Dr. Primary", "Cardiology", "primary@example.com"));
+
+        assertThat(primary.queryForList("SELECT name FROM doctors", String.class)).containsExactly("Dr. Primary");
+        assertThat(replica.queryForList("SELECT name FROM doctors", String.class)).containsExactly("Dr. Replica");
+    }
+
+    @Test
+    void pinnedReadsUseThePrimary() {
+        doctorService.create(new Doctor("Dr. Primary", "Cardiology", "primary@example.com"));
+        RoutingContext.clear();
+
+        List<Doctor> doctors = RoutingContext.onPrimary(doctorService::getAll);
+        assertThat(doctors).extracting(Doctor::getName).containsExactly("Dr. Primary");
+        assertThat(doctorService.getAll()).extracting(Doctor::getName).containsExactly("Dr. Replica");
+    }
+
+    @Test
+    void clientReadsItsOwnWriteFromThePrimaryUntilTheWindowEnds() throws Exception {
+        HttpResponse<String> created = http.send(HttpRequest.newBuilder(uri("/doctors"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"name\":\"Dr. Fresh\",\"specialization\":\"Neurology\",\"email\":\"fresh@example.com\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(created.statusCode()).isEqualTo(201);
+        String setCookie = created.headers().firstValue("Set-Cookie").orElseThrow();
+        assertThat(setCookie).startsWith("rw-primary-until=");
+        String cookie = setCookie.substring(0, setCookie.indexOf(';'));
+
+        // The writer sees its doctor; anyone else still reads the (unreplicated) replica
+        assertThat(getDoctors(cookie)).contains("Dr. Fresh").doesNotContain("Dr. Replica");
+        assertThat(getDoctors(null)).contains("Dr. Replica").doesNotContain("Dr. Fresh");
+
+        // An expired window falls back to the replica
+        assertThat(getDoctors("rw-primary-until=" + (System.currentTimeMillis() - 1)))
+                .contains("Dr. Replica");
+    }
+
+    @Test
+    void readModifyWriteReadsFromThePrimary() throws Exception {
+        Doctor saved = doctorService.create(new Doctor("Dr. Primary", "Cardiology", "primary@example.com"));
+        RoutingContext.clear();
+
+        HttpResponse<String> updated = http.send(HttpRequest.newBuilder(uri("/doctors/" + saved.getId()))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString("{\"email\":\"moved@example.com\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(updated.statusCode()).isEqualTo(200);
+        assertThat(updated.body()).contains("Dr. Primary").contains("moved@example.com");
+        assertThat(primary.queryForList("SELECT email FROM doctors", String.class)).containsExactly("moved@example.com");
+    }
+
+    private String getDoctors(String cookie) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri("/doctors"));
+        if (cookie != null) {
+            request.header("Cookie", cookie);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
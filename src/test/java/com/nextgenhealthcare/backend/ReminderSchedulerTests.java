@@ -0,0 +1,134 @@
+package com.nextgenhealthcare.backend;
+
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.model.Patient;
+import com.nextgenhealthcare.model.SentReminder;
+import com.nextgenhealthcare.reminder.ReminderEvent;
+import com.nextgenhealthcare.reminder.ReminderScheduler;
+import com.nextgenhealthcare.reminder.ReminderSink;
+import com.nextgenhealthcare.repository.DoctorRepository;
+import com.nextgenhealthcare.repository.PatientRepository;
+import com.nextgenhealthcare.repository.SentReminderRepository;
+import com.nextgenhealthcare.service.AppointmentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "reminders.offsets=PT1H")
+class ReminderSchedulerTests {
+
+    static final List<ReminderEvent> received = new CopyOnWriteArrayList<>();
+    static final AtomicBoolean sinkDown = new AtomicBoolean();
+
+    @TestConfiguration
+    static class SinkConfig {
+        @Bean
+        ReminderSink inMemorySink() {
+            return event -> {
+                if (sinkDown.get()) {
+                    throw new IllegalStateException("gateway unavailable");
+                }
+                received.add(event);
+            };
+        }
+    }
+
+    @Autowired private ReminderScheduler scheduler;
+    @Autowired private AppointmentService appointmentService;
+    @Autowired private PatientRepository patientRepo;
+    @Autowired private DoctorRepository doctorRepo;
+    @Autowired private SentReminderRepository sentRepo;
+    @Autowired private TransactionTemplate tx;
+
+    @Test
+    void firesOnceAndHonoursCancellation() {
+        received.clear();
+        Patient patient = patientRepo.save(new Patient("Jane Roe", 41, "jane@example.com"));
+        Doctor doctor = doctorRepo.save(new Doctor("Dr. Who", "Cardiology", "who@example.com"));
+        LocalDateTime now = LocalDateTime.now();
+
+        Appointment kept = appointmentService.createAppointment(
+                new Appointment(patient, doctor, now.plusHours(2), "Follow-up"));
+        Appointment cancelled = appointmentService.createAppointment(
+                new Appointment(patient, doctor, now.plusHours(2).plusMinutes(5), "Checkup"));
+
+        // Slide the window until both reminders (due at +1h, +1h05m) are loaded
+        scheduler.refreshWindow(now);
+        scheduler.refreshWindow(now.plusMinutes(55));
+
+        cancelled.setStatus("CANCELLED");
+        appointmentService.saveAppointment(cancelled);
+
+        assertThat(scheduler.processDue(now.plusMinutes(59))).isZero();
+        assertThat(scheduler.processDue(now.plusMinutes(70))).isEqualTo(1);
+        assertThat(received).singleElement().satisfies(e -> {
+            assertThat(e.getAppointmentId()).isEqualTo(kept.getId());
+            assertThat(e.getOffset()).isEqualTo(Duration.ofHours(1));
+        });
+
+        // Re-queueing an already delivered reminder, as after a restart, must not send again
+        scheduler.onAppointmentRemoved(kept.getId());
+        appointmentService.saveAppointment(kept);
+        assertThat(scheduler.processDue(now.plusMinutes(75))).isZero();
+        assertThat(received).hasSize(1);
+    }
+
+    @Test
+    void aFailedSendIsRetriedOnTheNextPass() {
+        received.clear();
+        Patient patient = patientRepo.save(new Patient("John Doe", 37, "john@example.com"));
+        Doctor doctor = doctorRepo.save(new Doctor("Dr. Retry", "Dermatology", "retry@example.com"));
+        LocalDateTime now = LocalDateTime.now();
+        Appointment appointment = appointmentService.createAppointment(
+                new Appointment(patient, doctor, now.plusHours(3), "Skin check"));
+
+        scheduler.refreshWindow(now.plusMinutes(110));
+        sinkDown.set(true);
+        try {
+            assertThat(scheduler.processDue(now.plusMinutes(125))).isZero();
+        } finally {
+            sinkDown.set(false);
+        }
+        assertThat(sentRepo.findAll()).filteredOn(r -> r.getAppointmentId().equals(appointment.getId()))
+                .singleElement().extracting(SentReminder::getStatus).isEqualTo(SentReminder.FAILED);
+
+        assertThat(scheduler.retryUnsent(now.plusMinutes(126))).isEqualTo(1);
+        assertThat(received).singleElement()
+                .extracting(ReminderEvent::getAppointmentId).isEqualTo(appointment.getId());
+        assertThat(sentRepo.findAll()).filteredOn(r -> r.getAppointmentId().equals(appointment.getId()))
+                .singleElement().extracting(SentReminder::getStatus).isEqualTo(SentReminder.SENT);
+
+        // Delivered now, so a later pass leaves it alone
+        assertThat(scheduler.retryUnsent(now.plusMinutes(127))).isZero();
+        assertThat(received).hasSize(1);
+    }
+
+    @Test
+    void aRolledBackBookingIsNotQueued() {
+        Patient patient = patientRepo.save(new Patient("Rita Back", 52, "rita@example.com"));
+        Doctor doctor = doctorRepo.save(new Doctor("Dr. Undo", "Neurology", "undo@example.com"));
+        LocalDateTime now = LocalDateTime.now();
+        // The reminder would be due in five minutes, inside the loaded window
+        scheduler.refreshWindow(now);
+        int queued = scheduler.getQueuedCount();
+
+        tx.executeWithoutResult(status -> {
+            appointmentService.createAppointment(new Appointment(patient, doctor, now.plusMinutes(65), "Scan"));
+            status.setRollbackOnly();
+        });
+
+        assertThat(scheduler.getQueuedCount()).isEqualTo(queued);
+    }
+}
@@ -0,0 +1,67 @@
+package com.nextgenhealthcare.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nextgenhealthcare.dto.AppointmentResponse;
+import com.nextgenhealthcare.dto.DoctorResponse;
+import com.nextgenhealthcare.dto.PatientResponse;
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.model.Patient;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ResponseSerializationTests {
+
+    @LocalServerPort private int port;
+    @Autowired private ObjectMapper objectMapper;
+
+    @Test
+    void responseRecordsWriteTheSameJsonAsTheEntities() throws Exception {
+        Doctor doctor = new Doctor("Dr. \"Quote\" Lee", "Cardiology", "lee@example.com");
+        doctor.setId(7L);
+        Patient patient = new Patient("Ann Lee", null, null);
+        patient.setId(8L);
+        assertThat(objectMapper.writeValueAsString(DoctorResponse.from(doctor)))
+                .isEqualTo("{\"id\":7,\"name\":\"Dr. \\\"Quote\\\" Lee\",\"specialization\":\"Cardiology\",\"email\":\"lee@example.com\"}");
+        assertThat(objectMapper.writeValueAsString(PatientResponse.from(patient)))
+                .isEqualTo("{\"id\":8,\"name\":\"Ann Lee\",\"age\":null,\"email\":null}");
+
+        LocalDateTime base = LocalDateTime.of(2026, 3, 9, 7, 5);
+        for (LocalDateTime time : new LocalDateTime[] {
+                base, base.withSecond(4), base.withNano(120_000_000), base.withNano(1_000), base.withNano(123_456_789),
+                LocalDateTime.of(12, 1, 1, 0, 0), null}) {
+            Appointment appointment = new Appointment(patient, doctor, time, "Check-up");
+            appointment.setId(9L);
+            assertThat(objectMapper.writeValueAsString(AppointmentResponse.from(appointment)))
+                    .isEqualTo(objectMapper.writeValueAsString(appointment));
+        }
+    }
+
+    @Test
+    void errorBodiesKeepTheirShape() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/appointments"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"patientId\":-1,\"doctorId\":-1,\"reason\":\"x\"}"))
+                .build();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(404);
+        JsonNode body = objectMapper.readTree(response.body());
+        assertThat(body.get("status").asInt()).isEqualTo(404);
+        assertThat(body.get("error").asText()).isEqualTo("Not Found");
+        assertThat(body.get("message").asText()).isEqualTo("Patient not found: -1");
+        assertThat(LocalDateTime.parse(body.get("timestamp").asText())).isBeforeOrEqualTo(LocalDateTime.now());
+    }
+}
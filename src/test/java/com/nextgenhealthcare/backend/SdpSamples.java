@@ -0,0 +1,179 @@
+package com.nextgenhealthcare.backend;
+
+/**
+ * SDP captured from a Chrome-to-Chrome audio/video call (addresses and fingerprints anonymised).
+ */
+public final class SdpSamples {
+
+    private SdpSamples() {}
+
+    public static final String OFFER = String.join("\r\n",
+            "v=0",
+            "o=- 4611731400430051336 2 IN IP4 127.0.0.1",
+            "s=-",
+            "t=0 0",
+            "a=group:BUNDLE 0 1",
+            "a=extmap-allow-mixed",
+            "a=msid-semantic: WMS 3a9f6b1e-5d4c-4f2e-9a7b-0c1d2e3f4a5b",
+            "m=audio 9 UDP/TLS/RTP/SAVPF 111 63 9 0 8 13 110 126",
+            "c=IN IP4 0.0.0.0",
+            "a=rtcp:9 IN IP4 0.0.0.0",
+            "a=ice-ufrag:Xk3p",
+            "a=ice-pwd:q9Jr2vYb7LmN4sT8wZ1aC6dE",
+            "a=ice-options:trickle",
+            "a=fingerprint:sha-256 6B:8B:5D:EA:59:04:20:23:29:C8:87:1C:CC:87:32:BE:DD:8C:66:A5:8E:50:55:EA:8C:D3:B6:5C:09:5E:D6:BC",
+            "a=setup:actpass",
+            "a=mid:0",
+            "a=extmap:1 urn:ietf:params:rtp-hdrext:ssrc-audio-level",
+            "a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time",
+            "a=extmap:3 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01",
+            "a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid",
+            "a=sendrecv",
+            "a=msid:3a9f6b1e-5d4c-4f2e-9a7b-0c1d2e3f4a5b 8e2f1a7c-3b4d-4e5f-8a9b-1c2d3e4f5a6b",
+            "a=rtcp-mux",
+            "a=rtpmap:111 opus/48000/2",
+            "a=rtcp-fb:111 transport-cc",
+            "a=fmtp:111 minptime=10;useinbandfec=1",
+            "a=rtpmap:63 red/48000/2",
+            "a=fmtp:63 111/111",
+            "a=rtpmap:9 G722/8000",
+            "a=rtpmap:0 PCMU/8000",
+            "a=rtpmap:8 PCMA/8000",
+            "a=rtpmap:13 CN/8000",
+            "a=rtpmap:110 telephone-event/48000",
+            "a=rtpmap:126 telephone-event/8000",
+            "a=ssrc:1795262446 cname:Vq2mP8sKx1LzR4tY",
+            "a=ssrc:1795262446 msid:3a9f6b1e-5d4c-4f2e-9a7b-0c1d2e3f4a5b 8e2f1a7c-3b4d-4e5f-8a9b-1c2d3e4f5a6b",
+            "m=video 9 UDP/TLS/RTP/SAVPF 96 97 102 103 104 105 106 107 108 109 127 125 39 40 98 99 100 101 112 113 114",
+            "c=IN IP4 0.0.0.0",
+            "a=rtcp:9 IN IP4 0.0.0.0",
+            "a=ice-ufrag:Xk3p",
+            "a=ice-pwd:q9Jr2vYb7LmN4sT8wZ1aC6dE",
+            "a=ice-options:trickle",
+            "a=fingerprint:sha-256 6B:8B:5D:EA:59:04:20:23:29:C8:87:1C:CC:87:32:BE:DD:8C:66:A5:8E:50:55:EA:8C:D3:B6:5C:09:5E:D6:BC",
+            "a=setup:actpass",
+            "a=mid:1",
+            "a=extmap:14 urn:ietf:params:rtp-hdrext:toffset",
+            "a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time",
+            "a=extmap:13 urn:3gpp:video-orientation",
+            "a=extmap:3 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01",
+            "a=extmap:5 http://www.webrtc.org/experiments/rtp-hdrext/playout-delay",
+            "a=extmap:6 http://www.webrtc.org/experiments/rtp-hdrext/video-content-type",
+            "a=extmap:7 http://www.webrtc.org/experiments/rtp-hdrext/video-timing",
+            "a=extmap:8 http://www.webrtc.org/experiments/rtp-hdrext/color-space",
+            "a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid",
+            "a=extmap:10 urn:ietf:params:rtp-hdrext:sdes:rtp-stream-id",
+            "a=extmap:11 urn:ietf:params:rtp-hdrext:sdes:repaired-rtp-stream-id",
+            "a=sendrecv",
+            "a=msid:3a9f6b1e-5d4c-4f2e-9a7b-0c1d2e3f4a5b 0f1e2d3c-4b5a-4968-8776-a5b4c3d2e1f0",
+            "a=rtcp-mux",
+            "a=rtcp-rsize",
+            "a=rtpmap:96 VP8/90000",
+            "a=rtcp-fb:96 goog-remb",
+            "a=rtcp-fb:96 transport-cc",
+            "a=rtcp-fb:96 ccm fir",
+            "a=rtcp-fb:96 nack",
+            "a=rtcp-fb:96 nack pli",
+            "a=rtpmap:97 rtx/90000",
+            "a=fmtp:97 apt=96",
+            "a=rtpmap:102 H264/90000",
+            "a=rtcp-fb:102 goog-remb",
+            "a=rtcp-fb:102 transport-cc",
+            "a=rtcp-fb:102 ccm fir",
+            "a=rtcp-fb:102 nack",
+            "a=rtcp-fb:102 nack pli",
+            "a=fmtp:102 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42001f",
+            "a=rtpmap:103 rtx/90000",
+            "a=fmtp:103 apt=102",
+            "a=rtpmap:104 H264/90000",
+            "a=rtcp-fb:104 goog-remb",
+            "a=rtcp-fb:104 transport-cc",
+            "a=rtcp-fb:104 ccm fir",
+            "a=rtcp-fb:104 nack",
+            "a=rtcp-fb:104 nack pli",
+            "a=fmtp:104 level-asymmetry-allowed=1;packetization-mode=0;profile-level-id=42001f",
+            "a=rtpmap:105 rtx/90000",
+            "a=fmtp:105 apt=104",
+            "a=rtpmap:106 H264/90000",
+            "a=rtcp-fb:106 goog-remb",
+            "a=rtcp-fb:106 transport-cc",
+            "a=rtcp-fb:106 ccm fir",
+            "a=rtcp-fb:106 nack",
+            "a=rtcp-fb:106 nack pli",
+            "a=fmtp:106 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42e01f",
+            "a=rtpmap:107 rtx/90000",
+            "a=fmtp:107 apt=106",
+            "a=rtpmap:108 H264/90000",
+            "a=rtcp-fb:108 goog-remb",
+            "a=rtcp-fb:108 transport-cc",
+            "a=rtcp-fb:108 ccm fir",
+            "a=rtcp-fb:108 nack",
+            "a=rtcp-fb:108 nack pli",
+            "a=fmtp:108 level-asymmetry-allowed=1;packetization-mode=0;profile-level-id=42e01f",
+            "a=rtpmap:109 rtx/90000",
+            "a=fmtp:109 apt=108",
+            "a=rtpmap:127 H264/90000",
+            "a=rtcp-fb:127 goog-remb",
+            "a=rtcp-fb:127 transport-cc",
+            "a=rtcp-fb:127 ccm fir",
+            "a=rtcp-fb:127 nack",
+            "a=rtcp-fb:127 nack pli",
+            "a=fmtp:127 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=4d001f",
+            "a=rtpmap:125 rtx/90000",
+            "a=fmtp:125 apt=127",
+            "a=rtpmap:39 AV1/90000",
+            "a=rtcp-fb:39 goog-remb",
+            "a=rtcp-fb:39 transport-cc",
+            "a=rtcp-fb:39 ccm fir",
+            "a=rtcp-fb:39 nack",
+            "a=rtcp-fb:39 nack pli",
+            "a=rtpmap:40 rtx/90000",
+            "a=fmtp:40 apt=39",
+            "a=rtpmap:98 VP9/90000",
+            "a=rtcp-fb:98 goog-remb",
+            "a=rtcp-fb:98 transport-cc",
+            "a=rtcp-fb:98 ccm fir",
+            "a=rtcp-fb:98 nack",
+            "a=rtcp-fb:98 nack pli",
+            "a=fmtp:98 profile-id=0",
+            "a=rtpmap:99 rtx/90000",
+            "a=fmtp:99 apt=98",
+            "a=rtpmap:112 red/90000",
+            "a=rtpmap:113 rtx/90000",
+            "a=fmtp:113 apt=112",
+            "a=rtpmap:114 ulpfec/90000",
+            "a=ssrc-group:FID 2893465162 3117362893",
+            "a=ssrc:2893465162 cname:Vq2mP8sKx1LzR4tY",
+            "a=ssrc:2893465162 msid:3a9f6b1e-5d4c-4f2e-9a7b-0c1d2e3f4a5b 0f1e2d3c-4b5a-4968-8776-a5b4c3d2e1f0",
+            "a=ssrc:3117362893 cname:Vq2mP8sKx1LzR4tY",
+            "a=ssrc:3117362893 msid:3a9f6b1e-5d4c-4f2e-9a7b-0c1d2e3f4a5b 0f1e2d3c-4b5a-4968-8776-a5b4c3d2e1f0",
+            "");
+
+    // Answers mirror the offer line-for-line with the negotiated subset
+    public static final String ANSWER = OFFER
+            .replace("a=setup:actpass", "a=setup:active")
+            .replace("o=- 4611731400430051336", "o=- 7220516870341187204")
+            .replace("a=ice-ufrag:Xk3p", "a=ice-ufrag:9fLw")
+            .replace("a=ice-pwd:q9Jr2vYb7LmN4sT8wZ1aC6dE", "a=ice-pwd:Hn3bV7cX2zQ8mK5jP1rT4wY6");
+
+    public static final String CANDIDATE =
+            "candidate:842163049 1 udp 1677729535 203.0.113.24 53721 typ srflx raddr 0.0.0.0 rport 0 "
+                    + "generation 0 ufrag Xk3p network-cost 999";
+
+    public static String offerMessage() {
+        return "{\"type\":\"offer\",\"sdp\":{\"type\":\"offer\",\"sdp\":" + quote(OFFER) + "}}";
+    }
+
+    public static String answerMessage() {
+        return "{\"type\":\"answer\",\"sdp\":{\"type\":\"answer\",\"sdp\":" + quote(ANSWER) + "}}";
+    }
+
+    public static String candidateMessage() {
+        return "{\"type\":\"ice-candidate\",\"candidate\":{\"candidate\":" + quote(CANDIDATE)
+                + ",\"sdpMid\":\"0\",\"sdpMLineIndex\":0}}";
+    }
+
+    private static String quote(String s) {
+        return "\"" + s.replace("\r", "\\r").replace("\n", "\\n") + "\"";
+    }
+}
@@ -0,0 +1,292 @@
+package com.nextgenhealthcare.backend;
+
+import com.nextgenhealthcare.archive.AppointmentArchiver;
+import com.nextgenhealthcare.dto.AppointmentChange;
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.model.Patient;
+import com.nextgenhealthcare.outbox.AppointmentOutbox;
+import com.nextgenhealthcare.outbox.OutboxSequencer;
+import com.nextgenhealthcare.service.AppointmentService;
+import com.nextgenhealthcare.service.DoctorService;
+import com.nextgenhealthcare.service.PatientService;
+import com.nextgenhealthcare.sharding.ShardMap;
+import com.nextgenhealthcare.sharding.ShardRebalancer;
+import com.nextgenhealthcare.sharding.ShardedAppointmentServiceInterceptor;
+import com.nextgenhealthcare.stats.AppointmentStatistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Three separate H2 databases as shards; each shard's rows are checked directly over JDBC.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ShardingTests.SHARD_0,
+        "app.datasource.shards.urls=" + ShardingTests.SHARD_1 + "," + ShardingTests.SHARD_2,
+        "app.datasource.shards.buckets=16"
+})
+class ShardingTests {
+
+    static final String SHARD_0 = "jdbc:h2:mem:shard-0;DB_CLOSE_DELAY=-1;MODE=MySQL";
+    static final String SHARD_1 = "jdbc:h2:mem:shard-1;DB_CLOSE_DELAY=-1;MODE=MySQL";
+    static final String SHARD_2 = "jdbc:h2:mem:shard-2;DB_CLOSE_DELAY=-1;MODE=MySQL";
+
+    @Autowired private AppointmentService appointmentService;
+    @Autowired private DoctorService doctorService;
+    @Autowired private PatientService patientService;
+    @Autowired private ShardMap shardMap;
+    @Autowired private ShardRebalancer rebalancer;
+    @Autowired private AppointmentOutbox outbox;
+    @Autowired private OutboxSequencer sequencer;
+    @Autowired private AppointmentStatistics statistics;
+    @Autowired private AppointmentArchiver archiver;
+
+    private final List<JdbcTemplate> shards = new ArrayList<>();
+    private final List<Doctor> doctors = new ArrayList<>();
+    private Patient patient;
+
+    @BeforeEach
+    void createDoctorsOnSeveralShards() {
+        for (String url : List.of(SHARD_0, SHARD_1, SHARD_2)) {
+            shards.add(new JdbcTemplate(new DriverManagerDataSource(url, "sa", "")));
+        }
+        patient = patientService.create(new Patient("Ann Lee", 29, "ann@example.com"));
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; used.size() < 3; i++) {
+            Doctor d = doctorService.create(new Doctor("Dr. " + i, "Cardiology", i + "@example.com"));
+            doctors.add(d);
+            used.add(shardMap.shardOf(d.getId()));
+        }
+    }
+
+    @AfterEach
+    void clean() {
+        for (JdbcTemplate shard : shards) {
+            shard.update("DELETE FROM appointments");
+            shard.update("DELETE FROM appointment_outbox");
+        }
+        for (Doctor d : doctors) {
+            doctorService.delete(d.getId());
+        }
+        patientService.delete(patient.getId());
+    }
+
+    @Test
+    void appointmentsLiveOnTheirDoctorsShardAndCrossShardQueriesGatherFromAll() {
+        // Reference rows reach every shard
+        for (JdbcTemplate shard : shards) {
+            assertThat(count(shard, "SELECT COUNT(*) FROM doctors")).isEqualTo(doctors.size());
+            assertThat(count(shard, "SELECT COUNT(*) FROM patients")).isEqualTo(1);
+        }
+
+        List<Appointment> created = new ArrayList<>();
+        for (Doctor d : doctors) {
+            created.add(appointmentService.createAppointment(
+                    new Appointment(patient, d, LocalDateTime.now().plusDays(2), "Checkup")));
+        }
+
+        Set<Long> ids = new HashSet<>();
+        for (Appointment a : created) {
+            int home = shardMap.shardOf(a.getDoctor().getId());
+            for (int s = 0; s < shards.size(); s++) {
+                assertThat(count(shards.get(s), "SELECT COUNT(*) FROM appointments WHERE id = " + a.getId()))
+                        .isEqualTo(s == home ? 1 : 0);
+            }
+            // Handed out from the shared counter on shard 0
+            assertThat(a.getId()).isLessThan(count(shards.get(0), "SELECT next_id FROM id_blocks WHERE name = 'appointments'"));
+            assertThat(ids.add(a.getId())).isTrue();
+            assertThat(appointmentService.getAppointmentById(a.getId())).isPresent();
+            assertThat(appointmentService.getByDoctorId(a.getDoctor().getId()))
+                    .extracting(Appointment::getId).containsExactly(a.getId());
+        }
+        assertThat(appointmentService.getByPatientId(patient.getId()))
+                .extracting(Appointment::getId).containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(appointmentService.getAllAppointments()).hasSize(created.size());
+    }
+
+    @Test
+    void changingTheDoctorMovesTheAppointmentToTheNewShard() {
+        // Down to shard 0, which also keeps allocating fresh ids afterwards
+        Doctor from = doctors.stream().filter(d -> shardMap.shardOf(d.getId()) == 2).findFirst().orElseThrow();
+        Doctor to = doctors.stream().filter(d -> shardMap.shardOf(d.getId()) == 0).findFirst().orElseThrow();
+        Appointment a = appointmentService.createAppointment(
+                new Appointment(patient, from, LocalDateTime.now().plusDays(1), "Follow-up"));
+
+        Appointment existing = appointmentService.getAppointmentForUpdate(a.getId()).orElseThrow();
+        existing.setDoctor(to);
+        existing.setStatus("CONFIRMED");
+        Appointment saved = appointmentService.saveAppointment(existing);
+
+        assertThat(saved.getId()).isEqualTo(a.getId());
+        assertThat(count(shards.get(shardMap.shardOf(from.getId())), "SELECT COUNT(*) FROM appointments")).isZero();
+        assertThat(shards.get(shardMap.shardOf(to.getId())).queryForObject(
+                "SELECT status FROM appointments WHERE id = ?", String.class, a.getId())).isEqualTo("CONFIRMED");
+
+        Appointment next = appointmentService.createAppointment(
+                new Appointment(patient, to, LocalDateTime.now().plusDays(2), "Next"));
+        assertThat(next.getId()).isNotEqualTo(a.getId());
+        assertThat(count(shards.get(0), "SELECT COUNT(*) FROM appointments")).isEqualTo(2);
+
+        appointmentService.deleteAppointment(a.getId());
+        appointmentService.deleteAppointment(next.getId());
+        assertThat(appointmentService.getAllAppointments()).isEmpty();
+    }
+
+    @Test
+    void movingABucketTakesItsAppointmentsAlongAndRebalanceEvensShardsOut() {
+        Doctor doctor = doctors.get(0);
+        for (int i = 0; i < 5; i++) {
+            appointmentService.createAppointment(
+                    new Appointment(patient, doctor, LocalDateTime.now().plusDays(i + 1), "Session " + i));
+        }
+        int bucket = shardMap.bucketOf(doctor.getId());
+        int from = shardMap.shardOf(doctor.getId());
+        int to = (from + 1) % 3;
+
+        ShardRebalancer.Move move = rebalancer.moveBucket(bucket, to);
+
+        assertThat(move.appointments()).isEqualTo(5);
+        assertThat(shardMap.shardOf(doctor.getId())).isEqualTo(to);
+        assertThat(count(shards.get(from), "SELECT COUNT(*) FROM appointments")).isZero();
+        assertThat(appointmentService.getByDoctorId(doctor.getId())).hasSize(5);
+
+        // The moved bucket made one shard heavier; rebalancing spreads the load again
+        List<ShardRebalancer.Move> moves = rebalancer.rebalance();
+        assertThat(moves).isNotEmpty();
+        for (int s = 0; s < 3; s++) {
+            assertThat(shardMap.bucketsOn(s)).isPositive();
+        }
+        assertThat(appointmentService.getByPatientId(patient.getId())).hasSize(5);
+        assertThat(appointmentService.getByDoctorId(doctor.getId())).hasSize(5);
+    }
+
+    @Test
+    void outboxEventsCommitWithTheirAppointmentOnItsShardAndReachTheFeed() {
+        sequencer.assign();
+        long start = sequencer.state().getLastSequence();
+        List<Long> ids = new ArrayList<>();
+        for (Doctor d : doctors) {
+            Appointment a = appointmentService.createAppointment(
+                    new Appointment(patient, d, LocalDateTime.now().plusDays(1), "Recorded"));
+            ids.add(a.getId());
+            assertThat(count(shards.get(shardMap.shardOf(d.getId())),
+                    "SELECT COUNT(*) FROM appointment_outbox WHERE aggregate_id = " + a.getId())).isEqualTo(1);
+        }
+
+        sequencer.assign();
+        assertThat(outbox.changesSince(start, 100).getChanges()).extracting(AppointmentChange::getAppointmentId)
+                .containsExactlyInAnyOrderElementsOf(ids);
+        for (int s = 1; s < shards.size(); s++) {
+            assertThat(count(shards.get(s), "SELECT COUNT(*) FROM appointment_outbox")).isZero();
+        }
+    }
+
+    @Test
+    void aFailedWriteLeavesAMovingAppointmentWhereItWas() {
+        Doctor from = doctors.get(0);
+        Doctor to = doctors.stream().filter(d -> shardMap.shardOf(d.getId()) != shardMap.shardOf(from.getId()))
+                .findFirst().orElseThrow();
+        Appointment a = appointmentService.createAppointment(
+                new Appointment(patient, from, LocalDateTime.now().plusDays(1), "Stays put"));
+        Appointment stale = appointmentService.getAppointmentForUpdate(a.getId()).orElseThrow();
+        Appointment current = appointmentService.getAppointmentForUpdate(a.getId()).orElseThrow();
+        current.setStatus("CONFIRMED");
+        appointmentService.saveAppointment(current);
+
+        stale.setDoctor(to);
+        assertThatThrownBy(() -> appointmentService.saveAppointment(stale))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        assertThat(shards.get(shardMap.shardOf(from.getId())).queryForObject(
+                "SELECT status FROM appointments WHERE id = ?", String.class, a.getId())).isEqualTo("CONFIRMED");
+        assertThat(count(shards.get(shardMap.shardOf(to.getId())), "SELECT COUNT(*) FROM appointments")).isZero();
+    }
+
+    @Test
+    void statisticsAndArchivingCoverEveryShard() {
+        statistics.reconcile();
+        for (Doctor d : doctors) {
+            Appointment a = appointmentService.createAppointment(
+                    new Appointment(patient, d, LocalDateTime.now().minusDays(2), "Done"));
+            a.setStatus("COMPLETED");
+            appointmentService.saveAppointment(a);
+        }
+
+        assertThat(statistics.reconcile()).isZero();
+        assertThat(statistics.snapshot(LocalDate.now(), LocalDate.now()).getAppointmentsByDoctor())
+                .containsAllEntriesOf(doctors.stream().collect(Collectors.toMap(Doctor::getId, d -> 1L)));
+
+        assertThat(archiver.archive(LocalDateTime.now().minusDays(1))).isEqualTo(doctors.size());
+        for (JdbcTemplate shard : shards) {
+            assertThat(count(shard, "SELECT COUNT(*) FROM appointments")).isZero();
+        }
+        assertThat(count(shards.get(0), "SELECT COUNT(*) FROM appointments_archive WHERE reason = 'Done'"))
+                .isEqualTo(doctors.size());
+        shards.get(0).update("DELETE FROM appointments_archive");
+    }
+
+    @Test
+    void deletingADoctorOrPatientPurgesTheirAppointmentsOnTheShardsHoldingThem() {
+        List<Long> ids = new ArrayList<>();
+        for (Doctor d : doctors) {
+            ids.add(appointmentService.createAppointment(
+                    new Appointment(patient, d, LocalDateTime.now().plusDays(1), "Purged")).getId());
+        }
+        Doctor away = doctors.stream().filter(d -> shardMap.shardOf(d.getId()) != 0).findFirst().orElseThrow();
+        JdbcTemplate awayShard = shards.get(shardMap.shardOf(away.getId()));
+
+        assertThat(doctorService.delete(away.getId())).isTrue();
+        assertThat(count(awayShard, "SELECT COUNT(*) FROM appointments WHERE doctor_id = " + away.getId())).isZero();
+        // Recorded with the delete on the doctor's shard
+        assertThat(count(awayShard, "SELECT COUNT(*) FROM appointment_outbox WHERE event_type = 'DELETED'")).isEqualTo(1);
+        assertThat(statistics.snapshot(LocalDate.now(), LocalDate.now()).getAppointmentsByDoctor())
+                .doesNotContainKey(away.getId());
+
+        assertThat(patientService.delete(patient.getId())).isTrue();
+        for (JdbcTemplate shard : shards) {
+            assertThat(count(shard, "SELECT COUNT(*) FROM appointments")).isZero();
+            assertThat(count(shard, "SELECT COUNT(*) FROM patients")).isZero();
+        }
+        sequencer.assign();
+        assertThat(count(shards.get(0), "SELECT COUNT(*) FROM appointment_outbox WHERE event_type = 'DELETED' "
+                + "AND aggregate_id IN (" + ids.stream().map(String::valueOf).collect(Collectors.joining(",")) + ")"))
+                .isEqualTo(ids.size());
+    }
+
+    @Test
+    void aServiceWriteWithoutRoutingIsRejected() {
+        ShardedAppointmentServiceInterceptor.checkRouted(AppointmentService.class);
+        assertThatThrownBy(() -> ShardedAppointmentServiceInterceptor.checkRouted(UnroutedService.class))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("cancel");
+    }
+
+    static class UnroutedService {
+        @Transactional(readOnly = true)
+        public List<Appointment> list() { return List.of(); }
+        @Transactional
+        public void cancel(Long id) { }
+    }
+
+    private static long count(JdbcTemplate shard, String sql) {
+        return shard.queryForObject(sql, Long.class);
+    }
+}
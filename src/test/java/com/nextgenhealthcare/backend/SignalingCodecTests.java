@@ -0,0 +1,136 @@
+package com.nextgenhealthcare.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nextgenhealthcare.websocket.SignalingCodec;
+import com.nextgenhealthcare.websocket.VideoCallWebSocketHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class SignalingCodecTests {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @LocalServerPort private int port;
+
+    @Test
+    void eachParticipantReceivesMessagesInTheCodecItJoinedWith() throws Exception {
+        VideoCallWebSocketHandler handler = new VideoCallWebSocketHandler();
+        StubWebSocketSession jsonClient = new StubWebSocketSession("json");
+        StubWebSocketSession cborClient = new StubWebSocketSession("cbor");
+
+        handler.handleMessage(jsonClient, new TextMessage(join("doctor-1").toString()));
+        handler.handleMessage(cborClient, SignalingCodec.CBOR.encode(join("patient-1")));
+        handler.handleMessage(jsonClient, new TextMessage(SdpSamples.offerMessage()));
+
+        WebSocketMessage<?> offer = last(cborClient);
+        assertThat(offer).isInstanceOf(BinaryMessage.class);
+        JsonNode decoded = SignalingCodec.CBOR.decode(offer);
+        assertThat(decoded.path("type").asText()).isEqualTo("offer");
+        assertThat(decoded.path("sdp").path("sdp").asText()).isEqualTo(SdpSamples.OFFER);
+
+        ObjectNode answer = (ObjectNode) JSON.readTree(SdpSamples.answerMessage());
+        handler.handleMessage(cborClient, SignalingCodec.CBOR.encode(answer));
+        WebSocketMessage<?> forwarded = last(jsonClient);
+        assertThat(forwarded).isInstanceOf(TextMessage.class);
+        assertThat(JSON.readTree(((TextMessage) forwarded).getPayload()).path("sdp").path("sdp").asText())
+                .isEqualTo(SdpSamples.ANSWER);
+    }
+
+    @Test
+    void aTextJoinCanAskForCborAndUnknownCodecsAreRejected() throws Exception {
+        VideoCallWebSocketHandler handler = new VideoCallWebSocketHandler();
+        StubWebSocketSession session = new StubWebSocketSession("s1");
+
+        handler.handleMessage(session, new TextMessage(join("doctor-1").put("codec", "msgpack").toString()));
+        assertThat(session.getSentText()).singleElement().asString().contains("UNSUPPORTED_CODEC");
+
+        handler.handleMessage(session, new TextMessage(join("doctor-1").put("codec", "cbor").toString()));
+        JsonNode joined = SignalingCodec.CBOR.decode(last(session));
+        assertThat(joined.path("type").asText()).isEqualTo("joined");
+        assertThat(joined.path("codec").asText()).isEqualTo("cbor");
+    }
+
+    @Test
+    void serverNegotiatesPermessageDeflateAndAnswersBinaryJoinsInBinary() throws Exception {
+        BlockingQueue<WebSocketMessage<?>> received = new LinkedBlockingQueue<>();
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        headers.setSecWebSocketExtensions(List.of(new WebSocketExtension("permessage-deflate")));
+        WebSocketSession session = new StandardWebSocketClient().execute(new AbstractWebSocketHandler() {
+            @Override
+            public void handleMessage(WebSocketSession s, WebSocketMessage<?> message) {
+                received.add(message);
+            }
+        }, headers, URI.create("ws://localhost:" + port + "/ws/video")).get(5, TimeUnit.SECONDS);
+        try {
+            assertThat(session.getExtensions()).extracting(WebSocketExtension::getName).contains("permessage-deflate");
+
+            session.sendMessage(SignalingCodec.CBOR.encode(join("doctor-1")));
+            WebSocketMessage<?> joined = received.poll(5, TimeUnit.SECONDS);
+            assertThat(joined).isInstanceOf(BinaryMessage.class);
+            assertThat(SignalingCodec.CBOR.decode(joined).path("type").asText()).isEqualTo("joined");
+        } finally {
+            session.close();
+        }
+    }
+
+    // Payload bytes per offer; CPU cost is in SignalingCodecBenchmark
+    @Test
+    void wireSizeOfAnOffer() throws Exception {
+        ObjectNode offer = (ObjectNode) JSON.readTree(SdpSamples.offerMessage());
+        byte[] json = ((TextMessage) SignalingCodec.JSON.encode(offer)).getPayload().getBytes(StandardCharsets.UTF_8);
+        byte[] cbor = ((BinaryMessage) SignalingCodec.CBOR.encode(offer)).getPayload().array();
+        int jsonDeflated = deflate(json);
+        int cborDeflated = deflate(cbor);
+
+        assertThat(cbor.length).isLessThan(json.length);
+        assertThat(jsonDeflated).isLessThan(json.length / 2);
+        assertThat(cborDeflated).isLessThan(cbor.length / 2);
+    }
+
+    // As permessage-deflate frames it (RFC 7692): raw deflate, sync flush, trailing 00 00 ff ff dropped
+    static int deflate(byte[] payload) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(payload);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        deflater.end();
+        return out.size() - 4;
+    }
+
+    private static ObjectNode join(String userId) {
+        return JSON.createObjectNode().put("type", "join").put("roomId", "codec-room")
+                .put("userId", userId).put("role", "PATIENT");
+    }
+
+    private static WebSocketMessage<?> last(StubWebSocketSession session) {
+        List<WebSocketMessage<?>> sent = session.getSent();
+        return sent.get(sent.size() - 1);
+    }
+}
@@ -0,0 +1,125 @@
+package com.nextgenhealthcare.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.model.Patient;
+import com.nextgenhealthcare.repository.AppointmentRepository;
+import com.nextgenhealthcare.repository.DoctorRepository;
+import com.nextgenhealthcare.repository.PatientRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.nextgenhealthcare.backend.SparseFieldsetTests$SqlCapture")
+class SparseFieldsetTests {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @LocalServerPort private int port;
+    @Autowired private DoctorRepository doctorRepo;
+    @Autowired private PatientRepository patientRepo;
+    @Autowired private AppointmentRepository appointmentRepo;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @Test
+    void appointmentListsSelectAndWriteOnlyTheRequestedFields() throws Exception {
+        Doctor doctor = doctorRepo.save(new Doctor("Dr. Mobile", "Pediatrics", "mobile@example.com"));
+        Patient patient = patientRepo.save(new Patient("Max Mobile", 8, "max@example.com"));
+        List<Appointment> appointments = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            appointments.add(new Appointment(patient, doctor, LocalDateTime.now().plusHours(i),
+                    "Routine follow-up visit number " + i));
+        }
+        appointmentRepo.saveAll(appointments);
+        String path = "/appointments/doctor/" + doctor.getId();
+
+        String full = get(path, 200);
+        int fullColumns = selectedColumns();
+        String sparse = get(path + "?fields=id,appointmentTime,status,doctorName", 200);
+        int sparseColumns = selectedColumns();
+
+        assertThat(sparseColumns).isEqualTo(4);
+        assertThat(fullColumns).isGreaterThan(sparseColumns);
+        assertThat(sparse.length()).isLessThan(full.length());
+
+        JsonNode rows = JSON.readTree(sparse);
+        assertThat(rows).hasSize(200);
+        JsonNode first = rows.get(0);
+        assertThat(first.fieldNames()).toIterable().containsExactly("id", "appointmentTime", "status", "doctorName");
+        assertThat(first.path("doctorName").asText()).isEqualTo("Dr. Mobile");
+        assertThat(first.path("status").asText()).isEqualTo("SCHEDULED");
+
+        // Patient lists too; a foreign key id needs no join
+        get("/appointments/patient/" + patient.getId() + "?fields=id,doctorId", 200);
+        assertThat(SqlCapture.last()).doesNotContain("join");
+        assertThat(selectedColumns()).isEqualTo(2);
+
+        get(path + "?fields=id,diagnosis", 400);
+        get("/appointments/patient/" + patient.getId() + "?fields=id&includeArchived=true", 400);
+    }
+
+    @Test
+    void doctorAndPatientListsSelectOnlyTheRequestedColumns() throws Exception {
+        doctorRepo.save(new Doctor("Dr. Narrow", "Oncology", "narrow@example.com"));
+        patientRepo.save(new Patient("Nia Narrow", 45, "nia@example.com"));
+
+        JsonNode doctors = JSON.readTree(get("/doctors?fields=name", 200));
+        assertThat(selectedColumns()).isEqualTo(1);
+        assertThat(doctors.findValuesAsText("name")).contains("Dr. Narrow");
+        assertThat(doctors.get(0).size()).isEqualTo(1);
+
+        JsonNode patients = JSON.readTree(get("/patients?fields=id,age", 200));
+        assertThat(selectedColumns()).isEqualTo(2);
+        assertThat(patients.get(0).has("name")).isFalse();
+    }
+
+    private String get(String path, int expectedStatus) throws Exception {
+        SqlCapture.statements.clear();
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(expectedStatus);
+        return response.body();
+    }
+
+    // Columns in the select list of the last query
+    private static int selectedColumns() {
+        String sql = SqlCapture.last().toLowerCase(Locale.ROOT);
+        return sql.substring(sql.indexOf("select") + 6, sql.indexOf(" from ")).split(",").length;
+    }
+
+    public static class SqlCapture implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        static String last() {
+            assertThat(statements).isNotEmpty();
+            return statements.get(statements.size() - 1);
+        }
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.toLowerCase(Locale.ROOT).startsWith("select")) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.nextgenhealthcare.backend;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory WebSocketSession that records what the server sends.
+ * Set {@code keepMessages} to false to only count them (benchmarks).
+ */
+public class StubWebSocketSession implements WebSocketSession {
+
+    private final String id;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private final List<WebSocketMessage<?>> sent = Collections.synchronizedList(new ArrayList<>());
+    private final boolean keepMessages;
+    private volatile boolean open = true;
+    private long sentCount;
+    private long sentBytes;
+
+    public StubWebSocketSession(String id) {
+        this(id, true);
+    }
+
+    public StubWebSocketSession(String id, boolean keepMessages) {
+        this.id = id;
+        this.keepMessages = keepMessages;
+    }
+
+    public List<WebSocketMessage<?>> getSent() {
+        return sent;
+    }
+
+    public List<String> getSentText() {
+        List<String> texts = new ArrayList<>();
+        synchronized (sent) {
+            for (WebSocketMessage<?> m : sent) {
+                if (m instanceof TextMessage t) {
+                    texts.add(t.getPayload());
+                }
+            }
+        }
+        return texts;
+    }
+
+    public synchronized long getSentCount() {
+        return sentCount;
+    }
+
+    public synchronized long getSentBytes() {
+        return sentBytes;
+    }
+
+    public void reopen() {
+        open = true;
+    }
+
+    @Override
+    public synchronized void sendMessage(WebSocketMessage<?> message) {
+        sentCount++;
+        sentBytes += message instanceof BinaryMessage b ? b.getPayloadLength() : message.getPayloadLength();
+        if (keepMessages) {
+            sent.add(message);
+        }
+    }
+
+    @Override public String getId() { return id; }
+    @Override public URI getUri() { return URI.create("ws://localhost/ws/video"); }
+    @Override public HttpHeaders getHandshakeHeaders() { return new HttpHeaders(); }
+    @Override public Map<String, Object> getAttributes() { return attributes; }
+    @Override public Principal getPrincipal() { return null; }
+    @Override public InetSocketAddress getLocalAddress() { return null; }
+    @Override public InetSocketAddress getRemoteAddress() { return null; }
+    @Override public String getAcceptedProtocol() { return null; }
+    @Override public void setTextMessageSizeLimit(int messageSizeLimit) { }
+    @Override public int getTextMessageSizeLimit() { return 64 * 1024; }
+    @Override public void setBinaryMessageSizeLimit(int messageSizeLimit) { }
+    @Override public int getBinaryMessageSizeLimit() { return 64 * 1024; }
+    @Override public List<WebSocketExtension> getExtensions() { return Collections.emptyList(); }
+    @Override public boolean isOpen() { return open; }
+    @Override public void close() { open = false; }
+    @Override public void close(CloseStatus status) { open = false; }
+}
@@ -0,0 +1,123 @@
+package com.nextgenhealthcare.backend;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "ai.stream.heartbeat=PT0.1S")
+class SymptomStreamTests {
+
+    private static final AiServiceStub AI = startStub();
+
+    @DynamicPropertySource
+    static void aiService(DynamicPropertyRegistry registry) {
+        registry.add("ai.service.url", AI::url);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        AI.close();
+    }
+
+    @LocalServerPort private int port;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @AfterEach
+    void reset() {
+        AI.setStreaming(true);
+        AI.setStreamStepMillis(0);
+    }
+
+    @Test
+    void partsAreRelayedInOrderAsTheyArrive() throws Exception {
+        AI.setStreamStepMillis(300);
+        long start = System.nanoTime();
+        List<Long> arrivals = new ArrayList<>();
+        List<String> events = new ArrayList<>();
+        try (Stream<String> lines = stream("headache and nausea").body()) {
+            lines.forEach(line -> {
+                if (line.startsWith("event:")) {
+                    events.add(line.substring(6));
+                    arrivals.add(Duration.ofNanos(System.nanoTime() - start).toMillis());
+                } else if (line.startsWith("data:") && events.size() == 1) {
+                    assertThat(line).contains("\"extractedSymptoms\":[\"headache\",\"nausea\"]", "Neurology");
+                }
+            });
+        }
+
+        assertThat(events).containsExactly("symptoms", "conditions", "recommendation");
+        // The first event did not wait for the rest of the analysis
+        assertThat(arrivals.get(2) - arrivals.get(0)).isGreaterThanOrEqualTo(500);
+    }
+
+    @Test
+    void aiServiceWithoutStreamingIsSplitIntoTheSameEvents() throws Exception {
+        AI.setStreaming(false);
+        String body = http.send(request("headache and nausea"), HttpResponse.BodyHandlers.ofString()).body();
+
+        assertThat(body).containsSubsequence("event:symptoms", "event:conditions", "Migraine",
+                "event:recommendation", "Rest and stay hydrated");
+    }
+
+    @Test
+    void clientDisconnectCancelsTheAiServiceRequest() throws Exception {
+        AI.setStreamStepMillis(1000);
+        int abortedBefore = AI.abortedStreamCount();
+        try (Stream<String> lines = stream("headache").body()) {
+            Iterator<String> it = lines.iterator();
+            while (!it.next().startsWith("data:")) {
+                // up to the first event
+            }
+        }
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (AI.abortedStreamCount() == abortedBefore && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(AI.abortedStreamCount()).isGreaterThan(abortedBefore);
+    }
+
+    @Test
+    void blankSymptomsAreRejected() throws Exception {
+        assertThat(http.send(request(" "), HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(400);
+    }
+
+    private HttpResponse<Stream<String>> stream(String symptoms) throws Exception {
+        return http.send(request(symptoms), HttpResponse.BodyHandlers.ofLines());
+    }
+
+    private HttpRequest request(String symptoms) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/ai/symptom-check/stream"))
+                .header("Content-Type", "application/json")
+                .header("Accept", "text/event-stream")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"symptoms\":\"" + symptoms + "\"}"))
+                .build();
+    }
+
+    private static AiServiceStub startStub() {
+        try {
+            return new AiServiceStub(0, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
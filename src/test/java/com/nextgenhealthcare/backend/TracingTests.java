@@ -0,0 +1,108 @@
+package com.nextgenhealthcare.backend;
+
+import com.nextgenhealthcare.dto.TraceSummary;
+import com.nextgenhealthcare.tracing.TraceCollector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "management.tracing.sampling.probability=1.0")
+@AutoConfigureObservability(metrics = false)
+class TracingTests {
+
+    private static final AiServiceStub AI = startStub();
+
+    @DynamicPropertySource
+    static void aiService(DynamicPropertyRegistry registry) {
+        registry.add("ai.service.url", AI::url);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        AI.close();
+    }
+
+    @LocalServerPort private int port;
+    @Autowired private TraceCollector collector;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void clear() {
+        collector.clear();
+    }
+
+    @Test
+    void symptomCheckTraceCoversHandlerServiceProbeAndAiCall() throws Exception {
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(uri("/ai/symptom-check"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"symptoms\":\"headache and nausea\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+
+        TraceSummary trace = awaitTrace("/ai/symptom-check");
+        assertThat(trace.getSpans()).extracting(TraceSummary.SpanSummary::getName)
+                .contains("ai.symptom-check", "ai.health-probe");
+        assertThat(trace.getSpans()).filteredOn(s -> "CLIENT".equals(s.getKind())).hasSize(2);
+        // The AI service joins the same trace
+        assertThat(AI.lastTraceparent()).contains(trace.getTraceId());
+    }
+
+    @Test
+    void repositoryCallsAndConnectionCheckoutAreSpans() throws Exception {
+        http.send(HttpRequest.newBuilder(uri("/doctors")).build(), HttpResponse.BodyHandlers.discarding());
+
+        TraceSummary trace = awaitTrace("/doctors");
+        assertThat(trace.getSpans()).extracting(TraceSummary.SpanSummary::getName)
+                .contains("doctor-repository.find-by-deleted-at-is-null", "jdbc.connection.acquire");
+
+        String slowest = http.send(HttpRequest.newBuilder(uri("/traces/slowest?limit=5")).build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        assertThat(slowest).contains(trace.getTraceId()).contains("doctor-repository.find-by-deleted-at-is-null");
+    }
+
+    private TraceSummary awaitTrace(String path) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (System.nanoTime() < deadline) {
+            List<TraceSummary> traces = collector.slowest(100, Duration.ofMinutes(1));
+            for (TraceSummary t : traces) {
+                if (t.getName().endsWith(path)) {
+                    return t;
+                }
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("no trace for " + path + " in " + collector.recent());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static AiServiceStub startStub() {
+        try {
+            return new AiServiceStub(0, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
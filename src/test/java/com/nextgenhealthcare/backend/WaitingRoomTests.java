@@ -0,0 +1,106 @@
+package com.nextgenhealthcare.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nextgenhealthcare.websocket.VideoCallWebSocketHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "app.waiting-room.update-interval=PT2S")
+class WaitingRoomTests {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @Autowired private VideoCallWebSocketHandler handler;
+
+    @Test
+    void urgentAndEarlierPatientsGoFirstAndAdmitNextOpensTheirRoom() throws Exception {
+        StubWebSocketSession late = patient("late", "2030-01-01T10:00:00", 0);
+        StubWebSocketSession early = patient("early", "2030-01-01T09:00:00", 0);
+        StubWebSocketSession urgent = patient("urgent", "2030-01-01T11:00:00", 5);
+        StubWebSocketSession doctor = new StubWebSocketSession("doctor");
+
+        Thread.sleep(2500);
+        assertThat(lastOfType(urgent, "queue-position").path("position").asInt()).isEqualTo(1);
+        assertThat(lastOfType(early, "queue-position").path("position").asInt()).isEqualTo(2);
+        assertThat(lastOfType(late, "queue-position").path("position").asInt()).isEqualTo(3);
+        assertThat(lastOfType(late, "queue-position").path("etaSeconds").asLong()).isEqualTo(2 * 15 * 60);
+
+        send(doctor, "{\"type\":\"admit-next\",\"doctorId\":41}");
+        JsonNode admitted = lastOfType(doctor, "patient-admitted");
+        assertThat(admitted.path("userId").asText()).isEqualTo("urgent");
+        assertThat(admitted.path("waiting").asInt()).isEqualTo(2);
+        String roomId = admitted.path("roomId").asText();
+        assertThat(lastOfType(urgent, "joined").path("roomId").asText()).isEqualTo(roomId);
+
+        // The doctor joins like any participant and meets the patient already in the room
+        send(doctor, "{\"type\":\"join\",\"roomId\":\"" + roomId + "\",\"userId\":\"dr-41\",\"role\":\"DOCTOR\"}");
+        assertThat(lastOfType(doctor, "participant-joined").path("userId").asText()).isEqualTo("urgent");
+
+        Thread.sleep(2500);
+        assertThat(lastOfType(early, "queue-position").path("position").asInt()).isEqualTo(1);
+        assertThat(lastOfType(late, "queue-position").path("position").asInt()).isEqualTo(2);
+
+        // A closed waiter is skipped
+        handler.afterConnectionClosed(early, CloseStatus.NORMAL);
+        send(doctor, "{\"type\":\"admit-next\",\"doctorId\":41}");
+        assertThat(lastOfType(doctor, "patient-admitted").path("userId").asText()).isEqualTo("late");
+        send(doctor, "{\"type\":\"admit-next\",\"doctorId\":41}");
+        assertThat(lastOfType(doctor, "queue-empty").path("doctorId").asLong()).isEqualTo(41);
+    }
+
+    @Test
+    void positionUpdatesAreCoalescedPerInterval() throws Exception {
+        List<StubWebSocketSession> waiters = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            StubWebSocketSession s = new StubWebSocketSession("w" + i);
+            send(s, "{\"type\":\"wait\",\"doctorId\":42,\"userId\":\"p" + i + "\"}");
+            waiters.add(s);
+        }
+        StubWebSocketSession doctor = new StubWebSocketSession("doctor-42");
+        for (int i = 0; i < 100; i++) {
+            send(doctor, "{\"type\":\"admit-next\",\"doctorId\":42}");
+        }
+        Thread.sleep(2500);
+
+        // 300 joins and 100 admits, yet each remaining waiter got a single position push
+        for (StubWebSocketSession s : waiters.subList(100, 300)) {
+            assertThat(s.getSentText()).filteredOn(t -> t.contains("queue-position")).hasSize(1);
+        }
+        assertThat(lastOfType(waiters.get(100), "queue-position").path("position").asInt()).isEqualTo(1);
+        assertThat(lastOfType(waiters.get(299), "queue-position").path("queueLength").asInt()).isEqualTo(200);
+    }
+
+    private StubWebSocketSession patient(String userId, String appointmentTime, int urgency) throws Exception {
+        StubWebSocketSession session = new StubWebSocketSession(userId);
+        ObjectNode wait = JSON.createObjectNode().put("type", "wait").put("doctorId", 41).put("userId", userId)
+                .put("appointmentTime", appointmentTime).put("urgency", urgency);
+        send(session, wait.toString());
+        assertThat(lastOfType(session, "waiting").path("doctorId").asLong()).isEqualTo(41);
+        return session;
+    }
+
+    private void send(StubWebSocketSession session, String message) throws Exception {
+        handler.handleMessage(session, new TextMessage(message));
+    }
+
+    private static JsonNode lastOfType(StubWebSocketSession session, String type) throws Exception {
+        List<String> sent = session.getSentText();
+        for (int i = sent.size() - 1; i >= 0; i--) {
+            JsonNode node = JSON.readTree(sent.get(i));
+            if (type.equals(node.path("type").asText())) {
+                return node;
+            }
+        }
+        throw new AssertionError("No " + type + " message in " + sent);
+    }
+}
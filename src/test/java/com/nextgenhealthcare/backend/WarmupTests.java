@@ -0,0 +1,51 @@
+package com.nextgenhealthcare.backend;
+
+import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.repository.DoctorRepository;
+import com.nextgenhealthcare.warmup.WarmupRunner;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.warmup.enabled=true",
+        "app.warmup.iterations=20",
+        "management.endpoints.web.exposure.include=health",
+        "management.endpoint.health.probes.enabled=true"
+})
+class WarmupTests {
+
+    @LocalServerPort private int port;
+    @Autowired private WarmupRunner warmup;
+    @Autowired private ApplicationAvailability availability;
+    @Autowired private DoctorRepository doctorRepo;
+
+    @Test
+    void everyStepRunsBeforeTheInstanceReportsReady() throws Exception {
+        assertThat(warmup.getStepMillis())
+                .containsOnlyKeys("connection-pool", "entity-metadata", "serializers", "http", "signaling");
+        assertThat(warmup.getFailedSteps()).isEmpty();
+        assertThat(availability.getReadinessState()).isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+
+        HttpResponse<String> readiness = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health/readiness")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(readiness.statusCode()).isEqualTo(200);
+        assertThat(readiness.body()).contains("UP");
+    }
+
+    @Test
+    void warmupWritesNothingToTheDatabase() {
+        assertThat(doctorRepo.findAll()).extracting(Doctor::getEmail).doesNotContain("warmup@example.com");
+    }
+}
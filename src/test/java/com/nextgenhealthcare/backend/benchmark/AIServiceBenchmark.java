@@ -0,0 +1,62 @@
+package com.nextgenhealthcare.backend.benchmark;
+
+import com.nextgenhealthcare.dto.SymptomCheckResponse;
+import com.nextgenhealthcare.service.AIService;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AIService request building and response mapping against a WebClient whose exchange
+ * function answers in-memory, so no network time is included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AIServiceBenchmark {
+
+    static final String RESPONSE = "{\"possibleConditions\":[\"Migraine\",\"Tension headache\"],"
+            + "\"recommendation\":\"Rest and stay hydrated.\",\"suggestedSpecialization\":\"Neurology\","
+            + "\"confidence\":0.82,\"extractedSymptoms\":[\"headache\",\"nausea\"]}";
+
+    private AIService aiService;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        WebClient.Builder builder = WebClient.builder()
+                .exchangeStrategies(ExchangeStrategies.builder().codecs(c -> {
+                    c.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(BenchmarkSupport.bootObjectMapper()));
+                    c.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(BenchmarkSupport.bootObjectMapper()));
+                }).build())
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(request.url().getPath().equals("/health") ? "{\"status\":\"healthy\"}" : RESPONSE)
+                        .build()));
+        aiService = new AIService(builder, BenchmarkSupport.singleAiBackend("http://ai.local"), ObservationRegistry.NOOP,
+                BenchmarkSupport.unlimitedAiLimiter(), BenchmarkSupport.fallbackOnlyPreTriage());
+    }
+
+    @Benchmark
+    public SymptomCheckResponse checkSymptoms() {
+        return aiService.checkSymptoms("persistent headache with nausea and sensitivity to light");
+    }
+
+    @Benchmark
+    public boolean healthProbe() {
+        return aiService.isServiceAvailable();
+    }
+}
@@ -0,0 +1,70 @@
+package com.nextgenhealthcare.backend.benchmark;
+
+import com.nextgenhealthcare.backend.AiServiceStub;
+import com.nextgenhealthcare.config.AiClientConfig;
+import com.nextgenhealthcare.dto.SymptomCheckResponse;
+import com.nextgenhealthcare.service.AIService;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Symptom checks (health probe + call) from 32 concurrent callers against an AI service stub
+ * answering in 200 ms, through the old bare WebClient.builder() ("default": Reactor Netty's
+ * shared 16-connection pool) and the AiClientConfig client ("tuned"). SampleTime reports the
+ * latency distribution; compare p0.99.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(32)
+@Fork(1)
+public class AiClientPoolBenchmark {
+
+    @Param({"default", "tuned"})
+    public String client;
+
+    private AiServiceStub stub;
+    private ConnectionProvider provider;
+    private AIService aiService;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkSupport.quietLogging();
+        stub = new AiServiceStub(200, 0);
+        WebClient.Builder builder;
+        if (client.equals("tuned")) {
+            AiClientConfig config = new AiClientConfig(50, 500, Duration.ofSeconds(5), Duration.ofSeconds(30),
+                    Duration.ofMinutes(5), Duration.ofSeconds(30), Duration.ofSeconds(2), Duration.ofSeconds(30),
+                    DataSize.ofMegabytes(1), false);
+            provider = config.aiConnectionProvider();
+            builder = config.aiWebClientBuilder(provider,
+                    new StaticListableBeanFactory().getBeanProvider(ObservationRegistry.class));
+        } else {
+            builder = WebClient.builder();
+        }
+        aiService = new AIService(builder, BenchmarkSupport.singleAiBackend(stub.url()), ObservationRegistry.NOOP,
+                BenchmarkSupport.unlimitedAiLimiter(), BenchmarkSupport.fallbackOnlyPreTriage());
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (provider != null) {
+            provider.dispose();
+        }
+        stub.close();
+    }
+
+    @Benchmark
+    public SymptomCheckResponse checkSymptoms() {
+        return aiService.checkSymptoms("persistent headache with nausea and sensitivity to light");
+    }
+}
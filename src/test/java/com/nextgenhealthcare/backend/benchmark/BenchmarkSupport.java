@@ -0,0 +1,58 @@
+package com.nextgenhealthcare.backend.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.nextgenhealthcare.balancer.BackendPool;
+import com.nextgenhealthcare.limit.AdaptiveConcurrencyLimiter;
+import com.nextgenhealthcare.triage.PreTriage;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Shared setup for the JMH suites.
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {}
+
+    // Forked JMH JVMs have no Spring logging config; keep per-call INFO logs out of the measurement
+    static void quietLogging() {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+
+    // Same configuration Spring Boot applies to the MVC ObjectMapper
+    static ObjectMapper bootObjectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    // The same, but ignoring annotations, so every type goes through the bean serializer
+    static ObjectMapper reflectiveObjectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, MapperFeature.USE_ANNOTATIONS)
+                .build();
+    }
+
+    // Fixed and far above the benchmark thread counts, so it never sheds or adapts
+    static AdaptiveConcurrencyLimiter unlimitedAiLimiter() {
+        return new AdaptiveConcurrencyLimiter("benchmark", 10_000, 10_000, 10_000, 1.5, 0.2, Duration.ZERO);
+    }
+
+    // One replica, so no failover or hedging
+    static BackendPool singleAiBackend(String url) {
+        return new BackendPool("benchmark", List.of(url), 3, Duration.ofSeconds(30), false, Duration.ZERO, 0);
+    }
+
+    // Never short-circuits, so the AI call is what gets measured
+    static PreTriage fallbackOnlyPreTriage() {
+        return new PreTriage(new ClassPathResource("triage/symptom-dictionary.tsv"), 2.0);
+    }
+}
@@ -0,0 +1,68 @@
+package com.nextgenhealthcare.backend.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nextgenhealthcare.dto.DoctorResponse;
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.model.Patient;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the REST payloads: appointment lists, a doctor with its
+ * appointment graph (?include=appointments) and the lean doctor view.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int appointments;
+
+    private ObjectMapper mapper;
+    private List<Appointment> appointmentList;
+    private Doctor doctorGraph;
+    private DoctorResponse doctorSummary;
+
+    @Setup
+    public void setUp() {
+        mapper = BenchmarkSupport.bootObjectMapper();
+        doctorGraph = new Doctor("Dr. Bench", "Cardiology", "bench@example.com");
+        doctorGraph.setId(1L);
+        Patient patient = new Patient("Pat Bench", 44, "pat@example.com");
+        patient.setId(1L);
+
+        appointmentList = new ArrayList<>(appointments);
+        LocalDateTime start = LocalDateTime.of(2026, 1, 5, 9, 0);
+        for (int i = 0; i < appointments; i++) {
+            Appointment a = new Appointment(patient, doctorGraph, start.plusMinutes(30L * i), "Follow-up visit " + i);
+            a.setId((long) i + 1);
+            appointmentList.add(a);
+        }
+        doctorGraph.setAppointments(appointmentList);
+        doctorSummary = DoctorResponse.from(doctorGraph);
+    }
+
+    @Benchmark
+    public byte[] appointmentList() throws Exception {
+        return mapper.writeValueAsBytes(appointmentList);
+    }
+
+    @Benchmark
+    public byte[] doctorGraph() throws Exception {
+        return mapper.writeValueAsBytes(doctorGraph);
+    }
+
+    @Benchmark
+    public byte[] doctorSummary() throws Exception {
+        return mapper.writeValueAsBytes(doctorSummary);
+    }
+}
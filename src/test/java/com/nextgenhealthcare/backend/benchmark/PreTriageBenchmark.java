@@ -0,0 +1,44 @@
+package com.nextgenhealthcare.backend.benchmark;
+
+import com.nextgenhealthcare.dto.SymptomCheckResponse;
+import com.nextgenhealthcare.triage.PreTriage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of an in-process pre-triage answer (automaton scan plus building the response) for a
+ * short and a long description, against the network hop plus model time of an AI call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PreTriageBenchmark {
+
+    @Param({"short", "long"})
+    public String input;
+
+    private PreTriage preTriage;
+    private String description;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        preTriage = BenchmarkSupport.fallbackOnlyPreTriage();
+        description = input.equals("short")
+                ? "persistent headache with nausea and sensitivity to light"
+                : "For the last two weeks I have had a persistent headache, mostly in the mornings, with "
+                + "nausea and sensitivity to light. No fever. Sometimes I feel dizzy when standing up and "
+                + "there is some tingling in my left hand. Sleep has been poor, trouble sleeping most nights, "
+                + "and I feel tired during the day. My blood pressure was normal at the pharmacy.";
+    }
+
+    @Benchmark
+    public Optional<SymptomCheckResponse> classify() {
+        return preTriage.classify(description);
+    }
+}
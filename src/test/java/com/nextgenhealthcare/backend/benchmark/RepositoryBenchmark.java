@@ -0,0 +1,78 @@
+package com.nextgenhealthcare.backend.benchmark;
+
+import com.nextgenhealthcare.NextgenHealthcareBackendApplication;
+import com.nextgenhealthcare.datagen.BulkLoader;
+import com.nextgenhealthcare.datagen.DatasetSpec;
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.repository.AppointmentRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository queries on an embedded H2 loaded with a synthetic dataset (skewed doctors
+ * and patients, see SyntheticDataGenerator).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    @Param({"200000"})
+    public int appointments;
+
+    private ConfigurableApplicationContext context;
+    private AppointmentRepository repo;
+    private int doctors;
+    private int patients;
+    private LocalDateTime windowStart;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        context = new SpringApplicationBuilder(NextgenHealthcareBackendApplication.class)
+                .run("--server.port=0", "--logging.level.root=WARN");
+        repo = context.getBean(AppointmentRepository.class);
+        DatasetSpec spec = DatasetSpec.forAppointments(appointments);
+        doctors = spec.getDoctors();
+        patients = spec.getPatients();
+        context.getBean(BulkLoader.class).load(spec);
+        windowStart = LocalDateTime.now();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Appointment> findByDoctorId() {
+        return repo.findByDoctorId((long) ThreadLocalRandom.current().nextInt(1, doctors + 1));
+    }
+
+    @Benchmark
+    public List<Appointment> findByPatientId() {
+        return repo.findByPatientId((long) ThreadLocalRandom.current().nextInt(1, patients + 1));
+    }
+
+    @Benchmark
+    public Optional<Appointment> findById() {
+        return repo.findById((long) ThreadLocalRandom.current().nextInt(1, appointments + 1));
+    }
+
+    @Benchmark
+    public List<Appointment> reminderWindow() {
+        LocalDateTime from = windowStart.plusHours(ThreadLocalRandom.current().nextInt(0, 24 * 90));
+        return repo.findByStatusAndAppointmentTimeGreaterThanAndAppointmentTimeLessThanEqual(
+                "SCHEDULED", from, from.plusMinutes(15));
+    }
+}
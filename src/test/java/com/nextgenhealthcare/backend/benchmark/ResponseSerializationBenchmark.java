@@ -0,0 +1,102 @@
+package com.nextgenhealthcare.backend.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nextgenhealthcare.dto.AppointmentResponse;
+import com.nextgenhealthcare.dto.DoctorResponse;
+import com.nextgenhealthcare.dto.ErrorResponse;
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.model.Patient;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and, with the pom's gc profiler, bytes/op of the REST response bodies:
+ * {@code entity} is what the controllers returned before (entities, map-based error body),
+ * {@code reflective} the response records through Jackson's bean serializer and
+ * {@code precomputed} the records through their own serializers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    @Param({"entity", "reflective", "precomputed"})
+    public String serializer;
+
+    private ObjectMapper mapper;
+    private Object appointment;
+    private Object appointmentList;
+    private Object doctor;
+    private Object error;
+
+    @Setup
+    public void setUp() {
+        // Without annotations the records' @JsonSerialize is ignored and the bean serializer is used
+        mapper = "reflective".equals(serializer) ? BenchmarkSupport.reflectiveObjectMapper()
+                : BenchmarkSupport.bootObjectMapper();
+
+        Doctor d = new Doctor("Dr. Bench", "Cardiology", "bench@example.com");
+        d.setId(1L);
+        Patient p = new Patient("Pat Bench", 44, "pat@example.com");
+        p.setId(1L);
+        List<Appointment> appointments = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2026, 1, 5, 9, 0);
+        for (int i = 0; i < 100; i++) {
+            Appointment a = new Appointment(p, d, start.plusMinutes(30L * i), "Follow-up visit " + i);
+            a.setId((long) i + 1);
+            appointments.add(a);
+        }
+        d.setAppointments(appointments);
+
+        if ("entity".equals(serializer)) {
+            appointment = appointments.get(0);
+            appointmentList = appointments;
+            // The closest entity to the lean view: no appointments loaded
+            Doctor bare = new Doctor(d.getName(), d.getSpecialization(), d.getEmail());
+            bare.setId(d.getId());
+            doctor = bare;
+            Map<String, Object> body = new HashMap<>();
+            body.put("timestamp", LocalDateTime.now());
+            body.put("status", 404);
+            body.put("error", "Not Found");
+            body.put("message", "Appointment not found: 42");
+            error = body;
+        } else {
+            appointment = AppointmentResponse.from(appointments.get(0));
+            appointmentList = appointments.stream().map(AppointmentResponse::from).toList();
+            doctor = DoctorResponse.from(d);
+            error = new ErrorResponse(HttpStatus.NOT_FOUND, "Appointment not found: 42");
+        }
+    }
+
+    @Benchmark
+    public byte[] appointment() throws Exception {
+        return mapper.writeValueAsBytes(appointment);
+    }
+
+    @Benchmark
+    public byte[] appointmentList() throws Exception {
+        return mapper.writeValueAsBytes(appointmentList);
+    }
+
+    @Benchmark
+    public byte[] doctor() throws Exception {
+        return mapper.writeValueAsBytes(doctor);
+    }
+
+    @Benchmark
+    public byte[] error() throws Exception {
+        return mapper.writeValueAsBytes(error);
+    }
+}
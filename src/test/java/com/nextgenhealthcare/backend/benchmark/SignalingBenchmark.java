@@ -0,0 +1,77 @@
+package com.nextgenhealthcare.backend.benchmark;
+
+import com.nextgenhealthcare.backend.SdpSamples;
+import com.nextgenhealthcare.backend.StubWebSocketSession;
+import com.nextgenhealthcare.websocket.VideoCallWebSocketHandler;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VideoCallWebSocketHandler message handling per message type.
+ * "join" measures a join followed by connection close, "leave" a join followed by a leave message,
+ * since both mutate the room; the rest forward to the other participant of a two-party room.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignalingBenchmark {
+
+    @Param({"join", "leave", "offer", "answer", "ice-candidate", "ping"})
+    public String type;
+
+    private VideoCallWebSocketHandler handler;
+    private StubWebSocketSession caller;
+    private StubWebSocketSession transient3;
+    private TextMessage message;
+    private TextMessage joinOther;
+    private TextMessage leave;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkSupport.quietLogging();
+        handler = new VideoCallWebSocketHandler();
+        caller = new StubWebSocketSession("s1", false);
+        StubWebSocketSession callee = new StubWebSocketSession("s2", false);
+        transient3 = new StubWebSocketSession("s3", false);
+        handler.handleMessage(caller, join("room-1", "doctor-1"));
+        handler.handleMessage(callee, join("room-1", "patient-1"));
+
+        joinOther = join("room-2", "patient-2");
+        leave = new TextMessage("{\"type\":\"leave\"}");
+        message = switch (type) {
+            case "offer" -> new TextMessage(SdpSamples.offerMessage());
+            case "answer" -> new TextMessage(SdpSamples.answerMessage());
+            case "ice-candidate" -> new TextMessage(SdpSamples.candidateMessage());
+            case "ping" -> new TextMessage("{\"type\":\"ping\"}");
+            default -> null;
+        };
+    }
+
+    @Benchmark
+    public long handle() throws Exception {
+        switch (type) {
+            case "join" -> {
+                handler.handleMessage(transient3, joinOther);
+                handler.afterConnectionClosed(transient3, CloseStatus.NORMAL);
+            }
+            case "leave" -> {
+                transient3.reopen();
+                handler.handleMessage(transient3, joinOther);
+                handler.handleMessage(transient3, leave);
+            }
+            default -> handler.handleMessage(caller, message);
+        }
+        return transient3.getSentCount() + caller.getSentCount();
+    }
+
+    private static TextMessage join(String roomId, String userId) {
+        return new TextMessage("{\"type\":\"join\",\"roomId\":\"" + roomId + "\",\"userId\":\"" + userId
+                + "\",\"role\":\"PATIENT\",\"displayName\":\"" + userId + "\"}");
+    }
+}
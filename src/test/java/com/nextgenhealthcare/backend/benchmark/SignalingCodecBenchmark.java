@@ -0,0 +1,68 @@
+package com.nextgenhealthcare.backend.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nextgenhealthcare.backend.SdpSamples;
+import com.nextgenhealthcare.websocket.SignalingCodec;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Encode/decode cost of an SDP offer per signaling codec, and what permessage-deflate adds
+ * on top (raw deflate with sync flush, as the container does per frame).
+ * Wire sizes are printed by SignalingCodecTests.wireSizeOfAnOffer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignalingCodecBenchmark {
+
+    @Param({"JSON", "CBOR"})
+    public SignalingCodec codec;
+
+    private ObjectNode offer;
+    private WebSocketMessage<?> encoded;
+    private byte[] wireBytes;
+    private final byte[] deflateBuffer = new byte[16 * 1024];
+    private Deflater deflater;
+
+    @Setup
+    public void setUp() throws Exception {
+        offer = (ObjectNode) new ObjectMapper().readTree(SdpSamples.offerMessage());
+        encoded = codec.encode(offer);
+        wireBytes = encoded instanceof BinaryMessage b ? b.getPayload().array()
+                : ((TextMessage) encoded).getPayload().getBytes(StandardCharsets.UTF_8);
+        deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        deflater.end();
+    }
+
+    @Benchmark
+    public WebSocketMessage<?> encode() {
+        return codec.encode(offer);
+    }
+
+    @Benchmark
+    public Object decode() throws Exception {
+        return codec.decode(encoded);
+    }
+
+    @Benchmark
+    public int deflate() {
+        deflater.reset();
+        deflater.setInput(wireBytes);
+        return deflater.deflate(deflateBuffer, 0, deflateBuffer.length, Deflater.SYNC_FLUSH);
+    }
+}
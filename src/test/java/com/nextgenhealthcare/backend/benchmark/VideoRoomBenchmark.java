@@ -0,0 +1,54 @@
+package com.nextgenhealthcare.backend.benchmark;
+
+import com.nextgenhealthcare.backend.StubWebSocketSession;
+import com.nextgenhealthcare.websocket.Participant;
+import com.nextgenhealthcare.websocket.VideoRoom;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VideoRoom join, leave and peer lookup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VideoRoomBenchmark {
+
+    private VideoRoom fullRoom;
+    private VideoRoom halfRoom;
+    private Participant guest;
+
+    @Setup
+    public void setUp() {
+        fullRoom = new VideoRoom("room-1");
+        fullRoom.addParticipant("s1", participant("s1", "doctor-1"));
+        fullRoom.addParticipant("s2", participant("s2", "patient-1"));
+        halfRoom = new VideoRoom("room-2");
+        halfRoom.addParticipant("s3", participant("s3", "doctor-2"));
+        guest = participant("s4", "patient-2");
+    }
+
+    @Benchmark
+    public Participant peerLookup() {
+        return fullRoom.getOtherParticipant("s1");
+    }
+
+    @Benchmark
+    public Participant joinAndLeave() {
+        halfRoom.addParticipant("s4", guest);
+        return halfRoom.removeParticipant("s4");
+    }
+
+    @Benchmark
+    public boolean fullCheck() {
+        return fullRoom.isFull();
+    }
+
+    private static Participant participant(String sessionId, String userId) {
+        return new Participant(new StubWebSocketSession(sessionId, false), userId, "PATIENT", userId);
+    }
+}
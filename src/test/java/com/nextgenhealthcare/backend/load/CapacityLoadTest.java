@@ -0,0 +1,58 @@
+package com.nextgenhealthcare.backend.load;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Capacity run for each scripted traffic mix at a fixed request rate.
+ * Reports throughput and p50/p99/p999 per endpoint; JSON copies land in target/load-report-*.json.
+ *
+ * Run with: mvn -Pload-test test
+ * Tunables: -Dload.rps=50 -Dload.seconds=20 -Dload.warmupSeconds=5 -Dload.maxInFlight=256
+ *           -Dload.aiLatencyMs=150 -Dload.aiErrorRate=0.02 -Dload.doctors=50 -Dload.patients=2000
+ */
+@Tag("load")
+class CapacityLoadTest {
+
+    private static final int RPS = Integer.getInteger("load.rps", 50);
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("load.seconds", 20));
+    private static final Duration WARMUP = Duration.ofSeconds(Integer.getInteger("load.warmupSeconds", 5));
+    private static final int MAX_IN_FLIGHT = Integer.getInteger("load.maxInFlight", 256);
+
+    private static LoadTestHarness harness;
+
+    @BeforeAll
+    static void start() throws Exception {
+        harness = new LoadTestHarness(
+                Long.getLong("load.aiLatencyMs", 150),
+                Double.parseDouble(System.getProperty("load.aiErrorRate", "0.02")));
+        harness.seed(Integer.getInteger("load.doctors", 50), Integer.getInteger("load.patients", 2000), 20);
+    }
+
+    @AfterAll
+    static void stop() {
+        harness.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"booking", "browse", "triage", "release"})
+    void mix(String name) throws Exception {
+        TrafficMix mix = TrafficMixes.byName(name);
+        harness.run(mix, RPS, WARMUP, MAX_IN_FLIGHT);
+        Map<String, LatencyStats> stats = harness.run(mix, RPS, DURATION, MAX_IN_FLIGHT);
+        LoadTestHarness.report(name, stats, DURATION);
+
+        // AI failures are absorbed by AIService's fallback, so any HTTP error here is the backend's own
+        int requests = stats.values().stream().mapToInt(LatencyStats::count).sum();
+        int errors = stats.values().stream().mapToInt(LatencyStats::errors).sum();
+        assertThat(errors).isLessThanOrEqualTo(requests / 100);
+    }
+}
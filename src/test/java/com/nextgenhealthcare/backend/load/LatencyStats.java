@@ -0,0 +1,53 @@
+package com.nextgenhealthcare.backend.load;
+
+import java.util.Arrays;
+
+/**
+ * Latency samples and error count for one endpoint.
+ */
+public class LatencyStats {
+
+    private long[] samples = new long[4096];
+    private int count;
+    private int errors;
+
+    public synchronized void record(long nanos, boolean ok) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+        if (!ok) {
+            errors++;
+        }
+    }
+
+    public synchronized void merge(LatencyStats other) {
+        synchronized (other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.samples[i], true);
+            }
+            errors += other.errors;
+        }
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    public synchronized int errors() {
+        return errors;
+    }
+
+    /**
+     * @return the p-quantile (0..1) in milliseconds
+     */
+    public synchronized double percentileMillis(double p) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(p * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, rank))] / 1_000_000.0;
+    }
+}
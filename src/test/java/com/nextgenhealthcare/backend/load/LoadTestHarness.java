@@ -0,0 +1,272 @@
+package com.nextgenhealthcare.backend.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nextgenhealthcare.NextgenHealthcareBackendApplication;
+import com.nextgenhealthcare.backend.AiServiceStub;
+import com.nextgenhealthcare.model.Appointment;
+import com.nextgenhealthcare.model.Doctor;
+import com.nextgenhealthcare.model.Patient;
+import com.nextgenhealthcare.repository.AppointmentRepository;
+import com.nextgenhealthcare.repository.DoctorRepository;
+import com.nextgenhealthcare.repository.PatientRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Boots the backend on a random port against embedded H2 and an {@link AiServiceStub},
+ * then drives a {@link TrafficMix} open-loop at a target request rate.
+ *
+ * Latency is measured from each request's scheduled send time, so a server that falls
+ * behind is charged for the queueing it causes (no coordinated omission).
+ */
+public class LoadTestHarness implements AutoCloseable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final AiServiceStub aiStub;
+    private final ConfigurableApplicationContext context;
+    private final String baseUrl;
+    private final HttpClient http;
+    private Session session;
+
+    public LoadTestHarness(long aiLatencyMillis, double aiErrorRate, String... properties) throws IOException {
+        this.aiStub = new AiServiceStub(aiLatencyMillis, aiErrorRate);
+        // Passed as command-line args so they win over application.properties
+        String[] args = Stream.concat(
+                Stream.of("server.port=0", "ai.service.url=" + aiStub.url(), "logging.level.root=WARN"),
+                Stream.of(properties)).map(p -> "--" + p).toArray(String[]::new);
+        this.context = new SpringApplicationBuilder(NextgenHealthcareBackendApplication.class).run(args);
+        this.baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(16))
+                .build();
+    }
+
+    public ConfigurableApplicationContext context() {
+        return context;
+    }
+
+    public AiServiceStub aiStub() {
+        return aiStub;
+    }
+
+    public String baseUrl() {
+        return baseUrl;
+    }
+
+    public Session session() {
+        return session;
+    }
+
+    /**
+     * Creates doctors, patients and upcoming appointments through the repositories.
+     */
+    public Session seed(int doctors, int patients, int appointmentsPerDoctor) {
+        DoctorRepository doctorRepo = context.getBean(DoctorRepository.class);
+        PatientRepository patientRepo = context.getBean(PatientRepository.class);
+        AppointmentRepository appointmentRepo = context.getBean(AppointmentRepository.class);
+
+        List<Doctor> savedDoctors = new ArrayList<>();
+        for (int i = 0; i < doctors; i++) {
+            savedDoctors.add(new Doctor("Dr. Load " + i, "Specialty " + (i % 8), "dr" + i + "@example.com"));
+        }
+        savedDoctors = doctorRepo.saveAll(savedDoctors);
+        List<Patient> savedPatients = new ArrayList<>();
+        for (int i = 0; i < patients; i++) {
+            savedPatients.add(new Patient("Patient " + i, 20 + i % 60, "p" + i + "@example.com"));
+        }
+        savedPatients = patientRepo.saveAll(savedPatients);
+
+        SplittableRandom random = new SplittableRandom(7);
+        List<Appointment> appointments = new ArrayList<>();
+        for (Doctor d : savedDoctors) {
+            for (int i = 0; i < appointmentsPerDoctor; i++) {
+                Patient p = savedPatients.get(random.nextInt(savedPatients.size()));
+                appointments.add(new Appointment(p, d, LocalDateTime.now().plusHours(1 + random.nextInt(24 * 30)), "Visit"));
+            }
+        }
+        appointments = appointmentRepo.saveAll(appointments);
+
+        session = new Session(this,
+                savedDoctors.stream().map(Doctor::getId).toList(),
+                savedPatients.stream().map(Patient::getId).toList(),
+                appointments.stream().map(Appointment::getId).toList());
+        return session;
+    }
+
+    /**
+     * Sends {@code rps} requests per second for {@code duration}, at most {@code maxInFlight} at a time.
+     * Requests that cannot be sent because the in-flight cap is reached count as errors.
+     *
+     * @return stats per step name
+     */
+    public Map<String, LatencyStats> run(TrafficMix mix, int rps, Duration duration, int maxInFlight)
+            throws InterruptedException {
+        Map<String, LatencyStats> stats = new ConcurrentHashMap<>();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        SplittableRandom random = new SplittableRandom();
+        long interval = TimeUnit.SECONDS.toNanos(1) / rps;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * interval;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            TrafficMix.Step step = mix.pick(random);
+            LatencyStats s = stats.computeIfAbsent(step.name(), k -> new LatencyStats());
+            HttpRequest request = step.request().apply(session);
+            if (request == null) {
+                continue;
+            }
+            if (!inFlight.tryAcquire()) {
+                s.record(System.nanoTime() - intended, false);
+                continue;
+            }
+            http.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+                boolean ok = error == null && response.statusCode() < 400;
+                s.record(System.nanoTime() - intended, ok);
+                try {
+                    if (ok) {
+                        step.onResponse().accept(session, response.body());
+                    }
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+
+        if (inFlight.tryAcquire(maxInFlight, 60, TimeUnit.SECONDS)) {
+            inFlight.release(maxInFlight);
+        }
+        return new TreeMap<>(stats);
+    }
+
+    /**
+     * Prints a per-endpoint table and writes the same numbers to target/load-report-{name}.json.
+     */
+    public static void report(String name, Map<String, LatencyStats> stats, Duration duration) throws IOException {
+        ObjectNode json = JSON.createObjectNode();
+        double seconds = duration.toMillis() / 1000.0;
+        System.out.printf("%n== %s (%.0fs) ==%n", name, seconds);
+        System.out.printf("%-22s %8s %9s %7s %9s %9s %9s%n", "endpoint", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p999 ms");
+        for (Map.Entry<String, LatencyStats> e : stats.entrySet()) {
+            LatencyStats s = e.getValue();
+            System.out.printf("%-22s %8d %9.1f %7d %9.1f %9.1f %9.1f%n", e.getKey(), s.count(), s.count() / seconds,
+                    s.errors(), s.percentileMillis(0.50), s.percentileMillis(0.99), s.percentileMillis(0.999));
+            ObjectNode node = json.putObject(e.getKey());
+            node.put("requests", s.count());
+            node.put("throughput", s.count() / seconds);
+            node.put("errors", s.errors());
+            node.put("p50Ms", s.percentileMillis(0.50));
+            node.put("p99Ms", s.percentileMillis(0.99));
+            node.put("p999Ms", s.percentileMillis(0.999));
+        }
+        Path out = Path.of("target", "load-report-" + name + ".json");
+        Files.createDirectories(out.getParent());
+        JSON.writerWithDefaultPrettyPrinter().writeValue(out.toFile(), json);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        aiStub.close();
+    }
+
+    /**
+     * Ids known to the traffic script; appointments created during the run are added,
+     * deleted ones removed.
+     */
+    public static class Session {
+        private final LoadTestHarness harness;
+        private final List<Long> doctorIds;
+        private final List<Long> patientIds;
+        private final List<Long> appointmentIds;
+        private final SplittableRandom random = new SplittableRandom(11);
+
+        Session(LoadTestHarness harness, List<Long> doctorIds, List<Long> patientIds, List<Long> appointmentIds) {
+            this.harness = harness;
+            this.doctorIds = doctorIds;
+            this.patientIds = patientIds;
+            this.appointmentIds = new ArrayList<>(appointmentIds);
+        }
+
+        public long randomDoctor() {
+            return doctorIds.get(random.nextInt(doctorIds.size()));
+        }
+
+        public long randomPatient() {
+            return patientIds.get(random.nextInt(patientIds.size()));
+        }
+
+        public synchronized Long randomAppointment() {
+            return appointmentIds.isEmpty() ? null : appointmentIds.get(random.nextInt(appointmentIds.size()));
+        }
+
+        // Removes the id so two deletes never target the same appointment
+        public synchronized Long takeAppointment() {
+            if (appointmentIds.isEmpty()) {
+                return null;
+            }
+            int i = random.nextInt(appointmentIds.size());
+            Long last = appointmentIds.remove(appointmentIds.size() - 1);
+            return i == appointmentIds.size() ? last : appointmentIds.set(i, last);
+        }
+
+        public synchronized void addAppointment(long id) {
+            appointmentIds.add(id);
+        }
+
+        public HttpRequest get(String path) {
+            return HttpRequest.newBuilder(uri(path)).GET().build();
+        }
+
+        public HttpRequest delete(String path) {
+            return HttpRequest.newBuilder(uri(path)).DELETE().build();
+        }
+
+        public HttpRequest post(String path, String json) {
+            return HttpRequest.newBuilder(uri(path)).header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json)).build();
+        }
+
+        public HttpRequest put(String path, String json) {
+            return HttpRequest.newBuilder(uri(path)).header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(json)).build();
+        }
+
+        private URI uri(String path) {
+            return URI.create(harness.baseUrl + path);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.nextgenhealthcare.backend.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Starts the packaged application in a fresh JVM three ways and compares how soon it can
+ * serve and how its first minute of traffic looks:
+ * <ul>
+ *   <li>cold: no archive, warm-up disabled (the old startup)</li>
+ *   <li>warm-up: readiness waits for the pre-warm phase</li>
+ *   <li>cds+warm-up: additionally starts from the class-data-sharing archive</li>
+ * </ul>
+ * "ready" is the time from process start until /actuator/health/readiness answers 200; traffic
+ * starts at that point, as a load balancer would send it, and latency is measured open-loop
+ * from each request's scheduled time.
+ *
+ * Needs the archive built first: mvn -Pcds package, then mvn -Pload-test test -Dtest=StartupLoadTest
+ * Tunables: -Dload.seconds=60 -Dload.rps=100
+ */
+@Tag("load")
+class StartupLoadTest {
+
+    private static final int SECONDS = Integer.getInteger("load.seconds", 60);
+    private static final int RPS = Integer.getInteger("load.rps", 100);
+    private static final Path CDS_DIR = Path.of("target", "cds");
+    private static final Path ARCHIVE = CDS_DIR.resolve("application.jsa");
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+    @Test
+    void startupModes() throws Exception {
+        assumeTrue(Files.exists(ARCHIVE), "run mvn -Pcds package first");
+
+        System.out.printf("%-12s %9s %11s %11s %11s %11s %11s %7s%n", "mode", "ready ms", "first ms",
+                "5s p99 ms", "p50 ms", "p99 ms", "max ms", "errors");
+        for (String mode : List.of("cold", "warm-up", "cds+warm-up")) {
+            Result r = measure(mode);
+            System.out.printf("%-12s %9d %11.1f %11.1f %11.1f %11.1f %11.1f %7d%n", mode, r.readyMillis,
+                    r.firstRequestMillis, r.firstSeconds.percentileMillis(0.99), r.minute.percentileMillis(0.50),
+                    r.minute.percentileMillis(0.99), r.minute.percentileMillis(1.0), r.minute.errors());
+            // A cold instance may time out requests in its first seconds; that is what is being measured
+            if (!mode.equals("cold")) {
+                assertThat(r.minute.errors()).isLessThanOrEqualTo(r.minute.count() / 100);
+            }
+        }
+    }
+
+    private Result measure(String mode) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (mode.startsWith("cds")) {
+            command.add("-XX:SharedArchiveFile=" + ARCHIVE);
+        }
+        command.add("-jar");
+        command.add(packagedJar().toString());
+        command.addAll(List.of(
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:mem:startup;DB_CLOSE_DELAY=-1;MODE=MySQL",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.sql.init.mode=never",
+                "--app.scheduling.enabled=false",
+                "--ai.service.url=http://localhost:5000",
+                "--app.warmup.enabled=" + !mode.equals("cold")));
+
+        Path log = Path.of("target", "startup-" + mode.replace('+', '-') + ".log");
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            String base = "http://localhost:" + port;
+            Result result = new Result();
+            result.readyMillis = awaitReady(base + "/actuator/health/readiness", process, start);
+
+            long firstStart = System.nanoTime();
+            HttpResponse<String> created = http.send(post(base + "/doctors",
+                    "{\"name\":\"Dr. Startup\",\"specialization\":\"Cardiology\",\"email\":\"startup@example.com\"}"),
+                    HttpResponse.BodyHandlers.ofString());
+            result.firstRequestMillis = (System.nanoTime() - firstStart) / 1e6;
+            Matcher m = ID.matcher(created.body());
+            assertThat(m.find()).as("created doctor: %s", created.body()).isTrue();
+            long doctorId = Long.parseLong(m.group(1));
+
+            List<HttpRequest> requests = List.of(
+                    get(base + "/doctors/" + doctorId),
+                    get(base + "/doctors"),
+                    get(base + "/appointments/doctor/" + doctorId),
+                    get(base + "/appointments/changes?since=0&limit=50"));
+            drive(requests, result);
+            return result;
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private void drive(List<HttpRequest> requests, Result result) throws InterruptedException {
+        long interval = TimeUnit.SECONDS.toNanos(1) / RPS;
+        long start = System.nanoTime();
+        long firstWindowEnd = start + TimeUnit.SECONDS.toNanos(5);
+        long end = start + TimeUnit.SECONDS.toNanos(SECONDS);
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        for (long i = 0; ; i++) {
+            long intended = start + i * interval;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            boolean early = intended < firstWindowEnd;
+            pending.add(http.sendAsync(requests.get((int) (i % requests.size())), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        boolean ok = error == null && response.statusCode() < 400;
+                        long latency = System.nanoTime() - intended;
+                        result.minute.record(latency, ok);
+                        if (early) {
+                            result.firstSeconds.record(latency, ok);
+                        }
+                    }));
+        }
+        for (CompletableFuture<?> f : pending) {
+            try {
+                f.join();
+            } catch (Exception ignored) {
+                // recorded as an error above
+            }
+        }
+    }
+
+    private long awaitReady(String url, Process process, long start) throws Exception {
+        HttpRequest probe = get(url);
+        long deadline = start + TimeUnit.SECONDS.toNanos(120);
+        while (System.nanoTime() < deadline) {
+            assertThat(process.isAlive()).as("application exited during startup").isTrue();
+            try {
+                if (http.send(probe, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return (System.nanoTime() - start) / 1_000_000;
+                }
+            } catch (IOException notListeningYet) {
+                // keep polling
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("application not ready after 120s");
+    }
+
+    private static Path packagedJar() throws IOException {
+        try (var files = Files.list(CDS_DIR)) {
+            return files.filter(p -> p.toString().endsWith(".jar")).findFirst()
+                    .orElseThrow(() -> new IllegalStateException("no extracted jar in " + CDS_DIR));
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(10)).GET().build();
+    }
+
+    private static HttpRequest post(String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private static class Result {
+        long readyMillis;
+        double firstRequestMillis;
+        final LatencyStats firstSeconds = new LatencyStats();
+        final LatencyStats minute = new LatencyStats();
+    }
+}
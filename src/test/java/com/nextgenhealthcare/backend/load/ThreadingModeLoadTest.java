@@ -0,0 +1,103 @@
+package com.nextgenhealthcare.backend.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares platform-thread and virtual-thread request handling on /appointments,
+ * /ai/symptom-check (against a stub with fixed latency) and a mixed workload.
+ *
+ * Unlike {@link CapacityLoadTest} this is closed-loop: a fixed number of clients send
+ * back-to-back, which is what exposes the size of the server's thread pool.
+ *
+ * Run with: mvn -Pload-test test  (the virtual-thread case needs Java 21+).
+ * Tunables: -Dload.clients=200 -Dload.seconds=10 -Dload.aiLatencyMs=100
+ */
+@Tag("load")
+class ThreadingModeLoadTest {
+
+    private static final int CLIENTS = Integer.getInteger("load.clients", 200);
+    private static final int SECONDS = Integer.getInteger("load.seconds", 10);
+    private static final long AI_LATENCY_MS = Long.getLong("load.aiLatencyMs", 100);
+
+    @Test
+    void platformThreads() throws Exception {
+        runAllWorkloads("platform", "spring.threads.virtual.enabled=false");
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void virtualThreads() throws Exception {
+        runAllWorkloads("virtual", "spring.profiles.active=virtual");
+    }
+
+    private void runAllWorkloads(String mode, String modeProperty) throws Exception {
+        try (LoadTestHarness harness = new LoadTestHarness(AI_LATENCY_MS, 0.0, modeProperty)) {
+            LoadTestHarness.Session session = harness.seed(10, 10, 20);
+
+            for (String workload : List.of("appointments", "symptom-check", "mixed")) {
+                LatencyStats r = drive(session, workload);
+                System.out.printf("%-8s %-14s %8d req %8.1f req/s  p50 %6.1f ms  p99 %7.1f ms  errors %d%n",
+                        mode, workload, r.count(), r.count() / (double) SECONDS,
+                        r.percentileMillis(0.50), r.percentileMillis(0.99), r.errors());
+                assertThat(r.errors()).isLessThanOrEqualTo(r.count() / 100);
+            }
+        }
+    }
+
+    private static LatencyStats drive(LoadTestHarness.Session session, String workload) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(16))
+                .build();
+        HttpRequest list = session.get("/appointments/doctor/" + session.randomDoctor());
+        HttpRequest check = session.post("/ai/symptom-check", "{\"symptoms\":\"headache and nausea since yesterday\"}");
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(SECONDS).toNanos();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        List<Future<LatencyStats>> futures = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            futures.add(clients.submit(() -> {
+                LatencyStats local = new LatencyStats();
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = switch (workload) {
+                        case "appointments" -> list;
+                        case "symptom-check" -> check;
+                        default -> ThreadLocalRandom.current().nextInt(10) < 7 ? list : check;
+                    };
+                    long start = System.nanoTime();
+                    boolean ok;
+                    try {
+                        ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 400;
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    local.record(System.nanoTime() - start, ok);
+                }
+                return local;
+            }));
+        }
+
+        LatencyStats total = new LatencyStats();
+        for (Future<LatencyStats> f : futures) {
+            total.merge(f.get());
+        }
+        clients.shutdown();
+        return total;
+    }
+}
@@ -0,0 +1,58 @@
+package com.nextgenhealthcare.backend.load;
+
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A weighted set of request steps. Each step builds its request from the shared
+ * {@link LoadTestHarness.Session} and may record state from the response body
+ * (e.g. the id of a created appointment for later updates and deletes).
+ */
+public class TrafficMix {
+
+    public record Step(String name, int weight,
+                       Function<LoadTestHarness.Session, HttpRequest> request,
+                       BiConsumer<LoadTestHarness.Session, String> onResponse) { }
+
+    private final String name;
+    private final List<Step> steps = new ArrayList<>();
+    private int totalWeight;
+
+    public TrafficMix(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public TrafficMix step(String name, int weight, Function<LoadTestHarness.Session, HttpRequest> request) {
+        return step(name, weight, request, (session, body) -> { });
+    }
+
+    public TrafficMix step(String name, int weight, Function<LoadTestHarness.Session, HttpRequest> request,
+                           BiConsumer<LoadTestHarness.Session, String> onResponse) {
+        steps.add(new Step(name, weight, request, onResponse));
+        totalWeight += weight;
+        return this;
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    Step pick(SplittableRandom random) {
+        int r = random.nextInt(totalWeight);
+        for (Step s : steps) {
+            r -= s.weight();
+            if (r < 0) {
+                return s;
+            }
+        }
+        throw new IllegalStateException("Empty traffic mix " + name);
+    }
+}
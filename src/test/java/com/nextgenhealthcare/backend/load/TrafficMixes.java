@@ -0,0 +1,100 @@
+package com.nextgenhealthcare.backend.load;
+
+import java.net.http.HttpRequest;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Scripted traffic mixes for {@link CapacityLoadTest}.
+ */
+public final class TrafficMixes {
+
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final String[] SYMPTOMS = {
+            "persistent headache with nausea and sensitivity to light",
+            "chest pain when climbing stairs and shortness of breath",
+            "itchy red rash on both forearms for a week",
+            "sore throat, fever and swollen glands",
+            "lower back pain radiating into the left leg"
+    };
+
+    private TrafficMixes() {}
+
+    public static TrafficMix byName(String name) {
+        return switch (name) {
+            case "booking" -> booking();
+            case "browse" -> browse();
+            case "triage" -> triage();
+            case "release" -> release();
+            default -> throw new IllegalArgumentException("Unknown traffic mix " + name);
+        };
+    }
+
+    // Reception desk: appointment CRUD
+    public static TrafficMix booking() {
+        TrafficMix mix = new TrafficMix("booking");
+        addAppointmentCrud(mix, 1);
+        return mix;
+    }
+
+    // Patients browsing doctors and their schedules
+    public static TrafficMix browse() {
+        TrafficMix mix = new TrafficMix("browse");
+        addDoctorLookups(mix, 1);
+        return mix;
+    }
+
+    public static TrafficMix triage() {
+        TrafficMix mix = new TrafficMix("triage");
+        addSymptomChecks(mix, 1);
+        return mix;
+    }
+
+    // Approximation of production traffic used for the pre-release capacity number
+    public static TrafficMix release() {
+        TrafficMix mix = new TrafficMix("release");
+        addDoctorLookups(mix, 5);
+        addAppointmentCrud(mix, 3);
+        addSymptomChecks(mix, 1);
+        return mix;
+    }
+
+    private static void addAppointmentCrud(TrafficMix mix, int scale) {
+        mix.step("appointment-create", 3 * scale, s -> s.post("/appointments", appointmentJson(s.randomPatient(), s.randomDoctor())),
+                        (s, body) -> {
+                            Matcher m = ID.matcher(body);
+                            if (m.find()) {
+                                s.addAppointment(Long.parseLong(m.group(1)));
+                            }
+                        })
+                .step("appointment-get", 8 * scale, s -> idRequest(s.randomAppointment(), id -> s.get("/appointments/" + id)))
+                .step("appointment-by-doctor", 4 * scale, s -> s.get("/appointments/doctor/" + s.randomDoctor()))
+                .step("appointment-update", 2 * scale, s -> idRequest(s.randomAppointment(),
+                        id -> s.put("/appointments/" + id, "{\"status\":\"CONFIRMED\"}")))
+                .step("appointment-delete", scale, s -> idRequest(s.takeAppointment(), id -> s.delete("/appointments/" + id)));
+    }
+
+    private static void addDoctorLookups(TrafficMix mix, int scale) {
+        mix.step("doctor-list", scale, s -> s.get("/doctors"))
+                .step("doctor-get", 4 * scale, s -> s.get("/doctors/" + s.randomDoctor()))
+                .step("doctor-schedule", 3 * scale, s -> s.get("/appointments/doctor/" + s.randomDoctor()));
+    }
+
+    private static void addSymptomChecks(TrafficMix mix, int scale) {
+        mix.step("symptom-check", scale, s -> s.post("/ai/symptom-check",
+                "{\"symptoms\":\"" + SYMPTOMS[ThreadLocalRandom.current().nextInt(SYMPTOMS.length)] + "\"}"));
+    }
+
+    private static String appointmentJson(long patientId, long doctorId) {
+        LocalDateTime when = LocalDateTime.now().plusDays(1 + ThreadLocalRandom.current().nextInt(60)).withNano(0);
+        return "{\"patientId\":" + patientId + ",\"doctorId\":" + doctorId
+                + ",\"appointmentTime\":\"" + when + "\",\"reason\":\"Load test\"}";
+    }
+
+    private static HttpRequest idRequest(Long id, LongFunction<HttpRequest> build) {
+        return id == null ? null : build.apply(id);
+    }
+}